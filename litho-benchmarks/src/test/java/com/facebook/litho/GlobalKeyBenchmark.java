@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the time and the memory it takes to generate the global keys of all the components of
+ * a tree, record them as {@link StateHandler} and {@link ComponentTree} do and look them up again,
+ * with String keys built by {@link ComponentKeyUtils} against {@link GlobalKey}s. Lives in the
+ * com.facebook.litho package because GlobalKey is package private.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class GlobalKeyBenchmark {
+
+  private static final int[] DEPTHS = {4, 8, 12};
+  private static final int NODES_PER_TREE = 50_000;
+  private static final int WARMUP_RUNS = 3;
+  private static final int MEASURED_RUNS = 10;
+
+  @Test
+  public void keyGenerationAndLookup() {
+    for (int depth : DEPTHS) {
+      report("String", depth, measure(new StringKeys(), depth));
+      report("GlobalKey", depth, measure(new GlobalKeys(), depth));
+    }
+  }
+
+  private static Result measure(KeyGenerator<?> generator, int depth) {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      generator.run(depth);
+    }
+
+    final long startBytes = allocatedBytes();
+    final long startTime = System.nanoTime();
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      generator.run(depth);
+    }
+    final long nanos = System.nanoTime() - startTime;
+    final long bytes = allocatedBytes() - startBytes;
+
+    final int keys = NODES_PER_TREE * MEASURED_RUNS;
+    return new Result((double) nanos / keys, startBytes < 0 ? -1 : (double) bytes / keys);
+  }
+
+  private static long allocatedBytes() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+
+    return ((com.sun.management.ThreadMXBean) bean)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static void report(String name, int depth, Result result) {
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%-10s depth=%-3d %8.1f ns/key %8.1f bytes/key",
+            name,
+            depth,
+            result.mNanosPerKey,
+            result.mBytesPerKey));
+  }
+
+  private static class Result {
+    private final double mNanosPerKey;
+    private final double mBytesPerKey;
+
+    Result(double nanosPerKey, double bytesPerKey) {
+      mNanosPerKey = nanosPerKey;
+      mBytesPerKey = bytesPerKey;
+    }
+  }
+
+  /**
+   * Generates the keys of {@link #NODES_PER_TREE} components laid out as chains of the given depth
+   * under a common root, where every component has the type id of a typical generated component
+   * as its key and every tenth component is a duplicate that needs a position suffix.
+   */
+  private abstract static class KeyGenerator<K> {
+
+    void run(int depth) {
+      // Components hold on to their own key, only the global keys are generated for each layout.
+      final String[] localKeys = new String[depth];
+      for (int level = 0; level < depth; level++) {
+        localKeys[level] = Integer.toString(1000 + level);
+      }
+
+      final Map<K, Object> map = new HashMap<>();
+      final K root = createRoot("1234");
+      int nodes = 0;
+      while (nodes < NODES_PER_TREE) {
+        K key = root;
+        for (int level = 0; level < depth && nodes < NODES_PER_TREE; level++, nodes++) {
+          key = createChild(key, localKeys[level]);
+          if (nodes % 10 == 0) {
+            key = createForChildPosition(key, nodes % 7);
+          }
+          map.put(key, key);
+        }
+      }
+
+      for (K key : map.keySet()) {
+        if (map.get(key) == null) {
+          throw new IllegalStateException();
+        }
+      }
+    }
+
+    abstract K createRoot(String key);
+
+    abstract K createChild(K parent, String key);
+
+    abstract K createForChildPosition(K key, int position);
+  }
+
+  private static class StringKeys extends KeyGenerator<String> {
+
+    @Override
+    String createRoot(String key) {
+      return key;
+    }
+
+    @Override
+    String createChild(String parent, String key) {
+      return ComponentKeyUtils.getKeyWithSeparator(parent, key);
+    }
+
+    @Override
+    String createForChildPosition(String key, int position) {
+      return ComponentKeyUtils.getKeyForChildPosition(key, position);
+    }
+  }
+
+  private static class GlobalKeys extends KeyGenerator<GlobalKey> {
+
+    @Override
+    GlobalKey createRoot(String key) {
+      return GlobalKey.create(key);
+    }
+
+    @Override
+    GlobalKey createChild(GlobalKey parent, String key) {
+      return GlobalKey.create(parent, key);
+    }
+
+    @Override
+    GlobalKey createForChildPosition(GlobalKey key, int position) {
+      return GlobalKey.createForChildPosition(key, position);
+    }
+  }
+}
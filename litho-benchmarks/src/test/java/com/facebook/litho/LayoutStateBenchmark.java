@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.UNSPECIFIED;
+
+import com.facebook.litho.benchmarks.BenchmarkRunner;
+import com.facebook.litho.benchmarks.SyntheticTree;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Measures {@link LayoutState#calculate} for synthetic trees of growing depth, fan-out and text
+ * density, both from scratch and against the diff tree of a previous layout of the same tree as
+ * {@link ComponentTree} does when layout diffing is enabled. Lives in the com.facebook.litho
+ * package because LayoutState is package private.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class LayoutStateBenchmark {
+
+  static final int[] DEPTHS = {3, 5};
+  static final int[] FAN_OUTS = {2, 4};
+  static final float[] TEXT_DENSITIES = {0f, 0.5f, 1f};
+
+  private static final int WIDTH_SPEC = SizeSpec.makeSizeSpec(1080, EXACTLY);
+  private static final int HEIGHT_SPEC = SizeSpec.makeSizeSpec(0, UNSPECIFIED);
+
+  @Test
+  public void calculateLayout() {
+    final ComponentContext c = new ComponentContext(RuntimeEnvironment.application);
+    for (int depth : DEPTHS) {
+      for (int fanOut : FAN_OUTS) {
+        for (float textDensity : TEXT_DENSITIES) {
+          final SyntheticTree tree = new SyntheticTree(depth, fanOut, textDensity);
+          BenchmarkRunner.measure("LayoutState.calculate", tree.describe(), new Calculate(c, tree));
+          BenchmarkRunner.measure(
+              "LayoutState.calculate(diff)", tree.describe(), new CalculateWithDiff(c, tree));
+        }
+      }
+    }
+  }
+
+  static LayoutState calculate(
+      ComponentContext c, Component component, boolean diff, DiffNode previousDiffTree) {
+    return LayoutState.calculate(
+        c,
+        component,
+        -1,
+        WIDTH_SPEC,
+        HEIGHT_SPEC,
+        diff /* shouldGenerateDiffTree */,
+        previousDiffTree,
+        false /* canPrefetchDisplayLists */,
+        false /* canCacheDrawingDisplayLists */,
+        true /* clipChildren */,
+        LayoutState.CalculateLayoutSource.TEST);
+  }
+
+  private static class Calculate extends BenchmarkRunner.Operation {
+
+    private final ComponentContext mContext;
+    private final Component mComponent;
+    private LayoutState mLayoutState;
+
+    Calculate(ComponentContext c, Component component) {
+      mContext = c;
+      mComponent = component;
+    }
+
+    @Override
+    public void setUp() {
+      if (mLayoutState != null) {
+        mLayoutState.releaseRef();
+        mLayoutState = null;
+      }
+    }
+
+    @Override
+    public void run() {
+      mLayoutState = calculate(mContext, mComponent, false, null);
+    }
+  }
+
+  private static class CalculateWithDiff extends BenchmarkRunner.Operation {
+
+    private final ComponentContext mContext;
+    private final Component mComponent;
+    private final LayoutState mPreviousLayoutState;
+    private LayoutState mLayoutState;
+
+    CalculateWithDiff(ComponentContext c, Component component) {
+      mContext = c;
+      mComponent = component;
+      mPreviousLayoutState = calculate(c, component, true, null);
+    }
+
+    @Override
+    public void setUp() {
+      if (mLayoutState != null) {
+        mLayoutState.releaseRef();
+        mLayoutState = null;
+      }
+    }
+
+    @Override
+    public void run() {
+      mLayoutState = calculate(mContext, mComponent, true, mPreviousLayoutState.getDiffTree());
+    }
+  }
+}
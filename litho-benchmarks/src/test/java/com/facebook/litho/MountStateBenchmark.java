@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import com.facebook.litho.benchmarks.BenchmarkRunner;
+import com.facebook.litho.benchmarks.SyntheticTree;
+import com.facebook.litho.testing.helper.ComponentTestHelper;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Measures {@link MountState#mount} of the layouts of the synthetic trees of {@link
+ * LayoutStateBenchmark} into a {@link LithoView} that has nothing mounted, as happens when a
+ * recycled view is bound to a new item. Mount content is recycled between invocations, as it is in
+ * an app after the first items were shown. Lives in the com.facebook.litho package because
+ * MountState is package private.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class MountStateBenchmark {
+
+  @Test
+  public void mount() {
+    final ComponentContext c = new ComponentContext(RuntimeEnvironment.application);
+    for (int depth : LayoutStateBenchmark.DEPTHS) {
+      for (int fanOut : LayoutStateBenchmark.FAN_OUTS) {
+        for (float textDensity : LayoutStateBenchmark.TEXT_DENSITIES) {
+          final SyntheticTree tree = new SyntheticTree(depth, fanOut, textDensity);
+          BenchmarkRunner.measure("MountState.mount", tree.describe(), new Mount(c, tree));
+        }
+      }
+    }
+  }
+
+  private static class Mount extends BenchmarkRunner.Operation {
+
+    private final LithoView mLithoView;
+    private final LayoutState mLayoutState;
+
+    Mount(ComponentContext c, Component component) {
+      mLithoView = new LithoView(c);
+      mLithoView.setComponentTree(
+          ComponentTree.create(c, component)
+              .incrementalMount(false)
+              .layoutDiffing(false)
+              .build());
+      mLithoView.onAttachedToWindow();
+      ComponentTestHelper.measureAndLayout(mLithoView);
+      mLayoutState = mLithoView.getComponentTree().getMainThreadLayoutState();
+    }
+
+    @Override
+    public void setUp() {
+      mLithoView.unmountAllItems();
+      mLithoView.setMountStateDirty();
+    }
+
+    @Override
+    public void run() {
+      mLithoView.getMountState().mount(mLayoutState, null, false);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Runs an {@link Operation} until its time per invocation is stable enough to compare and prints
+ * how many nanoseconds and how many allocated bytes one invocation takes. Only {@link
+ * Operation#run()} is measured, so that an operation can bring its state back with {@link
+ * Operation#setUp()} before every invocation, like a JMH setup at the invocation level.
+ *
+ * <p>Every benchmark prints one line per set of parameters, so that the output of two revisions
+ * can be compared line by line.
+ */
+public final class BenchmarkRunner {
+
+  private static final long WARMUP_NANOS = 500_000_000L;
+  private static final long MEASURED_NANOS = 1_000_000_000L;
+  private static final int MIN_WARMUP_INVOCATIONS = 5;
+  private static final int MIN_MEASURED_INVOCATIONS = 10;
+
+  private BenchmarkRunner() {}
+
+  public abstract static class Operation {
+
+    /** Called before every invocation of {@link #run()}, outside of the measurement. */
+    public void setUp() {}
+
+    public abstract void run();
+  }
+
+  /**
+   * Measures the given operation and prints the result, labelled with the benchmark name and a
+   * description of its parameters.
+   *
+   * @return the nanoseconds one invocation takes.
+   */
+  public static double measure(String name, String params, Operation operation) {
+    runFor(operation, WARMUP_NANOS, MIN_WARMUP_INVOCATIONS, null);
+
+    final long[] totals = new long[2];
+    final int invocations = runFor(operation, MEASURED_NANOS, MIN_MEASURED_INVOCATIONS, totals);
+
+    final double nanosPerInvocation = (double) totals[0] / invocations;
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%-28s %-40s %14.1f ns/op %14.1f bytes/op",
+            name,
+            params,
+            nanosPerInvocation,
+            totals[1] < 0 ? -1 : (double) totals[1] / invocations));
+    return nanosPerInvocation;
+  }
+
+  /**
+   * Invokes the operation until both the given time was spent in it and it was invoked the given
+   * number of times.
+   *
+   * @param totals if not null, receives the nanoseconds spent in and the bytes allocated by all
+   *     invocations, or -1 bytes if the JVM can't count allocations.
+   * @return the number of invocations.
+   */
+  private static int runFor(Operation operation, long nanos, int minInvocations, long[] totals) {
+    long spentNanos = 0;
+    long allocatedBytes = 0;
+    int invocations = 0;
+    while (spentNanos < nanos || invocations < minInvocations) {
+      operation.setUp();
+
+      final long startBytes = allocatedBytes();
+      final long startTime = System.nanoTime();
+      operation.run();
+      spentNanos += System.nanoTime() - startTime;
+      allocatedBytes = startBytes < 0 ? -1 : allocatedBytes + allocatedBytes() - startBytes;
+      invocations++;
+    }
+
+    if (totals != null) {
+      totals[0] = spentNanos;
+      totals[1] = allocatedBytes;
+    }
+    return invocations;
+  }
+
+  private static long allocatedBytes() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+
+    return ((com.sun.management.ThreadMXBean) bean)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import com.facebook.litho.dataflow.DataFlowGraph;
+import com.facebook.litho.dataflow.GraphBinding;
+import com.facebook.litho.dataflow.MockTimingSource;
+import com.facebook.litho.dataflow.NodeCanFinish;
+import com.facebook.litho.dataflow.SimpleNode;
+import com.facebook.litho.dataflow.ValueNode;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures how long it takes a {@link DataFlowGraph} to start an animation and to end it, while a
+ * growing number of other animations keep running, e.g. the items of a list moving together. Each
+ * invocation registers a binding, runs a frame, unregisters the binding and runs another frame.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class DataFlowGraphBenchmark {
+
+  private static final int[] RUNNING_ANIMATION_COUNTS = {0, 10, 50, 200};
+
+  @Test
+  public void registerAndUnregisterBinding() {
+    for (int runningAnimationCount : RUNNING_ANIMATION_COUNTS) {
+      BenchmarkRunner.measure(
+          "DataFlowGraph.register",
+          String.format(Locale.US, "running=%d", runningAnimationCount),
+          new RegisterAndUnregister(runningAnimationCount));
+    }
+  }
+
+  /** @return a binding of a source through an intermediate node into a property node. */
+  private static GraphBinding createAnimationBinding(DataFlowGraph dataFlowGraph) {
+    final GraphBinding binding = GraphBinding.create(dataFlowGraph);
+    final SimpleNode intermediateNode = new SimpleNode();
+    binding.addBinding(new RunningNode(), intermediateNode);
+    binding.addBinding(intermediateNode, new SimpleNode());
+    return binding;
+  }
+
+  private static class RegisterAndUnregister extends BenchmarkRunner.Operation {
+
+    private final MockTimingSource mTimingSource = new MockTimingSource();
+    private final DataFlowGraph mDataFlowGraph = DataFlowGraph.create(mTimingSource);
+    private GraphBinding mBinding;
+
+    RegisterAndUnregister(int runningAnimationCount) {
+      for (int i = 0; i < runningAnimationCount; i++) {
+        createAnimationBinding(mDataFlowGraph).activate();
+      }
+      mTimingSource.step(1);
+    }
+
+    @Override
+    public void setUp() {
+      mBinding = createAnimationBinding(mDataFlowGraph);
+    }
+
+    @Override
+    public void run() {
+      mBinding.activate();
+      mTimingSource.step(1);
+      mBinding.deactivate();
+      mTimingSource.step(1);
+    }
+  }
+
+  /** A source node that never finishes, so that the animations only end when unregistered. */
+  private static class RunningNode extends ValueNode implements NodeCanFinish {
+
+    @Override
+    protected float calculateValue(long frameTimeNanos) {
+      return frameTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return false;
+    }
+  }
+}
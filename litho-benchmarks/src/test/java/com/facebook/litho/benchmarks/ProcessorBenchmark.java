@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import com.facebook.litho.specmodels.processor.AbstractComponentsProcessor;
+import com.facebook.litho.specmodels.processor.ComponentsProcessor;
+import com.facebook.litho.specmodels.processor.testing.ComponentsTestingProcessor;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+
+/**
+ * Measures the cost of running the components annotation processors on a corpus of synthetic
+ * layout specs with props, state, an event handler and a state update, a quarter of which also have
+ * a {@link com.facebook.litho.annotations.TestSpec}. The cost of compiling the corpus without the
+ * processors is measured too, so that the processing cost per spec, including the compilation of
+ * the generated components, can be told apart from it.
+ */
+public class ProcessorBenchmark {
+
+  private static final int[] SPEC_COUNTS = {50, 200};
+  private static final String PACKAGE = "com.facebook.litho.benchmarks.specs";
+
+  @Test
+  public void processSpecs() {
+    for (int specCount : SPEC_COUNTS) {
+      final List<JavaFileObject> sources = createSources(specCount);
+      final String params = String.format(Locale.US, "specs=%d", specCount);
+
+      final double baselineNanos =
+          BenchmarkRunner.measure("javac", params, new Compile(sources, false, false));
+      final double processedNanos =
+          BenchmarkRunner.measure("javac+processors", params, new Compile(sources, true, false));
+      final double incrementalNanos =
+          BenchmarkRunner.measure(
+              "javac+processors(incremental)", params, new Compile(sources, true, true));
+
+      System.out.println(
+          String.format(
+              Locale.US,
+              "%-28s %-40s %14.1f us/spec %14.1f us/spec (incremental)",
+              "processing",
+              params,
+              (processedNanos - baselineNanos) / specCount / 1000,
+              (incrementalNanos - baselineNanos) / specCount / 1000));
+    }
+  }
+
+  private static List<JavaFileObject> createSources(int specCount) {
+    final List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < specCount; i++) {
+      sources.add(
+          JavaFileObjects.forSourceString(
+              PACKAGE + ".Synthetic" + i + "Spec",
+              String.format(
+                  Locale.US,
+                  "package %1$s;\n"
+                      + "\n"
+                      + "import com.facebook.litho.ClickEvent;\n"
+                      + "import com.facebook.litho.Component;\n"
+                      + "import com.facebook.litho.ComponentContext;\n"
+                      + "import com.facebook.litho.Row;\n"
+                      + "import com.facebook.litho.StateValue;\n"
+                      + "import com.facebook.litho.annotations.LayoutSpec;\n"
+                      + "import com.facebook.litho.annotations.OnCreateInitialState;\n"
+                      + "import com.facebook.litho.annotations.OnCreateLayout;\n"
+                      + "import com.facebook.litho.annotations.OnEvent;\n"
+                      + "import com.facebook.litho.annotations.OnUpdateState;\n"
+                      + "import com.facebook.litho.annotations.Prop;\n"
+                      + "import com.facebook.litho.annotations.PropDefault;\n"
+                      + "import com.facebook.litho.annotations.State;\n"
+                      + "\n"
+                      + "/** Synthetic spec %2$d. */\n"
+                      + "@LayoutSpec\n"
+                      + "public class Synthetic%2$dSpec {\n"
+                      + "  @PropDefault static final int size = %2$d;\n"
+                      + "\n"
+                      + "  @OnCreateInitialState\n"
+                      + "  static void onCreateInitialState(\n"
+                      + "      ComponentContext c, StateValue<Integer> count) {\n"
+                      + "    count.set(0);\n"
+                      + "  }\n"
+                      + "\n"
+                      + "  @OnCreateLayout\n"
+                      + "  static Component onCreateLayout(\n"
+                      + "      ComponentContext c,\n"
+                      + "      @Prop String title,\n"
+                      + "      @Prop(optional = true) int size,\n"
+                      + "      @State int count) {\n"
+                      + "    return Row.create(c).widthPx(size + count).build();\n"
+                      + "  }\n"
+                      + "\n"
+                      + "  @OnEvent(ClickEvent.class)\n"
+                      + "  static void onClick(ComponentContext c, @Prop String title) {}\n"
+                      + "\n"
+                      + "  @OnUpdateState\n"
+                      + "  static void onIncrement(StateValue<Integer> count) {\n"
+                      + "    count.set(count.get() + 1);\n"
+                      + "  }\n"
+                      + "}\n",
+                  PACKAGE,
+                  i)));
+
+      if (i % 4 == 0) {
+        sources.add(
+            JavaFileObjects.forSourceString(
+                PACKAGE + ".TestSynthetic" + i + "Spec",
+                String.format(
+                    Locale.US,
+                    "package %1$s;\n"
+                        + "\n"
+                        + "import com.facebook.litho.annotations.TestSpec;\n"
+                        + "\n"
+                        + "@TestSpec(Synthetic%2$dSpec.class)\n"
+                        + "public interface TestSynthetic%2$dSpec {}\n",
+                    PACKAGE,
+                    i)));
+      }
+    }
+    return sources;
+  }
+
+  private static class Compile extends BenchmarkRunner.Operation {
+
+    private final List<JavaFileObject> mSources;
+    private final boolean mWithProcessors;
+    private final boolean mIncremental;
+
+    Compile(List<JavaFileObject> sources, boolean withProcessors, boolean incremental) {
+      mSources = sources;
+      mWithProcessors = withProcessors;
+      mIncremental = incremental;
+    }
+
+    @Override
+    public void run() {
+      Compiler compiler = Compiler.javac();
+      if (mWithProcessors) {
+        compiler =
+            compiler.withProcessors(new ComponentsProcessor(), new ComponentsTestingProcessor());
+      } else {
+        compiler = compiler.withOptions("-proc:none");
+      }
+      if (mIncremental) {
+        compiler =
+            compiler.withOptions("-A" + AbstractComponentsProcessor.INCREMENTAL_OPTION + "=true");
+      }
+
+      final Compilation compilation = compiler.compile(mSources);
+      if (compilation.status() != Compilation.Status.SUCCESS) {
+        throw new IllegalStateException("Compilation failed: " + compilation.errors());
+      }
+    }
+  }
+}
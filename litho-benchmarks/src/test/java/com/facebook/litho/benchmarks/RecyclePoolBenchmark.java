@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import com.facebook.litho.RecyclePool;
+import com.facebook.litho.StripedRecyclePool;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures acquire/release throughput of the synchronized {@link RecyclePool} against the {@link
+ * StripedRecyclePool} with 1 to 8 threads sharing the same pool, mimicking layout threads that
+ * acquire a handful of objects, use them and release them again.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class RecyclePoolBenchmark {
+
+  private static final int POOL_SIZE = 256;
+  private static final int OBJECTS_PER_ROUND = 16;
+  private static final int ROUNDS_PER_THREAD = 200_000;
+  private static final int WARMUP_RUNS = 2;
+  private static final int MEASURED_RUNS = 5;
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+  @Test
+  public void acquireReleaseThroughput() throws InterruptedException {
+    for (int threads : THREAD_COUNTS) {
+      report("RecyclePool", threads, measure(new SyncPoolFactory(), threads));
+      report("StripedRecyclePool", threads, measure(new StripedPoolFactory(), threads));
+    }
+  }
+
+  private static double measure(PoolFactory factory, int threads) throws InterruptedException {
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      run(factory.create(), threads);
+    }
+
+    long totalNanos = 0;
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      totalNanos += run(factory.create(), threads);
+    }
+
+    final double totalOps = 2.0 * OBJECTS_PER_ROUND * ROUNDS_PER_THREAD * threads * MEASURED_RUNS;
+    return totalOps / (totalNanos / 1e9);
+  }
+
+  /** @return the wall time in nanoseconds for all threads to finish their rounds. */
+  private static long run(final RecyclePool<Object> pool, int threads)
+      throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threads);
+
+    for (int i = 0; i < threads; i++) {
+      new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  final Object[] inUse = new Object[OBJECTS_PER_ROUND];
+                  try {
+                    start.await();
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  }
+
+                  for (int round = 0; round < ROUNDS_PER_THREAD; round++) {
+                    for (int j = 0; j < OBJECTS_PER_ROUND; j++) {
+                      final Object acquired = pool.acquire();
+                      inUse[j] = acquired != null ? acquired : new Object();
+                    }
+                    for (int j = 0; j < OBJECTS_PER_ROUND; j++) {
+                      pool.release(inUse[j]);
+                      inUse[j] = null;
+                    }
+                  }
+                  done.countDown();
+                }
+              })
+          .start();
+    }
+
+    final long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    return System.nanoTime() - startTime;
+  }
+
+  private static void report(String name, int threads, double opsPerSecond) {
+    System.out.println(
+        String.format(
+            Locale.US,
+            "%-20s threads=%d %,15.0f ops/s %8.2f ns/op",
+            name,
+            threads,
+            opsPerSecond,
+            1e9 / opsPerSecond));
+  }
+
+  private interface PoolFactory {
+    RecyclePool<Object> create();
+  }
+
+  private static class SyncPoolFactory implements PoolFactory {
+    @Override
+    public RecyclePool<Object> create() {
+      return new RecyclePool<>("sync", POOL_SIZE, true);
+    }
+  }
+
+  private static class StripedPoolFactory implements PoolFactory {
+    @Override
+    public RecyclePool<Object> create() {
+      return new StripedRecyclePool<>("striped", POOL_SIZE);
+    }
+  }
+}
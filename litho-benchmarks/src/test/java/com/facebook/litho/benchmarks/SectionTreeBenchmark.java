@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import com.facebook.litho.sections.SectionContext;
+import com.facebook.litho.sections.SectionTree;
+import com.facebook.litho.testing.sections.TestGroupSection;
+import com.facebook.litho.testing.sections.TestTarget;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Measures how long it takes a {@link SectionTree} to generate the ChangeSet between two lists of
+ * a DataDiffSection and to apply it to its Target, alternating between a list and a modified copy
+ * of it, for lists of growing sizes and the common kinds of modifications.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class SectionTreeBenchmark {
+
+  private static final int[] ITEM_COUNTS = {100, 1_000, 5_000};
+  private static final int CHANGED_ITEMS_PERCENT = 1;
+
+  @Test
+  public void setRoot() {
+    for (int itemCount : ITEM_COUNTS) {
+      final List<String> data = createData(itemCount);
+      measure("append", data, append(data));
+      measure("update", data, update(data));
+      measure("remove", data, remove(data));
+    }
+  }
+
+  private static void measure(String modification, List<String> data, List<String> otherData) {
+    BenchmarkRunner.measure(
+        "SectionTree.setRoot",
+        String.format(Locale.US, "items=%d modification=%s", data.size(), modification),
+        new SetRoot(data, otherData));
+  }
+
+  private static List<String> createData(int itemCount) {
+    final List<String> data = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      data.add("Item " + i);
+    }
+    return data;
+  }
+
+  /** Appends a tenth of the items, as loading the next page of a feed does. */
+  private static List<String> append(List<String> data) {
+    final List<String> appended = new ArrayList<>(data);
+    for (int i = 0, size = data.size() / 10; i < size; i++) {
+      appended.add("Appended item " + i);
+    }
+    return appended;
+  }
+
+  /** Changes the content of items spread over the whole list. */
+  private static List<String> update(List<String> data) {
+    final List<String> updated = new ArrayList<>(data);
+    final int step = 100 / CHANGED_ITEMS_PERCENT;
+    for (int i = step / 2; i < updated.size(); i += step) {
+      updated.set(i, updated.get(i) + " (updated)");
+    }
+    return updated;
+  }
+
+  /** Removes items spread over the whole list. */
+  private static List<String> remove(List<String> data) {
+    final List<String> removed = new ArrayList<>(data.size());
+    final int step = 100 / CHANGED_ITEMS_PERCENT;
+    for (int i = 0; i < data.size(); i++) {
+      if (i % step != step / 2) {
+        removed.add(data.get(i));
+      }
+    }
+    return removed;
+  }
+
+  private static class SetRoot extends BenchmarkRunner.Operation {
+
+    private final SectionContext mContext;
+    private final TestTarget mTarget;
+    private final SectionTree mSectionTree;
+    private final List<String> mData;
+    private final List<String> mOtherData;
+    private boolean mIsShowingData;
+
+    SetRoot(List<String> data, List<String> otherData) {
+      mContext = new SectionContext(RuntimeEnvironment.application);
+      mTarget = new TestTarget();
+      mSectionTree = SectionTree.create(mContext, mTarget).build();
+      mData = data;
+      mOtherData = otherData;
+
+      mSectionTree.setRoot(TestGroupSection.create(mContext).data(data).build());
+      mIsShowingData = true;
+    }
+
+    @Override
+    public void setUp() {
+      mTarget.clear();
+    }
+
+    @Override
+    public void run() {
+      mIsShowingData = !mIsShowingData;
+      mSectionTree.setRoot(
+          TestGroupSection.create(mContext).data(mIsShowingData ? mData : mOtherData).build());
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.benchmarks;
+
+import android.graphics.Color;
+import com.facebook.litho.Column;
+import com.facebook.litho.Component;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.Row;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import com.facebook.litho.widget.SolidColor;
+import com.facebook.litho.widget.Text;
+import java.util.Locale;
+
+/**
+ * A layout spec that creates a tree of alternating columns and rows with the given depth, where
+ * every container has the given number of children, down to leaves that are either texts or solid
+ * colors. The share of leaves that are texts is the text density: texts are the most expensive
+ * leaves to measure and mount.
+ */
+public class SyntheticTree extends InlineLayoutSpec {
+
+  private final int mDepth;
+  private final int mFanOut;
+  private final float mTextDensity;
+
+  public SyntheticTree(int depth, int fanOut, float textDensity) {
+    mDepth = depth;
+    mFanOut = fanOut;
+    mTextDensity = textDensity;
+  }
+
+  /** Describes the parameters of the tree, to label the results of a benchmark. */
+  public String describe() {
+    return String.format(
+        Locale.US, "depth=%d fanOut=%d textDensity=%.2f", mDepth, mFanOut, mTextDensity);
+  }
+
+  @Override
+  protected Component onCreateLayout(ComponentContext c) {
+    return createContainer(c, 0, new int[1]);
+  }
+
+  private Component createContainer(ComponentContext c, int level, int[] leafCount) {
+    final Component.ContainerBuilder<?> container =
+        level % 2 == 0 ? Column.create(c) : Row.create(c);
+    for (int i = 0; i < mFanOut; i++) {
+      if (level == mDepth - 1) {
+        container.child(createLeaf(c, leafCount[0]++));
+      } else {
+        container.child(createContainer(c, level + 1, leafCount));
+      }
+    }
+    return container.build();
+  }
+
+  /** Spreads the texts evenly among the leaves, so that the trees don't depend on a seed. */
+  private Component createLeaf(ComponentContext c, int index) {
+    if ((int) ((index + 1) * mTextDensity) > (int) (index * mTextDensity)) {
+      return Text.create(c).text("Item " + index).textSizePx(12).build();
+    }
+
+    return SolidColor.create(c).color(Color.GRAY).widthPx(10).heightPx(10).build();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+
+import android.graphics.Color;
+import android.support.v7.widget.OrientationHelper;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.LayoutHandler;
+import com.facebook.litho.Size;
+import com.facebook.litho.SizeSpec;
+import com.facebook.litho.benchmarks.BenchmarkRunner;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.widget.ComponentTreeHolder.ComponentTreeMeasureListenerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Measures how long it takes a {@link RecyclerBinder} to compute the range of items to lay out and
+ * release when the visible items change while scrolling through lists of growing sizes. The
+ * layouts themselves are not computed, so that only the bookkeeping of the range is measured.
+ * Lives in the com.facebook.litho.widget package because the range computation is package private.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class RecyclerBinderRangeBenchmark {
+
+  private static final int[] ITEM_COUNTS = {1_000, 10_000, 100_000};
+  private static final int[] SCROLL_STEPS = {1, 20};
+  private static final int ITEM_HEIGHT = 100;
+  private static final int VIEWPORT_HEIGHT = 1920;
+
+  @Test
+  public void computeRange() {
+    for (int itemCount : ITEM_COUNTS) {
+      for (int scrollStep : SCROLL_STEPS) {
+        BenchmarkRunner.measure(
+            "RecyclerBinder.computeRange",
+            String.format(Locale.US, "items=%d scrollStep=%d", itemCount, scrollStep),
+            new Scroll(itemCount, scrollStep));
+      }
+    }
+  }
+
+  private static class Scroll extends BenchmarkRunner.Operation {
+
+    private final RecyclerBinder mRecyclerBinder;
+    private final int mItemCount;
+    private final int mScrollStep;
+    private final int mVisibleCount;
+    private int mFirstVisible;
+
+    Scroll(int itemCount, int scrollStep) {
+      final ComponentContext c = new ComponentContext(RuntimeEnvironment.application);
+      mRecyclerBinder =
+          new RecyclerBinder.Builder()
+              .layoutInfo(new LinearLayoutInfo(c, OrientationHelper.VERTICAL, false))
+              .componentTreeHolderFactory(
+                  new RecyclerBinder.ComponentTreeHolderFactory() {
+                    @Override
+                    public ComponentTreeHolder create(
+                        RenderInfo renderInfo,
+                        LayoutHandler layoutHandler,
+                        boolean canPrefetchDisplayLists,
+                        boolean canCacheDrawingDisplayLists,
+                        ComponentTreeMeasureListenerFactory measureListenerFactory) {
+                      return new NoLayoutComponentTreeHolder(renderInfo);
+                    }
+                  })
+              .build(c);
+
+      final List<RenderInfo> renderInfos = new ArrayList<>(itemCount);
+      for (int i = 0; i < itemCount; i++) {
+        renderInfos.add(
+            ComponentRenderInfo.create()
+                .component(SolidColor.create(c).color(Color.GRAY).heightPx(ITEM_HEIGHT).build())
+                .build());
+      }
+      mRecyclerBinder.insertRangeAt(0, renderInfos);
+      mRecyclerBinder.measure(
+          new Size(),
+          SizeSpec.makeSizeSpec(1080, EXACTLY),
+          SizeSpec.makeSizeSpec(VIEWPORT_HEIGHT, EXACTLY),
+          null);
+
+      mItemCount = itemCount;
+      mScrollStep = scrollStep;
+      mVisibleCount = VIEWPORT_HEIGHT / ITEM_HEIGHT;
+    }
+
+    @Override
+    public void run() {
+      mFirstVisible += mScrollStep;
+      if (mFirstVisible + mVisibleCount > mItemCount) {
+        mFirstVisible = 0;
+      }
+
+      mRecyclerBinder.onNewVisibleRange(mFirstVisible, mFirstVisible + mVisibleCount - 1);
+    }
+  }
+
+  /** Only records whether it has a valid tree, as a holder that finished its layout instantly. */
+  private static class NoLayoutComponentTreeHolder extends ComponentTreeHolder {
+
+    private RenderInfo mRenderInfo;
+    private boolean mIsTreeValid;
+
+    NoLayoutComponentTreeHolder(RenderInfo renderInfo) {
+      mRenderInfo = renderInfo;
+    }
+
+    @Override
+    public synchronized RenderInfo getRenderInfo() {
+      return mRenderInfo;
+    }
+
+    @Override
+    public synchronized void setRenderInfo(RenderInfo renderInfo) {
+      mRenderInfo = renderInfo;
+      mIsTreeValid = false;
+    }
+
+    @Override
+    public synchronized boolean isTreeValid() {
+      return mIsTreeValid;
+    }
+
+    @Override
+    public synchronized boolean hasCompletedLatestLayout() {
+      return mIsTreeValid;
+    }
+
+    @Override
+    synchronized void invalidateTree() {
+      mIsTreeValid = false;
+    }
+
+    @Override
+    public synchronized void computeLayoutAsync(
+        ComponentContext context, int widthSpec, int heightSpec) {
+      mIsTreeValid = true;
+    }
+
+    @Override
+    public synchronized void computeLayoutSync(
+        ComponentContext context, int widthSpec, int heightSpec, Size size) {
+      mIsTreeValid = true;
+      if (size != null) {
+        size.width = SizeSpec.getSize(widthSpec);
+        size.height = ITEM_HEIGHT;
+      }
+    }
+
+    @Override
+    public synchronized void acquireStateHandlerAndReleaseTree() {
+      mIsTreeValid = false;
+    }
+
+    @Override
+    public synchronized void release() {
+      mIsTreeValid = false;
+    }
+  }
+}
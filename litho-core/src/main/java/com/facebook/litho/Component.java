@@ -44,6 +44,7 @@ import com.facebook.yoga.YogaWrap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,7 +61,7 @@ public abstract class Component extends ComponentLifecycle
 
   private static final AtomicInteger sIdGenerator = new AtomicInteger(1);
   private int mId = sIdGenerator.getAndIncrement();
-  private String mGlobalKey;
+  @Nullable private GlobalKey mGlobalKey;
   @Nullable private String mKey;
   private boolean mHasManualKey;
 
@@ -75,6 +76,9 @@ public abstract class Component extends ComponentLifecycle
 
   @Nullable private CommonPropsHolder mCommonPropsHolder;
 
+  // Props are immutable once the component is built, so their hash only needs to be computed once.
+  private int mPropsHashCode;
+
   /**
    * Holds onto how many direct component children of each type this Component has. Used for
    * automatically generating unique global keys for all sibling components of the same type.
@@ -120,6 +124,59 @@ public abstract class Component extends ComponentLifecycle
     return this == other;
   }
 
+  /**
+   * Returns a hash of the props of this component, which is the same for any two components that
+   * are equivalent according to {@link #isEquivalentTo(Component)}. Components with different
+   * hashes can't be equivalent, so the hash can be used to tell them apart without comparing all
+   * their props. It is computed the first time it is needed and kept for the lifetime of the
+   * component.
+   *
+   * @return the hash of the props of this component
+   */
+  public final int getPropsHashCode() {
+    int propsHashCode = mPropsHashCode;
+    if (propsHashCode == 0) {
+      propsHashCode = computePropsHashCode();
+      mPropsHashCode = propsHashCode;
+    }
+    return propsHashCode;
+  }
+
+  /**
+   * Override to hash the props that {@link #isEquivalentTo(Component)} compares. The generated
+   * components hash all their props. Must only be called once the component is built.
+   *
+   * @return a hash of the props of this component
+   */
+  protected int computePropsHashCode() {
+    return 0;
+  }
+
+  /**
+   * @return a hash of the props of the components of a collection, where the elements can be
+   *     collections of components themselves. Only meant to be called by the {@link
+   *     #computePropsHashCode()} of the generated components.
+   */
+  protected static int collectionPropsHashCode(@Nullable Collection<?> components) {
+    if (components == null) {
+      return 0;
+    }
+
+    int result = 1;
+    for (Object element : components) {
+      final int elementHashCode;
+      if (element instanceof Component) {
+        elementHashCode = ((Component) element).getPropsHashCode();
+      } else if (element instanceof Collection) {
+        elementHashCode = collectionPropsHashCode((Collection<?>) element);
+      } else {
+        elementHashCode = 0;
+      }
+      result = 31 * result + elementHashCode;
+    }
+    return result;
+  }
+
   protected StateContainer getStateContainer() {
     return null;
   }
@@ -149,6 +206,15 @@ public abstract class Component extends ComponentLifecycle
    * @return
    */
   String getGlobalKey() {
+    return mGlobalKey == null ? null : mGlobalKey.toString();
+  }
+
+  /**
+   * Get the key that is unique to this component within its tree, without building its String. This
+   * is what the key should be looked up with in maps and sets.
+   */
+  @Nullable
+  GlobalKey getGlobalKeyObject() {
     return mGlobalKey;
   }
 
@@ -159,7 +225,7 @@ public abstract class Component extends ComponentLifecycle
    */
   // thread-safe because the one write is before all the reads
   @ThreadSafe(enableChecks = false)
-  private void setGlobalKey(String key) {
+  private void setGlobalKey(GlobalKey key) {
     mGlobalKey = key;
   }
 
@@ -192,9 +258,9 @@ public abstract class Component extends ComponentLifecycle
    * @param key the key of the child component as determined by its lifecycle id or manual setting
    * @return a unique global key for this component relative to its siblings.
    */
-  private String generateUniqueGlobalKeyForChild(Component component, String key) {
+  private GlobalKey generateUniqueGlobalKeyForChild(Component component, String key) {
 
-    final String childKey = ComponentKeyUtils.getKeyWithSeparator(getGlobalKey(), key);
+    final GlobalKey childKey = GlobalKey.create(mGlobalKey, key);
     final KeyHandler keyHandler = mScopedContext.getKeyHandler();
 
     /** Null check is for testing only, the keyHandler should never be null here otherwise. */
@@ -236,7 +302,7 @@ public abstract class Component extends ComponentLifecycle
      */
     int childIndex = mChildCounters.containsKey(childType) ? mChildCounters.get(childType) : 0;
 
-    String uniqueKey = ComponentKeyUtils.getKeyForChildPosition(childKey, childIndex);
+    final GlobalKey uniqueKey = GlobalKey.createForChildPosition(childKey, childIndex);
 
     mChildCounters.put(childType, childIndex + 1);
 
@@ -269,6 +335,19 @@ public abstract class Component extends ComponentLifecycle
     }
   }
 
+  /**
+   * Copies a component of a layout that is reused from a previous layout pass, so that laying it
+   * out again doesn't change the component that the previous layout holds on to.
+   */
+  Component makeCopyForReusedLayout() {
+    final Component component = makeShallowCopy();
+    component.mChildCounters = null;
+    component.mHasManualKey = mHasManualKey;
+    component.mLastMeasuredLayout = null;
+    component.mLayoutCreatedInWillRender = null;
+    return component;
+  }
+
   Component makeShallowCopyWithNewId() {
     final Component component = makeShallowCopy();
     component.mId = sIdGenerator.incrementAndGet();
@@ -399,7 +478,9 @@ public abstract class Component extends ComponentLifecycle
       final Component parentScope = c.getComponentScope();
       final String key = getKey();
       setGlobalKey(
-          parentScope == null ? key : parentScope.generateUniqueGlobalKeyForChild(this, key));
+          parentScope == null
+              ? GlobalKey.create(key)
+              : parentScope.generateUniqueGlobalKeyForChild(this, key));
     }
   }
 
@@ -48,6 +48,10 @@ public class ComponentContext extends ContextWrapper {
   @ThreadConfined(ThreadConfined.ANY)
   private ComponentTree mComponentTree;
 
+  // Whether the components being laid out belong to a layout reused from a previous layout pass.
+  @ThreadConfined(ThreadConfined.ANY)
+  private boolean mIsReusingLayout;
+
   // Used to hold styling information applied to components
   @StyleRes
   @ThreadConfined(ThreadConfined.ANY)
@@ -108,6 +112,7 @@ public class ComponentContext extends ContextWrapper {
       mHeightSpec = componentContext.mHeightSpec;
       mComponentScope = componentContext.mComponentScope;
       mComponentTree = componentContext.mComponentTree;
+      mIsReusingLayout = componentContext.mIsReusingLayout;
     } else {
       mResourceCache = ResourceCache.getLatest(context.getResources().getConfiguration());
     }
@@ -164,7 +169,7 @@ public class ComponentContext extends ContextWrapper {
       return;
     }
 
-    mComponentTree.updateStateSync(mComponentScope.getGlobalKey(), stateUpdate);
+    mComponentTree.updateStateSync(mComponentScope.getGlobalKeyObject(), stateUpdate);
   }
 
   /**
@@ -178,7 +183,7 @@ public class ComponentContext extends ContextWrapper {
       return;
     }
 
-    mComponentTree.updateStateAsync(mComponentScope.getGlobalKey(), stateUpdate);
+    mComponentTree.updateStateAsync(mComponentScope.getGlobalKeyObject(), stateUpdate);
   }
 
   public void updateStateLazy(ComponentLifecycle.StateUpdate stateUpdate) {
@@ -186,7 +191,7 @@ public class ComponentContext extends ContextWrapper {
       return;
     }
 
-    mComponentTree.updateStateLazy(mComponentScope.getGlobalKey(), stateUpdate);
+    mComponentTree.updateStateLazy(mComponentScope.getGlobalKeyObject(), stateUpdate);
   }
 
   public void enterNoStateUpdatesMethod(String noStateUpdatesMethod) {
@@ -275,6 +280,10 @@ public class ComponentContext extends ContextWrapper {
       return component.mLayoutCreatedInWillRender;
     }
 
+    if (mIsReusingLayout) {
+      component = component.makeCopyForReusedLayout();
+    }
+
     component.generateKey(this);
     component.applyStateUpdates(this);
 
@@ -297,6 +306,10 @@ public class ComponentContext extends ContextWrapper {
       return component.mLayoutCreatedInWillRender;
     }
 
+    if (mIsReusingLayout) {
+      component = component.makeCopyForReusedLayout();
+    }
+
     component.generateKey(this);
     component.applyStateUpdates(this);
 
@@ -341,6 +354,14 @@ public class ComponentContext extends ContextWrapper {
     mHeightSpec = heightSpec;
   }
 
+  /**
+   * Marks whether the components laid out in this context come from a layout that is reused from
+   * a previous layout pass, and therefore need to be copied before they are laid out again.
+   */
+  void setReusingLayout(boolean isReusingLayout) {
+    mIsReusingLayout = isReusingLayout;
+  }
+
   StateHandler getStateHandler() {
     return mStateHandler;
   }
@@ -128,7 +128,22 @@ public abstract class ComponentLifecycle implements EventDispatcher, EventTrigge
               && diffNode.getLastHeightSpec() == heightSpec) {
             outputWidth = (int) diffNode.getLastMeasuredWidth();
             outputHeight = (int) diffNode.getLastMeasuredHeight();
+          } else if (node.hasPreMeasuredSize(widthSpec, heightSpec)) {
+            outputWidth = node.getPreMeasuredWidth();
+            outputHeight = node.getPreMeasuredHeight();
+            component.copyInterStageImpl(node.getPreMeasuredComponent());
+
+            if (node.getDiffNode() != null) {
+              node.getDiffNode().setLastWidthSpec(widthSpec);
+              node.getDiffNode().setLastHeightSpec(heightSpec);
+              node.getDiffNode().setLastMeasuredWidth(outputWidth);
+              node.getDiffNode().setLastMeasuredHeight(outputHeight);
+            }
           } else {
+            // The component now holds the outputs of this measure, so the outputs of a measure
+            // made ahead of the layout calculation for other specs can't be used anymore.
+            node.clearPreMeasuredSize();
+
             final Size size = acquireSize(Integer.MIN_VALUE /* initialValue */);
 
             try {
@@ -254,7 +269,7 @@ public abstract class ComponentLifecycle implements EventDispatcher, EventTrigge
     } else if (component.isInternalComponent()) {
       node = context.resolveInternalComponent(component);
     } else {
-      final Component layoutComponent = createComponentLayout(context);
+      final Component layoutComponent = createOrReuseComponentLayout(context, parentTreeProps);
 
       if (layoutComponent == null || layoutComponent.getId() <= 0) {
         node = null;
@@ -322,6 +337,39 @@ public abstract class ComponentLifecycle implements EventDispatcher, EventTrigge
     return node;
   }
 
+  /**
+   * Reuses the component that onCreateLayout returned for this component's key in the last
+   * committed layout if this component hasn't changed since then, see {@link
+   * ComponentsConfiguration#reuseUnchangedComponentLayouts}, and calls onCreateLayout otherwise.
+   * A reused layout is marked on the given context, so that its components are copied as they are
+   * laid out again instead of being shared with the previous layout.
+   */
+  private Component createOrReuseComponentLayout(
+      ComponentContext context, @Nullable TreeProps parentTreeProps) {
+    final Component component = (Component) this;
+    final StateHandler stateHandler = context.getStateHandler();
+    final boolean canReuseLayout =
+        ComponentsConfiguration.reuseUnchangedComponentLayouts
+            && stateHandler != null
+            && component.getGlobalKeyObject() != null
+            && Component.isLayoutSpec(component)
+            && !Component.isLayoutSpecWithSizeSpec(component);
+
+    Component layoutComponent =
+        canReuseLayout ? stateHandler.getReusableLayout(component, parentTreeProps) : null;
+    // The context is a copy of the parent's one, which may be laying out a reused layout.
+    context.setReusingLayout(layoutComponent != null);
+    if (layoutComponent == null) {
+      layoutComponent = createComponentLayout(context);
+    }
+
+    if (canReuseLayout) {
+      stateHandler.recordCreatedLayout(component, parentTreeProps, layoutComponent);
+    }
+
+    return layoutComponent;
+  }
+
   private Component createComponentLayout(ComponentContext context) {
     Component layoutComponent;
     if (ComponentsConfiguration.enableOnErrorHandling) {
@@ -137,6 +137,9 @@ public class ComponentTree {
   private final boolean mCanPrefetchDisplayLists;
   private final boolean mCanCacheDrawingDisplayLists;
   private final boolean mShouldClipChildren;
+  private final @Nullable LayoutHandler mParallelMeasureHandler;
+  private final boolean mTimeSlicedMount;
+  private final @Nullable LayoutCache mLayoutCache;
 
   @Nullable private LayoutHandler mPreAllocateMountContentHandler;
 
@@ -213,7 +216,7 @@ public class ComponentTree {
   private int mScheduleLayoutAfterMeasure;
 
   @GuardedBy("mEventHandlers")
-  public final Map<String, EventHandlersWrapper> mEventHandlers = new LinkedHashMap<>();
+  public final Map<GlobalKey, EventHandlersWrapper> mEventHandlers = new LinkedHashMap<>();
 
   @GuardedBy("mEventTriggersContainer")
   private final EventTriggersContainer mEventTriggersContainer = new EventTriggersContainer();
@@ -244,6 +247,9 @@ public class ComponentTree {
     mCanPrefetchDisplayLists = builder.canPrefetchDisplayLists;
     mCanCacheDrawingDisplayLists = builder.canCacheDrawingDisplayLists;
     mShouldClipChildren = builder.shouldClipChildren;
+    mParallelMeasureHandler = builder.parallelMeasureHandler;
+    mTimeSlicedMount = builder.timeSlicedMount;
+    mLayoutCache = builder.layoutCache;
     mHasMounted = builder.hasMounted;
     mMeasureListener = builder.mMeasureListener;
 
@@ -255,6 +261,12 @@ public class ComponentTree {
       mPreAllocateMountContentHandler =
           new DefaultPreallocateMountContentHandler(
               getDefaultPreallocateMountContentThreadLooper());
+    } else if (mPreAllocateMountContentHandler instanceof PriorityThreadPoolLayoutHandler) {
+      // Preallocating mount content shouldn't delay the layouts that share the same threads.
+      mPreAllocateMountContentHandler =
+          ((PriorityThreadPoolLayoutHandler) mPreAllocateMountContentHandler)
+              .createPrioritizedHandler(
+                  PriorityThreadPoolLayoutHandler.PRIORITY_PREALLOCATION, null /* token */);
     }
 
     final StateHandler builderStateHandler = builder.stateHandler;
@@ -831,6 +843,11 @@ public class ComponentTree {
     return mIncrementalMountEnabled;
   }
 
+  /** Returns whether mounting the content of this component can be spread across frames. */
+  public boolean isTimeSlicedMountEnabled() {
+    return mTimeSlicedMount;
+  }
+
   synchronized Component getRoot() {
     return mRoot;
   }
@@ -901,7 +918,7 @@ public class ComponentTree {
         CalculateLayoutSource.SET_ROOT);
   }
 
-  synchronized void updateStateLazy(String componentKey, StateUpdate stateUpdate) {
+  synchronized void updateStateLazy(GlobalKey componentKey, StateUpdate stateUpdate) {
     if (mRoot == null) {
       return;
     }
@@ -909,7 +926,7 @@ public class ComponentTree {
     mStateHandler.queueStateUpdate(componentKey, stateUpdate);
   }
 
-  void updateStateSync(String componentKey, StateUpdate stateUpdate) {
+  void updateStateSync(GlobalKey componentKey, StateUpdate stateUpdate) {
 
     synchronized (this) {
       if (mRoot == null) {
@@ -947,7 +964,7 @@ public class ComponentTree {
     handler.post(mUpdateStateSyncRunnable);
   }
 
-  void updateStateAsync(String componentKey, StateUpdate stateUpdate) {
+  void updateStateAsync(GlobalKey componentKey, StateUpdate stateUpdate) {
     if (!mIsAsyncUpdateStateEnabled) {
       throw new RuntimeException("Triggering async state updates on this component tree is " +
           "disabled, use sync state updates.");
@@ -998,7 +1015,7 @@ public class ComponentTree {
   }
 
   private void bindEventHandler(Component component) {
-    final String key = component.getGlobalKey();
+    final GlobalKey key = component.getGlobalKeyObject();
 
     if (key == null) {
       return;
@@ -1029,7 +1046,7 @@ public class ComponentTree {
   }
 
   void recordEventHandler(Component component, EventHandler eventHandler) {
-    final String key = component.getGlobalKey();
+    final GlobalKey key = component.getGlobalKeyObject();
 
     if (key == null) {
       return;
@@ -1183,13 +1200,13 @@ public class ComponentTree {
   @Deprecated
   void showTooltip(
       DeprecatedLithoTooltip tooltip,
-      String anchorGlobalKey,
+      GlobalKey anchorGlobalKey,
       TooltipPosition tooltipPosition,
       int xOffset,
       int yOffset) {
     assertMainThread();
 
-    final Map<String, Rect> componentKeysToBounds;
+    final Map<GlobalKey, Rect> componentKeysToBounds;
     synchronized (this) {
       componentKeysToBounds =
           mMainThreadLayoutState.getComponentKeyToBounds();
@@ -1210,10 +1227,11 @@ public class ComponentTree {
         yOffset);
   }
 
-  void showTooltip(LithoTooltip lithoTooltip, String anchorGlobalKey, int xOffset, int yOffset) {
+  void showTooltip(
+      LithoTooltip lithoTooltip, GlobalKey anchorGlobalKey, int xOffset, int yOffset) {
     assertMainThread();
 
-    final Map<String, Rect> componentKeysToBounds;
+    final Map<GlobalKey, Rect> componentKeysToBounds;
     synchronized (this) {
       componentKeysToBounds = mMainThreadLayoutState.getComponentKeyToBounds();
     }
@@ -1237,7 +1255,7 @@ public class ComponentTree {
 
     synchronized (this) {
 
-      final Map<String, List<StateUpdate>> pendingStateUpdates =
+      final Map<GlobalKey, List<StateUpdate>> pendingStateUpdates =
           mStateHandler.getPendingStateUpdates();
       if (pendingStateUpdates != null && pendingStateUpdates.size() > 0 && root != null) {
         root = root.makeShallowCopyWithNewId();
@@ -1397,6 +1415,9 @@ public class ComponentTree {
       output.height = localLayoutState.getHeight();
     }
 
+    // Diff the transitions against the layout that's most likely mounted before this one while
+    // still off the main thread.
+    localLayoutState.createTransitionPlan(previousLayoutState);
     if (previousLayoutState != null) {
       previousLayoutState.releaseRef();
       previousLayoutState = null;
@@ -1550,6 +1571,8 @@ public class ComponentTree {
     synchronized (mEventTriggersContainer) {
       clearUnusedTriggerHandlers();
     }
+
+    GlyphWarmer.onComponentTreeReleased(this);
   }
 
   @GuardedBy("this")
@@ -1681,46 +1704,75 @@ public class ComponentTree {
       }
     }
 
-    if (lock != null) {
-      synchronized (lock) {
+    // Without a previous layout of our own, start from a layout that another tree computed for an
+    // equivalent root so that the measurements of the unchanged components are reused.
+    final boolean useLayoutCache = mLayoutCache != null && diffingEnabled;
+    final LayoutCache.CachedLayout cachedLayout =
+        useLayoutCache && diffNode == null
+            ? mLayoutCache.acquire(context, root, widthSpec, heightSpec)
+            : null;
+    if (cachedLayout != null) {
+      diffNode = cachedLayout.getDiffTree();
+    }
+
+    final LayoutState layoutState;
+    try {
+      if (lock != null) {
+        synchronized (lock) {
+          if (source == CalculateLayoutSource.UPDATE_STATE) {
+            maybeDelayStateUpdateLayout(simulateDelayNano);
+          }
+
+          layoutState =
+              LayoutState.calculate(
+                  contextWithStateHandler,
+                  root,
+                  mId,
+                  widthSpec,
+                  heightSpec,
+                  diffingEnabled,
+                  diffNode,
+                  mCanPrefetchDisplayLists,
+                  mCanCacheDrawingDisplayLists,
+                  mShouldClipChildren,
+                  mParallelMeasureHandler,
+                  source);
+        }
+      } else {
+
         if (source == CalculateLayoutSource.UPDATE_STATE) {
           maybeDelayStateUpdateLayout(simulateDelayNano);
         }
 
-        return LayoutState.calculate(
-            contextWithStateHandler,
-            root,
-            mId,
-            widthSpec,
-            heightSpec,
-            diffingEnabled,
-            diffNode,
-            mCanPrefetchDisplayLists,
-            mCanCacheDrawingDisplayLists,
-            mShouldClipChildren,
-            source);
+        layoutState =
+            LayoutState.calculate(
+                contextWithStateHandler,
+                root,
+                mId,
+                widthSpec,
+                heightSpec,
+                diffingEnabled,
+                diffNode,
+                mCanPrefetchDisplayLists,
+                mCanCacheDrawingDisplayLists,
+                mShouldClipChildren,
+                mParallelMeasureHandler,
+                source);
       }
-    } else {
-
-      if (source == CalculateLayoutSource.UPDATE_STATE) {
-        maybeDelayStateUpdateLayout(simulateDelayNano);
+    } finally {
+      if (cachedLayout != null) {
+        mLayoutCache.release(cachedLayout);
       }
+    }
 
-      return LayoutState.calculate(
-          contextWithStateHandler,
-          root,
-          mId,
-          widthSpec,
-          heightSpec,
-          diffingEnabled,
-          diffNode,
-          mCanPrefetchDisplayLists,
-          mCanCacheDrawingDisplayLists,
-          mShouldClipChildren,
-          source);
+    if (useLayoutCache) {
+      mLayoutCache.put(root, widthSpec, heightSpec, layoutState);
     }
+
+    return layoutState;
   }
 
+
   private static void maybeDelayStateUpdateLayout(int delayNano) {
     if (delayNano == 0) {
       return;
@@ -1790,10 +1842,13 @@ public class ComponentTree {
     private boolean canPrefetchDisplayLists = false;
     private boolean canCacheDrawingDisplayLists = false;
     private boolean shouldClipChildren = true;
+    private @Nullable LayoutHandler parallelMeasureHandler;
+    private boolean timeSlicedMount = false;
     private boolean hasMounted = false;
     private MeasureListener mMeasureListener;
     private boolean shouldPreallocatePerMountSpec;
     private boolean canPreallocateOnDefaultHandler;
+    private @Nullable LayoutCache layoutCache;
 
     protected Builder() {
     }
@@ -1822,8 +1877,11 @@ public class ComponentTree {
       canPrefetchDisplayLists = false;
       canCacheDrawingDisplayLists = false;
       shouldClipChildren = true;
+      parallelMeasureHandler = null;
+      timeSlicedMount = false;
       hasMounted = false;
       preAllocateMountContentHandler = null;
+      layoutCache = null;
     }
 
     /**
@@ -1850,6 +1908,16 @@ public class ComponentTree {
       return this;
     }
 
+    /**
+     * Specify a {@link LayoutCache}, usually shared with other trees, used to reuse the
+     * measurements of a layout computed by another tree for an equivalent root component. Requires
+     * layout diffing. Null by default.
+     */
+    public Builder layoutCache(@Nullable LayoutCache layoutCache) {
+      this.layoutCache = layoutCache;
+      return this;
+    }
+
     /**
      * Specify the looper to use for running layouts on. Note that in rare cases
      * layout must run on the UI thread. For example, if you rotate the screen,
@@ -1864,7 +1932,10 @@ public class ComponentTree {
       return this;
     }
 
-    /** Specify the handler for to preAllocateMountContent */
+    /**
+     * Specify the handler for to preAllocateMountContent. A {@link PriorityThreadPoolLayoutHandler}
+     * runs the preallocation after all the layouts it has pending.
+     */
     public Builder preAllocateMountContentHandler(LayoutHandler handler) {
       preAllocateMountContentHandler = handler;
       return this;
@@ -1980,6 +2051,34 @@ public class ComponentTree {
       return this;
     }
 
+    /**
+     * Specify a {@link LayoutHandler} on which the leaves of the layout tree (the components that
+     * implement OnMeasure) can be measured before the layout is calculated, in parallel with the
+     * layout thread. Only the leaves of Columns without size, margin, padding or flex styles in a
+     * tree of exact width are measured ahead, and the layout is the same as when measuring
+     * serially. The handler is owned by the caller, and usually shared by several trees. Null by
+     * default.
+     *
+     * <p>NOTE: The OnMeasure of all the components in the tree needs to be safe to run concurrently
+     * with the OnMeasure of other components.
+     */
+    public Builder parallelMeasureHandler(@Nullable LayoutHandler handler) {
+      parallelMeasureHandler = handler;
+      return this;
+    }
+
+    /**
+     * Specify whether the mount of a large layout can be spread across several frames. Hosts and
+     * the content that intersects the visible area of the {@link LithoView} are mounted first and
+     * the rest is mounted in the following frames, as long as mounting does not take more than
+     * half of a frame. Visibility events are only dispatched once all the content is mounted.
+     * Mounts that run transitions are never spread across frames. Default value is 'false'.
+     */
+    public Builder timeSlicedMount(boolean timeSlicedMount) {
+      this.timeSlicedMount = timeSlicedMount;
+      return this;
+    }
+
     /**
      * Sets whether the 'hasMounted' flag should be set on this ComponentTree (for use with appear
      * animations).
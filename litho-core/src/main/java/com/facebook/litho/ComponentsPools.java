@@ -57,6 +57,16 @@ public class ComponentsPools {
 
   // FUTURE: tune pool max sizes
 
+  /**
+   * Creates a pool for objects that are acquired and released many times during every layout or
+   * mount, potentially from several layout threads at once.
+   */
+  private static <T> RecyclePool<T> createHotPathPool(String name, int maxSize) {
+    return ComponentsConfiguration.useStripedRecyclePools
+        ? new StripedRecyclePool<T>(name, maxSize)
+        : new RecyclePool<T>(name, maxSize, true);
+  }
+
   private static final Object sMountContentLock = new Object();
   private static final Object sYogaConfigLock = new Object();
 
@@ -64,32 +74,32 @@ public class ComponentsPools {
       new RecyclePool<>("LayoutState", 64, true);
 
   static final RecyclePool<InternalNode> sInternalNodePool =
-      new RecyclePool<>("InternalNode", 256, true);
+      createHotPathPool("InternalNode", 256);
 
   static final RecyclePool<NodeInfo> sNodeInfoPool =
-      new RecyclePool<>("NodeInfo", 256, true);
+      createHotPathPool("NodeInfo", 256);
 
   static final RecyclePool<ViewNodeInfo> sViewNodeInfoPool =
-      new RecyclePool<>("ViewNodeInfo", 64, true);
+      createHotPathPool("ViewNodeInfo", 64);
 
   static final RecyclePool<YogaNode> sYogaNodePool =
-      new RecyclePool<>("YogaNode", 256, true);
+      createHotPathPool("YogaNode", 256);
 
   static final RecyclePool<MountItem> sMountItemPool =
-      new RecyclePool<>("MountItem", 256, true);
+      createHotPathPool("MountItem", 256);
 
   @GuardedBy("sMountContentLock")
   private static final Map<Context, SparseArray<MountContentPool>> sMountContentPoolsByContext =
       new HashMap<>(4);
 
   static final RecyclePool<LayoutOutput> sLayoutOutputPool =
-      new RecyclePool<>("LayoutOutput", 256, true);
+      createHotPathPool("LayoutOutput", 256);
 
   static final RecyclePool<DisplayListContainer> sDisplayListContainerPool =
       new RecyclePool<>("DisplayListContainer", 64, true);
 
   static final RecyclePool<VisibilityOutput> sVisibilityOutputPool =
-      new RecyclePool<>("VisibilityOutput", 64, true);
+      createHotPathPool("VisibilityOutput", 64);
 
   // These are lazily initialized as they are only needed when we're in a test environment.
   static RecyclePool<TestOutput> sTestOutputPool = null;
@@ -102,7 +112,7 @@ public class ComponentsPools {
       new RecyclePool<>("Output", 20, true);
 
   static final RecyclePool<DiffNode> sDiffNodePool =
-      new RecyclePool<>("DiffNode", 256, true);
+      createHotPathPool("DiffNode", 256);
 
   static final RecyclePool<Diff<?>> sDiffPool =
       new RecyclePool<>("Diff", 20, true);
@@ -120,10 +130,10 @@ public class ComponentsPools {
       new RecyclePool<>("RectF", 4, true);
 
   static final RecyclePool<Rect> sRectPool =
-      new RecyclePool<>("Rect", 30, true);
+      createHotPathPool("Rect", 30);
 
   static final RecyclePool<Edges> sEdgesPool =
-      new RecyclePool<>("Edges", 30, true);
+      createHotPathPool("Edges", 30);
 
   static final RecyclePool<TransitionContext> sTransitionContextPool =
       new RecyclePool<>("TransitionContext", 2, true);
@@ -15,6 +15,9 @@ package com.facebook.litho;
  * <p>If a fixed size pool is enabled, a ThreadPoolLayoutHandler with a fixed core and max pool size
  * will be provided. Otherwise, it uses the multiplier and increment values passed to the builder to
  * define the core pool size and max pool size as (numProcessors * multiplier + increment).
+ *
+ * <p>If the priority queue is enabled, a {@link PriorityThreadPoolLayoutHandler} will be provided
+ * so that runnables are executed by priority rather than in the order they were posted.
  */
 public class DefaultThreadPoolLayoutHandlerBuilder {
 
@@ -25,6 +28,7 @@ public class DefaultThreadPoolLayoutHandlerBuilder {
   private int mCorePoolSizeIncrement = 0;
   private double mMaxPoolSizeMultiplier = 1;
   private int mMaxPoolSizeIncrement = 0;
+  private boolean mUsePriorityQueue;
 
   public DefaultThreadPoolLayoutHandlerBuilder() {}
 
@@ -52,6 +56,15 @@ public class DefaultThreadPoolLayoutHandlerBuilder {
     return this;
   }
 
+  /**
+   * If true, {@link #build()} will return a {@link PriorityThreadPoolLayoutHandler}, which runs
+   * layouts for visible content ahead of layouts prefetched for content further away.
+   */
+  public DefaultThreadPoolLayoutHandlerBuilder usePriorityQueue(boolean usePriorityQueue) {
+    mUsePriorityQueue = usePriorityQueue;
+    return this;
+  }
+
   /**
    * Creates a ThreadPoolLayoutHandler based on the Builder configuration. If no
    *
@@ -59,10 +72,12 @@ public class DefaultThreadPoolLayoutHandlerBuilder {
    */
   public ThreadPoolLayoutHandler build() {
     if (mHasFixedSizePool) {
-      return new ThreadPoolLayoutHandler(mCorePoolSize, mMaxPoolSize);
+      return mUsePriorityQueue
+          ? new PriorityThreadPoolLayoutHandler(mCorePoolSize, mMaxPoolSize)
+          : new ThreadPoolLayoutHandler(mCorePoolSize, mMaxPoolSize);
     }
 
-    return new ThreadPoolLayoutHandler(
+    final ThreadPoolLayoutHandler.PoolSizeCalculator poolSizeCalculator =
         new ThreadPoolLayoutHandler.PoolSizeCalculator() {
           @Override
           public int getCorePoolSize(int numProcessors) {
@@ -73,6 +88,10 @@ public class DefaultThreadPoolLayoutHandlerBuilder {
           public int getMaxPoolSize(int numProcessors) {
             return (int) (numProcessors * mMaxPoolSizeMultiplier + mMaxPoolSizeIncrement);
           }
-        });
+        };
+
+    return mUsePriorityQueue
+        ? new PriorityThreadPoolLayoutHandler(poolSizeCalculator)
+        : new ThreadPoolLayoutHandler(poolSizeCalculator);
   }
 }
@@ -61,7 +61,13 @@ public final class DisplayListPrefetcher implements Runnable {
       return;
     }
 
-    final Display display = view.getDisplay();
+    mFrameIntervalNs = getFrameIntervalNs(view);
+  }
+
+  /** @return the duration of a frame on the display of the given view, assuming 60fps if unknown. */
+  static long getFrameIntervalNs(View view) {
+    final Display display =
+        Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? view.getDisplay() : null;
     float refreshRate = 60.0f;
     if (!view.isInEditMode() && display != null) {
       final float displayRefreshRate = display.getRefreshRate();
@@ -70,7 +76,7 @@ public final class DisplayListPrefetcher implements Runnable {
       }
     }
 
-    mFrameIntervalNs = (long) (1000000000 / refreshRate);
+    return (long) (1000000000 / refreshRate);
   }
 
   synchronized void addLayoutState(LayoutState layoutState) {
@@ -31,6 +31,7 @@ public interface FrameworkLogEvents {
   int EVENT_SECTIONS_ON_CREATE_CHILDREN = 14;
   int EVENT_SECTIONS_SET_ROOT = 15;
   int EVENT_CALCULATE_LAYOUT_STATE = 16;
+  int EVENT_LAYOUT_CACHE_LOOKUP = 17;
 
   String PARAM_COMPONENT = "component";
   String PARAM_LOG_TAG = "log_tag";
@@ -42,6 +43,9 @@ public interface FrameworkLogEvents {
   String PARAM_UNMOUNTED_CONTENT = "unmounted_content";
   String PARAM_UNMOUNTED_TIME = "unmounted_time_ms";
   String PARAM_MOVED_COUNT = "moved_count";
+  String PARAM_INSERTED_COUNT = "inserted_count";
+  String PARAM_REMOVED_COUNT = "removed_count";
+  String PARAM_DIFFED_COUNT = "diffed_count";
   String PARAM_UNCHANGED_COUNT = "unchanged_count";
   String PARAM_MOUNTED_COUNT = "mounted_count";
   String PARAM_MOUNTED_CONTENT = "mounted_content";
@@ -59,5 +63,10 @@ public interface FrameworkLogEvents {
   String PARAM_SECTION_NEXT = "section_next";
   String PARAM_SECTION_SET_ROOT_SOURCE = "section_set_root_source";
   String PARAM_SET_ROOT_ON_BG_THREAD = "sections_set_root_bg_thread";
+  String PARAM_SECTIONS_REUSED_COUNT = "sections_reused_count";
+  String PARAM_SECTIONS_REBUILT_COUNT = "sections_rebuilt_count";
   String PARAM_LAYOUT_STATE_SOURCE = "calculate_layout_state_source";
+  String PARAM_LAYOUT_CACHE_HIT = "layout_cache_hit";
+  String PARAM_LAYOUT_CACHE_HIT_COUNT = "layout_cache_hit_count";
+  String PARAM_LAYOUT_CACHE_MISS_COUNT = "layout_cache_miss_count";
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.support.annotation.Nullable;
+
+/**
+ * The global key of a {@link Component}, i.e. a key that is unique to the component within its
+ * tree.
+ *
+ * <p>A global key is the global key of the parent component followed by the key of the component
+ * (see {@link ComponentKeyUtils#getKeyWithSeparator(String, String)}) and, if that is not unique,
+ * by the position of the component among its siblings of the same type (see {@link
+ * ComponentKeyUtils#getKeyForChildPosition(String, int)}). Instead of concatenating these parts
+ * into a new String for every component of every layout, a GlobalKey only links to the key of its
+ * parent and holds a 64-bit hash of the String it stands for, computed incrementally from the hash
+ * of the parent. The String is only built if {@link #toString()} is called.
+ *
+ * <p>Two GlobalKeys are equal if and only if the Strings they stand for are equal, so a key
+ * created from a String with {@link #create(String)} is equal to a key created part by part.
+ */
+final class GlobalKey {
+
+  private static final long HASH_MULTIPLIER = 0x100000001b3L;
+
+  private static final char KEY_SEPARATOR = ',';
+  private static final char POSITION_SEPARATOR = '!';
+  private static final char NO_SEPARATOR = 0;
+
+  private static final int NO_POSITION = -1;
+
+  private final @Nullable GlobalKey mParent;
+  private final char mSeparator;
+  private final @Nullable String mKey;
+  private final int mPosition;
+  private final long mHash;
+  private final int mLength;
+
+  // Lazily built, racy but idempotent, like String#hashCode().
+  private @Nullable String mString;
+
+  private GlobalKey(
+      @Nullable GlobalKey parent,
+      char separator,
+      @Nullable String key,
+      int position,
+      long hash,
+      int length) {
+    mParent = parent;
+    mSeparator = separator;
+    mKey = key;
+    mPosition = position;
+    mHash = hash;
+    mLength = length;
+  }
+
+  /** @return a key that stands for the given String. */
+  static GlobalKey create(@Nullable String key) {
+    final String string = String.valueOf(key);
+    final GlobalKey globalKey =
+        new GlobalKey(
+            null, NO_SEPARATOR, key, NO_POSITION, hash(0, string), string.length());
+    globalKey.mString = string;
+    return globalKey;
+  }
+
+  /** @return the key of a child with the given key, as in "parentGlobalKey,key". */
+  static GlobalKey create(@Nullable GlobalKey parentGlobalKey, @Nullable String key) {
+    final GlobalKey parent = parentGlobalKey == null ? create((String) null) : parentGlobalKey;
+    final String string = String.valueOf(key);
+    return new GlobalKey(
+        parent,
+        KEY_SEPARATOR,
+        key,
+        NO_POSITION,
+        hash(parent.mHash * HASH_MULTIPLIER + KEY_SEPARATOR, string),
+        parent.mLength + 1 + string.length());
+  }
+
+  /** @return the key of a child at the given position, as in "currentKey!position". */
+  static GlobalKey createForChildPosition(GlobalKey currentKey, int position) {
+    if (position < 0) {
+      throw new IllegalArgumentException("Negative child position: " + position);
+    }
+
+    return new GlobalKey(
+        currentKey,
+        POSITION_SEPARATOR,
+        null,
+        position,
+        hash(currentKey.mHash * HASH_MULTIPLIER + POSITION_SEPARATOR, position),
+        currentKey.mLength + 1 + digitCount(position));
+  }
+
+  /** @return the number of chars of the String this key stands for. */
+  int length() {
+    return mLength;
+  }
+
+  long getHash() {
+    return mHash;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (mHash ^ (mHash >>> 32));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (!(o instanceof GlobalKey)) {
+      return false;
+    }
+
+    final GlobalKey other = (GlobalKey) o;
+    if (mHash != other.mHash || mLength != other.mLength) {
+      return false;
+    }
+
+    // Keys built from the same parts, which is by far the most common case, are compared without
+    // building their Strings. Keys that were split differently are compared as Strings.
+    GlobalKey key = this;
+    GlobalKey otherKey = other;
+    while (key != otherKey) {
+      if (key == null
+          || otherKey == null
+          || key.mHash != otherKey.mHash
+          || key.mSeparator != otherKey.mSeparator
+          || key.mPosition != otherKey.mPosition
+          || !equals(key.mKey, otherKey.mKey)) {
+        return toString().equals(other.toString());
+      }
+
+      key = key.mParent;
+      otherKey = otherKey.mParent;
+    }
+
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    if (mString == null) {
+      final StringBuilder sb = new StringBuilder(mLength);
+      appendTo(sb);
+      mString = sb.toString();
+    }
+
+    return mString;
+  }
+
+  private void appendTo(StringBuilder sb) {
+    if (mString != null) {
+      sb.append(mString);
+      return;
+    }
+
+    if (mParent != null) {
+      mParent.appendTo(sb);
+      sb.append(mSeparator);
+    }
+
+    if (mPosition == NO_POSITION) {
+      sb.append(mKey);
+    } else {
+      sb.append(mPosition);
+    }
+  }
+
+  private static long hash(long hash, String string) {
+    for (int i = 0, length = string.length(); i < length; i++) {
+      hash = hash * HASH_MULTIPLIER + string.charAt(i);
+    }
+
+    return hash;
+  }
+
+  /** Hashes the decimal digits of the given non negative number, most significant first. */
+  private static long hash(long hash, int number) {
+    if (number >= 10) {
+      hash = hash(hash, number / 10);
+    }
+
+    return hash * HASH_MULTIPLIER + ('0' + number % 10);
+  }
+
+  private static int digitCount(int number) {
+    int count = 1;
+    while (number >= 10) {
+      number /= 10;
+      count++;
+    }
+
+    return count;
+  }
+
+  private static boolean equals(@Nullable String a, @Nullable String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+}
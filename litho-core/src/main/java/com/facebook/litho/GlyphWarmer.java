@@ -0,0 +1,386 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
+import static android.os.Process.THREAD_PRIORITY_LOWEST;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.support.annotation.VisibleForTesting;
+import android.text.Layout;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A class that schedules a background draw of a {@link Layout}. Drawing a {@link Layout} in the
+ * background ensures that the glyph caches are warmed up and ready for drawing the same
+ * {@link Layout} on a real {@link Canvas}. This will substantially reduce drawing times for big
+ * chunks of text. On the other hand over-using text warming might rotate the glyphs cache too
+ * quickly and diminish the optimization.
+ *
+ * <p>Layouts are warmed in batches, closest to the viewport first: a RecyclerBinder tells the
+ * warmer how far from the viewport the {@link ComponentTree} of each of its items is (see {@link
+ * #setViewportDistance(ComponentTree, int)}). A layout that is already waiting or was already
+ * warmed is not scheduled again, the layouts of released trees are dropped and only the {@link
+ * #MAX_PENDING_LAYOUTS} closest layouts are kept waiting. The warmed layouts of a tree are
+ * forgotten when it's released, and all of them on {@link #clearWarmedLayouts()}.
+ */
+public class GlyphWarmer {
+
+  private static final String TAG = GlyphWarmer.class.getName();
+
+  private static final int WARMER_THREAD_PRIORITY =
+      (THREAD_PRIORITY_BACKGROUND + THREAD_PRIORITY_LOWEST) / 2;
+
+  /** The viewport distance of the layouts that aren't part of a RecyclerBinder item. */
+  public static final int UNKNOWN_VIEWPORT_DISTANCE = Integer.MAX_VALUE;
+
+  @VisibleForTesting static final int MAX_PENDING_LAYOUTS = 64;
+  @VisibleForTesting static final int BATCH_SIZE = 4;
+
+  private static GlyphWarmer sInstance;
+  private final WarmerHandler mHandler;
+
+  // Closest to the viewport first, then in the order they were scheduled.
+  @GuardedBy("this")
+  private final TreeSet<Entry> mPendingEntries = new TreeSet<>();
+
+  @GuardedBy("this")
+  private final Map<Layout, Entry> mPendingEntriesByLayout = new WeakHashMap<>();
+
+  @GuardedBy("this")
+  private final Map<Layout, Boolean> mWarmedLayouts = new WeakHashMap<>();
+
+  // The layouts are weakly referenced, as their spans may hold on to the tree.
+  @GuardedBy("this")
+  private final Map<ComponentTree, List<WeakReference<Layout>>> mWarmedLayoutsByTree =
+      new WeakHashMap<>();
+
+  @GuardedBy("this")
+  private final Map<ComponentTree, Integer> mViewportDistances = new WeakHashMap<>();
+
+  @GuardedBy("this")
+  private long mNextSequence;
+
+  @GuardedBy("this")
+  private boolean mIsWarmingScheduled;
+
+  /**
+   * @return the global {@link GlyphWarmer} instance.
+   */
+  public static synchronized GlyphWarmer getInstance() {
+    if (sInstance == null) {
+      sInstance = new GlyphWarmer();
+    }
+
+    return sInstance;
+  }
+
+  /**
+   * Records how far from the viewport the given tree is, in items, so that its layouts are warmed
+   * before the ones of the trees further away. Does nothing until the warmer is used.
+   */
+  public static void setViewportDistance(ComponentTree componentTree, int viewportDistance) {
+    final GlyphWarmer glyphWarmer;
+    synchronized (GlyphWarmer.class) {
+      glyphWarmer = sInstance;
+    }
+
+    if (glyphWarmer != null) {
+      glyphWarmer.updateViewportDistance(componentTree, viewportDistance);
+    }
+  }
+
+  /**
+   * Forgets the viewport distance, the pending layouts and the warmed layouts of a tree that is
+   * being released. Does nothing until the warmer is used.
+   */
+  static void onComponentTreeReleased(ComponentTree componentTree) {
+    final GlyphWarmer glyphWarmer;
+    synchronized (GlyphWarmer.class) {
+      glyphWarmer = sInstance;
+    }
+
+    if (glyphWarmer != null) {
+      glyphWarmer.removeComponentTree(componentTree);
+    }
+  }
+
+  private GlyphWarmer() {
+
+    HandlerThread handlerThread = new HandlerThread(TAG, WARMER_THREAD_PRIORITY);
+    handlerThread.start();
+
+    mHandler = new WarmerHandler(handlerThread.getLooper(), this);
+  }
+
+  @VisibleForTesting
+  Looper getWarmerLooper() {
+    return mHandler.getLooper();
+  }
+
+  @VisibleForTesting
+  synchronized int getPendingLayoutCount() {
+    return mPendingEntries.size();
+  }
+
+  /**
+   * Schedules a {@link Layout} to be drawn in the background. This warms up the Glyph cache for
+   * that {@link Layout}.
+   */
+  public void warmLayout(Layout layout) {
+    warmLayout(layout, (ComponentTree) null);
+  }
+
+  /**
+   * Schedules a {@link Layout} of the tree of the given context to be drawn in the background,
+   * before the layouts of the trees further away from the viewport. The layout is dropped if the
+   * tree is released before it is drawn.
+   */
+  public void warmLayout(Layout layout, ComponentContext c) {
+    warmLayout(layout, c.getComponentTree());
+  }
+
+  @VisibleForTesting
+  void warmLayout(Layout layout, @Nullable ComponentTree componentTree) {
+    synchronized (this) {
+      if (mWarmedLayouts.containsKey(layout) || mPendingEntriesByLayout.containsKey(layout)) {
+        return;
+      }
+
+      final Integer viewportDistance =
+          componentTree == null ? null : mViewportDistances.get(componentTree);
+      final Entry entry =
+          new Entry(
+              layout,
+              componentTree,
+              viewportDistance == null ? UNKNOWN_VIEWPORT_DISTANCE : viewportDistance,
+              mNextSequence++);
+      mPendingEntries.add(entry);
+      mPendingEntriesByLayout.put(layout, entry);
+
+      if (mPendingEntries.size() > MAX_PENDING_LAYOUTS) {
+        removePendingEntry(mPendingEntries.last());
+      }
+
+      if (mIsWarmingScheduled) {
+        return;
+      }
+      mIsWarmingScheduled = true;
+    }
+
+    mHandler.sendEmptyMessage(WarmerHandler.WARM_LAYOUTS);
+  }
+
+  private synchronized void updateViewportDistance(
+      ComponentTree componentTree, int viewportDistance) {
+    final Integer previousViewportDistance =
+        mViewportDistances.put(componentTree, viewportDistance);
+    if (previousViewportDistance != null && previousViewportDistance == viewportDistance) {
+      return;
+    }
+
+    List<Entry> updatedEntries = null;
+    for (Iterator<Entry> iterator = mPendingEntries.iterator(); iterator.hasNext(); ) {
+      final Entry entry = iterator.next();
+      if (entry.mComponentTree != null && entry.mComponentTree.get() == componentTree) {
+        iterator.remove();
+        if (updatedEntries == null) {
+          updatedEntries = new ArrayList<>();
+        }
+        updatedEntries.add(
+            new Entry(entry.mLayout.get(), componentTree, viewportDistance, entry.mSequence));
+      }
+    }
+
+    if (updatedEntries != null) {
+      for (int i = 0, size = updatedEntries.size(); i < size; i++) {
+        final Entry entry = updatedEntries.get(i);
+        final Layout layout = entry.mLayout.get();
+        if (layout != null) {
+          mPendingEntries.add(entry);
+          mPendingEntriesByLayout.put(layout, entry);
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets all the layouts that were warmed, so that they can be warmed again, e.g. when the app
+   * is asked to trim its memory.
+   */
+  public synchronized void clearWarmedLayouts() {
+    mWarmedLayouts.clear();
+    mWarmedLayoutsByTree.clear();
+  }
+
+  private synchronized void removeComponentTree(ComponentTree componentTree) {
+    mViewportDistances.remove(componentTree);
+
+    List<Entry> removedEntries = null;
+    for (Entry entry : mPendingEntries) {
+      if (entry.mComponentTree != null && entry.mComponentTree.get() == componentTree) {
+        if (removedEntries == null) {
+          removedEntries = new ArrayList<>();
+        }
+        removedEntries.add(entry);
+      }
+    }
+
+    if (removedEntries != null) {
+      for (int i = 0, size = removedEntries.size(); i < size; i++) {
+        removePendingEntry(removedEntries.get(i));
+      }
+    }
+
+    final List<WeakReference<Layout>> warmedLayouts = mWarmedLayoutsByTree.remove(componentTree);
+    if (warmedLayouts != null) {
+      for (int i = 0, size = warmedLayouts.size(); i < size; i++) {
+        final Layout layout = warmedLayouts.get(i).get();
+        if (layout != null) {
+          mWarmedLayouts.remove(layout);
+        }
+      }
+    }
+  }
+
+  @GuardedBy("this")
+  private void removePendingEntry(Entry entry) {
+    mPendingEntries.remove(entry);
+    final Layout layout = entry.mLayout.get();
+    if (layout != null) {
+      mPendingEntriesByLayout.remove(layout);
+    }
+  }
+
+  /**
+   * @return the next layout to warm, skipping the ones that were garbage collected or whose tree
+   *     was released, or null if there is none. Reschedules the warming of the remaining layouts
+   *     when the batch is done.
+   */
+  @Nullable
+  private synchronized Layout pollLayoutToWarm(boolean isBatchDone) {
+    while (!isBatchDone && !mPendingEntries.isEmpty()) {
+      final Entry entry = mPendingEntries.first();
+      removePendingEntry(entry);
+
+      final Layout layout = entry.mLayout.get();
+      final ComponentTree componentTree =
+          entry.mComponentTree == null ? null : entry.mComponentTree.get();
+      final boolean isTreeReleased =
+          entry.mComponentTree != null && (componentTree == null || componentTree.isReleased());
+      if (layout != null && !isTreeReleased) {
+        mWarmedLayouts.put(layout, Boolean.TRUE);
+        if (componentTree != null) {
+          List<WeakReference<Layout>> warmedLayouts = mWarmedLayoutsByTree.get(componentTree);
+          if (warmedLayouts == null) {
+            warmedLayouts = new ArrayList<>();
+            mWarmedLayoutsByTree.put(componentTree, warmedLayouts);
+          }
+          warmedLayouts.add(new WeakReference<>(layout));
+        }
+        return layout;
+      }
+    }
+
+    if (mPendingEntries.isEmpty()) {
+      mIsWarmingScheduled = false;
+    } else {
+      mHandler.sendEmptyMessage(WarmerHandler.WARM_LAYOUTS);
+    }
+    return null;
+  }
+
+  private static final class Entry implements Comparable<Entry> {
+
+    private final WeakReference<Layout> mLayout;
+    @Nullable private final WeakReference<ComponentTree> mComponentTree;
+    private final int mViewportDistance;
+    private final long mSequence;
+
+    private Entry(
+        Layout layout,
+        @Nullable ComponentTree componentTree,
+        int viewportDistance,
+        long sequence) {
+      mLayout = new WeakReference<>(layout);
+      mComponentTree = componentTree == null ? null : new WeakReference<>(componentTree);
+      mViewportDistance = viewportDistance;
+      mSequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      if (mViewportDistance != other.mViewportDistance) {
+        return mViewportDistance < other.mViewportDistance ? -1 : 1;
+      }
+
+      return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+    }
+  }
+
+  private static final class WarmerHandler extends Handler {
+    public static final int WARM_LAYOUTS = 0;
+
+    private final Picture mPicture;
+    private final GlyphWarmer mGlyphWarmer;
+
+    private WarmerHandler(Looper looper, GlyphWarmer glyphWarmer) {
+      super(looper);
+
+      Picture picture;
+      try {
+        picture = new Picture();
+      } catch (RuntimeException e) {
+        picture = null;
+      }
+
+      mPicture = picture;
+      mGlyphWarmer = glyphWarmer;
+    }
+
+    @Override
+    public void handleMessage(Message msg) {
+      int warmedCount = 0;
+      Layout layout;
+      while ((layout = mGlyphWarmer.pollLayoutToWarm(warmedCount == BATCH_SIZE)) != null) {
+        warmedCount++;
+        warm(layout);
+      }
+    }
+
+    private void warm(Layout layout) {
+      if (mPicture == null) {
+        return;
+      }
+
+      try {
+        final Canvas canvas = mPicture.beginRecording(layout.getWidth(), layout.getHeight());
+
+        layout.draw(canvas);
+        mPicture.endRecording();
+      } catch (Exception e) {
+        // Nothing to do here. This is a best effort. No real problem if it fails.
+      }
+    }
+  }
+}
@@ -102,6 +102,26 @@ class InternalNode implements ComponentLayout {
   private static final long PFLAG_BORDER_IS_SET = 1L << 28;
   private static final long PFLAG_STATE_LIST_ANIMATOR_SET = 1L << 29;
 
+  private static final long PFLAG_STYLES_AFFECTING_MEASURE =
+      PFLAG_LAYOUT_DIRECTION_IS_SET
+          | PFLAG_ALIGN_SELF_IS_SET
+          | PFLAG_POSITION_TYPE_IS_SET
+          | PFLAG_FLEX_IS_SET
+          | PFLAG_FLEX_GROW_IS_SET
+          | PFLAG_FLEX_SHRINK_IS_SET
+          | PFLAG_FLEX_BASIS_IS_SET
+          | PFLAG_MARGIN_IS_SET
+          | PFLAG_PADDING_IS_SET
+          | PFLAG_POSITION_IS_SET
+          | PFLAG_WIDTH_IS_SET
+          | PFLAG_MIN_WIDTH_IS_SET
+          | PFLAG_MAX_WIDTH_IS_SET
+          | PFLAG_HEIGHT_IS_SET
+          | PFLAG_MIN_HEIGHT_IS_SET
+          | PFLAG_MAX_HEIGHT_IS_SET
+          | PFLAG_ASPECT_RATIO_IS_SET
+          | PFLAG_BORDER_IS_SET;
+
   YogaNode mYogaNode;
   private ComponentContext mComponentContext;
   @ThreadConfined(ThreadConfined.ANY)
@@ -147,6 +167,11 @@ class InternalNode implements ComponentLayout {
   private int mLastHeightSpec = DiffNode.UNSPECIFIED;
   private float mLastMeasuredWidth = DiffNode.UNSPECIFIED;
   private float mLastMeasuredHeight = DiffNode.UNSPECIFIED;
+  private int mPreMeasuredWidthSpec = DiffNode.UNSPECIFIED;
+  private int mPreMeasuredHeightSpec = DiffNode.UNSPECIFIED;
+  private int mPreMeasuredWidth;
+  private int mPreMeasuredHeight;
+  private @Nullable Component mPreMeasuredComponent;
   private DiffNode mDiffNode;
   private @Nullable ArrayList<Transition> mTransitions;
   private @Nullable ArrayList<Component> mComponentsNeedingPreviousRenderData;
@@ -306,6 +331,54 @@ class InternalNode implements ComponentLayout {
     mLastMeasuredHeight = lastMeasuredHeight;
   }
 
+  /**
+   * Sets the size the measure function of this node's {@link Component} returned for the given
+   * size specs before the layout of the tree was calculated (see {@link ParallelMeasure}), and the
+   * copy of the component it was called on, which holds the outputs of that measure.
+   */
+  void setPreMeasuredSize(
+      int widthSpec, int heightSpec, int width, int height, Component measuredComponent) {
+    mPreMeasuredWidthSpec = widthSpec;
+    mPreMeasuredHeightSpec = heightSpec;
+    mPreMeasuredWidth = width;
+    mPreMeasuredHeight = height;
+    mPreMeasuredComponent = measuredComponent;
+  }
+
+  /** @return whether this node was measured ahead of the layout calculation for these specs. */
+  boolean hasPreMeasuredSize(int widthSpec, int heightSpec) {
+    return mPreMeasuredWidthSpec != DiffNode.UNSPECIFIED
+        && mPreMeasuredWidthSpec == widthSpec
+        && mPreMeasuredHeightSpec == heightSpec;
+  }
+
+  int getPreMeasuredWidth() {
+    return mPreMeasuredWidth;
+  }
+
+  int getPreMeasuredHeight() {
+    return mPreMeasuredHeight;
+  }
+
+  @Nullable
+  Component getPreMeasuredComponent() {
+    return mPreMeasuredComponent;
+  }
+
+  void clearPreMeasuredSize() {
+    mPreMeasuredWidthSpec = DiffNode.UNSPECIFIED;
+    mPreMeasuredHeightSpec = DiffNode.UNSPECIFIED;
+    mPreMeasuredComponent = null;
+  }
+
+  /**
+   * @return whether any style that changes the constraints Yoga lays out this node with, or its
+   *     children with, was set: sizes, margins, paddings, borders, flex, position or alignment.
+   */
+  boolean hasStylesAffectingMeasure() {
+    return (mPrivateFlags & PFLAG_STYLES_AFFECTING_MEASURE) != 0L;
+  }
+
   DiffNode getDiffNode() {
     return mDiffNode;
   }
@@ -1568,6 +1641,7 @@ class InternalNode implements ComponentLayout {
     mLastHeightSpec = DiffNode.UNSPECIFIED;
     mLastMeasuredHeight = DiffNode.UNSPECIFIED;
     mLastMeasuredWidth = DiffNode.UNSPECIFIED;
+    clearPreMeasuredSize();
     mDiffNode = null;
     mCachedMeasuresValid = false;
     mIsNestedTreeHolder = false;
@@ -31,7 +31,7 @@ public class KeyHandler {
           + "all sibling children components of the same type have unique keys:\n";
 
   private final @Nullable ComponentsLogger mLogger;
-  private final Set<String> mKnownGlobalKeys;
+  private final Set<GlobalKey> mKnownGlobalKeys;
 
   public KeyHandler(@Nullable ComponentsLogger logger) {
     mKnownGlobalKeys = new HashSet<>();
@@ -44,16 +44,20 @@ public class KeyHandler {
      * has been manually set on sibling components.
      */
     checkIsDuplicateKey(component);
-    mKnownGlobalKeys.add(component.getGlobalKey());
+    mKnownGlobalKeys.add(component.getGlobalKeyObject());
   }
 
   /** Returns true if this KeyHandler has already recorded a component with the given key. */
   public boolean hasKey(String key) {
+    return hasKey(GlobalKey.create(key));
+  }
+
+  boolean hasKey(GlobalKey key) {
     return mKnownGlobalKeys.contains(key);
   }
 
   private void checkIsDuplicateKey(Component component) {
-    if (mKnownGlobalKeys.contains(component.getGlobalKey())) {
+    if (mKnownGlobalKeys.contains(component.getGlobalKeyObject())) {
       final String message =
           "Found another " + component.getSimpleName() + " Component with the same key.";
       final String errorMessage = mLogger == null ? message : getDuplicateKeyMessage();
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.FrameworkLogEvents.EVENT_LAYOUT_CACHE_LOOKUP;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_COMPONENT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_LAYOUT_CACHE_HIT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_LAYOUT_CACHE_HIT_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_LAYOUT_CACHE_MISS_COUNT;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A size-bounded LRU cache of measured diff trees that can be shared by several {@link
+ * ComponentTree}s (see {@link ComponentTree.Builder#layoutCache(LayoutCache)}).
+ *
+ * <p>When a tree without a previous layout (e.g. a tree that was just created for an item of a
+ * list) computes a layout for a root component that is equivalent (see {@link
+ * Component#isEquivalentTo(Component)}) to the root of a cached layout and for the same size specs,
+ * the cached diff tree is used as the previous diff tree. The measurements of all the components
+ * that did not change are then reused instead of being computed again, exactly as when a tree
+ * re-computes its own layout with layout diffing enabled.
+ *
+ * <p>The cache keeps a copy of the diff tree of each layout, holding a reference on the {@link
+ * LayoutOutput}s it points to, so that the {@link LayoutState} it was computed for can be released
+ * as usual. The ids of these outputs then seed the ids of the outputs of another tree. That's safe
+ * because MountState only trusts the update state of a LayoutOutput when it was computed by the
+ * same tree as the last mounted layout, and compares the components otherwise.
+ *
+ * <p>Only the trees with layout diffing enabled use the cache. Hit and miss counts are available
+ * through {@link #getHitCount()} and {@link #getMissCount()} and every lookup is logged as {@link
+ * FrameworkLogEvents#EVENT_LAYOUT_CACHE_LOOKUP} if the tree has a {@link ComponentsLogger} that
+ * traces it.
+ */
+@ThreadSafe
+public class LayoutCache {
+
+  private final int mMaxSize;
+
+  // In access order, least recently used first.
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, CachedLayout> mEntries =
+      new LinkedHashMap<>(16, 0.75f, true /* accessOrder */);
+
+  @GuardedBy("this")
+  private int mHitCount;
+
+  @GuardedBy("this")
+  private int mMissCount;
+
+  public LayoutCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0");
+    }
+
+    mMaxSize = maxSize;
+  }
+
+  /**
+   * @return a cached layout whose root is equivalent to the given one and that was computed with
+   *     the same size specs, or null if there is none. The caller needs to call {@link
+   *     #release(CachedLayout)} on the returned layout once done with its diff tree.
+   */
+  @Nullable
+  CachedLayout acquire(ComponentContext c, Component root, int widthSpec, int heightSpec) {
+    final Key key = new Key(root, widthSpec, heightSpec);
+    CachedLayout cachedLayout;
+    final int hitCount;
+    final int missCount;
+
+    synchronized (this) {
+      cachedLayout = mEntries.get(key);
+      if (cachedLayout != null && cachedLayout.mRoot.isEquivalentTo(root)) {
+        cachedLayout.mRefCount++;
+        mHitCount++;
+      } else {
+        cachedLayout = null;
+        mMissCount++;
+      }
+
+      hitCount = mHitCount;
+      missCount = mMissCount;
+    }
+
+    final ComponentsLogger logger = c.getLogger();
+    if (logger != null) {
+      final LogEvent event = logger.newEvent(EVENT_LAYOUT_CACHE_LOOKUP);
+      if (logger.isTracing(event)) {
+        event.addParam(PARAM_COMPONENT, root.getSimpleName());
+        event.addParam(PARAM_LAYOUT_CACHE_HIT, String.valueOf(cachedLayout != null));
+        event.addParam(PARAM_LAYOUT_CACHE_HIT_COUNT, String.valueOf(hitCount));
+        event.addParam(PARAM_LAYOUT_CACHE_MISS_COUNT, String.valueOf(missCount));
+        logger.log(event);
+      } else {
+        ComponentsPools.release(event);
+      }
+    }
+
+    return cachedLayout;
+  }
+
+  /** Releases a layout returned by {@link #acquire}. */
+  void release(CachedLayout cachedLayout) {
+    final boolean isUnused;
+    synchronized (this) {
+      isUnused = --cachedLayout.mRefCount == 0;
+    }
+
+    if (isUnused) {
+      cachedLayout.releaseDiffTree();
+    }
+  }
+
+  /**
+   * Adds the diff tree of a layout that was computed for the given root and size specs, unless an
+   * equivalent root is already cached for the same size specs. It evicts the least recently used
+   * layout if the cache is full. Layouts without a diff tree are ignored.
+   */
+  void put(Component root, int widthSpec, int heightSpec, LayoutState layoutState) {
+    final DiffNode diffTree = layoutState.getDiffTree();
+    if (diffTree == null) {
+      return;
+    }
+
+    final Key key = new Key(root, widthSpec, heightSpec);
+    if (isCached(key, root)) {
+      return;
+    }
+
+    // Copy the tree out of the lock, at the risk of discarding the copy if another thread cached
+    // the same layout meanwhile.
+    final CachedLayout cachedLayout = new CachedLayout(root, copyDiffTree(diffTree));
+    final List<CachedLayout> toRelease = new ArrayList<>(1);
+
+    synchronized (this) {
+      final CachedLayout existing = mEntries.get(key);
+      if (existing != null && existing.mRoot.isEquivalentTo(root)) {
+        toRelease.add(cachedLayout);
+      } else {
+        mEntries.put(key, cachedLayout);
+        if (existing != null) {
+          toRelease.add(existing);
+        }
+
+        if (mEntries.size() > mMaxSize) {
+          final Iterator<CachedLayout> iterator = mEntries.values().iterator();
+          toRelease.add(iterator.next());
+          iterator.remove();
+        }
+      }
+    }
+
+    for (int i = 0, size = toRelease.size(); i < size; i++) {
+      release(toRelease.get(i));
+    }
+  }
+
+  private synchronized boolean isCached(Key key, Component root) {
+    final CachedLayout existing = mEntries.get(key);
+    return existing != null && existing.mRoot.isEquivalentTo(root);
+  }
+
+  /** Removes all the cached layouts. */
+  public void clear() {
+    final List<CachedLayout> toRelease;
+    synchronized (this) {
+      toRelease = new ArrayList<>(mEntries.values());
+      mEntries.clear();
+    }
+
+    for (int i = 0, size = toRelease.size(); i < size; i++) {
+      release(toRelease.get(i));
+    }
+  }
+
+  public synchronized int getSize() {
+    return mEntries.size();
+  }
+
+  public int getMaxSize() {
+    return mMaxSize;
+  }
+
+  /** @return the number of lookups that found a cached layout. */
+  public synchronized int getHitCount() {
+    return mHitCount;
+  }
+
+  /** @return the number of lookups that did not find a cached layout. */
+  public synchronized int getMissCount() {
+    return mMissCount;
+  }
+
+  /**
+   * Copies the measurements of a diff tree, holding a reference on the LayoutOutputs it points to.
+   * Visibility outputs are only diffed by id, which is all the copy keeps of them.
+   */
+  private static DiffNode copyDiffTree(DiffNode diffNode) {
+    final DiffNode copy = ComponentsPools.acquireDiffNode();
+    copy.setComponent(diffNode.getComponent());
+    copy.setLastWidthSpec(diffNode.getLastWidthSpec());
+    copy.setLastHeightSpec(diffNode.getLastHeightSpec());
+    copy.setLastMeasuredWidth(diffNode.getLastMeasuredWidth());
+    copy.setLastMeasuredHeight(diffNode.getLastMeasuredHeight());
+    copy.setContent(acquireRef(diffNode.getContent()));
+    copy.setBackground(acquireRef(diffNode.getBackground()));
+    copy.setForeground(acquireRef(diffNode.getForeground()));
+    copy.setBorder(acquireRef(diffNode.getBorder()));
+    copy.setHost(acquireRef(diffNode.getHost()));
+
+    final VisibilityOutput visibilityOutput = diffNode.getVisibilityOutput();
+    if (visibilityOutput != null) {
+      final VisibilityOutput visibilityOutputCopy = ComponentsPools.acquireVisibilityOutput();
+      visibilityOutputCopy.setId(visibilityOutput.getId());
+      copy.setVisibilityOutput(visibilityOutputCopy);
+    }
+
+    for (int i = 0, count = diffNode.getChildCount(); i < count; i++) {
+      copy.addChild(copyDiffTree(diffNode.getChildAt(i)));
+    }
+
+    return copy;
+  }
+
+  @Nullable
+  private static LayoutOutput acquireRef(@Nullable LayoutOutput layoutOutput) {
+    return layoutOutput != null ? layoutOutput.acquireRef() : null;
+  }
+
+  /** Releases the outputs of a copied diff tree. The DiffNodes are released by their root. */
+  private static void releaseOutputs(DiffNode diffNode) {
+    release(diffNode.getContent());
+    release(diffNode.getBackground());
+    release(diffNode.getForeground());
+    release(diffNode.getBorder());
+    release(diffNode.getHost());
+
+    final VisibilityOutput visibilityOutput = diffNode.getVisibilityOutput();
+    if (visibilityOutput != null) {
+      ComponentsPools.release(visibilityOutput);
+    }
+
+    for (int i = 0, count = diffNode.getChildCount(); i < count; i++) {
+      releaseOutputs(diffNode.getChildAt(i));
+    }
+  }
+
+  private static void release(@Nullable LayoutOutput layoutOutput) {
+    if (layoutOutput != null) {
+      layoutOutput.release();
+    }
+  }
+
+  /** A copied diff tree, referenced by the cache while cached and by each tree diffing with it. */
+  static final class CachedLayout {
+
+    private final Component mRoot;
+    private final DiffNode mDiffTree;
+
+    @GuardedBy("LayoutCache.this")
+    private int mRefCount = 1;
+
+    private CachedLayout(Component root, DiffNode diffTree) {
+      mRoot = root;
+      mDiffTree = diffTree;
+    }
+
+    DiffNode getDiffTree() {
+      return mDiffTree;
+    }
+
+    private void releaseDiffTree() {
+      releaseOutputs(mDiffTree);
+      ComponentsPools.release(mDiffTree);
+    }
+  }
+
+  /** Hashes the root by its type and props, and the size specs. */
+  private static final class Key {
+
+    private final Class<?> mRootClass;
+    private final int mPropsHashCode;
+    private final int mWidthSpec;
+    private final int mHeightSpec;
+
+    Key(Component root, int widthSpec, int heightSpec) {
+      mRootClass = root.getClass();
+      mPropsHashCode = root.getPropsHashCode();
+      mWidthSpec = widthSpec;
+      mHeightSpec = heightSpec;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      final Key other = (Key) o;
+      return mRootClass == other.mRootClass
+          && mPropsHashCode == other.mPropsHashCode
+          && mWidthSpec == other.mWidthSpec
+          && mHeightSpec == other.mHeightSpec;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = mRootClass.hashCode();
+      result = 31 * result + mPropsHashCode;
+      result = 31 * result + mWidthSpec;
+      return 31 * result + mHeightSpec;
+    }
+  }
+}
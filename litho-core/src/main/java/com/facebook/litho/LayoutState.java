@@ -145,7 +145,41 @@ class LayoutState {
         }
       };
 
-  private final Map<String, Rect> mComponentKeyToBounds = new HashMap<>();
+  static final Comparator<LayoutOutput> sLeftsComparator =
+      new Comparator<LayoutOutput>() {
+        @Override
+        public int compare(LayoutOutput lhs, LayoutOutput rhs) {
+          final int lhsLeft = lhs.getBounds().left;
+          final int rhsLeft = rhs.getBounds().left;
+          return lhsLeft < rhsLeft
+              ? -1
+              : lhsLeft > rhsLeft
+              ? 1
+              // Hosts should be higher for lefts so that they are mounted first if possible.
+              : isHostSpec(lhs.getComponent()) == isHostSpec(rhs.getComponent())
+              ? 0
+              : isHostSpec(lhs.getComponent()) ? -1 : 1;
+        }
+      };
+
+  static final Comparator<LayoutOutput> sRightsComparator =
+      new Comparator<LayoutOutput>() {
+        @Override
+        public int compare(LayoutOutput lhs, LayoutOutput rhs) {
+          final int lhsRight = lhs.getBounds().right;
+          final int rhsRight = rhs.getBounds().right;
+          return lhsRight < rhsRight
+              ? -1
+              : lhsRight > rhsRight
+              ? 1
+              // Hosts should be lower for rights so that they are mounted first if possible.
+              : isHostSpec(lhs.getComponent()) == isHostSpec(rhs.getComponent())
+              ? 0
+              : isHostSpec(lhs.getComponent()) ? 1 : -1;
+        }
+      };
+
+  private final Map<GlobalKey, Rect> mComponentKeyToBounds = new HashMap<>();
   private final List<Component> mComponents = new ArrayList<>();
 
   @ThreadConfined(ThreadConfined.UI)
@@ -157,6 +191,11 @@ class LayoutState {
   private static final int[] DRAWABLE_STATE_ENABLED = new int[]{android.R.attr.state_enabled};
   private static final int[] DRAWABLE_STATE_NOT_ENABLED = new int[]{};
 
+  /** The key {@link #applyDiffNodeToUnchangedNodes} matches children without a key by. */
+  private static final Object NO_MATCH_KEY = new Object();
+
+  private static final AtomicInteger sIdGenerator = new AtomicInteger(1);
+
   private volatile ComponentContext mContext;
   private TransitionContext mTransitionContext;
 
@@ -167,10 +206,13 @@ class LayoutState {
 
   private final List<LayoutOutput> mMountableOutputs = new ArrayList<>(8);
   private final List<VisibilityOutput> mVisibilityOutputs = new ArrayList<>(8);
+  private @Nullable VisibilityOutputIndex mVisibilityOutputIndex;
   private final LongSparseArray<Integer> mOutputsIdToPositionMap = new LongSparseArray<>(8);
   private final LayoutStateOutputIdCalculator mLayoutStateOutputIdCalculator;
   private final ArrayList<LayoutOutput> mMountableOutputTops = new ArrayList<>();
   private final ArrayList<LayoutOutput> mMountableOutputBottoms = new ArrayList<>();
+  private final ArrayList<LayoutOutput> mMountableOutputLefts = new ArrayList<>();
+  private final ArrayList<LayoutOutput> mMountableOutputRights = new ArrayList<>();
   private final Queue<Integer> mDisplayListsToPrefetch = new LinkedList<>();
 
   private List<TestOutput> mTestOutputs;
@@ -198,6 +240,7 @@ class LayoutState {
 
   private boolean mShouldGenerateDiffTree = false;
   private int mComponentTreeId = -1;
+  private int mId;
 
   private AccessibilityManager mAccessibilityManager;
   private boolean mAccessibilityEnabled = false;
@@ -208,6 +251,10 @@ class LayoutState {
   private boolean mClipChildren = true;
   private ArrayList<Component> mComponentsNeedingPreviousRenderData;
   private SimpleArrayMap<String, LayoutOutput> mTransitionKeyMapping;
+  // Whether mTransitionKeyMapping was created before this LayoutState was handed to other threads,
+  // in which case it's never replaced and any thread may read it.
+  private boolean mHasPlannedTransitionKeyMapping;
+  @Nullable private TransitionPlan mTransitionPlan;
   private boolean mHasLithoViewWidthAnimation = false;
   private boolean mHasLithoViewHeightAnimation = false;
   long mCalculateLayoutDuration;
@@ -831,8 +878,8 @@ class LayoutState {
       for (Component delegate : node.getComponents()) {
         final Rect copyRect = ComponentsPools.acquireRect();
         copyRect.set(rect);
-        if (delegate.getGlobalKey() != null) {
-          layoutState.mComponentKeyToBounds.put(delegate.getGlobalKey(), copyRect);
+        if (delegate.getGlobalKeyObject() != null) {
+          layoutState.mComponentKeyToBounds.put(delegate.getGlobalKeyObject(), copyRect);
         }
       }
       ComponentsPools.release(rect);
@@ -848,7 +895,7 @@ class LayoutState {
     layoutState.mShouldDuplicateParentState = shouldDuplicateParentState;
   }
 
-  Map<String, Rect> getComponentKeyToBounds() {
+  Map<GlobalKey, Rect> getComponentKeyToBounds() {
     return mComponentKeyToBounds;
   }
 
@@ -1092,6 +1139,34 @@ class LayoutState {
       boolean canCacheDrawingDisplayLists,
       boolean clipChildren,
       @CalculateLayoutSource int source) {
+    return calculate(
+        c,
+        component,
+        componentTreeId,
+        widthSpec,
+        heightSpec,
+        shouldGenerateDiffTree,
+        previousDiffTreeRoot,
+        canPrefetchDisplayLists,
+        canCacheDrawingDisplayLists,
+        clipChildren,
+        null /* parallelMeasureHandler */,
+        source);
+  }
+
+  static LayoutState calculate(
+      ComponentContext c,
+      Component component,
+      int componentTreeId,
+      int widthSpec,
+      int heightSpec,
+      boolean shouldGenerateDiffTree,
+      DiffNode previousDiffTreeRoot,
+      boolean canPrefetchDisplayLists,
+      boolean canCacheDrawingDisplayLists,
+      boolean clipChildren,
+      @Nullable LayoutHandler parallelMeasureHandler,
+      @CalculateLayoutSource int source) {
 
     final ComponentsLogger logger = c.getLogger();
     LogEvent logLayoutState = null;
@@ -1119,6 +1194,7 @@ class LayoutState {
     layoutState.clearComponents();
     layoutState.mShouldGenerateDiffTree = shouldGenerateDiffTree;
     layoutState.mComponentTreeId = componentTreeId;
+    layoutState.mId = sIdGenerator.getAndIncrement();
     layoutState.mAccessibilityManager =
         (AccessibilityManager) c.getSystemService(ACCESSIBILITY_SERVICE);
     layoutState.mAccessibilityEnabled = isAccessibilityEnabled(layoutState.mAccessibilityManager);
@@ -1137,7 +1213,8 @@ class LayoutState {
                 null, // nestedTreeHolder is null because this is measuring the root component tree.
                 widthSpec,
                 heightSpec,
-                previousDiffTreeRoot)
+                previousDiffTreeRoot,
+                parallelMeasureHandler)
             : component.mLayoutCreatedInWillRender;
 
     switch (SizeSpec.getMode(widthSpec)) {
@@ -1189,6 +1266,14 @@ class LayoutState {
 
     Collections.sort(layoutState.mMountableOutputTops, sTopsComparator);
     Collections.sort(layoutState.mMountableOutputBottoms, sBottomsComparator);
+    Collections.sort(layoutState.mMountableOutputLefts, sLeftsComparator);
+    Collections.sort(layoutState.mMountableOutputRights, sRightsComparator);
+
+    if (!layoutState.mVisibilityOutputs.isEmpty()) {
+      layoutState.mVisibilityOutputIndex =
+          VisibilityOutputIndex.create(
+              layoutState.mVisibilityOutputs, layoutState.mWidth > layoutState.mHeight);
+    }
 
     if (logger != null) {
       logger.log(collectResultsEvent);
@@ -1498,6 +1583,21 @@ class LayoutState {
       int widthSpec,
       int heightSpec,
       DiffNode previousDiffTreeRoot) {
+    measureTree(
+        root, widthSpec, heightSpec, previousDiffTreeRoot, null /* parallelMeasureHandler */);
+  }
+
+  /**
+   * @param parallelMeasureHandler if set, the handler on which to measure the leaves of the tree
+   *     whose size specs can be predicted before calculating the layout, see {@link
+   *     ParallelMeasure}.
+   */
+  static void measureTree(
+      InternalNode root,
+      int widthSpec,
+      int heightSpec,
+      DiffNode previousDiffTreeRoot,
+      @Nullable LayoutHandler parallelMeasureHandler) {
     final ComponentContext context = root.getContext();
     final Component component = root.getRootComponent();
     final boolean isTracing = ComponentsSystrace.isTracing();
@@ -1527,6 +1627,10 @@ class LayoutState {
       layoutEvent.addParam(PARAM_TREE_DIFF_ENABLED, String.valueOf(previousDiffTreeRoot != null));
     }
 
+    if (parallelMeasureHandler != null) {
+      ParallelMeasure.preMeasure(root, widthSpec, heightSpec, parallelMeasureHandler);
+    }
+
     root.calculateLayout(
         SizeSpec.getMode(widthSpec) == SizeSpec.UNSPECIFIED
             ? YogaConstants.UNDEFINED
@@ -1637,6 +1741,24 @@ class LayoutState {
       int widthSpec,
       int heightSpec,
       DiffNode diffTreeRoot) {
+    return createAndMeasureTreeForComponent(
+        c,
+        component,
+        nestedTreeHolder,
+        widthSpec,
+        heightSpec,
+        diffTreeRoot,
+        null /* parallelMeasureHandler */);
+  }
+
+  private static InternalNode createAndMeasureTreeForComponent(
+      ComponentContext c,
+      Component component,
+      InternalNode nestedTreeHolder,
+      int widthSpec,
+      int heightSpec,
+      DiffNode diffTreeRoot,
+      @Nullable LayoutHandler parallelMeasureHandler) {
 
     component.generateKey(c);
     component.applyStateUpdates(c);
@@ -1698,7 +1820,8 @@ class LayoutState {
         root,
         widthSpec,
         heightSpec,
-        diffTreeRoot);
+        diffTreeRoot,
+        parallelMeasureHandler);
 
     return root;
   }
@@ -1778,18 +1901,33 @@ class LayoutState {
     final int layoutCount = layoutNode.getChildCount();
     final int diffCount = diffNode.getChildCount();
 
+    // Children are matched by index unless children were inserted, removed or reordered before
+    // the end of the list, in which case they are matched by key.
+    final DiffNode[] diffChildrenByKey =
+        childrenMatchByIndex(layoutNode, diffNode)
+            ? null
+            : matchChildrenByKey(layoutNode, diffNode);
+
     // Layout node needs to be updated if:
     //   - it has a different number of children.
+    //   - its children were reordered.
     //   - one of its children needs updating.
     //   - the node itself declares that it needs updating.
-    boolean shouldUpdate = layoutCount != diffCount;
-    for (int i = 0; i < layoutCount && i < diffCount; i++) {
-      // ensure that we always run for all children.
-      boolean shouldUpdateChild =
-          applyDiffNodeToUnchangedNodes(
-              layoutNode.getChildAt(i),
-              diffNode.getChildAt(i));
-      shouldUpdate |= shouldUpdateChild;
+    boolean shouldUpdate = layoutCount != diffCount || diffChildrenByKey != null;
+    for (int i = 0; i < layoutCount; i++) {
+      final DiffNode diffChild;
+      if (diffChildrenByKey != null) {
+        diffChild = diffChildrenByKey[i];
+      } else {
+        diffChild = i < diffCount ? diffNode.getChildAt(i) : null;
+      }
+
+      if (diffChild != null) {
+        // ensure that we always run for all children.
+        boolean shouldUpdateChild =
+            applyDiffNodeToUnchangedNodes(layoutNode.getChildAt(i), diffChild);
+        shouldUpdate |= shouldUpdateChild;
+      }
     }
 
     shouldUpdate |= shouldComponentUpdate(layoutNode, diffNode);
@@ -1801,6 +1939,81 @@ class LayoutState {
     return shouldUpdate;
   }
 
+  /**
+   * Returns true if every child of the layout node has the same type and key as the child of the
+   * diff node at the same index, up to the end of the shorter list of children.
+   */
+  private static boolean childrenMatchByIndex(InternalNode layoutNode, DiffNode diffNode) {
+    for (int i = 0, count = Math.min(layoutNode.getChildCount(), diffNode.getChildCount());
+        i < count;
+        i++) {
+      final Component component = layoutNode.getChildAt(i).getRootComponent();
+      final Component diffComponent = diffNode.getChildAt(i).getComponent();
+      if (!isSameComponentType(component, diffComponent)
+          || !getMatchKey(component).equals(getMatchKey(diffComponent))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Matches the children of the layout node to the children of the diff node with the same key, so
+   * that inserting, removing or moving a child doesn't invalidate the cached measures of its
+   * siblings. Children with the same key are matched in order.
+   *
+   * @return the child of the diff node matched to each child of the layout node, or null for a
+   *     child that has no match.
+   */
+  private static DiffNode[] matchChildrenByKey(InternalNode layoutNode, DiffNode diffNode) {
+    final int diffCount = diffNode.getChildCount();
+    final Map<Object, Integer> firstIndexByKey = new HashMap<>(diffCount);
+    final int[] nextIndexWithSameKey = new int[diffCount];
+    for (int i = diffCount - 1; i >= 0; i--) {
+      final Integer nextIndex =
+          firstIndexByKey.put(getMatchKey(diffNode.getChildAt(i).getComponent()), i);
+      nextIndexWithSameKey[i] = nextIndex == null ? -1 : nextIndex;
+    }
+
+    final int layoutCount = layoutNode.getChildCount();
+    final DiffNode[] diffChildren = new DiffNode[layoutCount];
+    for (int i = 0; i < layoutCount; i++) {
+      final Object key = getMatchKey(layoutNode.getChildAt(i).getRootComponent());
+      final Integer index = firstIndexByKey.get(key);
+      if (index == null) {
+        continue;
+      }
+
+      diffChildren[i] = diffNode.getChildAt(index);
+      if (nextIndexWithSameKey[index] < 0) {
+        firstIndexByKey.remove(key);
+      } else {
+        firstIndexByKey.put(key, nextIndexWithSameKey[index]);
+      }
+    }
+
+    return diffChildren;
+  }
+
+  /**
+   * Returns the global key of the component if it has one, its key otherwise. A child whose
+   * component has a manual key keeps the same global key wherever it is among its siblings.
+   */
+  private static Object getMatchKey(@Nullable Component component) {
+    if (component == null) {
+      return NO_MATCH_KEY;
+    }
+
+    final GlobalKey globalKey = component.getGlobalKeyObject();
+    if (globalKey != null) {
+      return globalKey;
+    }
+
+    final String key = component.getKey();
+    return key != null ? key : NO_MATCH_KEY;
+  }
+
   /**
    * Copies the inter stage state (if any) from the DiffNode's component to the layout node's
    * component, and declares that the cached measures on the diff node are valid for the layout
@@ -1880,6 +2093,14 @@ class LayoutState {
     return mMountableOutputBottoms;
   }
 
+  ArrayList<LayoutOutput> getMountableOutputLefts() {
+    return mMountableOutputLefts;
+  }
+
+  ArrayList<LayoutOutput> getMountableOutputRights() {
+    return mMountableOutputRights;
+  }
+
   int getVisibilityOutputCount() {
     return mVisibilityOutputs.size();
   }
@@ -1888,6 +2109,15 @@ class LayoutState {
     return mVisibilityOutputs.get(index);
   }
 
+  /**
+   * @return the spatial index of the visibility outputs, or null if this LayoutState has none or
+   *     was not created by {@link #calculate}.
+   */
+  @Nullable
+  VisibilityOutputIndex getVisibilityOutputIndex() {
+    return mVisibilityOutputIndex;
+  }
+
   int getTestOutputCount() {
     return mTestOutputs == null ? 0 : mTestOutputs.size();
   }
@@ -1915,6 +2145,11 @@ class LayoutState {
     return mComponentTreeId;
   }
 
+  /** @return an id that is unique to this calculation of the layout. */
+  int getId() {
+    return mId;
+  }
+
   /**
    * See {@link LayoutState#acquireRef} Call this when you are done using the reference to the
    * LayoutState.
@@ -1937,6 +2172,7 @@ class LayoutState {
       mCurrentHostMarker = -1;
       mCurrentHostOutputPosition = -1;
       mComponentTreeId = -1;
+      mId = 0;
 
       mShouldDuplicateParentState = true;
       mClipChildren = true;
@@ -1947,6 +2183,8 @@ class LayoutState {
       mMountableOutputs.clear();
       mMountableOutputTops.clear();
       mMountableOutputBottoms.clear();
+      mMountableOutputLefts.clear();
+      mMountableOutputRights.clear();
       mOutputsIdToPositionMap.clear();
       mDisplayListsToPrefetch.clear();
 
@@ -1959,6 +2197,7 @@ class LayoutState {
         ComponentsPools.release(mVisibilityOutputs.get(i));
       }
       mVisibilityOutputs.clear();
+      mVisibilityOutputIndex = null;
 
       if (mTestOutputs != null) {
         for (int i = 0, size = mTestOutputs.size(); i < size; i++) {
@@ -1995,6 +2234,8 @@ class LayoutState {
       }
 
       mTransitionKeyMapping = null;
+      mHasPlannedTransitionKeyMapping = false;
+      mTransitionPlan = null;
       mHasLithoViewWidthAnimation = false;
       mHasLithoViewHeightAnimation = false;
 
@@ -2130,16 +2371,71 @@ class LayoutState {
       return mTransitionKeyMapping;
     }
 
-    mTransitionKeyMapping = new SimpleArrayMap<>();
+    mTransitionKeyMapping = createTransitionKeyMapping(this, true /* throwOnDuplicateKey */);
+    return mTransitionKeyMapping;
+  }
+
+  @Nullable
+  TransitionPlan getTransitionPlan() {
+    return mTransitionPlan;
+  }
+
+  /**
+   * Creates the transition key mapping of this LayoutState and diffs it against the mapping of the
+   * LayoutState that is expected to be mounted before it, if any, so that mounting this one doesn't
+   * need to. This must be called on the thread that calculated this LayoutState, before it's handed
+   * to any other thread.
+   */
+  void createTransitionPlan(@Nullable LayoutState previousLayoutState) {
+    if (!hasTransitionContext()) {
+      return;
+    }
+
+    // When keys are duplicated, the mount creates the mappings again and reports them.
+    final SimpleArrayMap<String, LayoutOutput> nextTransitionKeys =
+        createTransitionKeyMapping(this, false /* throwOnDuplicateKey */);
+    if (nextTransitionKeys == null) {
+      return;
+    }
+
+    mTransitionKeyMapping = nextTransitionKeys;
+    mHasPlannedTransitionKeyMapping = true;
+
+    if (previousLayoutState == null || previousLayoutState.mId == 0) {
+      return;
+    }
+
+    // The mapping of the previous LayoutState is only reused if it was created along with its own
+    // plan, since the main thread may otherwise be lazily creating it meanwhile.
+    final SimpleArrayMap<String, LayoutOutput> currentTransitionKeys =
+        previousLayoutState.mHasPlannedTransitionKeyMapping
+            ? previousLayoutState.mTransitionKeyMapping
+            : createTransitionKeyMapping(previousLayoutState, false /* throwOnDuplicateKey */);
+    if (currentTransitionKeys == null) {
+      return;
+    }
 
-    for (int i = 0, size = getMountableOutputCount(); i < size; i++) {
-      final LayoutOutput newOutput = getMountableOutputAt(i);
+    mTransitionPlan =
+        TransitionPlan.create(previousLayoutState.mId, currentTransitionKeys, nextTransitionKeys);
+  }
+
+  /** @return the mapping, or null if a key is duplicated and throwOnDuplicateKey isn't set. */
+  @Nullable
+  private static SimpleArrayMap<String, LayoutOutput> createTransitionKeyMapping(
+      LayoutState layoutState, boolean throwOnDuplicateKey) {
+    final SimpleArrayMap<String, LayoutOutput> transitionKeyMapping = new SimpleArrayMap<>();
+
+    for (int i = 0, size = layoutState.getMountableOutputCount(); i < size; i++) {
+      final LayoutOutput newOutput = layoutState.getMountableOutputAt(i);
       final String transitionKey = newOutput.getTransitionKey();
       if (transitionKey == null) {
         continue;
       }
 
-      if (mTransitionKeyMapping.put(transitionKey, newOutput) != null) {
+      if (transitionKeyMapping.put(transitionKey, newOutput) != null) {
+        if (!throwOnDuplicateKey) {
+          return null;
+        }
         throw new RuntimeException(
             "The transitionKey '"
                 + transitionKey
@@ -2149,7 +2445,7 @@ class LayoutState {
       }
     }
 
-    return mTransitionKeyMapping;
+    return transitionKeyMapping;
   }
 
   LayoutOutput getLayoutOutputForTransitionKey(String transitionKey) {
@@ -2160,6 +2456,8 @@ class LayoutState {
     layoutState.mMountableOutputs.add(layoutOutput);
     layoutState.mMountableOutputTops.add(layoutOutput);
     layoutState.mMountableOutputBottoms.add(layoutOutput);
+    layoutState.mMountableOutputLefts.add(layoutOutput);
+    layoutState.mMountableOutputRights.add(layoutOutput);
   }
 
   private TransitionContext getOrCreateTransitionContext() {
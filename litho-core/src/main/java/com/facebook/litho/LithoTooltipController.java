@@ -68,10 +68,10 @@ public class LithoTooltipController {
       return;
     }
 
-    final String anchorGlobalKey =
+    final GlobalKey anchorGlobalKey =
         rootComponent == null
-            ? anchorKey
-            : ComponentKeyUtils.getKeyWithSeparator(rootComponent.getGlobalKey(), anchorKey);
+            ? GlobalKey.create(anchorKey)
+            : GlobalKey.create(rootComponent.getGlobalKeyObject(), anchorKey);
 
     componentTree.showTooltip(lithoTooltip, anchorGlobalKey, xOffset, yOffset);
   }
@@ -154,10 +154,10 @@ public class LithoTooltipController {
       return;
     }
 
-    final String anchorGlobalKey =
+    final GlobalKey anchorGlobalKey =
         rootComponent == null
-            ? anchorKey
-            : ComponentKeyUtils.getKeyWithSeparator(rootComponent.getGlobalKey(), anchorKey);
+            ? GlobalKey.create(anchorKey)
+            : GlobalKey.create(rootComponent.getGlobalKeyObject(), anchorKey);
 
     componentTree.showTooltip(tooltip, anchorGlobalKey, tooltipPosition, xOffset, yOffset);
   }
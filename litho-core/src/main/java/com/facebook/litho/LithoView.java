@@ -692,6 +692,10 @@ public class LithoView extends ComponentHost {
     return mMountState.isDirty();
   }
 
+  boolean isAttached() {
+    return mIsAttached;
+  }
+
   MountState getMountState() {
     return mMountState;
   }
@@ -53,8 +53,11 @@ import android.view.ViewGroup;
 import android.view.ViewOutlineProvider;
 import com.facebook.infer.annotation.ThreadConfined;
 import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.dataflow.ChoreographerCompat;
+import com.facebook.litho.dataflow.ChoreographerCompatImpl;
 import com.facebook.litho.reference.Reference;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
@@ -108,11 +111,14 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
   private final ComponentContext mContext;
   private final LithoView mLithoView;
   private final Rect mPreviousLocalVisibleRect = new Rect();
+  private final BitSet mVisibilityOutputCandidates = new BitSet();
   private final PrepareMountStats mPrepareMountStats = new PrepareMountStats();
   private final MountStats mMountStats = new MountStats();
   private TransitionManager mTransitionManager;
   private int mPreviousTopsIndex;
   private int mPreviousBottomsIndex;
+  private int mPreviousLeftsIndex;
+  private int mPreviousRightsIndex;
   private int mLastMountedComponentTreeId = ComponentTree.INVALID_ID;
   private final HashMap<String, MountItem> mDisappearingMountItems = new HashMap<>();
   private final HashSet<String> mAnimatingTransitionKeys = new HashSet<>();
@@ -121,6 +127,17 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
   private boolean mIsFirstMountOfComponentTree = false;
   private @Nullable ArrayList<Transition> mMountTimeTransitions;
 
+  // State of time-sliced mounts (see ComponentTree.Builder#timeSlicedMount): whether some
+  // mountable outputs were left unmounted to be mounted in the following frames, and the deadline
+  // of the current slice.
+  private boolean mIsTimeSlicedPass;
+  private boolean mHasDeferredMounts;
+  private boolean mDeferredProcessVisibilityOutputs;
+  private boolean mHasMountedInSlice;
+  private long mSliceDeadlineNs;
+  private long mFrameIntervalNs;
+  private @Nullable ChoreographerCompat.FrameCallback mResumeMountCallback;
+
   private final MountItem mRootHostMountItem;
 
   public MountState(LithoView view) {
@@ -224,7 +241,18 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     final boolean isIncrementalMountEnabled = localVisibleRect != null;
     final boolean isTracing = ComponentsSystrace.isTracing();
 
+    // Mounts that run transitions need all the animated content to be mounted at once.
+    mIsTimeSlicedPass =
+        componentTree.isTimeSlicedMountEnabled()
+            && !(shouldAnimateTransitions(layoutState) && hasTransitionsToAnimate(layoutState));
+    final boolean hadDeferredMounts = mHasDeferredMounts;
+    cancelDeferredMounts();
+    final Rect visibleRect = mIsTimeSlicedPass ? startMountSlice(localVisibleRect) : null;
+
+    // The deferred outputs can be anywhere in the visible rect, so they are not found by only
+    // looking at the outputs that entered it since the last mount.
     if (!isIncrementalMountEnabled
+        || hadDeferredMounts
         || !performIncrementalMount(layoutState, localVisibleRect, processVisibilityOutputs)) {
       final MountItem rootMountItem = mIndexToItemMap.get(ROOT_HOST_ID);
 
@@ -243,8 +271,15 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
                 Rect.intersects(localVisibleRect, layoutOutput.getBounds()) ||
                 isAnimationLocked(i) ||
                 (currentMountItem != null && currentMountItem == rootMountItem);
-
-        if (isMountable && !isMounted) {
+        final boolean isDeferred =
+            mIsTimeSlicedPass
+                && isMountable
+                && !isMounted
+                && shouldDeferMount(i, layoutOutput, visibleRect);
+
+        if (isDeferred) {
+          mHasDeferredMounts = true;
+        } else if (isMountable && !isMounted) {
           mountLayoutOutput(i, layoutOutput, layoutState);
 
           if (isAnimationLocked(i)
@@ -299,11 +334,20 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         }
       }
 
+      if (mHasDeferredMounts) {
+        mountDeferredOutputsInSlice(layoutState, localVisibleRect);
+      }
+
       if (isIncrementalMountEnabled) {
         setupPreviousMountableOutputData(layoutState, localVisibleRect);
       }
     }
 
+    mIsTimeSlicedPass = false;
+    if (visibleRect != null) {
+      ComponentsPools.release(visibleRect);
+    }
+
     if (shouldAnimateTransitions(layoutState) && hasTransitionsToAnimate(layoutState)) {
       mTransitionManager.runTransitions();
     }
@@ -319,7 +363,12 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     mLastMountedComponentTreeId = componentTreeId;
     mLastMountedLayoutState = layoutState.acquireRef();
 
-    if (processVisibilityOutputs) {
+    if (mHasDeferredMounts) {
+      // Visibility events are only dispatched once all the visible content is mounted.
+      mDeferredProcessVisibilityOutputs |= processVisibilityOutputs;
+      scheduleDeferredMounts();
+    } else if (processVisibilityOutputs || mDeferredProcessVisibilityOutputs) {
+      mDeferredProcessVisibilityOutputs = false;
       ComponentsSystrace.beginSection("processVisibilityOutputs");
       processVisibilityOutputs(layoutState, localVisibleRect);
       ComponentsSystrace.endSection();
@@ -357,6 +406,155 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     ComponentsSystrace.endSection();
   }
 
+  /**
+   * Starts the time slice in which the current mount pass mounts new content.
+   *
+   * @return the area of the LithoView whose content is mounted first, or null if none of it is
+   *     visible.
+   */
+  @Nullable
+  private Rect startMountSlice(@Nullable Rect localVisibleRect) {
+    // The rest of the frame is left to measure, layout and draw.
+    mSliceDeadlineNs = System.nanoTime() + getFrameIntervalNs() / 2;
+    mHasMountedInSlice = false;
+
+    final Rect visibleRect = ComponentsPools.acquireRect();
+    if (localVisibleRect != null) {
+      visibleRect.set(localVisibleRect);
+      return visibleRect;
+    }
+
+    if (mLithoView.getLocalVisibleRect(visibleRect)) {
+      return visibleRect;
+    }
+
+    ComponentsPools.release(visibleRect);
+    return null;
+  }
+
+  /**
+   * @return the duration of a frame on the display of the LithoView. It's only cached once the
+   *     view is attached to a window, since the display is unknown until then.
+   */
+  private long getFrameIntervalNs() {
+    if (mFrameIntervalNs != 0) {
+      return mFrameIntervalNs;
+    }
+
+    final long frameIntervalNs = DisplayListPrefetcher.getFrameIntervalNs(mLithoView);
+    if (ViewCompat.isAttachedToWindow(mLithoView)) {
+      mFrameIntervalNs = frameIntervalNs;
+    }
+
+    return frameIntervalNs;
+  }
+
+  /**
+   * @return whether the mount of the given output should be deferred. Hosts and outputs locked for
+   *     animation are always mounted, visible outputs are mounted as long as the slice has time
+   *     left and the others are only mounted after all the visible ones.
+   */
+  private boolean shouldDeferMount(
+      int index, LayoutOutput layoutOutput, @Nullable Rect visibleRect) {
+    if (isHostSpec(layoutOutput.getComponent()) || isAnimationLocked(index)) {
+      return false;
+    }
+
+    if (visibleRect == null || !Rect.intersects(visibleRect, layoutOutput.getBounds())) {
+      return true;
+    }
+
+    return !canMountInSlice();
+  }
+
+  /** Must only be called right before mounting an output. */
+  private boolean canMountInSlice() {
+    // At least one output is mounted in every slice so that the mount always makes progress.
+    if (!mHasMountedInSlice) {
+      mHasMountedInSlice = true;
+      return true;
+    }
+
+    return System.nanoTime() < mSliceDeadlineNs;
+  }
+
+  /**
+   * Mounts the mountable outputs that are not mounted yet in layout order, as long as the slice
+   * has time left.
+   */
+  private void mountDeferredOutputsInSlice(
+      LayoutState layoutState, @Nullable Rect localVisibleRect) {
+    mHasDeferredMounts = false;
+
+    for (int i = 0, size = layoutState.getMountableOutputCount(); i < size; i++) {
+      final LayoutOutput layoutOutput = layoutState.getMountableOutputAt(i);
+      if (getItemAt(i) != null
+          || (localVisibleRect != null
+              && !Rect.intersects(localVisibleRect, layoutOutput.getBounds()))) {
+        continue;
+      }
+
+      if (!canMountInSlice()) {
+        mHasDeferredMounts = true;
+        return;
+      }
+
+      mountLayoutOutput(i, layoutOutput, layoutState);
+    }
+  }
+
+  private void scheduleDeferredMounts() {
+    if (mResumeMountCallback == null) {
+      mResumeMountCallback =
+          new ChoreographerCompat.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+              mountDeferredOutputs();
+            }
+          };
+    }
+
+    ChoreographerCompatImpl.getInstance().postFrameCallback(mResumeMountCallback);
+  }
+
+  private void cancelDeferredMounts() {
+    mHasDeferredMounts = false;
+
+    if (mResumeMountCallback != null) {
+      ChoreographerCompatImpl.getInstance().removeFrameCallback(mResumeMountCallback);
+    }
+  }
+
+  /** Runs a new mount pass for the same visible rect to mount the deferred outputs. */
+  private void mountDeferredOutputs() {
+    final ComponentTree componentTree = mLithoView.getComponentTree();
+
+    // A dirty mount is already on its way and will take care of the deferred outputs.
+    if (!mHasDeferredMounts || mIsDirty || componentTree == null || !mLithoView.isAttached()) {
+      return;
+    }
+
+    if (!componentTree.isIncrementalMountEnabled()) {
+      componentTree.mountComponent(null, mDeferredProcessVisibilityOutputs);
+      return;
+    }
+
+    final Rect visibleRect = ComponentsPools.acquireRect();
+    visibleRect.set(mPreviousLocalVisibleRect);
+    componentTree.mountComponent(visibleRect, mDeferredProcessVisibilityOutputs);
+    ComponentsPools.release(visibleRect);
+  }
+
+  @VisibleForTesting
+  boolean hasDeferredMounts() {
+    return mHasDeferredMounts;
+  }
+
+  @VisibleForTesting
+  void setFrameIntervalNs(long frameIntervalNs) {
+    mFrameIntervalNs = frameIntervalNs;
+  }
+
   private void processVisibilityOutputs(LayoutState layoutState, Rect localVisibleRect) {
     if (localVisibleRect == null) {
       return;
@@ -365,7 +563,27 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     final boolean isDoingPerfLog = mMountStats.isLoggingEnabled;
     final boolean isTracing = ComponentsSystrace.isTracing();
     final long totalStartTime = isDoingPerfLog ? System.nanoTime() : 0;
-    for (int j = 0, size = layoutState.getVisibilityOutputCount(); j < size; j++) {
+
+    // Only the outputs that intersect the visible rect, or that were visible the last time we
+    // processed visibility outputs, can have a change of visibility state to dispatch.
+    final VisibilityOutputIndex visibilityOutputIndex = layoutState.getVisibilityOutputIndex();
+    final BitSet candidates = visibilityOutputIndex != null ? mVisibilityOutputCandidates : null;
+    if (candidates != null) {
+      candidates.clear();
+      visibilityOutputIndex.collectIntersecting(localVisibleRect, candidates);
+      for (int i = 0, itemCount = mVisibilityIdToItemMap.size(); i < itemCount; i++) {
+        final int position =
+            visibilityOutputIndex.getPositionForId(mVisibilityIdToItemMap.keyAt(i));
+        if (position >= 0) {
+          candidates.set(position);
+        }
+      }
+    }
+
+    final int size = layoutState.getVisibilityOutputCount();
+    for (int j = nextVisibilityOutputPosition(candidates, 0, size);
+        j < size;
+        j = nextVisibilityOutputPosition(candidates, j + 1, size)) {
       final VisibilityOutput visibilityOutput = layoutState.getVisibilityOutputAt(j);
       if (isTracing) {
         final String componentName =
@@ -491,6 +709,19 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     }
   }
 
+  /**
+   * @return the first position from {@code from} that needs to be processed, or {@code size} if
+   *     there are none left. Every position needs to be processed if there are no candidates.
+   */
+  private static int nextVisibilityOutputPosition(@Nullable BitSet candidates, int from, int size) {
+    if (candidates == null) {
+      return from;
+    }
+
+    final int next = candidates.nextSetBit(from);
+    return next < 0 ? size : next;
+  }
+
   /**
    * Clears and re-populates the test item map if we are in e2e test mode.
    */
@@ -547,6 +778,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
 
     final ArrayList<LayoutOutput> layoutOutputTops = layoutState.getMountableOutputTops();
     final ArrayList<LayoutOutput> layoutOutputBottoms = layoutState.getMountableOutputBottoms();
+    final ArrayList<LayoutOutput> layoutOutputLefts = layoutState.getMountableOutputLefts();
+    final ArrayList<LayoutOutput> layoutOutputRights = layoutState.getMountableOutputRights();
     final int mountableOutputCount = layoutState.getMountableOutputCount();
 
     mPreviousTopsIndex = layoutState.getMountableOutputCount();
@@ -564,6 +797,22 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         break;
       }
     }
+
+    mPreviousLeftsIndex = layoutState.getMountableOutputCount();
+    for (int i = 0; i < mountableOutputCount; i++) {
+      if (localVisibleRect.right <= layoutOutputLefts.get(i).getBounds().left) {
+        mPreviousLeftsIndex = i;
+        break;
+      }
+    }
+
+    mPreviousRightsIndex = layoutState.getMountableOutputCount();
+    for (int i = 0; i < mountableOutputCount; i++) {
+      if (localVisibleRect.left < layoutOutputRights.get(i).getBounds().right) {
+        mPreviousRightsIndex = i;
+        break;
+      }
+    }
   }
 
   private void clearVisibilityItems() {
@@ -1961,6 +2210,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
   }
 
   void unmountAllItems() {
+    cancelDeferredMounts();
+
     if (mLayoutOutputsIds == null) {
       return;
     }
@@ -2435,6 +2686,12 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
    * {@link ComponentLifecycle}.
    */
   void unbind() {
+    // The deferred outputs are mounted by the next mount pass instead, once bound again.
+    if (mHasDeferredMounts) {
+      mIsDirty = true;
+    }
+    cancelDeferredMounts();
+
     if (mLayoutOutputsIds == null) {
       return;
     }
@@ -2519,26 +2776,24 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       return false;
     }
 
-    if (localVisibleRect.left != mPreviousLocalVisibleRect.left ||
-        localVisibleRect.right != mPreviousLocalVisibleRect.right) {
-      return false;
-    }
-
     final ArrayList<LayoutOutput> layoutOutputTops = layoutState.getMountableOutputTops();
     final ArrayList<LayoutOutput> layoutOutputBottoms = layoutState.getMountableOutputBottoms();
+    final ArrayList<LayoutOutput> layoutOutputLefts = layoutState.getMountableOutputLefts();
+    final ArrayList<LayoutOutput> layoutOutputRights = layoutState.getMountableOutputRights();
     final int count = layoutState.getMountableOutputCount();
 
+    // An output needs to be mounted if it intersects the visible rect on both axes, so whether it
+    // is mounted can only change if one of its edges crossed the matching edge of the visible
+    // rect. For each edge we walk the outputs that crossed it and re-evaluate them against the
+    // whole visible rect.
     if (localVisibleRect.top > 0 || mPreviousLocalVisibleRect.top > 0) {
       // View is going on/off the top of the screen. Check the bottoms to see if there is anything
       // that has moved on/off the top of the screen.
       while (mPreviousBottomsIndex < count &&
           localVisibleRect.top >=
               layoutOutputBottoms.get(mPreviousBottomsIndex).getBounds().bottom) {
-        final long id = layoutOutputBottoms.get(mPreviousBottomsIndex).getId();
-        final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(id);
-        if (!isAnimationLocked(layoutOutputIndex)) {
-          unmountItem(mContext, layoutOutputIndex, mHostsByMarker);
-        }
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputBottoms.get(mPreviousBottomsIndex), localVisibleRect);
         mPreviousBottomsIndex++;
       }
 
@@ -2546,15 +2801,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
           localVisibleRect.top <
               layoutOutputBottoms.get(mPreviousBottomsIndex - 1).getBounds().bottom) {
         mPreviousBottomsIndex--;
-        final LayoutOutput layoutOutput = layoutOutputBottoms.get(mPreviousBottomsIndex);
-        final int layoutOutputIndex =
-            layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
-        if (getItemAt(layoutOutputIndex) == null) {
-          mountLayoutOutput(
-              layoutState.getLayoutOutputPositionForId(layoutOutput.getId()),
-              layoutOutput,
-              layoutState);
-        }
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputBottoms.get(mPreviousBottomsIndex), localVisibleRect);
       }
     }
 
@@ -2564,15 +2812,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       // that has changed.
       while (mPreviousTopsIndex < count &&
           localVisibleRect.bottom > layoutOutputTops.get(mPreviousTopsIndex).getBounds().top) {
-        final LayoutOutput layoutOutput = layoutOutputTops.get(mPreviousTopsIndex);
-        final int layoutOutputIndex =
-            layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
-        if (getItemAt(layoutOutputIndex) == null) {
-          mountLayoutOutput(
-              layoutState.getLayoutOutputPositionForId(layoutOutput.getId()),
-              layoutOutput,
-              layoutState);
-        }
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputTops.get(mPreviousTopsIndex), localVisibleRect);
         mPreviousTopsIndex++;
       }
 
@@ -2580,11 +2821,48 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
           localVisibleRect.bottom <=
               layoutOutputTops.get(mPreviousTopsIndex - 1).getBounds().top) {
         mPreviousTopsIndex--;
-        final long id = layoutOutputTops.get(mPreviousTopsIndex).getId();
-        final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(id);
-        if (!isAnimationLocked(layoutOutputIndex)) {
-          unmountItem(mContext, layoutOutputIndex, mHostsByMarker);
-        }
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputTops.get(mPreviousTopsIndex), localVisibleRect);
+      }
+    }
+
+    if (localVisibleRect.left > 0 || mPreviousLocalVisibleRect.left > 0) {
+      // View is going on/off the left of the screen. Check the rights to see if there is anything
+      // that has moved on/off the left of the screen.
+      while (mPreviousRightsIndex < count &&
+          localVisibleRect.left >=
+              layoutOutputRights.get(mPreviousRightsIndex).getBounds().right) {
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputRights.get(mPreviousRightsIndex), localVisibleRect);
+        mPreviousRightsIndex++;
+      }
+
+      while (mPreviousRightsIndex > 0 &&
+          localVisibleRect.left <
+              layoutOutputRights.get(mPreviousRightsIndex - 1).getBounds().right) {
+        mPreviousRightsIndex--;
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputRights.get(mPreviousRightsIndex), localVisibleRect);
+      }
+    }
+
+    final int width = mLithoView.getWidth();
+    if (localVisibleRect.right < width || mPreviousLocalVisibleRect.right < width) {
+      // View is going on/off the right of the screen. Check the lefts to see if there is anything
+      // that has changed.
+      while (mPreviousLeftsIndex < count &&
+          localVisibleRect.right > layoutOutputLefts.get(mPreviousLeftsIndex).getBounds().left) {
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputLefts.get(mPreviousLeftsIndex), localVisibleRect);
+        mPreviousLeftsIndex++;
+      }
+
+      while (mPreviousLeftsIndex > 0 &&
+          localVisibleRect.right <=
+              layoutOutputLefts.get(mPreviousLeftsIndex - 1).getBounds().left) {
+        mPreviousLeftsIndex--;
+        updateMountedOutputIncrementally(
+            layoutState, layoutOutputLefts.get(mPreviousLeftsIndex), localVisibleRect);
       }
     }
 
@@ -2602,6 +2880,31 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     return true;
   }
 
+  /**
+   * Mounts or unmounts the given output so that its mounted state matches whether it intersects the
+   * visible rect. Used for outputs that crossed one of the edges of the visible rect.
+   */
+  private void updateMountedOutputIncrementally(
+      LayoutState layoutState, LayoutOutput layoutOutput, Rect localVisibleRect) {
+    final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
+    final boolean isMounted = getItemAt(layoutOutputIndex) != null;
+
+    if (Rect.intersects(localVisibleRect, layoutOutput.getBounds())) {
+      if (isMounted) {
+        return;
+      }
+
+      if (mIsTimeSlicedPass
+          && shouldDeferMount(layoutOutputIndex, layoutOutput, localVisibleRect)) {
+        mHasDeferredMounts = true;
+      } else {
+        mountLayoutOutput(layoutOutputIndex, layoutOutput, layoutState);
+      }
+    } else if (isMounted && !isAnimationLocked(layoutOutputIndex)) {
+      unmountItem(mContext, layoutOutputIndex, mHostsByMarker);
+    }
+  }
+
   LithoView getLithoView() {
     return mLithoView;
   }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.annotation.SuppressLint;
+import android.support.annotation.VisibleForTesting;
+import com.facebook.yoga.YogaAlign;
+import com.facebook.yoga.YogaConstants;
+import com.facebook.yoga.YogaDisplay;
+import com.facebook.yoga.YogaFlexDirection;
+import com.facebook.yoga.YogaMeasureMode;
+import com.facebook.yoga.YogaNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Measures the leaves of a layout tree on several threads before Yoga calculates the layout of the
+ * tree (see {@link ComponentTree.Builder#parallelMeasureHandler(LayoutHandler)}).
+ *
+ * <p>Yoga calls the measure functions of the leaves one after the other while it calculates the
+ * layout. This only predicts the size specs of the trivial case: a tree laid out with an exact
+ * width and an unspecified height, made of Columns that stretch their children, and of leaves and
+ * Columns that don't set any size, margin, padding, border, flex or position style. Yoga measures
+ * each of these leaves with the exact width of the tree and an unspecified height, so they're
+ * measured ahead of time with these size specs, on the given handler and on the calling thread.
+ *
+ * <p>The measures run on copies of the components, so that the outputs of {@link
+ * ComponentLifecycle#onMeasure} don't change the components of the tree. When Yoga asks for the
+ * same size specs, the measure function returns the measured size and copies the outputs of the
+ * copy into the component. Otherwise it measures the component as usual, so the layout is always
+ * the same as the one computed serially.
+ *
+ * <p>The components of a tree laid out this way must be able to measure concurrently with other
+ * components of the same tree.
+ */
+final class ParallelMeasure {
+
+  /** Below this number of leaves the measures are not worth dispatching to other threads. */
+  private static final int MIN_NODES_TO_PARALLELIZE = 2;
+
+  private ParallelMeasure() {}
+
+  /**
+   * Measures the leaves of the tree whose size specs can be predicted and stores the results in
+   * their {@link InternalNode}s. Returns once all the measures are done.
+   */
+  static void preMeasure(
+      InternalNode root, int widthSpec, int heightSpec, LayoutHandler measureHandler) {
+    final List<PendingMeasure> measures = new ArrayList<>();
+    collectMeasures(root, widthSpec, heightSpec, measures);
+
+    final int size = measures.size();
+    if (size < MIN_NODES_TO_PARALLELIZE) {
+      return;
+    }
+
+    final boolean isTracing = ComponentsSystrace.isTracing();
+    if (isTracing) {
+      ComponentsSystrace.beginSection("preMeasure:" + size);
+    }
+
+    final MeasureBatch batch = new MeasureBatch(measures);
+    final int helpers =
+        Math.min(Math.max(1, DeviceInfoUtils.getNumberOfCPUCores() - 1), size - 1);
+    for (int i = 0; i < helpers; i++) {
+      measureHandler.post(batch);
+    }
+
+    // The calling thread measures too, so that nothing waits on a busy handler.
+    batch.run();
+    batch.await();
+
+    // Don't keep the nodes of this tree around until busy threads run the batch.
+    measureHandler.removeCallbacks(batch);
+
+    if (isTracing) {
+      ComponentsSystrace.endSection();
+    }
+  }
+
+  /**
+   * Adds to the given list the leaves of the tree whose first measure Yoga's layout of the tree
+   * with the given size specs will ask for, along with the size specs of that measure.
+   */
+  @VisibleForTesting
+  static void collectMeasures(
+      InternalNode root, int widthSpec, int heightSpec, List<PendingMeasure> measures) {
+    if (SizeSpec.getMode(widthSpec) != SizeSpec.EXACTLY
+        || SizeSpec.getMode(heightSpec) != SizeSpec.UNSPECIFIED
+        || !isStretchingColumn(root)) {
+      return;
+    }
+
+    final int leafHeightSpec =
+        SizeSpec.makeSizeSpecFromCssSpec(YogaConstants.UNDEFINED, YogaMeasureMode.UNDEFINED);
+    collectChildMeasures(root, widthSpec, leafHeightSpec, measures);
+  }
+
+  private static void collectChildMeasures(
+      InternalNode column, int widthSpec, int heightSpec, List<PendingMeasure> measures) {
+    for (int i = 0, count = column.getChildCount(); i < count; i++) {
+      final InternalNode child = column.getChildAt(i);
+      if (child.hasStylesAffectingMeasure()
+          || child.mYogaNode.getDisplay() == YogaDisplay.NONE) {
+        continue;
+      }
+
+      if (child.mYogaNode.isMeasureDefined()) {
+        if (canPreMeasure(child)) {
+          measures.add(new PendingMeasure(child, widthSpec, heightSpec));
+        }
+      } else if (isStretchingColumn(child)) {
+        collectChildMeasures(child, widthSpec, heightSpec, measures);
+      }
+    }
+  }
+
+  /** @return whether the node is a Column without styles that stretches its children. */
+  private static boolean isStretchingColumn(InternalNode node) {
+    final YogaNode yogaNode = node.mYogaNode;
+
+    return !node.hasStylesAffectingMeasure()
+        && !yogaNode.isMeasureDefined()
+        && yogaNode.getFlexDirection() == YogaFlexDirection.COLUMN
+        && yogaNode.getAlignItems() == YogaAlign.STRETCH;
+  }
+
+  private static boolean canPreMeasure(InternalNode node) {
+    final Component component = node.getRootComponent();
+
+    return component != null
+        && !node.areCachedMeasuresValid()
+        && !node.hasNestedTree()
+        && !Component.isNestedTree(component)
+        && Component.isMountSpec(component)
+        && component.canMeasure();
+  }
+
+  /** A leaf to measure with the size specs Yoga is expected to ask for. */
+  @VisibleForTesting
+  static class PendingMeasure {
+
+    final InternalNode mNode;
+    final int mWidthSpec;
+    final int mHeightSpec;
+
+    PendingMeasure(InternalNode node, int widthSpec, int heightSpec) {
+      mNode = node;
+      mWidthSpec = widthSpec;
+      mHeightSpec = heightSpec;
+    }
+  }
+
+  /**
+   * Runs the pending measures on every thread that runs it, each thread taking the next measure
+   * that wasn't started yet.
+   */
+  private static class MeasureBatch implements Runnable {
+
+    private final List<PendingMeasure> mMeasures;
+    private final AtomicInteger mNextIndex = new AtomicInteger(0);
+
+    @GuardedBy("this")
+    private int mRemaining;
+
+    MeasureBatch(List<PendingMeasure> measures) {
+      mMeasures = measures;
+      mRemaining = measures.size();
+    }
+
+    @Override
+    public void run() {
+      final int size = mMeasures.size();
+      int index;
+      while ((index = mNextIndex.getAndIncrement()) < size) {
+        try {
+          measure(mMeasures.get(index));
+        } finally {
+          synchronized (this) {
+            mRemaining--;
+            if (mRemaining == 0) {
+              notifyAll();
+            }
+          }
+        }
+      }
+    }
+
+    synchronized void await() {
+      boolean interrupted = false;
+      while (mRemaining > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @SuppressLint("WrongCall")
+    private static void measure(PendingMeasure measure) {
+      final InternalNode node = measure.mNode;
+      final Component component = node.getRootComponent().makeShallowCopy();
+      final Size size = new Size(Integer.MIN_VALUE, Integer.MIN_VALUE);
+
+      try {
+        component.onMeasure(
+            component.getScopedContext(), node, measure.mWidthSpec, measure.mHeightSpec, size);
+      } catch (RuntimeException e) {
+        // The node is measured again during the layout calculation, which throws where the serial
+        // layout calculation would.
+        return;
+      }
+
+      if (size.width >= 0 && size.height >= 0) {
+        node.setPreMeasuredSize(
+            measure.mWidthSpec, measure.mHeightSpec, size.width, size.height, component);
+      }
+    }
+  }
+}
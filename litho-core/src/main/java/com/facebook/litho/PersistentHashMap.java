@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * An immutable hash map, stored as a hash array mapped trie, whose updated copies share all the
+ * nodes that weren't changed with it. Copying the map is then free, and adding an entry only copies
+ * the few nodes on the path to it, so a map can be handed to another thread and read there without
+ * locking while new versions of it are created.
+ *
+ * <p>The {@link Map} mutators are not supported, use {@link #plus(Object, Object)} and {@link
+ * #plusAll(Map)} instead.
+ */
+@Immutable
+final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+  private static final Object NOT_FOUND = new Object();
+
+  @Nullable private final Node mRoot;
+  private final int mSize;
+
+  private PersistentHashMap(@Nullable Node root, int size) {
+    mRoot = root;
+    mSize = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return mRoot != null && mRoot.find(0, hash(key), key) != NOT_FOUND;
+  }
+
+  @Override
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (mRoot == null) {
+      return null;
+    }
+
+    final Object value = mRoot.find(0, hash(key), key);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  /** @return a map with the entries of this one, and the given value for the given key. */
+  PersistentHashMap<K, V> plus(K key, V value) {
+    final boolean[] addedEntry = new boolean[1];
+    final Node root =
+        (mRoot == null ? BitmapNode.EMPTY : mRoot).put(0, hash(key), key, value, addedEntry);
+    if (root == mRoot) {
+      return this;
+    }
+
+    return new PersistentHashMap<>(root, addedEntry[0] ? mSize + 1 : mSize);
+  }
+
+  /** @return a map with the entries of this one, replaced by the entries of the given map. */
+  @SuppressWarnings("unchecked")
+  PersistentHashMap<K, V> plusAll(Map<? extends K, ? extends V> map) {
+    if (isEmpty() && map instanceof PersistentHashMap) {
+      return (PersistentHashMap<K, V>) map;
+    }
+
+    PersistentHashMap<K, V> result = this;
+    for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      result = result.plus(entry.getKey(), entry.getValue());
+    }
+
+    return result;
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        final List<Map.Entry<K, V>> entries = new ArrayList<>(mSize);
+        if (mRoot != null) {
+          mRoot.collectEntries(entries);
+        }
+
+        return entries.iterator();
+      }
+
+      @Override
+      public int size() {
+        return mSize;
+      }
+    };
+  }
+
+  private static int hash(Object key) {
+    final int hashCode = key.hashCode();
+    return hashCode ^ (hashCode >>> 16);
+  }
+
+  private static int bitFor(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  private abstract static class Node {
+
+    /** @return the value of the key, or {@link #NOT_FOUND}. */
+    abstract Object find(int shift, int hash, Object key);
+
+    /**
+     * @return this node if it already maps the key to the value, or a copy of it that does.
+     *     addedEntry[0] is set if the key wasn't in the node.
+     */
+    abstract Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry);
+
+    abstract <K, V> void collectEntries(List<Map.Entry<K, V>> entries);
+  }
+
+  /**
+   * Holds up to 32 entries or child nodes, for the keys whose hash bits at the level of the node
+   * differ. The array has a pair of slots for each bit set in the bitmap: a key and its value, or
+   * null and the child node of the keys sharing that hash bits.
+   */
+  private static final class BitmapNode extends Node {
+
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int mBitmap;
+    private final Object[] mArray;
+
+    BitmapNode(int bitmap, Object[] array) {
+      mBitmap = bitmap;
+      mArray = array;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      final int bit = bitFor(hash, shift);
+      if ((mBitmap & bit) == 0) {
+        return NOT_FOUND;
+      }
+
+      final int index = 2 * Integer.bitCount(mBitmap & (bit - 1));
+      final Object keyOrNull = mArray[index];
+      final Object valueOrNode = mArray[index + 1];
+      if (keyOrNull == null) {
+        return ((Node) valueOrNode).find(shift + BITS_PER_LEVEL, hash, key);
+      }
+
+      return key.equals(keyOrNull) ? valueOrNode : NOT_FOUND;
+    }
+
+    @Override
+    Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry) {
+      final int bit = bitFor(hash, shift);
+      final int index = 2 * Integer.bitCount(mBitmap & (bit - 1));
+
+      if ((mBitmap & bit) == 0) {
+        final Object[] array = new Object[mArray.length + 2];
+        System.arraycopy(mArray, 0, array, 0, index);
+        array[index] = key;
+        array[index + 1] = value;
+        System.arraycopy(mArray, index, array, index + 2, mArray.length - index);
+        addedEntry[0] = true;
+        return new BitmapNode(mBitmap | bit, array);
+      }
+
+      final Object keyOrNull = mArray[index];
+      final Object valueOrNode = mArray[index + 1];
+
+      if (keyOrNull == null) {
+        final Node child = (Node) valueOrNode;
+        final Node newChild = child.put(shift + BITS_PER_LEVEL, hash, key, value, addedEntry);
+        return newChild == child ? this : copyAndSet(index, null, newChild);
+      }
+
+      if (key.equals(keyOrNull)) {
+        return valueOrNode == value ? this : copyAndSet(index, keyOrNull, value);
+      }
+
+      addedEntry[0] = true;
+      return copyAndSet(
+          index,
+          null,
+          createNode(shift + BITS_PER_LEVEL, keyOrNull, valueOrNode, hash, key, value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    <K, V> void collectEntries(List<Map.Entry<K, V>> entries) {
+      for (int i = 0; i < mArray.length; i += 2) {
+        if (mArray[i] == null) {
+          ((Node) mArray[i + 1]).collectEntries(entries);
+        } else {
+          entries.add(new AbstractMap.SimpleImmutableEntry<>((K) mArray[i], (V) mArray[i + 1]));
+        }
+      }
+    }
+
+    private BitmapNode copyAndSet(int index, @Nullable Object keyOrNull, Object valueOrNode) {
+      final Object[] array = mArray.clone();
+      array[index] = keyOrNull;
+      array[index + 1] = valueOrNode;
+      return new BitmapNode(mBitmap, array);
+    }
+
+    private static Node createNode(
+        int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+      final int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+      }
+
+      final boolean[] addedEntry = new boolean[1];
+      return EMPTY
+          .put(shift, hash1, key1, value1, addedEntry)
+          .put(shift, hash2, key2, value2, addedEntry);
+    }
+  }
+
+  /** Holds the entries of the keys that have the same hash, as key and value pairs. */
+  private static final class CollisionNode extends Node {
+
+    private final int mHash;
+    private final Object[] mArray;
+
+    CollisionNode(int hash, Object[] array) {
+      mHash = hash;
+      mArray = array;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      final int index = indexOf(key);
+      return index < 0 ? NOT_FOUND : mArray[index + 1];
+    }
+
+    @Override
+    Node put(int shift, int hash, Object key, Object value, boolean[] addedEntry) {
+      if (hash != mHash) {
+        // Move this node one level down, next to the new entry.
+        return new BitmapNode(bitFor(mHash, shift), new Object[] {null, this})
+            .put(shift, hash, key, value, addedEntry);
+      }
+
+      final int index = indexOf(key);
+      if (index >= 0) {
+        if (mArray[index + 1] == value) {
+          return this;
+        }
+
+        final Object[] array = mArray.clone();
+        array[index + 1] = value;
+        return new CollisionNode(mHash, array);
+      }
+
+      final Object[] array = new Object[mArray.length + 2];
+      System.arraycopy(mArray, 0, array, 0, mArray.length);
+      array[mArray.length] = key;
+      array[mArray.length + 1] = value;
+      addedEntry[0] = true;
+      return new CollisionNode(mHash, array);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    <K, V> void collectEntries(List<Map.Entry<K, V>> entries) {
+      for (int i = 0; i < mArray.length; i += 2) {
+        entries.add(new AbstractMap.SimpleImmutableEntry<>((K) mArray[i], (V) mArray[i + 1]));
+      }
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < mArray.length; i += 2) {
+        if (key.equals(mArray[i])) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+  }
+}
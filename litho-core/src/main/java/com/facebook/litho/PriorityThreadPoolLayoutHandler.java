@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+package com.facebook.litho;
+
+import android.support.annotation.IntDef;
+import android.support.annotation.Nullable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A {@link ThreadPoolLayoutHandler} that runs the posted runnables by priority instead of in the
+ * order they were posted, so that the layout of an item about to be shown is not queued behind
+ * layouts that were prefetched for items far from the viewport.
+ *
+ * <p>Runnables posted with {@link #post(Runnable)} run with {@link #PRIORITY_VISIBLE}. Each item
+ * that computes its layout in the background can instead get its own {@link
+ * PrioritizedLayoutHandler} from {@link #createPrioritizedHandler(int, Object)}, whose priority can
+ * be updated as the viewport moves: runnables that it already posted and that did not start yet are
+ * reordered accordingly. Runnables with the same priority run in the order they were posted. A
+ * {@link com.facebook.litho.widget.RecyclerBinder} whose items are given this handler does so for
+ * its items, and a {@link ComponentTree} preallocates mount content on it with {@link
+ * #PRIORITY_PREALLOCATION}.
+ *
+ * <p>All the core threads are started upfront, since the thread pool would otherwise run the first
+ * runnables on new threads without queueing them by priority. Threads don't steal work from each
+ * other: there is a single queue shared by all of them.
+ *
+ * <p>Unlike {@link ThreadPoolLayoutHandler}, {@link #removeCallbacksAndMessages(Object)} is
+ * supported and cancels all the pending runnables posted with the given token, or all pending
+ * runnables if the token is null.
+ */
+public class PriorityThreadPoolLayoutHandler extends ThreadPoolLayoutHandler {
+
+  @IntDef({PRIORITY_VISIBLE, PRIORITY_NEAR_RANGE, PRIORITY_FAR_RANGE, PRIORITY_PREALLOCATION})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface LayoutPriority {}
+
+  /** The layout is for content that is currently visible. */
+  public static final int PRIORITY_VISIBLE = 0;
+  /** The layout is for content that is close to the viewport and may become visible soon. */
+  public static final int PRIORITY_NEAR_RANGE = 1;
+  /** The layout is for content that is within the prefetch range but far from the viewport. */
+  public static final int PRIORITY_FAR_RANGE = 2;
+  /** The runnable preallocates mount content and should only run when nothing else is pending. */
+  public static final int PRIORITY_PREALLOCATION = 3;
+
+  private final AtomicLong mSequenceNumber = new AtomicLong(0);
+  private final PriorityBlockingQueue<Runnable> mWorkQueue;
+  private final Object mLock = new Object();
+
+  /** The runnables that didn't start yet, by runnable and by token or prioritized handler. */
+  @GuardedBy("mLock")
+  private final HashMap<Runnable, List<PriorityTask>> mPendingTasksByRunnable = new HashMap<>();
+
+  @GuardedBy("mLock")
+  private final HashMap<Object, List<PriorityTask>> mPendingTasksByToken = new HashMap<>();
+
+  public PriorityThreadPoolLayoutHandler(int corePoolSize, int maxPoolSize) {
+    this(corePoolSize, maxPoolSize, new PriorityBlockingQueue<Runnable>());
+  }
+
+  public PriorityThreadPoolLayoutHandler(PoolSizeCalculator poolSizeCalculator) {
+    this(poolSizeCalculator, new PriorityBlockingQueue<Runnable>());
+  }
+
+  private PriorityThreadPoolLayoutHandler(
+      int corePoolSize, int maxPoolSize, PriorityBlockingQueue<Runnable> workQueue) {
+    super(corePoolSize, maxPoolSize, workQueue);
+    mWorkQueue = workQueue;
+    getExecutor().prestartAllCoreThreads();
+  }
+
+  private PriorityThreadPoolLayoutHandler(
+      PoolSizeCalculator poolSizeCalculator, PriorityBlockingQueue<Runnable> workQueue) {
+    super(poolSizeCalculator, workQueue);
+    mWorkQueue = workQueue;
+    getExecutor().prestartAllCoreThreads();
+  }
+
+  /**
+   * @return a {@link LayoutHandler} that posts its runnables to this handler with the given
+   *     priority. If a token is passed, all the runnables posted through the returned handler can
+   *     be cancelled at once with {@link #removeCallbacksAndMessages(Object)}.
+   */
+  public PrioritizedLayoutHandler createPrioritizedHandler(
+      @LayoutPriority int priority, @Nullable Object token) {
+    return new PrioritizedLayoutHandler(this, priority, token);
+  }
+
+  @Override
+  public boolean post(Runnable runnable) {
+    return post(runnable, PRIORITY_VISIBLE, null);
+  }
+
+  /**
+   * Posts a runnable with the given priority. The token can later be used to cancel or reprioritize
+   * all the runnables that were posted with it.
+   */
+  public boolean post(Runnable runnable, @LayoutPriority int priority, @Nullable Object token) {
+    return post(runnable, priority, token, null);
+  }
+
+  @Override
+  public void removeCallbacks(Runnable runnable) {
+    removeCallbacks(runnable, null);
+  }
+
+  /** Removes all the pending runnables posted with the given token, or all of them if null. */
+  @Override
+  public void removeCallbacksAndMessages(@Nullable Object token) {
+    synchronized (mLock) {
+      if (token == null) {
+        for (List<PriorityTask> tasks : mPendingTasksByRunnable.values()) {
+          for (int i = 0, size = tasks.size(); i < size; i++) {
+            tasks.get(i).cancel();
+          }
+        }
+        mPendingTasksByRunnable.clear();
+        mPendingTasksByToken.clear();
+        mWorkQueue.clear();
+        return;
+      }
+
+      final List<PriorityTask> tasks = mPendingTasksByToken.get(token);
+      if (tasks == null) {
+        return;
+      }
+
+      for (PriorityTask task : new ArrayList<>(tasks)) {
+        task.cancel();
+        unregister(task);
+      }
+    }
+  }
+
+  /**
+   * Changes the priority of all the pending runnables that were posted with the given token. The
+   * ones that already started running are not affected.
+   */
+  public void setPriority(Object token, @LayoutPriority int priority) {
+    final List<PriorityTask> reprioritizedTasks = new ArrayList<>();
+
+    synchronized (mLock) {
+      final List<PriorityTask> tasks = mPendingTasksByToken.get(token);
+      if (tasks == null) {
+        return;
+      }
+
+      // The queue only orders elements when they are inserted, so each task is replaced by a
+      // task with the new priority. The cancelled one is skipped when it's dequeued.
+      for (PriorityTask task : new ArrayList<>(tasks)) {
+        if (task.mPriority == priority) {
+          continue;
+        }
+
+        final PriorityTask reprioritizedTask =
+            new PriorityTask(
+                task.mRunnable, priority, task.mSequenceNumber, task.mToken, task.mHandler);
+        task.cancel();
+        unregister(task);
+        register(reprioritizedTask);
+        reprioritizedTasks.add(reprioritizedTask);
+      }
+    }
+
+    for (int i = 0, size = reprioritizedTasks.size(); i < size; i++) {
+      execute(reprioritizedTasks.get(i));
+    }
+  }
+
+  private boolean post(
+      Runnable runnable,
+      @LayoutPriority int priority,
+      @Nullable Object token,
+      @Nullable PrioritizedLayoutHandler handler) {
+    final PriorityTask task;
+    synchronized (mLock) {
+      // Read the priority of the handler under the lock, so that the task is either posted with
+      // its new priority or reprioritized by a concurrent setPriority.
+      task =
+          new PriorityTask(
+              runnable,
+              handler != null ? handler.mPriority : priority,
+              mSequenceNumber.getAndIncrement(),
+              token,
+              handler);
+      register(task);
+    }
+
+    execute(task);
+    return true;
+  }
+
+  private void execute(PriorityTask task) {
+    try {
+      getExecutor().execute(task);
+    } catch (RejectedExecutionException e) {
+      synchronized (mLock) {
+        task.cancel();
+        unregister(task);
+      }
+      throw new RuntimeException("Cannot execute layout calculation task; " + e);
+    }
+  }
+
+  private void removeCallbacks(Runnable runnable, @Nullable PrioritizedLayoutHandler handler) {
+    synchronized (mLock) {
+      final List<PriorityTask> tasks = mPendingTasksByRunnable.get(runnable);
+      if (tasks == null) {
+        return;
+      }
+
+      for (PriorityTask task : new ArrayList<>(tasks)) {
+        if (handler == null || task.mHandler == handler) {
+          task.cancel();
+          unregister(task);
+        }
+      }
+    }
+  }
+
+  @GuardedBy("mLock")
+  private void register(PriorityTask task) {
+    addTask(mPendingTasksByRunnable, task.mRunnable, task);
+    if (task.mToken != null) {
+      addTask(mPendingTasksByToken, task.mToken, task);
+    }
+    if (task.mHandler != null) {
+      addTask(mPendingTasksByToken, task.mHandler, task);
+    }
+  }
+
+  @GuardedBy("mLock")
+  private void unregister(PriorityTask task) {
+    removeTask(mPendingTasksByRunnable, task.mRunnable, task);
+    if (task.mToken != null) {
+      removeTask(mPendingTasksByToken, task.mToken, task);
+    }
+    if (task.mHandler != null) {
+      removeTask(mPendingTasksByToken, task.mHandler, task);
+    }
+  }
+
+  private static <K> void addTask(HashMap<K, List<PriorityTask>> tasks, K key, PriorityTask task) {
+    List<PriorityTask> tasksForKey = tasks.get(key);
+    if (tasksForKey == null) {
+      tasksForKey = new ArrayList<>(1);
+      tasks.put(key, tasksForKey);
+    }
+    tasksForKey.add(task);
+  }
+
+  private static <K> void removeTask(
+      HashMap<K, List<PriorityTask>> tasks, K key, PriorityTask task) {
+    final List<PriorityTask> tasksForKey = tasks.get(key);
+    if (tasksForKey != null && tasksForKey.remove(task) && tasksForKey.isEmpty()) {
+      tasks.remove(key);
+    }
+  }
+
+  /**
+   * A {@link LayoutHandler} that posts to a {@link PriorityThreadPoolLayoutHandler} with a priority
+   * that can be updated over time.
+   */
+  public static class PrioritizedLayoutHandler implements LayoutHandler {
+
+    private final PriorityThreadPoolLayoutHandler mParent;
+    private final @Nullable Object mToken;
+    private volatile @LayoutPriority int mPriority;
+
+    private PrioritizedLayoutHandler(
+        PriorityThreadPoolLayoutHandler parent,
+        @LayoutPriority int priority,
+        @Nullable Object token) {
+      mParent = parent;
+      mPriority = priority;
+      mToken = token;
+    }
+
+    @Override
+    public boolean post(Runnable runnable) {
+      return mParent.post(runnable, mPriority, mToken, this);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable runnable) {
+      mParent.removeCallbacks(runnable, this);
+    }
+
+    /** Removes the pending runnables posted through this handler. */
+    @Override
+    public void removeCallbacksAndMessages(@Nullable Object token) {
+      if (token == null || token == mToken) {
+        mParent.removeCallbacksAndMessages(this);
+      }
+    }
+
+    public @LayoutPriority int getPriority() {
+      return mPriority;
+    }
+
+    /**
+     * Sets the priority of the runnables posted from now on and reorders the ones that are still
+     * pending.
+     */
+    public void setPriority(@LayoutPriority int priority) {
+      synchronized (mParent.mLock) {
+        if (mPriority == priority) {
+          return;
+        }
+
+        mPriority = priority;
+      }
+
+      mParent.setPriority(this, priority);
+    }
+  }
+
+  private class PriorityTask implements Runnable, Comparable<PriorityTask> {
+
+    private final Runnable mRunnable;
+    private final int mPriority;
+    private final long mSequenceNumber;
+    private final @Nullable Object mToken;
+    private final @Nullable PrioritizedLayoutHandler mHandler;
+
+    @GuardedBy("mLock")
+    private boolean mCancelled;
+
+    PriorityTask(
+        Runnable runnable,
+        int priority,
+        long sequenceNumber,
+        @Nullable Object token,
+        @Nullable PrioritizedLayoutHandler handler) {
+      mRunnable = runnable;
+      mPriority = priority;
+      mSequenceNumber = sequenceNumber;
+      mToken = token;
+      mHandler = handler;
+    }
+
+    @GuardedBy("mLock")
+    void cancel() {
+      mCancelled = true;
+    }
+
+    @Override
+    public void run() {
+      synchronized (mLock) {
+        if (mCancelled) {
+          return;
+        }
+        unregister(this);
+      }
+
+      mRunnable.run();
+    }
+
+    @Override
+    public int compareTo(PriorityTask other) {
+      if (mPriority != other.mPriority) {
+        return mPriority < other.mPriority ? -1 : 1;
+      }
+
+      return mSequenceNumber < other.mSequenceNumber
+          ? -1
+          : mSequenceNumber == other.mSequenceNumber ? 0 : 1;
+    }
+  }
+}
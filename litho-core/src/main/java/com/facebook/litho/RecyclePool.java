@@ -31,6 +31,17 @@ public class RecyclePool<T> implements PoolWithDebugInfo {
     mPool = sync ? new Pools.SynchronizedPool<T>(maxSize) : new Pools.SimplePool<T>(maxSize);
   }
 
+  /**
+   * Used by subclasses that manage their own storage and override {@link #acquire()}, {@link
+   * #release(Object)}, {@link #getCurrentSize()}, {@link #isFull()} and {@link #clear()}.
+   */
+  RecyclePool(String name, int maxSize) {
+    mIsSync = false;
+    mName = name;
+    mMaxSize = maxSize;
+    mPool = null;
+  }
+
   public T acquire() {
     T item;
     if (mIsSync) {
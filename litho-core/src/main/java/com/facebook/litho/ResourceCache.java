@@ -10,16 +10,61 @@
 package com.facebook.litho;
 
 import android.content.res.Configuration;
+import android.support.annotation.IntDef;
+import com.facebook.litho.config.ComponentsConfiguration;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import javax.annotation.Nullable;
 
+/**
+ * Caches the resources resolved by {@link ResourceResolver}s for a {@link Configuration}. Resources
+ * that resolve to an int or a float are cached without boxing, separately for each way of
+ * resolving them, since e.g. the size and the offset of the same dimension resource can differ.
+ */
 public abstract class ResourceCache {
-  private static ResourceCache latest;
 
-  static synchronized ResourceCache getLatest(Configuration configuration) {
-    if (latest == null || !latest.mConfiguration.equals(configuration)) {
-      latest = new LruResourceCache(configuration);
+  @IntDef({
+    TYPE_OBJECT,
+    TYPE_INT,
+    TYPE_BOOL,
+    TYPE_COLOR,
+    TYPE_DIMEN_SIZE,
+    TYPE_DIMEN_OFFSET,
+    TYPE_FLOAT
+  })
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface ResourceType {}
+
+  /** Strings, string arrays and int arrays. */
+  public static final int TYPE_OBJECT = 0;
+  public static final int TYPE_INT = 1;
+  public static final int TYPE_BOOL = 2;
+  public static final int TYPE_COLOR = 3;
+  public static final int TYPE_DIMEN_SIZE = 4;
+  public static final int TYPE_DIMEN_OFFSET = 5;
+  public static final int TYPE_FLOAT = 6;
+
+  static final int TYPE_COUNT = 7;
+
+  /** Returned by {@link #getInt(int, int)} when the resource isn't cached. */
+  static final long NOT_CACHED = Long.MIN_VALUE;
+
+  @Nullable private static volatile ResourceCache latest;
+
+  static ResourceCache getLatest(Configuration configuration) {
+    final ResourceCache resourceCache = latest;
+    if (resourceCache != null && resourceCache.mConfiguration.equals(configuration)) {
+      return resourceCache;
+    }
+
+    synchronized (ResourceCache.class) {
+      if (latest == null || !latest.mConfiguration.equals(configuration)) {
+        latest =
+            new SegmentedResourceCache(
+                configuration, ComponentsConfiguration.resourceCacheMaxEntries);
+      }
+      return latest;
     }
-    return latest;
   }
 
   private final Configuration mConfiguration;
@@ -32,4 +77,18 @@ public abstract class ResourceCache {
   abstract <T> T get(int key);
 
   abstract void put(int key, Object object);
+
+  /**
+   * @return the int value of the given type cached for the given resource, or {@link #NOT_CACHED}
+   *     if there is none. Float values are stored as their raw int bits.
+   */
+  abstract long getInt(@ResourceType int type, int key);
+
+  abstract void putInt(@ResourceType int type, int key, int value);
+
+  /** @return how many lookups of resources of the given type found a cached value. */
+  public abstract int getHitCount(@ResourceType int type);
+
+  /** @return how many lookups of resources of the given type didn't find a cached value. */
+  public abstract int getMissCount(@ResourceType int type);
 }
@@ -86,13 +86,13 @@ public class ResourceResolver {
 
   protected final int resolveIntRes(@IntegerRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_INT, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return (int) cached;
       }
 
       int result = mResources.getInteger(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_INT, resId, result);
 
       return result;
     }
@@ -130,13 +130,13 @@ public class ResourceResolver {
 
   protected final boolean resolveBoolRes(@BoolRes int resId) {
     if (resId != 0) {
-      Boolean cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_BOOL, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return cached != 0;
       }
 
       boolean result = mResources.getBoolean(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_BOOL, resId, result ? 1 : 0);
 
       return result;
     }
@@ -146,13 +146,13 @@ public class ResourceResolver {
 
   protected final int resolveColorRes(@ColorRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_COLOR, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return (int) cached;
       }
 
       int result = mResources.getColor(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_COLOR, resId, result);
 
       return result;
     }
@@ -162,13 +162,13 @@ public class ResourceResolver {
 
   protected final int resolveDimenSizeRes(@DimenRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_DIMEN_SIZE, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return (int) cached;
       }
 
       int result = mResources.getDimensionPixelSize(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_DIMEN_SIZE, resId, result);
 
       return result;
     }
@@ -178,13 +178,13 @@ public class ResourceResolver {
 
   protected final int resolveDimenOffsetRes(@DimenRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_DIMEN_OFFSET, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return (int) cached;
       }
 
       int result = mResources.getDimensionPixelOffset(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_DIMEN_OFFSET, resId, result);
 
       return result;
     }
@@ -194,13 +194,13 @@ public class ResourceResolver {
 
   protected final float resolveFloatRes(@DimenRes int resId) {
     if (resId != 0) {
-      Float cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(ResourceCache.TYPE_FLOAT, resId);
+      if (cached != ResourceCache.NOT_CACHED) {
+        return Float.intBitsToFloat((int) cached);
       }
 
       float result = mResources.getDimension(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(ResourceCache.TYPE_FLOAT, resId, Float.floatToRawIntBits(result));
 
       return result;
     }
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.content.res.Configuration;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link ResourceCache} split into segments that each have their own lock, so that the layout
+ * threads resolving resources at the same time rarely wait for each other. Each segment is an open
+ * addressing hash table keyed by the primitive resource id and value type, with int values stored
+ * unboxed.
+ *
+ * <p>A segment is emptied when it is full: the resources in use are cached again right away, which
+ * is cheaper than keeping track of which ones were used last.
+ */
+@ThreadSafe
+class SegmentedResourceCache extends ResourceCache {
+
+  private static final int SEGMENT_COUNT = 16;
+  private static final int MIN_SEGMENT_SIZE = 4;
+
+  private final Segment[] mSegments = new Segment[SEGMENT_COUNT];
+
+  SegmentedResourceCache(Configuration configuration, int maxEntries) {
+    super(configuration);
+
+    final int segmentSize =
+        Math.max(MIN_SEGMENT_SIZE, (maxEntries + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      mSegments[i] = new Segment(segmentSize);
+    }
+  }
+
+  @Override
+  @Nullable
+  <T> T get(int key) {
+    final long entryKey = getEntryKey(TYPE_OBJECT, key);
+    final int hash = hash(entryKey);
+    return (T) getSegment(hash).getObject(entryKey, hash);
+  }
+
+  @Override
+  void put(int key, Object object) {
+    final long entryKey = getEntryKey(TYPE_OBJECT, key);
+    final int hash = hash(entryKey);
+    getSegment(hash).put(entryKey, hash, 0, object);
+  }
+
+  @Override
+  long getInt(@ResourceType int type, int key) {
+    final long entryKey = getEntryKey(type, key);
+    final int hash = hash(entryKey);
+    return getSegment(hash).getInt(entryKey, hash);
+  }
+
+  @Override
+  void putInt(@ResourceType int type, int key, int value) {
+    final long entryKey = getEntryKey(type, key);
+    final int hash = hash(entryKey);
+    getSegment(hash).put(entryKey, hash, value, null);
+  }
+
+  @Override
+  public int getHitCount(@ResourceType int type) {
+    int hitCount = 0;
+    for (Segment segment : mSegments) {
+      hitCount += segment.getHitCount(type);
+    }
+    return hitCount;
+  }
+
+  @Override
+  public int getMissCount(@ResourceType int type) {
+    int missCount = 0;
+    for (Segment segment : mSegments) {
+      missCount += segment.getMissCount(type);
+    }
+    return missCount;
+  }
+
+  private Segment getSegment(int hash) {
+    // The table of a segment is indexed with the low bits, so use the high ones here.
+    return mSegments[(hash >>> 28) & (SEGMENT_COUNT - 1)];
+  }
+
+  /** Resource ids are never 0, so neither are the keys of the entries. */
+  private static long getEntryKey(@ResourceType int type, int key) {
+    return ((long) type << 32) | (key & 0xFFFFFFFFL);
+  }
+
+  private static int hash(long entryKey) {
+    final int hash = (int) (entryKey ^ (entryKey >>> 32)) * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int getType(long entryKey) {
+    return (int) (entryKey >>> 32);
+  }
+
+  private static final class Segment {
+
+    private final int mMaxSize;
+
+    @GuardedBy("this")
+    private final long[] mKeys;
+
+    @GuardedBy("this")
+    private final int[] mIntValues;
+
+    @GuardedBy("this")
+    private final Object[] mObjectValues;
+
+    @GuardedBy("this")
+    private int mSize;
+
+    @GuardedBy("this")
+    private final int[] mHitCounts = new int[TYPE_COUNT];
+
+    @GuardedBy("this")
+    private final int[] mMissCounts = new int[TYPE_COUNT];
+
+    Segment(int maxSize) {
+      mMaxSize = maxSize;
+
+      // Keep the table at most half full so that probe sequences stay short.
+      final int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+      mKeys = new long[capacity];
+      mIntValues = new int[capacity];
+      mObjectValues = new Object[capacity];
+    }
+
+    @Nullable
+    synchronized Object getObject(long entryKey, int hash) {
+      final int index = indexOf(entryKey, hash);
+      final boolean isCached = mKeys[index] == entryKey;
+      recordLookup(TYPE_OBJECT, isCached);
+      return isCached ? mObjectValues[index] : null;
+    }
+
+    synchronized long getInt(long entryKey, int hash) {
+      final int index = indexOf(entryKey, hash);
+      final boolean isCached = mKeys[index] == entryKey;
+      recordLookup(getType(entryKey), isCached);
+      return isCached ? mIntValues[index] : NOT_CACHED;
+    }
+
+    synchronized void put(long entryKey, int hash, int intValue, @Nullable Object objectValue) {
+      int index = indexOf(entryKey, hash);
+      if (mKeys[index] != entryKey) {
+        if (mSize == mMaxSize) {
+          clear();
+          index = indexOf(entryKey, hash);
+        }
+        mKeys[index] = entryKey;
+        mSize++;
+      }
+
+      mIntValues[index] = intValue;
+      mObjectValues[index] = objectValue;
+    }
+
+    synchronized int getHitCount(@ResourceType int type) {
+      return mHitCounts[type];
+    }
+
+    synchronized int getMissCount(@ResourceType int type) {
+      return mMissCounts[type];
+    }
+
+    /** @return the index of the given key, or of the empty slot where it would be inserted. */
+    @GuardedBy("this")
+    private int indexOf(long entryKey, int hash) {
+      final int mask = mKeys.length - 1;
+      int index = hash & mask;
+      while (mKeys[index] != 0 && mKeys[index] != entryKey) {
+        index = (index + 1) & mask;
+      }
+      return index;
+    }
+
+    @GuardedBy("this")
+    private void recordLookup(@ResourceType int type, boolean isCached) {
+      if (isCached) {
+        mHitCounts[type]++;
+      } else {
+        mMissCounts[type]++;
+      }
+    }
+
+    @GuardedBy("this")
+    private void clear() {
+      Arrays.fill(mKeys, 0);
+      Arrays.fill(mObjectValues, null);
+      mSize = 0;
+    }
+  }
+}
@@ -11,10 +11,12 @@ package com.facebook.litho;
 
 import static com.facebook.litho.ComponentLifecycle.StateUpdate;
 
+import android.support.annotation.Nullable;
 import android.support.v4.util.Pools;
 import com.facebook.infer.annotation.ThreadSafe;
 import com.facebook.litho.ComponentLifecycle.StateContainer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,23 +34,38 @@ public class StateHandler {
   private static final Pools.SynchronizedPool<List<StateUpdate>> sStateUpdatesListPool =
       new Pools.SynchronizedPool<>(POOL_CAPACITY);
   private static final
-  Pools.SynchronizedPool<Map<String, List<StateUpdate>>> sPendingStateUpdatesMapPool =
-      new Pools.SynchronizedPool<>(POOL_CAPACITY);
-  private static final
-  Pools.SynchronizedPool<Map<String, StateContainer>> sStateContainersMapPool =
+  Pools.SynchronizedPool<Map<GlobalKey, List<StateUpdate>>> sPendingStateUpdatesMapPool =
       new Pools.SynchronizedPool<>(POOL_CAPACITY);
 
   /**
    * List of state updates that will be applied during the next layout pass.
    */
   @GuardedBy("this")
-  private Map<String, List<StateUpdate>> mPendingStateUpdates;
+  private Map<GlobalKey, List<StateUpdate>> mPendingStateUpdates;
 
   /**
    * Maps a component key to a component object that retains the current state values for that key.
+   * The map is persistent: it is replaced by an updated copy rather than modified, so that it can
+   * be shared with the handlers copied from this one and read without synchronizing.
+   */
+  @Nullable private volatile PersistentHashMap<GlobalKey, StateContainer> mStateContainers;
+
+  /** The state containers of the handler this one was copied from, when it was copied. */
+  @GuardedBy("this")
+  @Nullable
+  private PersistentHashMap<GlobalKey, StateContainer> mInitialStateContainers;
+
+  /**
+   * Maps the key of a layout spec to the layout it created in the layout pass that used this
+   * handler, or in the last committed one. Replaced rather than updated on commit, so that the
+   * handlers copied from this one can read the map they got without synchronizing.
    */
   @GuardedBy("this")
-  public Map<String, StateContainer> mStateContainers;
+  private Map<GlobalKey, CreatedLayout> mCreatedLayouts;
+
+  /** The layouts created by the last layout pass committed before this handler was copied. */
+  @GuardedBy("this")
+  private Map<GlobalKey, CreatedLayout> mReusableLayouts;
 
   void init(StateHandler stateHandler) {
     if (stateHandler == null) {
@@ -57,7 +74,9 @@ public class StateHandler {
 
     synchronized (this) {
       copyPendingStateUpdatesMap(stateHandler.getPendingStateUpdates());
-      copyCurrentStateContainers(stateHandler.getStateContainers());
+      mStateContainers = stateHandler.getStateContainers();
+      mInitialStateContainers = mStateContainers;
+      mReusableLayouts = stateHandler.getCreatedLayouts();
     }
   }
 
@@ -65,8 +84,9 @@ public class StateHandler {
     return ComponentsPools.acquireStateHandler(stateHandler);
   }
 
-  public synchronized boolean isEmpty() {
-    return mStateContainers == null || mStateContainers.isEmpty();
+  public boolean isEmpty() {
+    final Map<GlobalKey, StateContainer> stateContainers = mStateContainers;
+    return stateContainers == null || stateContainers.isEmpty();
   }
 
   /**
@@ -75,7 +95,7 @@ public class StateHandler {
    * @param key the global key of the component
    * @param stateUpdate the state update to apply to the component
    */
-  synchronized void queueStateUpdate(String key, StateUpdate stateUpdate) {
+  synchronized void queueStateUpdate(GlobalKey key, StateUpdate stateUpdate) {
     maybeInitPendingUpdates();
 
     List<StateUpdate> pendingStateUpdatesForKey = mPendingStateUpdates.get(key);
@@ -103,12 +123,8 @@ public class StateHandler {
     }
 
     final StateContainer previousStateContainer;
-    final String key = component.getGlobalKey();
-    final StateContainer currentStateContainer;
-
-    synchronized (this) {
-      currentStateContainer = mStateContainers.get(key);
-    }
+    final GlobalKey key = component.getGlobalKeyObject();
+    final StateContainer currentStateContainer = mStateContainers.get(key);
 
     if (currentStateContainer != null) {
       component.transferState(
@@ -136,8 +152,61 @@ public class StateHandler {
     }
 
     synchronized (this) {
-      mStateContainers.put(key, component.getStateContainer());
+      mStateContainers = mStateContainers.plus(key, component.getStateContainer());
+    }
+  }
+
+  /**
+   * Returns the component that onCreateLayout returned for the given component's key in the last
+   * committed layout pass, if the component that was laid out with that key then is equivalent to
+   * the given one, has no state updates pending, and got the same tree props.
+   */
+  @Nullable
+  Component getReusableLayout(Component component, @Nullable TreeProps treeProps) {
+    final GlobalKey key = component.getGlobalKeyObject();
+    final CreatedLayout createdLayout;
+
+    synchronized (this) {
+      if (mReusableLayouts == null
+          || (mPendingStateUpdates != null && mPendingStateUpdates.containsKey(key))) {
+        return null;
+      }
+
+      createdLayout = mReusableLayouts.get(key);
+    }
+
+    if (createdLayout == null) {
+      return null;
+    }
+
+    final Component previous = createdLayout.mComponent;
+    // The same instance may have had its state updated in place, so it can't be compared.
+    if (previous == component
+        || previous.getClass() != component.getClass()
+        || !createdLayout.hasSameTreeProps(treeProps)
+        || component.shouldComponentUpdate(previous, component)) {
+      return null;
+    }
+
+    return createdLayout.mLayout;
+  }
+
+  /**
+   * Records the component that onCreateLayout returned, or that was reused, for the given
+   * component in the layout pass that uses this handler.
+   */
+  synchronized void recordCreatedLayout(
+      Component component, @Nullable TreeProps treeProps, @Nullable Component layout) {
+    if (layout == null) {
+      return;
+    }
+
+    if (mCreatedLayouts == null) {
+      mCreatedLayouts = new HashMap<>(INITIAL_MAP_CAPACITY);
     }
+
+    mCreatedLayouts.put(
+        component.getGlobalKeyObject(), new CreatedLayout(component, layout, treeProps));
   }
 
   /**
@@ -147,10 +216,16 @@ public class StateHandler {
    */
   void commit(StateHandler stateHandler) {
     clearStateUpdates(stateHandler.getPendingStateUpdates());
-    updateCurrentComponentsWithState(stateHandler.getStateContainers());
+    updateCurrentComponentsWithState(
+        stateHandler.getStateContainers(), stateHandler.getInitialStateContainers());
+
+    final Map<GlobalKey, CreatedLayout> createdLayouts = stateHandler.getCreatedLayouts();
+    synchronized (this) {
+      mCreatedLayouts = createdLayouts;
+    }
   }
 
-  private void clearStateUpdates(Map<String, List<StateUpdate>> appliedStateUpdates) {
+  private void clearStateUpdates(Map<GlobalKey, List<StateUpdate>> appliedStateUpdates) {
     synchronized (this) {
       if (appliedStateUpdates == null ||
           mPendingStateUpdates == null ||
@@ -159,7 +234,7 @@ public class StateHandler {
       }
     }
 
-    for (String key : appliedStateUpdates.keySet()) {
+    for (GlobalKey key : appliedStateUpdates.keySet()) {
       final List<StateUpdate> pendingStateUpdatesForKey;
       synchronized (this) {
         pendingStateUpdatesForKey = mPendingStateUpdates.get(key);
@@ -182,14 +257,20 @@ public class StateHandler {
   }
 
   private void updateCurrentComponentsWithState(
-      Map<String, StateContainer> updatedStateContainers) {
+      @Nullable PersistentHashMap<GlobalKey, StateContainer> updatedStateContainers,
+      @Nullable PersistentHashMap<GlobalKey, StateContainer> initialStateContainers) {
     if (updatedStateContainers == null || updatedStateContainers.isEmpty()) {
       return;
     }
 
     synchronized (this) {
-      maybeInitStateContainers();
-      mStateContainers.putAll(updatedStateContainers);
+      if (mStateContainers == initialStateContainers) {
+        // The updated containers were derived from the current ones, so they already hold them.
+        mStateContainers = updatedStateContainers;
+      } else {
+        maybeInitStateContainers();
+        mStateContainers = mStateContainers.plusAll(updatedStateContainers);
+      }
     }
   }
 
@@ -200,11 +281,13 @@ public class StateHandler {
       mPendingStateUpdates = null;
     }
 
-    if (mStateContainers != null) {
-      mStateContainers.clear();
-      sStateContainersMapPool.release(mStateContainers);
-      mStateContainers = null;
-    }
+    // Other handlers may still read the state containers too.
+    mStateContainers = null;
+    mInitialStateContainers = null;
+
+    // Other handlers may still read these maps, so they're dropped rather than cleared.
+    mCreatedLayouts = null;
+    mReusableLayouts = null;
   }
 
   private static List<StateUpdate> acquireStateUpdatesList() {
@@ -229,55 +312,45 @@ public class StateHandler {
     sStateUpdatesListPool.release(list);
   }
 
-  synchronized Map<String, StateContainer> getStateContainers() {
+  @Nullable
+  PersistentHashMap<GlobalKey, StateContainer> getStateContainers() {
     return mStateContainers;
   }
 
-  synchronized Map<String, List<StateUpdate>> getPendingStateUpdates() {
+  @Nullable
+  synchronized PersistentHashMap<GlobalKey, StateContainer> getInitialStateContainers() {
+    return mInitialStateContainers;
+  }
+
+  synchronized Map<GlobalKey, List<StateUpdate>> getPendingStateUpdates() {
     return mPendingStateUpdates;
   }
 
+  synchronized Map<GlobalKey, CreatedLayout> getCreatedLayouts() {
+    return mCreatedLayouts;
+  }
+
   /**
    * @return copy the information from the given map of state updates into the map of pending state
    * updates.
    */
   private void copyPendingStateUpdatesMap(
-      Map<String, List<StateUpdate>> pendingStateUpdates) {
+      Map<GlobalKey, List<StateUpdate>> pendingStateUpdates) {
     if (pendingStateUpdates == null || pendingStateUpdates.isEmpty()) {
       return;
     }
 
     maybeInitPendingUpdates();
-    for (String key : pendingStateUpdates.keySet()) {
+    for (GlobalKey key : pendingStateUpdates.keySet()) {
       synchronized (this) {
         mPendingStateUpdates.put(key, acquireStateUpdatesList(pendingStateUpdates.get(key)));
       }
     }
   }
 
-  /**
-   * @return copy the list of given state containers into the map that holds the current
-   * state containers of components.
-   */
-  private void copyCurrentStateContainers(Map<String, StateContainer> stateContainers) {
-    if (stateContainers == null || stateContainers.isEmpty()) {
-      return;
-    }
-
-    maybeInitStateContainers();
-    for (String key : stateContainers.keySet()) {
-      synchronized (this) {
-        mStateContainers.put(key, stateContainers.get(key));
-      }
-    }
-  }
-
   private synchronized void maybeInitStateContainers() {
     if (mStateContainers == null) {
-      mStateContainers = sStateContainersMapPool.acquire();
-      if (mStateContainers == null) {
-        mStateContainers = new HashMap<>(INITIAL_MAP_CAPACITY);
-      }
+      mStateContainers = PersistentHashMap.empty();
     }
   }
 
@@ -290,4 +363,27 @@ public class StateHandler {
     }
   }
 
+  /** A layout created by a layout spec, together with what it was created from. */
+  private static class CreatedLayout {
+
+    private final Component mComponent;
+    private final Component mLayout;
+    // TreeProps are pooled and reset, so only their values are kept.
+    @Nullable private final Map<Class, Object> mTreeProps;
+
+    CreatedLayout(Component component, Component layout, @Nullable TreeProps treeProps) {
+      mComponent = component;
+      mLayout = layout;
+      mTreeProps =
+          treeProps == null || treeProps.toMap().isEmpty()
+              ? null
+              : new HashMap<>(treeProps.toMap());
+    }
+
+    boolean hasSameTreeProps(@Nullable TreeProps treeProps) {
+      final Map<Class, Object> treePropsMap =
+          treeProps == null ? Collections.<Class, Object>emptyMap() : treeProps.toMap();
+      return mTreeProps == null ? treePropsMap.isEmpty() : mTreeProps.equals(treePropsMap);
+    }
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import com.facebook.infer.annotation.ThreadSafe;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link RecyclePool} for objects that are acquired and released concurrently from several
+ * layout threads. No monitor is taken: every thread first uses a small private cache of items, and
+ * overflows into a shared array of slots that is updated with compare-and-set only.
+ *
+ * <p>The shared slots behave like a stack: releases fill the lowest free slots and acquires take
+ * from the highest occupied ones, so both usually find what they need after a couple of probes.
+ *
+ * <p>The private caches are bounded separately from the shared slots, which only hold the max size
+ * of the pool minus the size of a private cache. A single thread therefore never sees more than
+ * {@link #getMaxSize()} items, and the private cache of a thread is only referenced by that thread
+ * and is collected along with its items when the thread dies, without holding on to any room in
+ * the shared slots.
+ */
+@ThreadSafe(enableChecks = false)
+public class StripedRecyclePool<T> extends RecyclePool<T> {
+
+  static final int DEFAULT_LOCAL_CACHE_SIZE = 8;
+
+  private final int mLocalCacheSize;
+  private final AtomicReferenceArray<T> mSharedSlots;
+  /** The number of items in the shared slots. */
+  private final AtomicInteger mSharedSize = new AtomicInteger(0);
+  /** Incremented by {@link #clear()} so that other threads drop their local caches lazily. */
+  private final AtomicInteger mGeneration = new AtomicInteger(0);
+  private final ThreadLocal<LocalCache> mLocalCache =
+      new ThreadLocal<LocalCache>() {
+        @Override
+        protected LocalCache initialValue() {
+          return new LocalCache(mLocalCacheSize, mGeneration.get());
+        }
+      };
+
+  public StripedRecyclePool(String name, int maxSize) {
+    this(name, maxSize, Math.min(DEFAULT_LOCAL_CACHE_SIZE, Math.max(1, maxSize / 4)));
+  }
+
+  public StripedRecyclePool(String name, int maxSize, int localCacheSize) {
+    super(name, maxSize);
+    mLocalCacheSize = localCacheSize;
+    mSharedSlots = new AtomicReferenceArray<>(Math.max(0, maxSize - localCacheSize));
+  }
+
+  @Override
+  public T acquire() {
+    final LocalCache localCache = getLocalCache();
+    if (localCache.mCount > 0) {
+      return localCache.pop();
+    }
+
+    return acquireShared();
+  }
+
+  @Override
+  public void release(T item) {
+    final LocalCache localCache = getLocalCache();
+    if (localCache.mCount < mLocalCacheSize) {
+      localCache.push(item);
+    } else {
+      // The item is dropped if the shared slots are full.
+      releaseShared(item);
+    }
+  }
+
+  /**
+   * @return the number of items the calling thread can acquire: the ones in the shared slots and in
+   *     its own cache. The size is approximate while other threads concurrently use the pool.
+   */
+  @Override
+  public int getCurrentSize() {
+    return Math.max(0, mSharedSize.get()) + getLocalCache().mCount;
+  }
+
+  /** @return whether an item released by the calling thread would be dropped. */
+  @Override
+  public boolean isFull() {
+    return getLocalCache().mCount >= mLocalCacheSize
+        && mSharedSize.get() >= mSharedSlots.length();
+  }
+
+  /**
+   * Empties the shared slots and the cache of the calling thread. The caches of other threads are
+   * emptied the next time those threads use this pool.
+   */
+  @Override
+  public void clear() {
+    mGeneration.incrementAndGet();
+    getLocalCache();
+
+    for (int i = 0, size = mSharedSlots.length(); i < size; i++) {
+      if (mSharedSlots.getAndSet(i, null) != null) {
+        mSharedSize.decrementAndGet();
+      }
+    }
+  }
+
+  private LocalCache getLocalCache() {
+    final LocalCache localCache = mLocalCache.get();
+    final int generation = mGeneration.get();
+    if (localCache.mGeneration != generation) {
+      localCache.reset(generation);
+    }
+
+    return localCache;
+  }
+
+  private T acquireShared() {
+    final int capacity = mSharedSlots.length();
+    final int sharedSize = mSharedSize.get();
+    if (sharedSize <= 0) {
+      return null;
+    }
+
+    // Occupied slots are packed towards the start of the array, so search downwards from the
+    // current size and then wrap around.
+    final int start = Math.min(sharedSize, capacity) - 1;
+    for (int i = 0; i < capacity; i++) {
+      final int index = (start - i + capacity) % capacity;
+      final T item = mSharedSlots.get(index);
+      if (item != null && mSharedSlots.compareAndSet(index, item, null)) {
+        mSharedSize.decrementAndGet();
+        return item;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * @return whether the item was stored, which fails if the shared slots are full and may fail on
+   *     contention with other threads.
+   */
+  private boolean releaseShared(T item) {
+    final int capacity = mSharedSlots.length();
+    if (mSharedSize.get() >= capacity) {
+      return false;
+    }
+
+    final int start = Math.min(Math.max(0, mSharedSize.get()), capacity - 1);
+    for (int i = 0; i < capacity; i++) {
+      final int index = (start + i) % capacity;
+      if (mSharedSlots.get(index) == null && mSharedSlots.compareAndSet(index, null, item)) {
+        mSharedSize.incrementAndGet();
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Items cached for a single thread, only ever accessed by that thread. */
+  private final class LocalCache {
+    private final Object[] mItems;
+    private int mCount;
+    private int mGeneration;
+
+    LocalCache(int size, int generation) {
+      mItems = new Object[size];
+      mGeneration = generation;
+    }
+
+    @SuppressWarnings("unchecked")
+    T pop() {
+      final int index = mCount - 1;
+      final T item = (T) mItems[index];
+      mItems[index] = null;
+      mCount = index;
+      return item;
+    }
+
+    void push(T item) {
+      mItems[mCount++] = item;
+    }
+
+    void reset(int generation) {
+      for (int i = 0, count = mCount; i < count; i++) {
+        mItems[i] = null;
+      }
+      mCount = 0;
+      mGeneration = generation;
+    }
+  }
+}
@@ -10,6 +10,7 @@ package com.facebook.litho;
 
 import android.os.Process;
 import com.facebook.litho.config.ComponentsConfiguration;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
@@ -34,15 +35,30 @@ public class ThreadPoolLayoutHandler implements LayoutHandler {
   private final ThreadPoolExecutor mLayoutThreadPoolExecutor;
 
   public ThreadPoolLayoutHandler(int corePoolSize, int maxPoolSize) {
-    mLayoutThreadPoolExecutor = new LayoutThreadPoolExecutor(corePoolSize, maxPoolSize);
+    this(corePoolSize, maxPoolSize, new LinkedBlockingQueue<Runnable>());
   }
 
   public ThreadPoolLayoutHandler(PoolSizeCalculator poolSizeCalculator) {
+    this(poolSizeCalculator, new LinkedBlockingQueue<Runnable>());
+  }
+
+  ThreadPoolLayoutHandler(int corePoolSize, int maxPoolSize, BlockingQueue<Runnable> workQueue) {
+    mLayoutThreadPoolExecutor = new LayoutThreadPoolExecutor(corePoolSize, maxPoolSize, workQueue);
+  }
+
+  ThreadPoolLayoutHandler(
+      PoolSizeCalculator poolSizeCalculator, BlockingQueue<Runnable> workQueue) {
     final int numProcessors = DeviceInfoUtils.getNumberOfCPUCores();
     mLayoutThreadPoolExecutor =
         new LayoutThreadPoolExecutor(
             poolSizeCalculator.getCorePoolSize(numProcessors),
-            poolSizeCalculator.getMaxPoolSize(numProcessors));
+            poolSizeCalculator.getMaxPoolSize(numProcessors),
+            workQueue);
+  }
+
+  /** @return the executor the runnables posted to this handler are executed on. */
+  ThreadPoolExecutor getExecutor() {
+    return mLayoutThreadPoolExecutor;
   }
 
   @Override
@@ -90,14 +106,9 @@ public class ThreadPoolLayoutHandler implements LayoutHandler {
           }
         };
 
-    public LayoutThreadPoolExecutor(int corePoolSize, int maxPoolSize) {
-      super(
-          corePoolSize,
-          maxPoolSize,
-          1,
-          TimeUnit.SECONDS,
-          new LinkedBlockingQueue<Runnable>(),
-          sThreadFactory);
+    public LayoutThreadPoolExecutor(
+        int corePoolSize, int maxPoolSize, BlockingQueue<Runnable> workQueue) {
+      super(corePoolSize, maxPoolSize, 1, TimeUnit.SECONDS, workQueue, sThreadFactory);
     }
   }
 }
@@ -209,6 +209,9 @@ public class TransitionManager {
    * #isKeyDisappearing} to check whether certain mount content will animate, commit the layout
    * changes, and then call {@link #runTransitions} to restore the initial states and run the
    * animations.
+   *
+   * <p>If the next LayoutState has a {@link TransitionPlan} computed against the current one, the
+   * diff of their transition keys is taken from it rather than computed again.
    */
   void setupTransitions(
       LayoutState currentLayoutState,
@@ -218,9 +221,17 @@ public class TransitionManager {
       mAnimationStates.valueAt(i).seenInLastTransition = false;
     }
 
+    final TransitionPlan transitionPlan = nextLayoutState.getTransitionPlan();
     final SimpleArrayMap<String, LayoutOutput> nextTransitionKeys =
         nextLayoutState.getTransitionKeyMapping();
-    if (currentLayoutState == null) {
+    if (transitionPlan != null && transitionPlan.isPlannedFrom(currentLayoutState)) {
+      for (int i = 0, size = transitionPlan.size(); i < size; i++) {
+        recordLayoutOutputDiff(
+            transitionPlan.getTransitionKeyAt(i),
+            transitionPlan.getCurrentLayoutOutputAt(i, currentLayoutState),
+            transitionPlan.getNextLayoutOutputAt(i));
+      }
+    } else if (currentLayoutState == null) {
       for (int i = 0, size = nextTransitionKeys.size(); i < size; i++) {
         final String transitionKey = nextTransitionKeys.keyAt(i);
         final LayoutOutput nextLayoutOutput = nextTransitionKeys.valueAt(i);
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.support.annotation.Nullable;
+import android.support.v4.util.SimpleArrayMap;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The diff of the transition keys of a {@link LayoutState} against the LayoutState that was
+ * expected to be mounted before it, computed on the thread that calculated the layout. When that
+ * LayoutState is the one actually mounted, {@link TransitionManager} uses the plan instead of
+ * diffing the two layouts again on the main thread.
+ *
+ * <p>The plan only records which keys the previous layout has, since that layout may be released
+ * before the plan is used. Its {@link LayoutOutput}s are looked up by key once {@link
+ * #isPlannedFrom(LayoutState)} confirmed that it's still mounted.
+ */
+@Immutable
+final class TransitionPlan {
+
+  private final int mPreviousLayoutStateId;
+  private final String[] mTransitionKeys;
+  private final boolean[] mIsInCurrentLayout;
+  private final LayoutOutput[] mNextLayoutOutputs;
+
+  private TransitionPlan(
+      int previousLayoutStateId,
+      String[] transitionKeys,
+      boolean[] isInCurrentLayout,
+      LayoutOutput[] nextLayoutOutputs) {
+    mPreviousLayoutStateId = previousLayoutStateId;
+    mTransitionKeys = transitionKeys;
+    mIsInCurrentLayout = isInCurrentLayout;
+    mNextLayoutOutputs = nextLayoutOutputs;
+  }
+
+  /**
+   * Diffs the given transition key mappings, in the order {@link TransitionManager} records them:
+   * the keys of the next layout first, then the ones that disappear from the current layout. Only
+   * the outputs of the next layout are kept.
+   */
+  static TransitionPlan create(
+      int previousLayoutStateId,
+      SimpleArrayMap<String, LayoutOutput> currentTransitionKeys,
+      SimpleArrayMap<String, LayoutOutput> nextTransitionKeys) {
+    final int nextSize = nextTransitionKeys.size();
+    final boolean[] seenIndicesInNewLayout = new boolean[currentTransitionKeys.size()];
+    int disappearingCount = currentTransitionKeys.size();
+    for (int i = 0; i < nextSize; i++) {
+      final int currentIndex = currentTransitionKeys.indexOfKey(nextTransitionKeys.keyAt(i));
+      if (currentIndex >= 0) {
+        seenIndicesInNewLayout[currentIndex] = true;
+        disappearingCount--;
+      }
+    }
+
+    final int size = nextSize + disappearingCount;
+    final String[] transitionKeys = new String[size];
+    final boolean[] isInCurrentLayout = new boolean[size];
+    final LayoutOutput[] nextLayoutOutputs = new LayoutOutput[size];
+
+    for (int i = 0; i < nextSize; i++) {
+      final String transitionKey = nextTransitionKeys.keyAt(i);
+      transitionKeys[i] = transitionKey;
+      isInCurrentLayout[i] = currentTransitionKeys.containsKey(transitionKey);
+      nextLayoutOutputs[i] = nextTransitionKeys.valueAt(i);
+    }
+
+    int index = nextSize;
+    for (int i = 0, currentSize = currentTransitionKeys.size(); i < currentSize; i++) {
+      if (seenIndicesInNewLayout[i]) {
+        continue;
+      }
+      transitionKeys[index] = currentTransitionKeys.keyAt(i);
+      isInCurrentLayout[index] = true;
+      index++;
+    }
+
+    return new TransitionPlan(
+        previousLayoutStateId, transitionKeys, isInCurrentLayout, nextLayoutOutputs);
+  }
+
+  /** @return whether this plan was computed against the given LayoutState. */
+  boolean isPlannedFrom(@Nullable LayoutState layoutState) {
+    return layoutState != null && layoutState.getId() == mPreviousLayoutStateId;
+  }
+
+  int size() {
+    return mTransitionKeys.length;
+  }
+
+  String getTransitionKeyAt(int index) {
+    return mTransitionKeys[index];
+  }
+
+  /**
+   * @return the LayoutOutput of the key in the given previous layout, which this plan must have
+   *     been planned from, or null if the key is appearing.
+   */
+  @Nullable
+  LayoutOutput getCurrentLayoutOutputAt(int index, LayoutState currentLayoutState) {
+    return mIsInCurrentLayout[index]
+        ? currentLayoutState.getLayoutOutputForTransitionKey(mTransitionKeys[index])
+        : null;
+  }
+
+  /** @return the LayoutOutput of the key in the next layout, or null if it's disappearing. */
+  @Nullable
+  LayoutOutput getNextLayoutOutputAt(int index) {
+    return mNextLayoutOutputs[index];
+  }
+}
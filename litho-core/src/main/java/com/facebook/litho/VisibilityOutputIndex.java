@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.graphics.Rect;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable spatial index over the {@link VisibilityOutput}s of a {@link LayoutState}, used by
+ * {@link MountState} to only process the visibility outputs that intersect the visible rect.
+ *
+ * <p>The outputs are indexed along the main axis of the layout (the longest one), as an implicit
+ * interval tree: the intervals are sorted by their start and every node of the implicit balanced
+ * tree over that array stores the largest end within its subtree. A query visits O(log n + k)
+ * nodes, where k is the number of outputs overlapping the queried range on the main axis.
+ */
+final class VisibilityOutputIndex {
+
+  private final boolean mIsHorizontal;
+  private final int[] mStarts;
+  private final int[] mEnds;
+  private final int[] mMaxEnds;
+  private final int[] mPositions;
+  private final long[] mSortedIds;
+  private final int[] mSortedIdPositions;
+
+  private VisibilityOutputIndex(boolean isHorizontal, int size) {
+    mIsHorizontal = isHorizontal;
+    mStarts = new int[size];
+    mEnds = new int[size];
+    mMaxEnds = new int[size];
+    mPositions = new int[size];
+    mSortedIds = new long[size];
+    mSortedIdPositions = new int[size];
+  }
+
+  /**
+   * @param isHorizontal whether to index the outputs by their horizontal bounds instead of their
+   *     vertical bounds.
+   */
+  static VisibilityOutputIndex create(List<VisibilityOutput> outputs, boolean isHorizontal) {
+    final int size = outputs.size();
+    final VisibilityOutputIndex index = new VisibilityOutputIndex(isHorizontal, size);
+
+    final long[] startsAndPositions = new long[size];
+    for (int i = 0; i < size; i++) {
+      final Rect bounds = outputs.get(i).getBounds();
+      final int start = isHorizontal ? bounds.left : bounds.top;
+      startsAndPositions[i] = ((long) start << 32) | i;
+    }
+    Arrays.sort(startsAndPositions);
+
+    for (int i = 0; i < size; i++) {
+      final int position = (int) startsAndPositions[i];
+      final Rect bounds = outputs.get(position).getBounds();
+      index.mPositions[i] = position;
+      index.mStarts[i] = isHorizontal ? bounds.left : bounds.top;
+      index.mEnds[i] = isHorizontal ? bounds.right : bounds.bottom;
+    }
+    computeMaxEnds(index.mEnds, index.mMaxEnds, 0, size);
+
+    for (int i = 0; i < size; i++) {
+      index.mSortedIds[i] = outputs.get(i).getId();
+    }
+    Arrays.sort(index.mSortedIds);
+    for (int i = 0; i < size; i++) {
+      final int sortedIndex = Arrays.binarySearch(index.mSortedIds, outputs.get(i).getId());
+      index.mSortedIdPositions[sortedIndex] = i;
+    }
+
+    return index;
+  }
+
+  /**
+   * Sets the position of every visibility output that intersects the given rect on the indexed
+   * axis. The caller still needs to check the other axis.
+   */
+  void collectIntersecting(Rect rect, BitSet outPositions) {
+    final int start = mIsHorizontal ? rect.left : rect.top;
+    final int end = mIsHorizontal ? rect.right : rect.bottom;
+    collectIntersecting(start, end, 0, mStarts.length, outPositions);
+  }
+
+  /** @return the position of the visibility output with the given id, or -1 if there is none. */
+  int getPositionForId(long id) {
+    final int sortedIndex = Arrays.binarySearch(mSortedIds, id);
+    return sortedIndex < 0 ? -1 : mSortedIdPositions[sortedIndex];
+  }
+
+  private void collectIntersecting(int start, int end, int from, int to, BitSet outPositions) {
+    if (from >= to) {
+      return;
+    }
+
+    final int mid = (from + to) >>> 1;
+    if (mMaxEnds[mid] <= start) {
+      // Nothing in this subtree ends after the start of the range.
+      return;
+    }
+
+    collectIntersecting(start, end, from, mid, outPositions);
+
+    if (mStarts[mid] >= end) {
+      // Everything to the right starts after the end of the range.
+      return;
+    }
+
+    if (mEnds[mid] > start) {
+      outPositions.set(mPositions[mid]);
+    }
+
+    collectIntersecting(start, end, mid + 1, to, outPositions);
+  }
+
+  private static int computeMaxEnds(int[] ends, int[] maxEnds, int from, int to) {
+    if (from >= to) {
+      return Integer.MIN_VALUE;
+    }
+
+    final int mid = (from + to) >>> 1;
+    final int maxEnd =
+        Math.max(
+            ends[mid],
+            Math.max(
+                computeMaxEnds(ends, maxEnds, from, mid),
+                computeMaxEnds(ends, maxEnds, mid + 1, to)));
+    maxEnds[mid] = maxEnd;
+    return maxEnd;
+  }
+}
@@ -167,4 +167,37 @@ public class ComponentsConfiguration {
 
   /** If true then we'll allocate YogaEdgesWithIntsImplOptimized arrays in batches */
   public static boolean useBatchArrayAllocator = false;
+
+  /**
+   * If true, the pools in {@link com.facebook.litho.ComponentsPools} that are used on every layout
+   * will be {@link com.facebook.litho.StripedRecyclePool}s instead of synchronized pools. This is
+   * read once when the pools are created, so it needs to be set before the first layout.
+   */
+  public static boolean useStripedRecyclePools = false;
+
+  /**
+   * If true, a pure render layout spec whose props, state and tree props haven't changed since the
+   * last committed layout reuses the component its onCreateLayout returned then, instead of calling
+   * onCreateLayout again, so that a state update only re-creates the layouts on the path to the
+   * updated component.
+   */
+  public static boolean reuseUnchangedComponentLayouts = false;
+
+  /**
+   * If true, the text layouts created by the Text component are kept in a cache shared by all the
+   * Text components, so that the same text with the same style and width isn't laid out again.
+   */
+  public static boolean useTextLayoutCache = false;
+
+  /**
+   * The maximum estimated memory used by the layouts in the text layout cache, in bytes. This is
+   * read once when the cache is created, so it needs to be set before the first text layout.
+   */
+  public static int textLayoutCacheMaxSizeBytes = 512 * 1024;
+
+  /**
+   * The maximum number of resolved resources kept in the resource cache of a configuration. This
+   * is read when the cache of a configuration is created.
+   */
+  public static int resourceCacheMaxEntries = 500;
 }
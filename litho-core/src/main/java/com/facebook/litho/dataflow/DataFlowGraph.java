@@ -12,9 +12,7 @@ package com.facebook.litho.dataflow;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
 import android.support.v4.util.SimpleArrayMap;
-import com.facebook.litho.ComponentsPools;
 import com.facebook.litho.internal.ArraySet;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import javax.annotation.concurrent.GuardedBy;
@@ -26,6 +24,9 @@ import javax.annotation.concurrent.GuardedBy;
  * deactivated.
  *
  * Data flows through the graph on each frame, from input nodes to output nodes.
+ *
+ * The bindings are kept in partitions of bindings that share nodes, each sorted on its own, so
+ * that adding or removing a binding doesn't sort the nodes of the unrelated running animations.
  */
 public class DataFlowGraph {
 
@@ -47,10 +48,37 @@ public class DataFlowGraph {
 
     private boolean isFinished = false;
     private int refCount = 0;
+    private Partition partition;
+    private int outputsLeft;
+    private int sortGeneration;
 
     void reset() {
       isFinished = false;
       refCount = 0;
+      partition = null;
+      outputsLeft = 0;
+      sortGeneration = 0;
+    }
+  }
+
+  /**
+   * A set of bindings that share nodes with each other, and none with the bindings of any other
+   * partition. Its nodes are sorted independently of the nodes of the other partitions, so that
+   * registering or unregistering a binding only sorts the nodes of the partition it belongs to.
+   */
+  private static class Partition {
+
+    private final ArrayList<GraphBinding> bindings = new ArrayList<>();
+    private final ArrayList<ValueNode> sortedNodes = new ArrayList<>();
+    private boolean isSorted = false;
+    // Set when a binding was removed, which may have left bindings that no longer share nodes.
+    private boolean mayBeDisconnected = false;
+
+    void reset() {
+      bindings.clear();
+      sortedNodes.clear();
+      isSorted = false;
+      mayBeDisconnected = false;
     }
   }
 
@@ -77,11 +105,20 @@ public class DataFlowGraph {
   private final ArrayList<GraphBinding> mBindings = new ArrayList<>();
 
   @GuardedBy("this")
-  private final ArrayList<ValueNode> mSortedNodes = new ArrayList<>();
+  private final ArrayList<Partition> mPartitions = new ArrayList<>();
+
+  @GuardedBy("this")
+  private final ArrayList<Partition> mReleasedPartitions = new ArrayList<>();
+
+  @GuardedBy("this")
+  private final ArrayList<GraphBinding> mBindingsToRepartition = new ArrayList<>();
 
   @GuardedBy("this")
   private final SimpleArrayMap<ValueNode, NodeState> mNodeStates = new SimpleArrayMap<>();
 
+  @GuardedBy("this")
+  private int mSortGeneration = 0;
+
   private boolean mIsDirty = false;
 
   private DataFlowGraph(TimingSource timingSource) {
@@ -98,10 +135,10 @@ public class DataFlowGraph {
     }
     mBindings.add(binding);
     registerNodes(binding);
+    addToPartition(binding);
     if (mBindings.size() == 1) {
       mTimingSource.start();
     }
-    mIsDirty = true;
   }
 
   /**
@@ -112,20 +149,24 @@ public class DataFlowGraph {
     if (!mBindings.remove(binding)) {
       throw new RuntimeException("Tried to unregister non-existent binding");
     }
+    removeFromPartition(binding);
     unregisterNodes(binding);
     if (mBindings.isEmpty()) {
       mTimingSource.stop();
-      mSortedNodes.clear();
+      for (int i = 0, size = mPartitions.size(); i < size; i++) {
+        releasePartition(mPartitions.get(i));
+      }
+      mPartitions.clear();
+      mIsDirty = false;
       if (!mNodeStates.isEmpty()) {
         throw new RuntimeException("Failed to clean up all nodes");
       }
     }
-    mIsDirty = true;
   }
 
   synchronized void doFrame(long frameTimeNanos) {
     if (mIsDirty) {
-      regenerateSortedNodes();
+      updatePartitions();
     }
 
     propagate(frameTimeNanos);
@@ -134,71 +175,186 @@ public class DataFlowGraph {
 
   @GuardedBy("this")
   private void propagate(long frameTimeNanos) {
-    final int size = mSortedNodes.size();
-    for (int i = 0; i < size; i++) {
-      final ValueNode node = mSortedNodes.get(i);
-      node.doCalculateValue(frameTimeNanos);
+    for (int i = 0, partitionsSize = mPartitions.size(); i < partitionsSize; i++) {
+      final ArrayList<ValueNode> sortedNodes = mPartitions.get(i).sortedNodes;
+      for (int j = 0, size = sortedNodes.size(); j < size; j++) {
+        sortedNodes.get(j).doCalculateValue(frameTimeNanos);
+      }
     }
   }
 
+  /**
+   * Adds the binding to the partition of the nodes it shares with the registered bindings, merging
+   * the partitions it connects, or to a new partition if it doesn't share any node.
+   */
   @GuardedBy("this")
-  private void regenerateSortedNodes() {
-    mSortedNodes.clear();
+  private void addToPartition(GraphBinding binding) {
+    final ArraySet<ValueNode> nodes = binding.getAllNodes();
+    if (nodes.isEmpty()) {
+      return;
+    }
+
+    Partition partition = null;
+    for (int i = 0, size = nodes.size(); i < size; i++) {
+      final Partition nodePartition = mNodeStates.get(nodes.valueAt(i)).partition;
+      if (nodePartition == null || nodePartition == partition) {
+        continue;
+      }
+      partition = partition == null ? nodePartition : mergePartitions(partition, nodePartition);
+    }
+
+    if (partition == null) {
+      partition = acquirePartition();
+      mPartitions.add(partition);
+    }
+
+    partition.bindings.add(binding);
+    for (int i = 0, size = nodes.size(); i < size; i++) {
+      mNodeStates.get(nodes.valueAt(i)).partition = partition;
+    }
+    partition.isSorted = false;
+    mIsDirty = true;
+  }
+
+  /** @return the partition the bindings of both partitions were moved to. */
+  @GuardedBy("this")
+  private Partition mergePartitions(Partition first, Partition second) {
+    final boolean keepFirst = first.bindings.size() >= second.bindings.size();
+    final Partition partition = keepFirst ? first : second;
+    final Partition merged = keepFirst ? second : first;
+
+    for (int i = 0, bindingsSize = merged.bindings.size(); i < bindingsSize; i++) {
+      final GraphBinding binding = merged.bindings.get(i);
+      final ArraySet<ValueNode> nodes = binding.getAllNodes();
+      for (int j = 0, nodesSize = nodes.size(); j < nodesSize; j++) {
+        mNodeStates.get(nodes.valueAt(j)).partition = partition;
+      }
+      partition.bindings.add(binding);
+    }
+    partition.mayBeDisconnected |= merged.mayBeDisconnected;
+
+    mPartitions.remove(merged);
+    releasePartition(merged);
+    return partition;
+  }
 
-    if (mBindings.size() == 0) {
+  @GuardedBy("this")
+  private void removeFromPartition(GraphBinding binding) {
+    final ArraySet<ValueNode> nodes = binding.getAllNodes();
+    if (nodes.isEmpty()) {
       return;
     }
 
-    final ArraySet<ValueNode> leafNodes = ComponentsPools.acquireArraySet();
-    final SimpleArrayMap<ValueNode, Integer> nodesToOutputsLeft = new SimpleArrayMap<>();
+    final Partition partition = mNodeStates.get(nodes.valueAt(0)).partition;
+    partition.bindings.remove(binding);
+    if (partition.bindings.isEmpty()) {
+      mPartitions.remove(partition);
+      releasePartition(partition);
+    } else {
+      partition.isSorted = false;
+      partition.mayBeDisconnected = true;
+      mIsDirty = true;
+    }
+  }
+
+  /**
+   * Splits the partitions that bindings were removed from into the sets of bindings that are still
+   * connected, and sorts the nodes of the partitions that changed.
+   */
+  @GuardedBy("this")
+  private void updatePartitions() {
+    // Partitions created by the split are added at the end, past the ones left to visit.
+    for (int i = mPartitions.size() - 1; i >= 0; i--) {
+      final Partition partition = mPartitions.get(i);
+      if (partition.mayBeDisconnected) {
+        mPartitions.remove(i);
+        splitPartition(partition);
+      }
+    }
+
+    for (int i = 0, size = mPartitions.size(); i < size; i++) {
+      final Partition partition = mPartitions.get(i);
+      if (!partition.isSorted) {
+        sortNodes(partition);
+      }
+    }
+
+    mIsDirty = false;
+  }
 
-    for (int i = 0, bindingsSize = mBindings.size(); i < bindingsSize; i++) {
-      final ArraySet<ValueNode> nodes = mBindings.get(i).getAllNodes();
+  @GuardedBy("this")
+  private void splitPartition(Partition partition) {
+    mBindingsToRepartition.addAll(partition.bindings);
+    for (int i = 0, bindingsSize = mBindingsToRepartition.size(); i < bindingsSize; i++) {
+      final ArraySet<ValueNode> nodes = mBindingsToRepartition.get(i).getAllNodes();
+      for (int j = 0, nodesSize = nodes.size(); j < nodesSize; j++) {
+        mNodeStates.get(nodes.valueAt(j)).partition = null;
+      }
+    }
+    releasePartition(partition);
+
+    for (int i = 0, size = mBindingsToRepartition.size(); i < size; i++) {
+      addToPartition(mBindingsToRepartition.get(i));
+    }
+    mBindingsToRepartition.clear();
+  }
+
+  /**
+   * Sorts the nodes of the partition so that each node comes after all of its inputs. The nodes
+   * are sorted from the leaves up, keeping the count of outputs left to visit in their NodeState.
+   */
+  @GuardedBy("this")
+  private void sortNodes(Partition partition) {
+    final ArrayList<ValueNode> sortedNodes = partition.sortedNodes;
+    sortedNodes.clear();
+
+    // Tells the nodes visited in this sort apart, since nodes can belong to multiple bindings.
+    final int sortGeneration = ++mSortGeneration;
+    int nodeCount = 0;
+    for (int i = 0, bindingsSize = partition.bindings.size(); i < bindingsSize; i++) {
+      final ArraySet<ValueNode> nodes = partition.bindings.get(i).getAllNodes();
       for (int j = 0, nodesSize = nodes.size(); j < nodesSize; j++) {
         final ValueNode node = nodes.valueAt(j);
-        final int outputCount = node.getOutputCount();
-        if (outputCount == 0) {
-          leafNodes.add(node);
-        } else {
-          nodesToOutputsLeft.put(node, outputCount);
+        final NodeState nodeState = mNodeStates.get(node);
+        if (nodeState.sortGeneration == sortGeneration) {
+          continue;
+        }
+
+        nodeState.sortGeneration = sortGeneration;
+        nodeState.outputsLeft = node.getOutputCount();
+        nodeCount++;
+        if (nodeState.outputsLeft == 0) {
+          sortedNodes.add(node);
         }
       }
     }
 
-    if (!nodesToOutputsLeft.isEmpty() && leafNodes.isEmpty()) {
+    if (nodeCount > 0 && sortedNodes.isEmpty()) {
       throw new DetectedCycleException(
           "Graph has nodes, but they represent a cycle with no leaf nodes!");
     }
 
-    final ArrayDeque<ValueNode> nodesToProcess = ComponentsPools.acquireArrayDeque();
-    nodesToProcess.addAll(leafNodes);
-
-    while (!nodesToProcess.isEmpty()) {
-      final ValueNode next = nodesToProcess.pollFirst();
-      mSortedNodes.add(next);
-      for (int i = 0, count = next.getInputCount(); i < count; i++) {
-        final ValueNode input = next.getInputAt(i);
-        final int outputsLeft = nodesToOutputsLeft.get(input) - 1;
-        nodesToOutputsLeft.put(input, outputsLeft);
+    // The sorted nodes double as the queue of nodes whose inputs are left to visit.
+    for (int i = 0; i < sortedNodes.size(); i++) {
+      final ValueNode next = sortedNodes.get(i);
+      for (int j = 0, count = next.getInputCount(); j < count; j++) {
+        final NodeState inputState = mNodeStates.get(next.getInputAt(j));
+        final int outputsLeft = --inputState.outputsLeft;
         if (outputsLeft == 0) {
-          nodesToProcess.addLast(input);
+          sortedNodes.add(next.getInputAt(j));
         } else if (outputsLeft < 0) {
           throw new DetectedCycleException("Detected cycle.");
         }
       }
     }
 
-    int expectedTotalNodes = nodesToOutputsLeft.size() + leafNodes.size();
-    if (mSortedNodes.size() != expectedTotalNodes) {
+    if (sortedNodes.size() != nodeCount) {
       throw new DetectedCycleException(
           "Had unreachable nodes in graph -- this likely means there was a cycle");
     }
 
-    Collections.reverse(mSortedNodes);
-    mIsDirty = false;
-
-    ComponentsPools.release(nodesToProcess);
-    ComponentsPools.release(leafNodes);
+    Collections.reverse(sortedNodes);
+    partition.isSorted = true;
   }
 
   @GuardedBy("this")
@@ -209,18 +365,21 @@ public class DataFlowGraph {
 
   @GuardedBy("this")
   private void updateFinishedNodes() {
-    for (int i = 0, size = mSortedNodes.size(); i < size; i++) {
-      final ValueNode node = mSortedNodes.get(i);
-      final NodeState nodeState = mNodeStates.get(node);
-      if (nodeState.isFinished || !areInputsFinished(node)) {
-        continue;
-      }
+    for (int i = 0, partitionsSize = mPartitions.size(); i < partitionsSize; i++) {
+      final ArrayList<ValueNode> sortedNodes = mPartitions.get(i).sortedNodes;
+      for (int j = 0, size = sortedNodes.size(); j < size; j++) {
+        final ValueNode node = sortedNodes.get(j);
+        final NodeState nodeState = mNodeStates.get(node);
+        if (nodeState.isFinished || !areInputsFinished(node)) {
+          continue;
+        }
 
-      final boolean nodeIsNowFinished =
-          !(node instanceof NodeCanFinish) ||
-              ((NodeCanFinish) node).isFinished();
-      if (nodeIsNowFinished) {
-        nodeState.isFinished = true;
+        final boolean nodeIsNowFinished =
+            !(node instanceof NodeCanFinish) ||
+                ((NodeCanFinish) node).isFinished();
+        if (nodeIsNowFinished) {
+          nodeState.isFinished = true;
+        }
       }
     }
   }
@@ -299,9 +458,21 @@ public class DataFlowGraph {
     sNodeStatePool.release(nodeState);
   }
 
+  @GuardedBy("this")
+  private Partition acquirePartition() {
+    final int size = mReleasedPartitions.size();
+    return size > 0 ? mReleasedPartitions.remove(size - 1) : new Partition();
+  }
+
+  @GuardedBy("this")
+  private void releasePartition(Partition partition) {
+    partition.reset();
+    mReleasedPartitions.add(partition);
+  }
+
   @VisibleForTesting
   @GuardedBy("this")
   boolean hasReferencesToNodes() {
-    return !mBindings.isEmpty() || !mSortedNodes.isEmpty() || !mNodeStates.isEmpty();
+    return !mBindings.isEmpty() || !mPartitions.isEmpty() || !mNodeStates.isEmpty();
   }
 }
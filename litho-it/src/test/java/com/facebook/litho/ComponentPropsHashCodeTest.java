@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.graphics.Color;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.widget.Card;
+import com.facebook.litho.widget.Text;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/** Tests {@link Component#getPropsHashCode()} of generated components. */
+@RunWith(ComponentsTestRunner.class)
+public class ComponentPropsHashCodeTest {
+
+  private ComponentContext mContext;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+  }
+
+  @Test
+  public void testEquivalentComponentsHaveSameHash() {
+    final Component text1 = Text.create(mContext).text("Hello").textColor(Color.RED).build();
+    final Component text2 = Text.create(mContext).text("Hello").textColor(Color.RED).build();
+
+    assertThat(text1.isEquivalentTo(text2)).isTrue();
+    assertThat(text1.getPropsHashCode()).isEqualTo(text2.getPropsHashCode());
+  }
+
+  @Test
+  public void testComponentsWithDifferentPropsAreNotEquivalent() {
+    final Component text1 = Text.create(mContext).text("Hello").build();
+    final Component text2 = Text.create(mContext).text("World").build();
+
+    assertThat(text1.getPropsHashCode()).isNotEqualTo(text2.getPropsHashCode());
+    assertThat(text1.isEquivalentTo(text2)).isFalse();
+  }
+
+  @Test
+  public void testComponentPropsAreHashedByTheirProps() {
+    final Component card1 =
+        Card.create(mContext).content(Text.create(mContext).text("Hello").build()).build();
+    final Component card2 =
+        Card.create(mContext).content(Text.create(mContext).text("Hello").build()).build();
+    final Component card3 =
+        Card.create(mContext).content(Text.create(mContext).text("World").build()).build();
+
+    assertThat(card1.getPropsHashCode()).isEqualTo(card2.getPropsHashCode());
+    assertThat(card1.isEquivalentTo(card2)).isTrue();
+    assertThat(card1.isEquivalentTo(card3)).isFalse();
+  }
+
+  @Test
+  public void testShallowCopyKeepsHash() {
+    final Component text = Text.create(mContext).text("Hello").build();
+    final int propsHashCode = text.getPropsHashCode();
+
+    final Component copy = text.makeShallowCopy();
+
+    assertThat(copy.getPropsHashCode()).isEqualTo(propsHashCode);
+    assertThat(copy.isEquivalentTo(text)).isTrue();
+  }
+
+  @Test
+  public void testCollectionsOfComponentsAreHashedByTheirProps() {
+    final List<Component> components1 =
+        Arrays.<Component>asList(
+            Text.create(mContext).text("Hello").build(),
+            Text.create(mContext).text("World").build());
+    final List<Component> components2 =
+        Arrays.<Component>asList(
+            Text.create(mContext).text("Hello").build(),
+            Text.create(mContext).text("World").build());
+    final List<List<Component>> nested1 = new ArrayList<>();
+    nested1.add(components1);
+    final List<List<Component>> nested2 = new ArrayList<>();
+    nested2.add(components2);
+
+    assertThat(Component.collectionPropsHashCode(components1))
+        .isEqualTo(Component.collectionPropsHashCode(components2));
+    assertThat(Component.collectionPropsHashCode(nested1))
+        .isEqualTo(Component.collectionPropsHashCode(nested2));
+    assertThat(Component.collectionPropsHashCode(components1))
+        .isNotEqualTo(Component.collectionPropsHashCode(components1.subList(0, 1)));
+  }
+}
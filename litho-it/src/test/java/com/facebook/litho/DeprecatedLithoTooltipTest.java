@@ -71,8 +71,9 @@ public class DeprecatedLithoTooltipTest {
     Whitebox.setInternalState(
         mComponent,
         "mGlobalKey",
-        ComponentKeyUtils.getKeyWithSeparator(
-            mComponent.getTypeId(), Row.create(mContext).build().getTypeId()));
+        GlobalKey.create(
+            ComponentKeyUtils.getKeyWithSeparator(
+                mComponent.getTypeId(), Row.create(mContext).build().getTypeId())));
     mContext = ComponentContext.withComponentTree(mContext, mComponentTree);
     mContext = ComponentContext.withComponentScope(mContext, mComponent);
     mLithoView = getLithoView(mComponentTree);
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class GlobalKeyTest {
+
+  @Test
+  public void testStringIsTheSameAsConcatenatedKey() {
+    final GlobalKey root = GlobalKey.create("1");
+    final GlobalKey child = GlobalKey.create(root, "2");
+    final GlobalKey grandChild = GlobalKey.createForChildPosition(GlobalKey.create(child, "3"), 12);
+
+    assertThat(root.toString()).isEqualTo("1");
+    assertThat(child.toString()).isEqualTo(ComponentKeyUtils.getKeyWithSeparator("1", "2"));
+    assertThat(grandChild.toString())
+        .isEqualTo(
+            ComponentKeyUtils.getKeyForChildPosition(
+                ComponentKeyUtils.getKeyWithSeparator("1", "2", "3"), 12));
+    assertThat(grandChild.length()).isEqualTo(grandChild.toString().length());
+  }
+
+  @Test
+  public void testNullPartsAreConcatenatedAsNull() {
+    final GlobalKey key = GlobalKey.create(null, "key");
+
+    assertThat(key.toString()).isEqualTo("null,key");
+    assertThat(key).isEqualTo(GlobalKey.create("null,key"));
+  }
+
+  @Test
+  public void testKeysForTheSameStringAreEqual() {
+    final GlobalKey key =
+        GlobalKey.createForChildPosition(GlobalKey.create(GlobalKey.create("1"), "2"), 0);
+    final GlobalKey sameParts =
+        GlobalKey.createForChildPosition(GlobalKey.create(GlobalKey.create("1"), "2"), 0);
+    final GlobalKey otherParts = GlobalKey.createForChildPosition(GlobalKey.create("1,2"), 0);
+    final GlobalKey string = GlobalKey.create("1,2!0");
+
+    assertThat(key).isEqualTo(sameParts);
+    assertThat(key.hashCode()).isEqualTo(sameParts.hashCode());
+    assertThat(key).isEqualTo(otherParts);
+    assertThat(otherParts).isEqualTo(key);
+    assertThat(key).isEqualTo(string);
+    assertThat(string).isEqualTo(key);
+    assertThat(key.getHash()).isEqualTo(string.getHash());
+  }
+
+  @Test
+  public void testKeysForDifferentStringsAreNotEqual() {
+    final GlobalKey root = GlobalKey.create("1");
+
+    assertThat(GlobalKey.create(root, "2")).isNotEqualTo(GlobalKey.create(root, "3"));
+    assertThat(GlobalKey.create(root, "2")).isNotEqualTo(GlobalKey.create("1!2"));
+    assertThat(GlobalKey.createForChildPosition(root, 1))
+        .isNotEqualTo(GlobalKey.createForChildPosition(root, 10));
+    assertThat(GlobalKey.create(root, "2")).isNotEqualTo("1,2");
+  }
+}
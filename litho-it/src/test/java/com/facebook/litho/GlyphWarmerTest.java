@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.text.Layout;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests {@link GlyphWarmer}.
+ */
+@RunWith(ComponentsTestRunner.class)
+@Config(shadows = GlyphWarmerTest.ShadowPicture.class)
+public class GlyphWarmerTest {
+  private ShadowLooper mShadowLooper;
+  private GlyphWarmer mGlyphWarmer;
+
+  @Before
+  public void setup() {
+    mGlyphWarmer = GlyphWarmer.getInstance();
+    mShadowLooper = Shadows.shadowOf(mGlyphWarmer.getWarmerLooper());
+  }
+
+  @Test
+  public void testWarmGlyph() {
+    Layout layout = mock(Layout.class);
+    mGlyphWarmer.warmLayout(layout);
+    mShadowLooper.runOneTask();
+    verify(layout).draw(any(Canvas.class));
+  }
+
+  @After
+  public void tearDown() {
+    runAllTasks();
+  }
+
+  @Test
+  public void testWarmsLayoutOnce() {
+    Layout layout = mock(Layout.class);
+    mGlyphWarmer.warmLayout(layout);
+    mGlyphWarmer.warmLayout(layout);
+    runAllTasks();
+    mGlyphWarmer.warmLayout(layout);
+    runAllTasks();
+
+    verify(layout, times(1)).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testWarmsLayoutsInBatches() {
+    final Layout[] layouts = new Layout[GlyphWarmer.BATCH_SIZE + 1];
+    for (int i = 0; i < layouts.length; i++) {
+      layouts[i] = mock(Layout.class);
+      mGlyphWarmer.warmLayout(layouts[i]);
+    }
+
+    mShadowLooper.runOneTask();
+    for (int i = 0; i < GlyphWarmer.BATCH_SIZE; i++) {
+      verify(layouts[i]).draw(any(Canvas.class));
+    }
+    verify(layouts[GlyphWarmer.BATCH_SIZE], never()).draw(any(Canvas.class));
+
+    mShadowLooper.runOneTask();
+    verify(layouts[GlyphWarmer.BATCH_SIZE]).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testWarmsLayoutsClosestToViewportFirst() {
+    final ComponentTree farTree = mock(ComponentTree.class);
+    final ComponentTree visibleTree = mock(ComponentTree.class);
+    final Layout farLayout = mock(Layout.class);
+    final Layout visibleLayout = mock(Layout.class);
+    final Layout otherLayout = mock(Layout.class);
+
+    GlyphWarmer.setViewportDistance(farTree, 5);
+    mGlyphWarmer.warmLayout(otherLayout);
+    mGlyphWarmer.warmLayout(farLayout, farTree);
+    mGlyphWarmer.warmLayout(visibleLayout, visibleTree);
+    GlyphWarmer.setViewportDistance(visibleTree, 0);
+    runAllTasks();
+
+    final InOrder inOrder = inOrder(visibleLayout, farLayout, otherLayout);
+    inOrder.verify(visibleLayout).draw(any(Canvas.class));
+    inOrder.verify(farLayout).draw(any(Canvas.class));
+    inOrder.verify(otherLayout).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testDropsLayoutsOfReleasedTrees() {
+    final ComponentTree componentTree = mock(ComponentTree.class);
+    final Layout layout = mock(Layout.class);
+
+    mGlyphWarmer.warmLayout(layout, componentTree);
+    when(componentTree.isReleased()).thenReturn(true);
+    runAllTasks();
+
+    verify(layout, never()).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testForgetsWarmedLayoutsOfReleasedTrees() {
+    final ComponentTree componentTree = mock(ComponentTree.class);
+    final ComponentTree otherTree = mock(ComponentTree.class);
+    final Layout layout = mock(Layout.class);
+    final Layout otherLayout = mock(Layout.class);
+
+    mGlyphWarmer.warmLayout(layout, componentTree);
+    mGlyphWarmer.warmLayout(otherLayout, otherTree);
+    runAllTasks();
+    GlyphWarmer.onComponentTreeReleased(componentTree);
+    mGlyphWarmer.warmLayout(layout);
+    mGlyphWarmer.warmLayout(otherLayout);
+    runAllTasks();
+
+    verify(layout, times(2)).draw(any(Canvas.class));
+    verify(otherLayout, times(1)).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testDropsPendingLayoutsOfReleasedTrees() {
+    final ComponentTree componentTree = mock(ComponentTree.class);
+    final Layout layout = mock(Layout.class);
+
+    mGlyphWarmer.warmLayout(layout, componentTree);
+    GlyphWarmer.onComponentTreeReleased(componentTree);
+
+    assertThat(mGlyphWarmer.getPendingLayoutCount()).isEqualTo(0);
+    runAllTasks();
+    verify(layout, never()).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testClearWarmedLayouts() {
+    final Layout layout = mock(Layout.class);
+
+    mGlyphWarmer.warmLayout(layout);
+    runAllTasks();
+    mGlyphWarmer.clearWarmedLayouts();
+    mGlyphWarmer.warmLayout(layout);
+    runAllTasks();
+
+    verify(layout, times(2)).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testKeepsClosestLayoutsWhenTooManyArePending() {
+    final Layout[] layouts = new Layout[GlyphWarmer.MAX_PENDING_LAYOUTS + 1];
+    for (int i = 0; i < layouts.length; i++) {
+      layouts[i] = mock(Layout.class);
+      mGlyphWarmer.warmLayout(layouts[i]);
+    }
+
+    assertThat(mGlyphWarmer.getPendingLayoutCount()).isEqualTo(GlyphWarmer.MAX_PENDING_LAYOUTS);
+    runAllTasks();
+    verify(layouts[0]).draw(any(Canvas.class));
+    verify(layouts[GlyphWarmer.MAX_PENDING_LAYOUTS], never()).draw(any(Canvas.class));
+  }
+
+  private void runAllTasks() {
+    while (mShadowLooper.getScheduler().size() > 0) {
+      mShadowLooper.runOneTask();
+    }
+  }
+
+  @Implements(Picture.class)
+  public static class ShadowPicture {
+
+    @Implementation
+    public void __constructor__(int nativePicture, boolean fromStream) {
+
+    }
+
+    @Implementation
+    public void __constructor__(int nativePicture) {
+
+    }
+
+    @Implementation
+    public void __constructor__() {
+
+    }
+
+    @Implementation
+    public Canvas beginRecording(int width, int height) {
+      return new Canvas();
+    }
+  }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.FrameworkLogEvents.EVENT_LAYOUT_CACHE_LOOKUP;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_LAYOUT_CACHE_HIT;
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.makeSizeSpec;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.facebook.litho.testing.TestDrawableComponent;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class LayoutCacheTest {
+
+  private final int mWidthSpec = makeSizeSpec(100, EXACTLY);
+  private final int mHeightSpec = makeSizeSpec(100, EXACTLY);
+
+  private ComponentContext mContext;
+  private ComponentsLogger mComponentsLogger;
+
+  @Before
+  public void setup() {
+    mComponentsLogger = spy(new TestComponentsLogger());
+    when(mComponentsLogger.newEvent(any(int.class))).thenCallRealMethod();
+    when(mComponentsLogger.newPerformanceEvent(any(int.class))).thenCallRealMethod();
+
+    mContext = new ComponentContext(RuntimeEnvironment.application, "tag", mComponentsLogger);
+  }
+
+  @Test
+  public void testAcquireMatchesEquivalentRootAndSizeSpecs() {
+    final LayoutCache cache = new LayoutCache(4);
+    final LayoutState layoutState = calculateLayoutState(new PropComponent(1));
+    cache.put(new PropComponent(1), mWidthSpec, mHeightSpec, layoutState);
+
+    final LayoutCache.CachedLayout cached =
+        cache.acquire(mContext, new PropComponent(1), mWidthSpec, mHeightSpec);
+    assertThat(cached).isNotNull();
+    cache.release(cached);
+
+    assertThat(cache.acquire(mContext, new PropComponent(2), mWidthSpec, mHeightSpec)).isNull();
+    assertThat(
+            cache.acquire(
+                mContext, new PropComponent(1), mWidthSpec, makeSizeSpec(50, EXACTLY)))
+        .isNull();
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+
+    cache.clear();
+    layoutState.releaseRef();
+  }
+
+  @Test
+  public void testAcquireComparesRootsWithSamePropsHashCode() {
+    final LayoutCache cache = new LayoutCache(4);
+    final LayoutState first = calculateLayoutState(new PropComponent(1, 0));
+    final LayoutState second = calculateLayoutState(new PropComponent(2, 0));
+
+    cache.put(new PropComponent(1, 0), mWidthSpec, mHeightSpec, first);
+    assertThat(cache.acquire(mContext, new PropComponent(2, 0), mWidthSpec, mHeightSpec))
+        .isNull();
+
+    cache.put(new PropComponent(2, 0), mWidthSpec, mHeightSpec, second);
+    assertThat(cache.getSize()).isEqualTo(1);
+    assertThat(cache.acquire(mContext, new PropComponent(1, 0), mWidthSpec, mHeightSpec))
+        .isNull();
+
+    final LayoutCache.CachedLayout cached =
+        cache.acquire(mContext, new PropComponent(2, 0), mWidthSpec, mHeightSpec);
+    assertThat(cached).isNotNull();
+    cache.release(cached);
+
+    cache.clear();
+    first.releaseRef();
+    second.releaseRef();
+  }
+
+  @Test
+  public void testCachedDiffTreeOutlivesLayoutState() {
+    final LayoutCache cache = new LayoutCache(4);
+    final LayoutState layoutState = calculateLayoutState(new PropComponent(1));
+    final DiffNode diffTree = layoutState.getDiffTree();
+    final float measuredWidth = diffTree.getLastMeasuredWidth();
+    final long contentId = diffTree.getChildAt(0).getContent().getId();
+    cache.put(new PropComponent(1), mWidthSpec, mHeightSpec, layoutState);
+    layoutState.releaseRef();
+
+    final LayoutCache.CachedLayout cached =
+        cache.acquire(mContext, new PropComponent(1), mWidthSpec, mHeightSpec);
+    final DiffNode cachedDiffTree = cached.getDiffTree();
+    assertThat(cachedDiffTree.getLastMeasuredWidth()).isEqualTo(measuredWidth);
+    assertThat(cachedDiffTree.getChildCount()).isEqualTo(1);
+    assertThat(cachedDiffTree.getChildAt(0).getContent().getId()).isEqualTo(contentId);
+
+    // The tree diffing with the layout keeps it alive after its eviction.
+    cache.clear();
+    assertThat(cachedDiffTree.getChildAt(0).getContent().getId()).isEqualTo(contentId);
+    cache.release(cached);
+  }
+
+  @Test
+  public void testPutIgnoresLayoutsWithoutDiffTree() {
+    final LayoutCache cache = new LayoutCache(4);
+    final LayoutState layoutState =
+        LayoutState.calculate(
+            mContext,
+            new PropComponent(1),
+            -1,
+            mWidthSpec,
+            mHeightSpec,
+            LayoutState.CalculateLayoutSource.TEST);
+
+    cache.put(new PropComponent(1), mWidthSpec, mHeightSpec, layoutState);
+
+    assertThat(cache.getSize()).isEqualTo(0);
+    layoutState.releaseRef();
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    final LayoutCache cache = new LayoutCache(2);
+    final LayoutState first = calculateLayoutState(new PropComponent(1));
+    final LayoutState second = calculateLayoutState(new PropComponent(2));
+    final LayoutState third = calculateLayoutState(new PropComponent(3));
+
+    cache.put(new PropComponent(1), mWidthSpec, mHeightSpec, first);
+    cache.put(new PropComponent(2), mWidthSpec, mHeightSpec, second);
+    cache.release(cache.acquire(mContext, new PropComponent(1), mWidthSpec, mHeightSpec));
+    cache.put(new PropComponent(3), mWidthSpec, mHeightSpec, third);
+
+    assertThat(cache.getSize()).isEqualTo(2);
+    assertThat(cache.acquire(mContext, new PropComponent(2), mWidthSpec, mHeightSpec)).isNull();
+
+    final LayoutCache.CachedLayout cached =
+        cache.acquire(mContext, new PropComponent(1), mWidthSpec, mHeightSpec);
+    assertThat(cached).isNotNull();
+    cache.release(cached);
+
+    cache.clear();
+    first.releaseRef();
+    second.releaseRef();
+    third.releaseRef();
+  }
+
+  @Test
+  public void testComponentTreesShareLayouts() {
+    final LayoutCache cache = new LayoutCache(4);
+
+    final ComponentTree firstTree =
+        ComponentTree.create(mContext, new PropComponent(1)).layoutCache(cache).build();
+    firstTree.setSizeSpec(mWidthSpec, mHeightSpec);
+
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(1);
+
+    final ComponentTree secondTree =
+        ComponentTree.create(mContext, new PropComponent(1)).layoutCache(cache).build();
+    secondTree.setSizeSpec(mWidthSpec, mHeightSpec);
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getSize()).isEqualTo(1);
+
+    final LogEvent event = mComponentsLogger.newEvent(EVENT_LAYOUT_CACHE_LOOKUP);
+    event.addParam(PARAM_LAYOUT_CACHE_HIT, String.valueOf(true));
+    verify(mComponentsLogger).log(eq(event));
+
+    firstTree.release();
+    secondTree.release();
+    cache.clear();
+  }
+
+  private LayoutState calculateLayoutState(Component component) {
+    return LayoutState.calculate(
+        mContext,
+        component,
+        -1,
+        mWidthSpec,
+        mHeightSpec,
+        true /* shouldGenerateDiffTree */,
+        null /* previousDiffTreeRoot */,
+        false /* canPrefetchDisplayLists */,
+        false /* canCacheDrawingDisplayLists */,
+        true /* clipChildren */,
+        LayoutState.CalculateLayoutSource.TEST);
+  }
+
+  private static class PropComponent extends InlineLayoutSpec {
+
+    private final int mProp;
+    private final int mPropsHashCode;
+
+    PropComponent(int prop) {
+      this(prop, prop);
+    }
+
+    PropComponent(int prop, int propsHashCode) {
+      mProp = prop;
+      mPropsHashCode = propsHashCode;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      return Column.create(c)
+          .child(TestDrawableComponent.create(c).widthPx(mProp).heightPx(mProp))
+          .build();
+    }
+
+    @Override
+    public boolean isEquivalentTo(Component other) {
+      return other instanceof PropComponent && ((PropComponent) other).mProp == mProp;
+    }
+
+    @Override
+    protected int computePropsHashCode() {
+      return mPropsHashCode;
+    }
+  }
+}
@@ -208,6 +208,117 @@ public class MountStateIncrementalMountTest {
     verifyLoggingAndResetLogger(0, 1);
   }
 
+  @Test
+  public void testIncrementalMountHorizontalViewStackScrollLeft() {
+    final TestComponent child1 = create(mContext)
+        .build();
+    final TestComponent child2 = create(mContext)
+        .build();
+    final LithoView lithoView =
+        mountComponent(
+            mContext,
+            new InlineLayoutSpec() {
+              @Override
+              protected Component onCreateLayout(ComponentContext c) {
+                return Row.create(c)
+                    .child(Wrapper.create(c).delegate(child1).widthPx(10).heightPx(10))
+                    .child(Wrapper.create(c).delegate(child2).widthPx(10).heightPx(10))
+                    .build();
+              }
+            });
+
+    verifyLoggingAndResetLogger(2, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(20, 0, 30, 10), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(0, 2);
+
+    lithoView.getComponentTree().mountComponent(new Rect(15, 0, 25, 10), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(1, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(5, 0, 15, 10), true);
+    assertThat(child1.isMounted()).isTrue();
+    assertThat(child2.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(1, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(0, 0, 10, 10), true);
+    assertThat(child1.isMounted()).isTrue();
+    assertThat(child2.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(0, 1);
+
+    lithoView.getComponentTree().mountComponent(new Rect(-10, 0, -5, 10), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(0, 1);
+  }
+
+  /**
+   * Tests incremental mount behaviour of a 2x2 grid of components when the visible rect moves on
+   * both axes at once.
+   */
+  @Test
+  public void testIncrementalMountGridDiagonalScroll() {
+    final TestComponent topLeft = create(mContext).build();
+    final TestComponent topRight = create(mContext).build();
+    final TestComponent bottomLeft = create(mContext).build();
+    final TestComponent bottomRight = create(mContext).build();
+    final LithoView lithoView =
+        mountComponent(
+            mContext,
+            new InlineLayoutSpec() {
+              @Override
+              protected Component onCreateLayout(ComponentContext c) {
+                return Column.create(c)
+                    .child(
+                        Row.create(c)
+                            .child(Wrapper.create(c).delegate(topLeft).widthPx(10).heightPx(10))
+                            .child(Wrapper.create(c).delegate(topRight).widthPx(10).heightPx(10)))
+                    .child(
+                        Row.create(c)
+                            .child(Wrapper.create(c).delegate(bottomLeft).widthPx(10).heightPx(10))
+                            .child(
+                                Wrapper.create(c).delegate(bottomRight).widthPx(10).heightPx(10)))
+                    .build();
+              }
+            });
+
+    verifyLoggingAndResetLogger(4, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(0, 0, 5, 5), true);
+    assertThat(topLeft.isMounted()).isTrue();
+    assertThat(topRight.isMounted()).isFalse();
+    assertThat(bottomLeft.isMounted()).isFalse();
+    assertThat(bottomRight.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(0, 3);
+
+    // Moving down and right brings in all four items.
+    lithoView.getComponentTree().mountComponent(new Rect(5, 5, 15, 15), true);
+    assertThat(topLeft.isMounted()).isTrue();
+    assertThat(topRight.isMounted()).isTrue();
+    assertThat(bottomLeft.isMounted()).isTrue();
+    assertThat(bottomRight.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(3, 0);
+
+    // Crossing both the top and left edges unmounts the top left item only once.
+    lithoView.getComponentTree().mountComponent(new Rect(15, 15, 20, 20), true);
+    assertThat(topLeft.isMounted()).isFalse();
+    assertThat(topRight.isMounted()).isFalse();
+    assertThat(bottomLeft.isMounted()).isFalse();
+    assertThat(bottomRight.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(0, 3);
+
+    // An item that crosses the left edge but is still outside vertically is not mounted.
+    lithoView.getComponentTree().mountComponent(new Rect(5, 15, 10, 20), true);
+    assertThat(topLeft.isMounted()).isFalse();
+    assertThat(topRight.isMounted()).isFalse();
+    assertThat(bottomLeft.isMounted()).isTrue();
+    assertThat(bottomRight.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(1, 1);
+  }
+
   /**
    * Tests incremental mount behaviour of a vertical stack of components with a Drawable mount type.
    */
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.SizeSpec.AT_MOST;
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.UNSPECIFIED;
+import static com.facebook.litho.SizeSpec.makeSizeSpec;
+import static com.facebook.yoga.YogaAlign.CENTER;
+import static com.facebook.yoga.YogaEdge.ALL;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.ParallelMeasure.PendingMeasure;
+import com.facebook.litho.testing.TestDrawableComponent;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class ParallelMeasureTest {
+
+  private ComponentContext mContext;
+  private ThreadPoolLayoutHandler mMeasureHandler;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    mMeasureHandler = new ThreadPoolLayoutHandler(2, 2);
+  }
+
+  @After
+  public void tearDown() {
+    mMeasureHandler.getExecutor().shutdownNow();
+  }
+
+  @Test
+  public void testPredictsTheSizeSpecsYogaMeasuresWith() {
+    final Component component =
+        new InlineLayoutSpec() {
+          @Override
+          protected Component onCreateLayout(ComponentContext c) {
+            return Column.create(c)
+                .child(TestDrawableComponent.create(c).measuredHeight(10))
+                .child(
+                    Column.create(c)
+                        .child(TestDrawableComponent.create(c).measuredHeight(10))
+                        .child(TestDrawableComponent.create(c).measuredHeight(20)))
+                .child(TestDrawableComponent.create(c).measuredHeight(10).marginPx(ALL, 5))
+                .child(TestDrawableComponent.create(c).measuredHeight(10).widthPx(50))
+                .child(
+                    TestDrawableComponent.create(c)
+                        .measuredWidth(20)
+                        .measuredHeight(10)
+                        .alignSelf(CENTER))
+                .child(
+                    Row.create(c)
+                        .child(
+                            TestDrawableComponent.create(c).measuredWidth(20).measuredHeight(10)))
+                .build();
+          }
+        };
+
+    final int widthSpec = makeSizeSpec(100, EXACTLY);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+    final InternalNode root =
+        LayoutState.createAndMeasureTreeForComponent(mContext, component, widthSpec, heightSpec);
+
+    final List<PendingMeasure> measures = new ArrayList<>();
+    ParallelMeasure.collectMeasures(root, widthSpec, heightSpec, measures);
+
+    assertThat(measures).hasSize(3);
+    for (PendingMeasure measure : measures) {
+      assertThat(measure.mWidthSpec).isEqualTo(widthSpec);
+      assertThat(measure.mNode.getLastWidthSpec()).isEqualTo(measure.mWidthSpec);
+      assertThat(measure.mNode.getLastHeightSpec()).isEqualTo(measure.mHeightSpec);
+    }
+  }
+
+  @Test
+  public void testDoesNotPredictLeavesWithStyles() {
+    final Component component =
+        new InlineLayoutSpec() {
+          @Override
+          protected Component onCreateLayout(ComponentContext c) {
+            return Column.create(c)
+                .child(TestDrawableComponent.create(c).widthPercent(50))
+                .child(TestDrawableComponent.create(c).flexGrow(1))
+                .child(Column.create(c).paddingPx(ALL, 4).child(TestDrawableComponent.create(c)))
+                .build();
+          }
+        };
+
+    final int widthSpec = makeSizeSpec(100, EXACTLY);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+    final InternalNode root =
+        LayoutState.createAndMeasureTreeForComponent(mContext, component, widthSpec, heightSpec);
+
+    final List<PendingMeasure> measures = new ArrayList<>();
+    ParallelMeasure.collectMeasures(root, widthSpec, heightSpec, measures);
+
+    assertThat(measures).isEmpty();
+  }
+
+  @Test
+  public void testDoesNotPredictTreesWithoutExactWidth() {
+    final int widthSpec = makeSizeSpec(100, AT_MOST);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+    final InternalNode root =
+        LayoutState.createAndMeasureTreeForComponent(
+            mContext, new GridComponent(), widthSpec, heightSpec);
+
+    final List<PendingMeasure> measures = new ArrayList<>();
+    ParallelMeasure.collectMeasures(root, widthSpec, heightSpec, measures);
+
+    assertThat(measures).isEmpty();
+  }
+
+  @Test
+  public void testPreMeasuresCopiesOfTheComponents() {
+    final int widthSpec = makeSizeSpec(300, EXACTLY);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+    final InternalNode root =
+        LayoutState.createAndMeasureTreeForComponent(
+            mContext, new GridComponent(), widthSpec, heightSpec);
+
+    final List<PendingMeasure> measures = new ArrayList<>();
+    ParallelMeasure.collectMeasures(root, widthSpec, heightSpec, measures);
+    ParallelMeasure.preMeasure(root, widthSpec, heightSpec, mMeasureHandler);
+
+    assertThat(measures).isNotEmpty();
+    for (PendingMeasure measure : measures) {
+      final InternalNode node = measure.mNode;
+      assertThat(node.hasPreMeasuredSize(measure.mWidthSpec, measure.mHeightSpec)).isTrue();
+      assertThat(node.getPreMeasuredComponent()).isNotNull();
+      assertThat(node.getPreMeasuredComponent()).isNotSameAs(node.getRootComponent());
+    }
+  }
+
+  @Test
+  public void testParallelMeasureHasSameOutputsAsSerialMeasure() {
+    final int widthSpec = makeSizeSpec(300, EXACTLY);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+
+    final LayoutState serial =
+        calculateLayoutState(new GridComponent(), widthSpec, heightSpec, false);
+    final LayoutState parallel =
+        calculateLayoutState(new GridComponent(), widthSpec, heightSpec, true);
+
+    assertThat(parallel.getWidth()).isEqualTo(serial.getWidth());
+    assertThat(parallel.getHeight()).isEqualTo(serial.getHeight());
+    assertThat(parallel.getMountableOutputCount()).isEqualTo(serial.getMountableOutputCount());
+    for (int i = 0, size = serial.getMountableOutputCount(); i < size; i++) {
+      assertThat(parallel.getMountableOutputAt(i).getBounds())
+          .isEqualTo(serial.getMountableOutputAt(i).getBounds());
+    }
+
+    serial.releaseRef();
+    parallel.releaseRef();
+  }
+
+  @Test
+  public void testPreMeasuredSizeIsOnlyUsedForSameSizeSpecs() {
+    final InternalNode node = ComponentsPools.acquireInternalNode(mContext);
+    final int widthSpec = makeSizeSpec(100, EXACTLY);
+    final int heightSpec = makeSizeSpec(0, UNSPECIFIED);
+
+    node.setPreMeasuredSize(
+        widthSpec, heightSpec, 100, 20, TestDrawableComponent.create(mContext).build());
+
+    assertThat(node.hasPreMeasuredSize(widthSpec, heightSpec)).isTrue();
+    assertThat(node.hasPreMeasuredSize(widthSpec, makeSizeSpec(20, EXACTLY))).isFalse();
+    assertThat(node.getPreMeasuredWidth()).isEqualTo(100);
+    assertThat(node.getPreMeasuredHeight()).isEqualTo(20);
+
+    node.clearPreMeasuredSize();
+
+    assertThat(node.hasPreMeasuredSize(widthSpec, heightSpec)).isFalse();
+    assertThat(node.getPreMeasuredComponent()).isNull();
+  }
+
+  private LayoutState calculateLayoutState(
+      Component component, int widthSpec, int heightSpec, boolean parallelMeasure) {
+    return LayoutState.calculate(
+        mContext,
+        component,
+        -1,
+        widthSpec,
+        heightSpec,
+        false /* shouldGenerateDiffTree */,
+        null /* previousDiffTreeRoot */,
+        false /* canPrefetchDisplayLists */,
+        false /* canCacheDrawingDisplayLists */,
+        true /* clipChildren */,
+        parallelMeasure ? mMeasureHandler : null,
+        LayoutState.CalculateLayoutSource.TEST);
+  }
+
+  /**
+   * Rows of cells and full width cells whose measured sizes differ, so that Yoga has to measure
+   * each of them.
+   */
+  private static class GridComponent extends InlineLayoutSpec {
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      final Column.Builder column = Column.create(c);
+      for (int i = 0; i < 20; i++) {
+        final Row.Builder row = Row.create(c).marginPx(ALL, 2);
+        for (int j = 0; j < 3; j++) {
+          row.child(
+              TestDrawableComponent.create(c)
+                  .measuredWidth(10 + 7 * j)
+                  .measuredHeight(5 + (i * 3 + j) % 11)
+                  .flexGrow(j == 1 ? 1 : 0));
+        }
+        column.child(row).child(TestDrawableComponent.create(c).measuredHeight(5 + i % 4));
+      }
+      return column.build();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests {@link PersistentHashMap} */
+public class PersistentHashMapTest {
+
+  @Test
+  public void testPlusReturnsUpdatedCopy() {
+    final PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+    final PersistentHashMap<String, Integer> map = empty.plus("a", 1).plus("b", 2);
+    final PersistentHashMap<String, Integer> updatedMap = map.plus("a", 3);
+
+    assertThat(empty).isEmpty();
+    assertThat(map).hasSize(2);
+    assertThat(map.get("a")).isEqualTo(1);
+    assertThat(map.get("b")).isEqualTo(2);
+    assertThat(map.get("c")).isNull();
+    assertThat(updatedMap).hasSize(2);
+    assertThat(updatedMap.get("a")).isEqualTo(3);
+    assertThat(updatedMap.get("b")).isEqualTo(2);
+  }
+
+  @Test
+  public void testPlusSameValueReturnsSameMap() {
+    final Integer value = 1;
+    final PersistentHashMap<String, Integer> map =
+        PersistentHashMap.<String, Integer>empty().plus("a", value);
+
+    assertThat(map.plus("a", value)).isSameAs(map);
+  }
+
+  @Test
+  public void testKeysWithSameHashCode() {
+    final PersistentHashMap<CollidingKey, String> map =
+        PersistentHashMap.<CollidingKey, String>empty()
+            .plus(new CollidingKey("a"), "a")
+            .plus(new CollidingKey("b"), "b")
+            .plus(new CollidingKey("a"), "c")
+            .plus(new CollidingKey("e", 33), "e");
+
+    assertThat(map).hasSize(3);
+    assertThat(map.get(new CollidingKey("a"))).isEqualTo("c");
+    assertThat(map.get(new CollidingKey("b"))).isEqualTo("b");
+    assertThat(map.get(new CollidingKey("e", 33))).isEqualTo("e");
+    assertThat(map.containsKey(new CollidingKey("d"))).isFalse();
+  }
+
+  @Test
+  public void testMatchesHashMap() {
+    final Random random = new Random(42);
+    final Map<Integer, Integer> expected = new HashMap<>();
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+    for (int i = 0; i < 5000; i++) {
+      final int key = random.nextInt(2000) * (random.nextBoolean() ? 1 : -65536);
+      expected.put(key, i);
+      map = map.plus(key, i);
+    }
+
+    assertThat(map).isEqualTo(expected);
+    assertThat(map.entrySet()).hasSize(expected.size());
+    assertThat(map.plusAll(expected)).isEqualTo(expected);
+  }
+
+  @Test
+  public void testPlusAll() {
+    final PersistentHashMap<String, Integer> map =
+        PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+    final PersistentHashMap<String, Integer> other =
+        PersistentHashMap.<String, Integer>empty().plus("b", 3).plus("c", 4);
+
+    final PersistentHashMap<String, Integer> result = map.plusAll(other);
+
+    assertThat(result).hasSize(3);
+    assertThat(result.get("a")).isEqualTo(1);
+    assertThat(result.get("b")).isEqualTo(3);
+    assertThat(result.get("c")).isEqualTo(4);
+    assertThat(PersistentHashMap.<String, Integer>empty().plusAll(other)).isSameAs(other);
+  }
+
+  private static class CollidingKey {
+
+    private final String mKey;
+    private final int mHashCode;
+
+    CollidingKey(String key) {
+      this(key, 1);
+    }
+
+    CollidingKey(String key, int hashCode) {
+      mKey = key;
+      mHashCode = hashCode;
+    }
+
+    @Override
+    public int hashCode() {
+      return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof CollidingKey && ((CollidingKey) o).mKey.equals(mKey);
+    }
+  }
+}
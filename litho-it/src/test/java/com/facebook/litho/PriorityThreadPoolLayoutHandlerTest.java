@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.PriorityThreadPoolLayoutHandler.PRIORITY_FAR_RANGE;
+import static com.facebook.litho.PriorityThreadPoolLayoutHandler.PRIORITY_NEAR_RANGE;
+import static com.facebook.litho.PriorityThreadPoolLayoutHandler.PRIORITY_PREALLOCATION;
+import static com.facebook.litho.PriorityThreadPoolLayoutHandler.PRIORITY_VISIBLE;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.PriorityThreadPoolLayoutHandler.PrioritizedLayoutHandler;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class PriorityThreadPoolLayoutHandlerTest {
+
+  private PriorityThreadPoolLayoutHandler mLayoutHandler;
+  private CountDownLatch mBlockerLatch;
+  private List<String> mExecuted;
+
+  @Before
+  public void setup() throws InterruptedException {
+    mLayoutHandler = new PriorityThreadPoolLayoutHandler(1, 1);
+    mExecuted = Collections.synchronizedList(new ArrayList<String>());
+    mBlockerLatch = new CountDownLatch(1);
+
+    // Keep the only layout thread busy so that everything posted afterwards is queued.
+    final CountDownLatch blockerStarted = new CountDownLatch(1);
+    mLayoutHandler.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            blockerStarted.countDown();
+            try {
+              mBlockerLatch.await();
+            } catch (InterruptedException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+    blockerStarted.await();
+  }
+
+  @After
+  public void tearDown() {
+    mBlockerLatch.countDown();
+  }
+
+  @Test
+  public void testRunsByPriorityThenInPostOrder() throws InterruptedException {
+    mLayoutHandler.post(record("far1"), PRIORITY_FAR_RANGE, null);
+    mLayoutHandler.post(record("preallocation"), PRIORITY_PREALLOCATION, null);
+    mLayoutHandler.post(record("near"), PRIORITY_NEAR_RANGE, null);
+    mLayoutHandler.post(record("far2"), PRIORITY_FAR_RANGE, null);
+    mLayoutHandler.post(record("visible"), PRIORITY_VISIBLE, null);
+
+    runQueue();
+
+    assertThat(mExecuted).containsExactly("visible", "near", "far1", "far2", "preallocation");
+  }
+
+  @Test
+  public void testSetPriorityReordersPendingRunnables() throws InterruptedException {
+    final PrioritizedLayoutHandler item1 =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_NEAR_RANGE, null);
+    final PrioritizedLayoutHandler item2 =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_FAR_RANGE, null);
+
+    item1.post(record("item1"));
+    item2.post(record("item2"));
+
+    // The viewport moved towards item2.
+    item1.setPriority(PRIORITY_FAR_RANGE);
+    item2.setPriority(PRIORITY_VISIBLE);
+
+    runQueue();
+
+    assertThat(mExecuted).containsExactly("item2", "item1");
+  }
+
+  @Test
+  public void testRemoveCallbacksAndMessagesWithToken() throws InterruptedException {
+    final Object staleToken = new Object();
+    final PrioritizedLayoutHandler staleItem =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_FAR_RANGE, staleToken);
+    final PrioritizedLayoutHandler item =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_FAR_RANGE, null);
+
+    staleItem.post(record("stale1"));
+    mLayoutHandler.post(record("stale2"), PRIORITY_NEAR_RANGE, staleToken);
+    item.post(record("item"));
+
+    mLayoutHandler.removeCallbacksAndMessages(staleToken);
+
+    runQueue();
+
+    assertThat(mExecuted).containsExactly("item");
+  }
+
+  @Test
+  public void testRemoveCallbacksAndMessagesWithNullToken() throws InterruptedException {
+    mLayoutHandler.post(record("1"), PRIORITY_NEAR_RANGE, null);
+    mLayoutHandler.post(record("2"), PRIORITY_NEAR_RANGE, new Object());
+
+    mLayoutHandler.removeCallbacksAndMessages(null);
+
+    runQueue();
+
+    assertThat(mExecuted).isEmpty();
+  }
+
+  @Test
+  public void testRemoveCallbacksOnlyRemovesFromOwnHandler() throws InterruptedException {
+    final PrioritizedLayoutHandler item1 =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_NEAR_RANGE, null);
+    final PrioritizedLayoutHandler item2 =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_NEAR_RANGE, null);
+    final Runnable shared = record("shared");
+
+    item1.post(shared);
+    item2.post(shared);
+    item1.removeCallbacks(shared);
+
+    runQueue();
+
+    assertThat(mExecuted).containsExactly("shared");
+  }
+
+  @Test
+  public void testRemoveCallbacksRemovesReprioritizedRunnables() throws InterruptedException {
+    final PrioritizedLayoutHandler item =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_FAR_RANGE, null);
+    final Runnable runnable = record("item");
+
+    item.post(runnable);
+    item.setPriority(PRIORITY_VISIBLE);
+    item.removeCallbacks(runnable);
+
+    runQueue();
+
+    assertThat(mExecuted).isEmpty();
+  }
+
+  @Test
+  public void testSetPriorityOnlyRunsRunnablesOnce() throws InterruptedException {
+    final PrioritizedLayoutHandler item =
+        mLayoutHandler.createPrioritizedHandler(PRIORITY_FAR_RANGE, null);
+
+    item.post(record("item"));
+    item.setPriority(PRIORITY_NEAR_RANGE);
+    item.setPriority(PRIORITY_VISIBLE);
+
+    runQueue();
+
+    assertThat(mExecuted).containsExactly("item");
+  }
+
+  private Runnable record(final String name) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        mExecuted.add(name);
+      }
+    };
+  }
+
+  /** Unblocks the layout thread and waits for everything that is queued to run. */
+  private void runQueue() throws InterruptedException {
+    final CountDownLatch done = new CountDownLatch(1);
+    mLayoutHandler.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            done.countDown();
+          }
+        },
+        PRIORITY_PREALLOCATION,
+        null);
+
+    mBlockerLatch.countDown();
+    assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+}
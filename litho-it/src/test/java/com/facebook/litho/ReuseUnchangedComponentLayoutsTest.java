@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.os.Looper;
+import com.facebook.litho.ComponentLifecycle.StateContainer;
+import com.facebook.litho.ComponentLifecycle.StateUpdate;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.testing.TestDrawableComponent;
+import com.facebook.litho.testing.helper.ComponentTestHelper;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowLooper;
+
+@RunWith(ComponentsTestRunner.class)
+public class ReuseUnchangedComponentLayoutsTest {
+
+  private ComponentContext mContext;
+  private ShadowLooper mLayoutThreadShadowLooper;
+  private Counts mCounts;
+  private ComponentTree mComponentTree;
+
+  @Before
+  public void setup() throws Exception {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    mLayoutThreadShadowLooper =
+        Shadows.shadowOf(
+            (Looper) Whitebox.invokeMethod(ComponentTree.class, "getDefaultLayoutThreadLooper"));
+    mCounts = new Counts();
+  }
+
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.reuseUnchangedComponentLayouts = false;
+  }
+
+  @Test
+  public void testStateUpdateReusesLayoutOfUnchangedAncestor() {
+    ComponentsConfiguration.reuseUnchangedComponentLayouts = true;
+    mountRoot();
+
+    updateCount();
+
+    assertThat(mCounts.mPureLayouts).isEqualTo(0);
+    assertThat(mCounts.mStatefulLayouts).isEqualTo(1);
+    assertThat(mCounts.mLastCount).isEqualTo(1);
+
+    updateCount();
+
+    assertThat(mCounts.mPureLayouts).isEqualTo(0);
+    assertThat(mCounts.mStatefulLayouts).isEqualTo(2);
+    assertThat(mCounts.mLastCount).isEqualTo(2);
+  }
+
+  @Test
+  public void testStateUpdateRecreatesAllLayoutsByDefault() {
+    mountRoot();
+
+    updateCount();
+
+    assertThat(mCounts.mPureLayouts).isEqualTo(1);
+    assertThat(mCounts.mStatefulLayouts).isEqualTo(1);
+    assertThat(mCounts.mLastCount).isEqualTo(1);
+  }
+
+  private void mountRoot() {
+    mComponentTree =
+        ComponentTree.create(mContext, new RootLayout(mCounts))
+            .incrementalMount(false)
+            .layoutDiffing(false)
+            .build();
+    final LithoView lithoView = new LithoView(mContext);
+    lithoView.setComponentTree(mComponentTree);
+    lithoView.onAttachedToWindow();
+    ComponentTestHelper.measureAndLayout(lithoView);
+
+    assertThat(mCounts.mPureLayouts).isGreaterThan(0);
+    mCounts.mPureLayouts = 0;
+    mCounts.mStatefulLayouts = 0;
+  }
+
+  private void updateCount() {
+    mComponentTree.updateStateAsync(mCounts.mStatefulKey, new IncrementCount());
+    mLayoutThreadShadowLooper.runToEndOfTasks();
+  }
+
+  private static class Counts {
+    private int mPureLayouts;
+    private int mStatefulLayouts;
+    private int mLastCount;
+    private GlobalKey mStatefulKey;
+  }
+
+  /** Not pure render, so that its layout is created again for every layout pass. */
+  private static class RootLayout extends InlineLayoutSpec {
+
+    private final Counts mCounts;
+
+    RootLayout(Counts counts) {
+      mCounts = counts;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      return Column.create(c).child(new PureLayout(mCounts)).build();
+    }
+  }
+
+  private static class PureLayout extends InlineLayoutSpec {
+
+    private final Counts mCounts;
+
+    PureLayout(Counts counts) {
+      mCounts = counts;
+    }
+
+    @Override
+    protected boolean isPureRender() {
+      return true;
+    }
+
+    @Override
+    public boolean isEquivalentTo(Component other) {
+      return other instanceof PureLayout && ((PureLayout) other).mCounts == mCounts;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      mCounts.mPureLayouts++;
+      return Column.create(c)
+          .child(new StatefulLayout(mCounts))
+          .child(TestDrawableComponent.create(c).widthPx(10).heightPx(10))
+          .build();
+    }
+  }
+
+  private static class StatefulLayout extends InlineLayoutSpec {
+
+    private final Counts mCounts;
+    private CountStateContainer mStateContainer = new CountStateContainer();
+
+    StatefulLayout(Counts counts) {
+      mCounts = counts;
+    }
+
+    @Override
+    protected boolean hasState() {
+      return true;
+    }
+
+    @Override
+    protected void createInitialState(ComponentContext c) {
+      mStateContainer.mCount = 0;
+    }
+
+    @Override
+    protected void transferState(ComponentContext c, StateContainer stateContainer) {
+      mStateContainer.mCount = ((CountStateContainer) stateContainer).mCount;
+    }
+
+    @Override
+    protected StateContainer getStateContainer() {
+      return mStateContainer;
+    }
+
+    @Override
+    public Component makeShallowCopy() {
+      final StatefulLayout component = (StatefulLayout) super.makeShallowCopy();
+      component.mStateContainer = new CountStateContainer();
+      return component;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      mCounts.mStatefulLayouts++;
+      mCounts.mLastCount = mStateContainer.mCount;
+      mCounts.mStatefulKey = getGlobalKeyObject();
+      return TestDrawableComponent.create(c).widthPx(10).heightPx(10).build();
+    }
+  }
+
+  private static class CountStateContainer implements StateContainer {
+    private int mCount;
+  }
+
+  private static class IncrementCount implements StateUpdate {
+
+    @Override
+    public void updateState(StateContainer stateContainer, Component component) {
+      ((StatefulLayout) component).mStateContainer.mCount =
+          ((CountStateContainer) stateContainer).mCount + 1;
+    }
+  }
+}
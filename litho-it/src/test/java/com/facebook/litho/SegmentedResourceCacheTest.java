@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.ResourceCache.NOT_CACHED;
+import static com.facebook.litho.ResourceCache.TYPE_DIMEN_OFFSET;
+import static com.facebook.litho.ResourceCache.TYPE_DIMEN_SIZE;
+import static com.facebook.litho.ResourceCache.TYPE_FLOAT;
+import static com.facebook.litho.ResourceCache.TYPE_OBJECT;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.content.res.Configuration;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests {@link SegmentedResourceCache} */
+@RunWith(ComponentsTestRunner.class)
+public class SegmentedResourceCacheTest {
+
+  private static final int RES_ID = 0x7f010001;
+
+  private final SegmentedResourceCache mCache =
+      new SegmentedResourceCache(new Configuration(), 500);
+
+  @Test
+  public void testCachesObjects() {
+    assertThat((String) mCache.get(RES_ID)).isNull();
+
+    mCache.put(RES_ID, "Some text");
+
+    assertThat((String) mCache.get(RES_ID)).isEqualTo("Some text");
+    assertThat(mCache.getHitCount(TYPE_OBJECT)).isEqualTo(1);
+    assertThat(mCache.getMissCount(TYPE_OBJECT)).isEqualTo(1);
+  }
+
+  @Test
+  public void testCachesIntsOfEachTypeSeparately() {
+    mCache.putInt(TYPE_DIMEN_SIZE, RES_ID, 3);
+
+    assertThat(mCache.getInt(TYPE_DIMEN_SIZE, RES_ID)).isEqualTo(3);
+    assertThat(mCache.getInt(TYPE_DIMEN_OFFSET, RES_ID)).isEqualTo(NOT_CACHED);
+
+    mCache.putInt(TYPE_DIMEN_OFFSET, RES_ID, 2);
+    mCache.putInt(TYPE_FLOAT, RES_ID, Float.floatToRawIntBits(2.5f));
+
+    assertThat(mCache.getInt(TYPE_DIMEN_SIZE, RES_ID)).isEqualTo(3);
+    assertThat(mCache.getInt(TYPE_DIMEN_OFFSET, RES_ID)).isEqualTo(2);
+    assertThat(Float.intBitsToFloat((int) mCache.getInt(TYPE_FLOAT, RES_ID))).isEqualTo(2.5f);
+    assertThat(mCache.getHitCount(TYPE_DIMEN_SIZE)).isEqualTo(2);
+    assertThat(mCache.getMissCount(TYPE_DIMEN_OFFSET)).isEqualTo(1);
+    assertThat(mCache.getHitCount(TYPE_OBJECT)).isEqualTo(0);
+  }
+
+  @Test
+  public void testCachesNegativeInts() {
+    mCache.putInt(TYPE_DIMEN_OFFSET, RES_ID, -1);
+
+    assertThat(mCache.getInt(TYPE_DIMEN_OFFSET, RES_ID)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testStaysBounded() {
+    final SegmentedResourceCache cache = new SegmentedResourceCache(new Configuration(), 64);
+    for (int i = 1; i <= 1000; i++) {
+      cache.putInt(TYPE_DIMEN_SIZE, RES_ID + i, i);
+    }
+
+    int cachedCount = 0;
+    for (int i = 1; i <= 1000; i++) {
+      final long cached = cache.getInt(TYPE_DIMEN_SIZE, RES_ID + i);
+      if (cached != NOT_CACHED) {
+        assertThat(cached).isEqualTo(i);
+        cachedCount++;
+      }
+    }
+
+    assertThat(cachedCount).isGreaterThan(0);
+    assertThat(cachedCount).isLessThanOrEqualTo(64);
+    assertThat(cache.getInt(TYPE_DIMEN_SIZE, RES_ID + 1000)).isEqualTo(1000);
+  }
+
+  @Test
+  public void testConcurrentLookups() throws InterruptedException {
+    final AtomicBoolean hasFailed = new AtomicBoolean();
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int i = 0; i < 10000; i++) {
+                    final int resId = RES_ID + (i % 300);
+                    final long cached = mCache.getInt(TYPE_DIMEN_SIZE, resId);
+                    if (cached == NOT_CACHED) {
+                      mCache.putInt(TYPE_DIMEN_SIZE, resId, resId * 2);
+                    } else if (cached != resId * 2) {
+                      hasFailed.set(true);
+                    }
+                  }
+                }
+              });
+      threads.add(thread);
+      thread.start();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(hasFailed.get()).isFalse();
+    assertThat(mCache.getHitCount(TYPE_DIMEN_SIZE) + mCache.getMissCount(TYPE_DIMEN_SIZE))
+        .isEqualTo(40000);
+  }
+}
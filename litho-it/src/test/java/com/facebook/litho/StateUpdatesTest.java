@@ -214,24 +214,24 @@ public class StateUpdatesTest {
   @Test
   public void testKeepInitialStateValues() {
     TestStateContainer previousStateContainer =
-        (TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKey());
+        (TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKeyObject());
     assertThat(previousStateContainer).isNotNull();
     assertThat(previousStateContainer.mCount).isEqualTo(INITIAL_COUNT_STATE_VALUE);
   }
 
   @Test
   public void testKeepUpdatedStateValue() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     mLayoutThreadShadowLooper.runToEndOfTasks();
     TestStateContainer previousStateContainer =
-        (TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKey());
+        (TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKeyObject());
     assertThat(previousStateContainer).isNotNull();
     assertThat(previousStateContainer.mCount).isEqualTo(INITIAL_COUNT_STATE_VALUE + 1);
   }
 
   @Test
   public void testClearAppliedStateUpdates() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     assertThat(getPendingStateUpdatesForComponent(mTestComponent)).hasSize(1);
     mLayoutThreadShadowLooper.runToEndOfTasks();
     assertThat(getPendingStateUpdatesForComponent(mTestComponent.getComponentForStateUpdate())).isNull();
@@ -239,11 +239,11 @@ public class StateUpdatesTest {
 
   @Test
   public void testEnqueueStateUpdate() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     assertThat(getPendingStateUpdatesForComponent(mTestComponent)).hasSize(1);
     mLayoutThreadShadowLooper.runToEndOfTasks();
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
-    assertThat(((TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKey())).mCount).isEqualTo(INITIAL_COUNT_STATE_VALUE + 1);
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
+    assertThat(((TestStateContainer) getStateContainersMap().get(mTestComponent.getGlobalKeyObject())).mCount).isEqualTo(INITIAL_COUNT_STATE_VALUE + 1);
     assertThat(getPendingStateUpdatesForComponent(mTestComponent.getComponentForStateUpdate())).hasSize(1);
   }
 
@@ -254,14 +254,14 @@ public class StateUpdatesTest {
 
   @Test
   public void testUpdateState() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     mLayoutThreadShadowLooper.runToEndOfTasks();
     assertThat(mTestComponent.getComponentForStateUpdate().getCount()).isEqualTo(INITIAL_COUNT_STATE_VALUE + 1);
   }
 
   @Test
   public void testTransferState() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     mLayoutThreadShadowLooper.runToEndOfTasks();
     mComponentTree.setSizeSpec(mWidthSpec, mHeightSpec);
     assertThat(mTestComponent.getComponentForStateUpdate().getCount()).isEqualTo(INITIAL_COUNT_STATE_VALUE + 1);
@@ -269,27 +269,37 @@ public class StateUpdatesTest {
 
   @Test
   public void testTransferAndUpdateState() {
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     mLayoutThreadShadowLooper.runToEndOfTasks();
 
-    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKeyObject(), new TestStateUpdate());
     mLayoutThreadShadowLooper.runToEndOfTasks();
     assertThat(mTestComponent.getComponentForStateUpdate().getCount()).isEqualTo(INITIAL_COUNT_STATE_VALUE + 2);
   }
 
+  @Test
+  public void testNewStateHandlerSharesStateContainers() {
+    final StateHandler stateHandler = getStateHandler();
+    final StateHandler newStateHandler = StateHandler.acquireNewInstance(stateHandler);
+    final Map<GlobalKey, StateContainer> stateContainers = getStateContainersMap();
+
+    assertThat(stateContainers).isNotEmpty();
+    assertThat(newStateHandler.getStateContainers()).isSameAs(stateContainers);
+  }
+
   private StateHandler getStateHandler() {
     return Whitebox.getInternalState(mComponentTree, "mStateHandler");
   }
 
-  private Map<String, StateContainer> getStateContainersMap() {
+  private Map<GlobalKey, StateContainer> getStateContainersMap() {
     return getStateHandler().getStateContainers();
   }
 
-  private Map<String, List<StateUpdate>> getPendingStateUpdates() {
+  private Map<GlobalKey, List<StateUpdate>> getPendingStateUpdates() {
     return getStateHandler().getPendingStateUpdates();
   }
 
   private List<StateUpdate> getPendingStateUpdatesForComponent(Component component) {
-    return getPendingStateUpdates().get(component.getGlobalKey());
+    return getPendingStateUpdates().get(component.getGlobalKeyObject());
   }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class StripedRecyclePoolTest {
+
+  @Test
+  public void testAcquireReturnsReleasedItems() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 10, 2);
+    final Set<Object> released = new HashSet<>();
+
+    for (int i = 0; i < 7; i++) {
+      final Object item = new Object();
+      released.add(item);
+      pool.release(item);
+    }
+
+    assertThat(pool.getCurrentSize()).isEqualTo(7);
+
+    final Set<Object> acquired = new HashSet<>();
+    for (int i = 0; i < 7; i++) {
+      acquired.add(pool.acquire());
+    }
+
+    assertThat(acquired).isEqualTo(released);
+    assertThat(pool.acquire()).isNull();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testReleaseDropsItemsWhenFull() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 4, 2);
+
+    for (int i = 0; i < 10; i++) {
+      pool.release(new Object());
+    }
+
+    assertThat(pool.isFull()).isTrue();
+    assertThat(pool.getCurrentSize()).isEqualTo(4);
+    assertThat(pool.getMaxSize()).isEqualTo(4);
+
+    final Set<Object> acquired = new HashSet<>();
+    for (int i = 0; i < 10; i++) {
+      acquired.add(pool.acquire());
+    }
+    acquired.remove(null);
+
+    assertThat(acquired).hasSize(4);
+    assertThat(pool.isFull()).isFalse();
+  }
+
+  @Test
+  public void testClear() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 10, 2);
+
+    for (int i = 0; i < 7; i++) {
+      pool.release(new Object());
+    }
+
+    pool.clear();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.acquire()).isNull();
+  }
+
+  @Test
+  public void testSizeOnlyCountsCacheOfCallingThread() throws InterruptedException {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 10, 2);
+    final CountDownLatch released = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+
+    final Thread thread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (int i = 0; i < 5; i++) {
+                  pool.release(new Object());
+                }
+                released.countDown();
+                try {
+                  done.await();
+                } catch (InterruptedException e) {
+                  // Fall through and let the thread die.
+                }
+              }
+            });
+    thread.start();
+    released.await();
+
+    // Items in the shared slots are visible to this thread, the other thread's cache is not.
+    assertThat(pool.getCurrentSize()).isEqualTo(3);
+    assertThat(pool.acquire()).isNotNull();
+    assertThat(pool.acquire()).isNotNull();
+    assertThat(pool.acquire()).isNotNull();
+    assertThat(pool.acquire()).isNull();
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+
+    done.countDown();
+    thread.join();
+  }
+
+  @Test
+  public void testAcceptsReleasesAfterReleasingThreadDied() throws InterruptedException {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 4, 2);
+
+    for (int i = 0; i < 3; i++) {
+      final Thread thread =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  pool.release(new Object());
+                  pool.release(new Object());
+                }
+              });
+      thread.start();
+      thread.join();
+    }
+
+    assertThat(pool.isFull()).isFalse();
+
+    final Set<Object> released = new HashSet<>();
+    for (int i = 0; i < 4; i++) {
+      final Object item = new Object();
+      released.add(item);
+      pool.release(item);
+    }
+
+    assertThat(pool.getCurrentSize()).isEqualTo(4);
+    assertThat(pool.isFull()).isTrue();
+
+    final Set<Object> acquired = new HashSet<>();
+    for (int i = 0; i < 4; i++) {
+      acquired.add(pool.acquire());
+    }
+
+    assertThat(acquired).isEqualTo(released);
+  }
+}
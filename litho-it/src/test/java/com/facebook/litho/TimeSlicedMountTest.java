@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.testing.TestViewComponent.create;
+import static com.facebook.litho.testing.helper.ComponentTestHelper.mountComponent;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.graphics.Rect;
+import com.facebook.litho.dataflow.ChoreographerCompat;
+import com.facebook.litho.dataflow.ChoreographerCompatImpl;
+import com.facebook.litho.testing.TestComponent;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class TimeSlicedMountTest {
+
+  private ComponentContext mContext;
+  private TestChoreographer mChoreographer;
+  private LithoView mLithoView;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    mChoreographer = new TestChoreographer();
+    ChoreographerCompatImpl.setInstance(mChoreographer);
+
+    mLithoView = new LithoView(mContext);
+    // Leaves no time in a frame, so that only one output is mounted per frame.
+    mLithoView.getMountState().setFrameIntervalNs(1);
+  }
+
+  @After
+  public void tearDown() {
+    ChoreographerCompatImpl.setInstance(null);
+  }
+
+  @Test
+  public void testMountsOneOutputPerFrameWhenOutOfTime() {
+    final TestComponent[] children = createChildren(4);
+    mountComponent(
+        mLithoView,
+        ComponentTree.create(mContext, new ColumnComponent(children))
+            .incrementalMount(false)
+            .layoutDiffing(false)
+            .timeSlicedMount(true)
+            .build());
+
+    for (int frame = 0; frame < children.length; frame++) {
+      for (int i = 0; i < children.length; i++) {
+        assertThat(children[i].isMounted()).isEqualTo(i <= frame);
+      }
+      assertThat(mLithoView.getMountState().hasDeferredMounts())
+          .isEqualTo(frame < children.length - 1);
+
+      mChoreographer.runFrame();
+    }
+
+    assertThat(mChoreographer.hasPendingCallbacks()).isFalse();
+  }
+
+  @Test
+  public void testDispatchesVisibilityEventsOnceAllVisibleContentIsMounted() {
+    final TestComponent[] children = createChildren(4);
+    final EventHandler<VisibleEvent> visibleEventHandler = new EventHandler<>(children[0], 2);
+    final ComponentTree componentTree =
+        ComponentTree.create(mContext, new ColumnComponent(children, visibleEventHandler))
+            .incrementalMount(true)
+            .layoutDiffing(false)
+            .timeSlicedMount(true)
+            .build();
+    mountComponent(mLithoView, componentTree);
+
+    assertThat(children[0].isMounted()).isTrue();
+    assertThat(children[1].isMounted()).isFalse();
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isTrue();
+    assertThat(children[0].getDispatchedEventHandlers()).doesNotContain(visibleEventHandler);
+
+    componentTree.mountComponent(new Rect(0, 0, 10, 20), true);
+
+    assertThat(children[1].isMounted()).isTrue();
+    assertThat(children[2].isMounted()).isFalse();
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isFalse();
+    assertThat(mChoreographer.hasPendingCallbacks()).isFalse();
+    assertThat(children[0].getDispatchedEventHandlers()).contains(visibleEventHandler);
+  }
+
+  @Test
+  public void testResumesIncrementalMountOnNextFrame() {
+    final TestComponent[] children = createChildren(4);
+    final ComponentTree componentTree =
+        ComponentTree.create(mContext, new ColumnComponent(children))
+            .incrementalMount(true)
+            .layoutDiffing(false)
+            .timeSlicedMount(true)
+            .build();
+    mountComponent(mLithoView, componentTree);
+    componentTree.mountComponent(new Rect(0, 0, 10, 20), true);
+
+    componentTree.mountComponent(new Rect(0, 0, 10, 40), true);
+
+    assertThat(children[2].isMounted()).isTrue();
+    assertThat(children[3].isMounted()).isFalse();
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isTrue();
+
+    mChoreographer.runFrame();
+
+    assertThat(children[3].isMounted()).isTrue();
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isFalse();
+    assertThat(mChoreographer.hasPendingCallbacks()).isFalse();
+  }
+
+  @Test
+  public void testDetachCancelsDeferredMounts() throws Exception {
+    final TestComponent[] children = createChildren(4);
+    mountComponent(
+        mLithoView,
+        ComponentTree.create(mContext, new ColumnComponent(children))
+            .incrementalMount(false)
+            .layoutDiffing(false)
+            .timeSlicedMount(true)
+            .build());
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isTrue();
+
+    Whitebox.invokeMethod(mLithoView, "onDetach");
+
+    assertThat(mLithoView.getMountState().hasDeferredMounts()).isFalse();
+    assertThat(mLithoView.isMountStateDirty()).isTrue();
+    assertThat(mChoreographer.hasPendingCallbacks()).isFalse();
+    assertThat(children[1].isMounted()).isFalse();
+  }
+
+  @Test
+  public void testMountsEverythingAtOnceByDefault() {
+    final TestComponent[] children = createChildren(4);
+    mountComponent(
+        mLithoView,
+        ComponentTree.create(mContext, new ColumnComponent(children))
+            .incrementalMount(false)
+            .layoutDiffing(false)
+            .build());
+
+    for (TestComponent child : children) {
+      assertThat(child.isMounted()).isTrue();
+    }
+    assertThat(mChoreographer.hasPendingCallbacks()).isFalse();
+  }
+
+  private TestComponent[] createChildren(int count) {
+    final TestComponent[] children = new TestComponent[count];
+    for (int i = 0; i < count; i++) {
+      children[i] = create(mContext).build();
+    }
+    return children;
+  }
+
+  /** A column of 10x10 children, the first of which can have a visible event handler. */
+  private static class ColumnComponent extends InlineLayoutSpec {
+
+    private final TestComponent[] mChildren;
+    private final EventHandler<VisibleEvent> mVisibleEventHandler;
+
+    ColumnComponent(TestComponent[] children) {
+      this(children, null);
+    }
+
+    ColumnComponent(TestComponent[] children, EventHandler<VisibleEvent> visibleEventHandler) {
+      mChildren = children;
+      mVisibleEventHandler = visibleEventHandler;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      final Column.Builder column = Column.create(c);
+      for (int i = 0; i < mChildren.length; i++) {
+        column.child(
+            Wrapper.create(c)
+                .delegate(mChildren[i])
+                .visibleHandler(i == 0 ? mVisibleEventHandler : null)
+                .widthPx(10)
+                .heightPx(10));
+      }
+      return column.build();
+    }
+  }
+
+  private static class TestChoreographer implements ChoreographerCompat {
+
+    private final List<FrameCallback> mCallbacks = new ArrayList<>();
+
+    void runFrame() {
+      final List<FrameCallback> callbacks = new ArrayList<>(mCallbacks);
+      mCallbacks.clear();
+      for (FrameCallback callback : callbacks) {
+        callback.doFrame(System.nanoTime());
+      }
+    }
+
+    boolean hasPendingCallbacks() {
+      return !mCallbacks.isEmpty();
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callbackWrapper) {
+      mCallbacks.add(callbackWrapper);
+    }
+
+    @Override
+    public void postFrameCallbackDelayed(FrameCallback callbackWrapper, long delayMillis) {
+      mCallbacks.add(callbackWrapper);
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callbackWrapper) {
+      mCallbacks.remove(callbackWrapper);
+    }
+  }
+}
@@ -285,6 +285,63 @@ public class TransitionManagerAnimationCreationTest {
             createPropertyAnimation("test2", AnimatedProperties.X, 20));
   }
 
+  @Test
+  public void testCreateAnimationsFromTransitionPlan() {
+    final LayoutOutput currentOutput = createMockLayoutOutput("test", 0, 0);
+    final LayoutOutput disappearingOutput = createMockLayoutOutput("test2", 0, 0);
+    final LayoutState current =
+        createMockLayoutState(Transition.parallel(), currentOutput, disappearingOutput);
+    when(current.getId()).thenReturn(1);
+    final LayoutOutput nextOutput = createMockLayoutOutput("test", 10, 0);
+    final LayoutState next =
+        createMockLayoutState(
+            Transition.parallel(
+                Transition.create("test", "test2")
+                    .animate(AnimatedProperties.X)
+                    .animator(mTestVerificationAnimator)),
+            nextOutput);
+    final TransitionPlan transitionPlan =
+        TransitionPlan.create(
+            1, current.getTransitionKeyMapping(), next.getTransitionKeyMapping());
+    when(next.getTransitionPlan()).thenReturn(transitionPlan);
+
+    assertThat(transitionPlan.size()).isEqualTo(2);
+    assertThat(transitionPlan.getCurrentLayoutOutputAt(0, current)).isSameAs(currentOutput);
+    assertThat(transitionPlan.getNextLayoutOutputAt(0)).isSameAs(nextOutput);
+    assertThat(transitionPlan.getTransitionKeyAt(1)).isEqualTo("test2");
+    assertThat(transitionPlan.getCurrentLayoutOutputAt(1, current)).isSameAs(disappearingOutput);
+    assertThat(transitionPlan.getNextLayoutOutputAt(1)).isNull();
+
+    mTransitionManager.setupTransitions(current, next, null);
+
+    assertThat(mCreatedAnimations)
+        .containsExactlyInAnyOrder(createPropertyAnimation("test", AnimatedProperties.X, 10));
+  }
+
+  @Test
+  public void testIgnoreTransitionPlanOfAnotherLayoutState() {
+    final LayoutState current =
+        createMockLayoutState(Transition.parallel(), createMockLayoutOutput("test", 0, 0));
+    when(current.getId()).thenReturn(2);
+    final LayoutState next =
+        createMockLayoutState(
+            Transition.parallel(
+                Transition.create("test")
+                    .animate(AnimatedProperties.X)
+                    .animator(mTestVerificationAnimator)),
+            createMockLayoutOutput("test", 10, 0));
+    final SimpleArrayMap<String, LayoutOutput> staleTransitionKeys = new SimpleArrayMap<>();
+    staleTransitionKeys.put("test", createMockLayoutOutput("test", 10, 0));
+    when(next.getTransitionPlan())
+        .thenReturn(
+            TransitionPlan.create(1, staleTransitionKeys, next.getTransitionKeyMapping()));
+
+    mTransitionManager.setupTransitions(current, next, null);
+
+    assertThat(mCreatedAnimations)
+        .containsExactlyInAnyOrder(createPropertyAnimation("test", AnimatedProperties.X, 10));
+  }
+
   private PropertyAnimation createPropertyAnimation(
       String key,
       AnimatedProperty property,
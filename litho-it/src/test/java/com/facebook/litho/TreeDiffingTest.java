@@ -316,6 +316,37 @@ public class TreeDiffingTest {
     assertCachedMeasurementsNotDefined(child_4);
   }
 
+  @Test
+  public void testCachedMeasuresKeptForSiblingsOfChildInsertedAtHead() {
+    final LayoutState prevLayoutState =
+        calculateLayoutState(new KeyedChildrenLayout("a", "b"), null);
+    final LayoutState layoutState =
+        calculateLayoutState(
+            new KeyedChildrenLayout("new", "a", "b"), prevLayoutState.getDiffTree());
+
+    // The root host is the first mountable output, followed by the children in order.
+    assertThat(layoutState.getMountableOutputCount()).isEqualTo(4);
+    assertThat(wasMeasureCalled(layoutState, 1)).isTrue();
+    assertThat(wasMeasureCalled(layoutState, 2)).isFalse();
+    assertThat(wasMeasureCalled(layoutState, 3)).isFalse();
+  }
+
+  @Test
+  public void testCachedMeasuresKeptForSwappedChildren() {
+    final LayoutState prevLayoutState =
+        calculateLayoutState(new KeyedChildrenLayout("a", "b", "c"), null);
+    final LayoutState layoutState =
+        calculateLayoutState(
+            new KeyedChildrenLayout("c", "b", "a"), prevLayoutState.getDiffTree());
+
+    assertThat(layoutState.getMountableOutputCount()).isEqualTo(4);
+    for (int i = 1; i < 4; i++) {
+      assertThat(wasMeasureCalled(layoutState, i)).isFalse();
+    }
+    assertThat(layoutState.getMountableOutputAt(1).getComponent().getKey()).isEqualTo("c");
+    assertThat(layoutState.getMountableOutputAt(3).getComponent().getKey()).isEqualTo("a");
+  }
+
   @Test
   public void testLayoutOutputReuse() {
     final Component component1 =
@@ -998,6 +1029,45 @@ public class TreeDiffingTest {
     assertThat(node.areCachedMeasuresValid()).isTrue();
   }
 
+  private LayoutState calculateLayoutState(Component component, DiffNode previousDiffTreeRoot) {
+    return LayoutState.calculate(
+        mContext,
+        component,
+        -1,
+        makeSizeSpec(350, SizeSpec.EXACTLY),
+        makeSizeSpec(0, SizeSpec.UNSPECIFIED),
+        true /* shouldGenerateDiffTree */,
+        previousDiffTreeRoot,
+        false /* canPrefetchDisplayLists */,
+        false /* canCacheDrawingDisplayLists */,
+        true /* clipChildren */,
+        LayoutState.CalculateLayoutSource.TEST);
+  }
+
+  private static boolean wasMeasureCalled(LayoutState layoutState, int index) {
+    return ((TestComponent) layoutState.getMountableOutputAt(index).getComponent())
+        .wasMeasureCalled();
+  }
+
+  /** A column of children of the same type that are told apart only by their manual keys. */
+  private static class KeyedChildrenLayout extends InlineLayoutSpec {
+    private final String[] mKeys;
+
+    KeyedChildrenLayout(String... keys) {
+      super();
+      mKeys = keys;
+    }
+
+    @Override
+    protected Component onCreateLayout(ComponentContext c) {
+      final Column.Builder column = Column.create(c);
+      for (String key : mKeys) {
+        column.child(TestDrawableComponent.create(c).measuredHeight(10).key(key));
+      }
+      return column.build();
+    }
+  }
+
   private static class TestLayoutSpec extends InlineLayoutSpec {
     private final boolean mAddThirdChild;
 
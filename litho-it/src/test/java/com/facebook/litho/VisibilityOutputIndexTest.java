@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.graphics.Rect;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class VisibilityOutputIndexTest {
+
+  @Test
+  public void testCollectIntersectingVertical() {
+    final List<VisibilityOutput> outputs = new ArrayList<>();
+    outputs.add(createOutput(10, 0, 0, 100, 10));
+    outputs.add(createOutput(11, 0, 10, 100, 20));
+    outputs.add(createOutput(12, 0, 20, 100, 30));
+    outputs.add(createOutput(13, 0, 0, 100, 30));
+
+    final VisibilityOutputIndex index = VisibilityOutputIndex.create(outputs, false);
+    final BitSet positions = new BitSet();
+    index.collectIntersecting(new Rect(0, 10, 100, 20), positions);
+
+    assertThat(positions.cardinality()).isEqualTo(2);
+    assertThat(positions.get(1)).isTrue();
+    assertThat(positions.get(3)).isTrue();
+  }
+
+  @Test
+  public void testCollectIntersectingHorizontal() {
+    final List<VisibilityOutput> outputs = new ArrayList<>();
+    outputs.add(createOutput(10, 20, 0, 30, 10));
+    outputs.add(createOutput(11, 0, 0, 10, 10));
+    outputs.add(createOutput(12, 10, 0, 20, 10));
+
+    final VisibilityOutputIndex index = VisibilityOutputIndex.create(outputs, true);
+    final BitSet positions = new BitSet();
+    index.collectIntersecting(new Rect(15, 0, 25, 10), positions);
+
+    assertThat(positions.cardinality()).isEqualTo(2);
+    assertThat(positions.get(0)).isTrue();
+    assertThat(positions.get(2)).isTrue();
+  }
+
+  @Test
+  public void testCollectIntersectingMatchesLinearScan() {
+    final Random random = new Random(42);
+    final List<VisibilityOutput> outputs = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      final int top = random.nextInt(5000);
+      outputs.add(createOutput(i, 0, top, 100, top + random.nextInt(300)));
+    }
+
+    final VisibilityOutputIndex index = VisibilityOutputIndex.create(outputs, false);
+    for (int i = 0; i < 100; i++) {
+      final int top = random.nextInt(5000);
+      final Rect visibleRect = new Rect(0, top, 100, top + 1 + random.nextInt(800));
+
+      final BitSet positions = new BitSet();
+      index.collectIntersecting(visibleRect, positions);
+
+      final BitSet expected = new BitSet();
+      for (int j = 0; j < outputs.size(); j++) {
+        if (new Rect(outputs.get(j).getBounds()).intersect(visibleRect)) {
+          expected.set(j);
+        }
+      }
+
+      assertThat(positions).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testGetPositionForId() {
+    final List<VisibilityOutput> outputs = new ArrayList<>();
+    outputs.add(createOutput(30, 0, 0, 10, 10));
+    outputs.add(createOutput(10, 0, 10, 10, 20));
+    outputs.add(createOutput(20, 0, 20, 10, 30));
+
+    final VisibilityOutputIndex index = VisibilityOutputIndex.create(outputs, false);
+
+    assertThat(index.getPositionForId(30)).isEqualTo(0);
+    assertThat(index.getPositionForId(10)).isEqualTo(1);
+    assertThat(index.getPositionForId(20)).isEqualTo(2);
+    assertThat(index.getPositionForId(40)).isEqualTo(-1);
+  }
+
+  private static VisibilityOutput createOutput(long id, int l, int t, int r, int b) {
+    final VisibilityOutput output = new VisibilityOutput();
+    output.setId(id);
+    output.setBounds(l, t, r, b);
+    return output;
+  }
+}
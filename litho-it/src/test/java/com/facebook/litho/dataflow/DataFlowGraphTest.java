@@ -155,6 +155,72 @@ public class DataFlowGraphTest {
     assertThat(dest.getValue()).isEqualTo(3588f);
   }
 
+  @Test
+  public void testUnregisterIndependentBinding() {
+    NumFramesNode source1 = new NumFramesNode();
+    OutputOnlyNode dest1 = new OutputOnlyNode();
+    NumFramesNode source2 = new NumFramesNode();
+    OutputOnlyNode dest2 = new OutputOnlyNode();
+
+    GraphBinding binding1 = create(mDataFlowGraph);
+    binding1.addBinding(source1, dest1);
+    binding1.activate();
+
+    mTestTimingSource.step(1);
+
+    GraphBinding binding2 = create(mDataFlowGraph);
+    binding2.addBinding(source2, dest2);
+    binding2.activate();
+
+    mTestTimingSource.step(1);
+
+    assertThat(dest1.getValue()).isEqualTo(2f);
+    assertThat(dest2.getValue()).isEqualTo(1f);
+
+    binding1.deactivate();
+    mTestTimingSource.step(1);
+
+    assertThat(dest1.getValue()).isEqualTo(2f);
+    assertThat(dest2.getValue()).isEqualTo(2f);
+
+    binding2.deactivate();
+
+    assertThat(mDataFlowGraph.hasReferencesToNodes()).isFalse();
+  }
+
+  @Test
+  public void testBindingConnectingOtherBindings() {
+    SettableNode source = new SettableNode();
+    SimpleNode middle = new SimpleNode();
+    SimpleNode otherMiddle = new SimpleNode();
+    OutputOnlyNode destination = new OutputOnlyNode();
+
+    // Registered in the reverse order of the data flow, so sorting each binding alone would
+    // compute the destination before its inputs.
+    GraphBinding lastBinding = create(mDataFlowGraph);
+    lastBinding.addBinding(otherMiddle, destination);
+    lastBinding.activate();
+    GraphBinding firstBinding = create(mDataFlowGraph);
+    firstBinding.addBinding(source, middle);
+    firstBinding.activate();
+    GraphBinding connectingBinding = create(mDataFlowGraph);
+    connectingBinding.addBinding(middle, otherMiddle);
+    connectingBinding.activate();
+
+    source.setValue(7);
+    mTestTimingSource.step(1);
+
+    assertThat(destination.getValue()).isEqualTo(7f);
+
+    connectingBinding.deactivate();
+    lastBinding.deactivate();
+    source.setValue(9);
+    mTestTimingSource.step(1);
+
+    assertThat(middle.getValue()).isEqualTo(9f);
+    assertThat(destination.getValue()).isEqualTo(7f);
+  }
+
   @Test(expected = DetectedCycleException.class)
   public void testSimpleCycle() {
     SimpleNode node1 = new SimpleNode();
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.sections;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.widget.ComponentRenderInfo;
+import com.facebook.litho.widget.RenderInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests {@link ChangeSetCompactor} */
+@RunWith(ComponentsTestRunner.class)
+public class ChangeSetCompactorTest {
+
+  @Test
+  public void testCancelsInsertionsThatAreRemoved() {
+    final ChangeSet first = ChangeSet.acquireChangeSet(null);
+    first.addChange(Change.insertRange(2, 3, createRenderInfos(3)));
+    final ChangeSet second = ChangeSet.acquireChangeSet(null);
+    second.addChange(Change.remove(3));
+    second.addChange(Change.removeRange(2, 2));
+
+    final ChangeSet compacted = ChangeSetCompactor.compact(Arrays.asList(first, second));
+
+    assertThat(compacted.getChangeCount()).isEqualTo(0);
+    assertThat(compacted.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMergesUpdatesIntoInsertionsAndRanges() {
+    final List<RenderInfo> renderInfos = createRenderInfos(4);
+    final ChangeSet first = ChangeSet.acquireChangeSet(null);
+    first.addChange(Change.insert(1, renderInfos.get(0)));
+    first.addChange(Change.update(3, renderInfos.get(1)));
+    final ChangeSet second = ChangeSet.acquireChangeSet(null);
+    second.addChange(Change.insert(2, renderInfos.get(2)));
+    second.addChange(Change.update(1, renderInfos.get(3)));
+    second.addChange(Change.update(5, renderInfos.get(1)));
+
+    final ChangeSet compacted = ChangeSetCompactor.compact(Arrays.asList(first, second));
+
+    assertThat(compacted.getChangeCount()).isEqualTo(2);
+    final Change insertion = compacted.getChangeAt(0);
+    assertThat(insertion.getType()).isEqualTo(Change.INSERT_RANGE);
+    assertThat(insertion.getIndex()).isEqualTo(1);
+    assertThat(insertion.getRenderInfos()).containsExactly(renderInfos.get(3), renderInfos.get(2));
+    final Change update = compacted.getChangeAt(1);
+    assertThat(update.getType()).isEqualTo(Change.UPDATE_RANGE);
+    assertThat(update.getIndex()).isEqualTo(4);
+    assertThat(update.getRenderInfos()).containsExactly(renderInfos.get(1), renderInfos.get(1));
+  }
+
+  @Test
+  public void testDoesNotCompactMovesThatReorderItems() {
+    final ChangeSet changeSet = ChangeSet.acquireChangeSet(null);
+    changeSet.addChange(Change.move(0, 2));
+
+    assertThat(ChangeSetCompactor.compact(Arrays.asList(changeSet))).isNull();
+  }
+
+  @Test
+  public void testCompactedChangeSetProducesSameItems() {
+    final Random random = new Random(42);
+    for (int run = 0; run < 500; run++) {
+      final List<RenderInfo> initialItems = createRenderInfos(random.nextInt(12));
+      final List<RenderInfo> expectedItems = new ArrayList<>(initialItems);
+      final List<ChangeSet> changeSets = new ArrayList<>();
+      int changeCount = 0;
+      for (int i = 0, size = 1 + random.nextInt(4); i < size; i++) {
+        final ChangeSet changeSet =
+            createRandomChangeSet(random, expectedItems, random.nextInt(5) == 0);
+        changeSets.add(changeSet);
+        changeCount += changeSet.getChangeCount();
+      }
+
+      final ChangeSet compacted = ChangeSetCompactor.compact(changeSets);
+      if (compacted == null) {
+        continue;
+      }
+
+      final List<RenderInfo> items = new ArrayList<>(initialItems);
+      apply(compacted, items);
+      assertThat(items).containsExactlyElementsOf(expectedItems);
+      assertThat(compacted.getChangeCount()).isLessThanOrEqualTo(changeCount);
+    }
+  }
+
+  /** Creates a ChangeSet of random valid changes and applies them to the given items. */
+  private static ChangeSet createRandomChangeSet(
+      Random random, List<RenderInfo> items, boolean withMoves) {
+    final ChangeSet changeSet = ChangeSet.acquireChangeSet(null);
+    for (int i = 0, size = 1 + random.nextInt(6); i < size; i++) {
+      final int type = random.nextInt(withMoves ? 7 : 6);
+      final Change change;
+      if (items.isEmpty() || type == 0) {
+        change = Change.insert(random.nextInt(items.size() + 1), createRenderInfos(1).get(0));
+      } else if (type == 1) {
+        final int count = 1 + random.nextInt(3);
+        change =
+            Change.insertRange(random.nextInt(items.size() + 1), count, createRenderInfos(count));
+      } else if (type == 2) {
+        change = Change.update(random.nextInt(items.size()), createRenderInfos(1).get(0));
+      } else if (type == 3) {
+        final int index = random.nextInt(items.size());
+        final int count = 1 + random.nextInt(items.size() - index);
+        change = Change.updateRange(index, count, createRenderInfos(count));
+      } else if (type == 4) {
+        change = Change.remove(random.nextInt(items.size()));
+      } else if (type == 5) {
+        final int index = random.nextInt(items.size());
+        change = Change.removeRange(index, 1 + random.nextInt(items.size() - index));
+      } else {
+        change = Change.move(random.nextInt(items.size()), random.nextInt(items.size()));
+      }
+
+      changeSet.addChange(change);
+      apply(change, items);
+    }
+    return changeSet;
+  }
+
+  private static void apply(ChangeSet changeSet, List<RenderInfo> items) {
+    for (int i = 0; i < changeSet.getChangeCount(); i++) {
+      apply(changeSet.getChangeAt(i), items);
+    }
+  }
+
+  private static void apply(Change change, List<RenderInfo> items) {
+    final int index = change.getIndex();
+    switch (change.getType()) {
+      case Change.INSERT:
+        items.add(index, change.getRenderInfo());
+        break;
+      case Change.INSERT_RANGE:
+        items.addAll(index, change.getRenderInfos());
+        break;
+      case Change.UPDATE:
+        items.set(index, change.getRenderInfo());
+        break;
+      case Change.UPDATE_RANGE:
+        for (int i = 0; i < change.getCount(); i++) {
+          items.set(index + i, change.getRenderInfos().get(i));
+        }
+        break;
+      case Change.DELETE:
+        items.remove(index);
+        break;
+      case Change.DELETE_RANGE:
+        items.subList(index, index + change.getCount()).clear();
+        break;
+      case Change.MOVE:
+        items.add(change.getToIndex(), items.remove(index));
+        break;
+    }
+  }
+
+  private static List<RenderInfo> createRenderInfos(int count) {
+    final List<RenderInfo> renderInfos = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      renderInfos.add(ComponentRenderInfo.createEmpty());
+    }
+    return renderInfos;
+  }
+}
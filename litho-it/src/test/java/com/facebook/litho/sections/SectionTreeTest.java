@@ -9,18 +9,30 @@
 
 package com.facebook.litho.sections;
 
+import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_CREATE_NEW_TREE;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_SECTIONS_REBUILT_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_SECTIONS_REUSED_COUNT;
 import static com.facebook.litho.testing.sections.TestSectionCreator.TestSection;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
 import android.os.Looper;
+import com.facebook.litho.BaseComponentsLogger;
 import com.facebook.litho.Component;
+import com.facebook.litho.LogEvent;
 import com.facebook.litho.sections.SectionLifecycle.StateContainer;
+import com.facebook.litho.sections.config.SectionsConfiguration;
 import com.facebook.litho.testing.sections.TestSectionCreator;
 import com.facebook.litho.testing.sections.TestTarget;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import com.facebook.litho.widget.ComponentRenderInfo;
 import com.facebook.litho.widget.RenderInfo;
+import com.facebook.litho.widget.ViewportInfo;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -321,6 +333,45 @@ public class SectionTreeTest {
     assertThat(((TestSection) leaf4).lastFullyVisibleIndex).isEqualTo(3);
   }
 
+  @Test
+  public void testViewPortChangedAfterScrollingAcrossSections() {
+    final Section[] leaves = new Section[5];
+    for (int i = 0; i < leaves.length; i++) {
+      leaves[i] =
+          TestSectionCreator.createChangeSetComponent(
+              "leaf" + i,
+              Change.insert(0, makeComponentInfo()),
+              Change.insert(1, makeComponentInfo()));
+    }
+
+    final Section root = TestSectionCreator.createSectionComponent("root", leaves);
+    final SectionTree tree = SectionTree.create(mSectionContext, new TestTarget()).build();
+    tree.setRoot(root);
+
+    tree.viewPortChangedFromScrolling(0, 1, 0, 1);
+    assertThat(((TestSection) leaves[0]).firstVisibleIndex).isEqualTo(0);
+    assertThat(((TestSection) leaves[0]).lastVisibleIndex).isEqualTo(1);
+    assertThat(((TestSection) leaves[2]).firstVisibleIndex).isEqualTo(-1);
+    assertThat(((TestSection) leaves[4]).firstVisibleIndex).isEqualTo(-1);
+
+    ((TestSection) leaves[2]).firstVisibleIndex = 42;
+
+    tree.viewPortChangedFromScrolling(7, 9, 8, 9);
+    assertThat(((TestSection) leaves[0]).firstVisibleIndex).isEqualTo(-1);
+    assertThat(((TestSection) leaves[0]).lastVisibleIndex).isEqualTo(-1);
+    assertThat(((TestSection) leaves[2]).firstVisibleIndex).isEqualTo(42);
+    assertThat(((TestSection) leaves[3]).firstVisibleIndex).isEqualTo(1);
+    assertThat(((TestSection) leaves[3]).lastVisibleIndex).isEqualTo(1);
+    assertThat(((TestSection) leaves[3]).firstFullyVisibleIndex).isEqualTo(-1);
+    assertThat(((TestSection) leaves[4]).firstVisibleIndex).isEqualTo(0);
+    assertThat(((TestSection) leaves[4]).lastVisibleIndex).isEqualTo(1);
+    assertThat(((TestSection) leaves[4]).firstFullyVisibleIndex).isEqualTo(0);
+    assertThat(((TestSection) leaves[4]).lastFullyVisibleIndex).isEqualTo(1);
+
+    tree.viewPortChanged(7, 9, 8, 9, ViewportInfo.State.DATA_CHANGES);
+    assertThat(((TestSection) leaves[2]).firstVisibleIndex).isEqualTo(-1);
+  }
+
   @Test
   public void testStateUpdate() {
     final Section section = TestSectionCreator.createChangeSetComponent(
@@ -707,6 +758,71 @@ public class SectionTreeTest {
     assertThat(9).isEqualTo(changeSetHandler.getFocusedTo());
   }
 
+  @Test
+  public void testStateUpdateCarriesOverUnchangedSubtrees() {
+    SectionsConfiguration.reuseUnchangedSections = true;
+    try {
+      final List<Map<String, Object>> createTreeEvents = new ArrayList<>();
+      final SectionContext context =
+          new SectionContext(
+              RuntimeEnvironment.application,
+              "logTag",
+              new BaseComponentsLogger() {
+                @Override
+                public void onPerformanceEventStarted(LogEvent event) {}
+
+                @Override
+                public void onPerformanceEventEnded(LogEvent event) {
+                  if (event.getEventId() == EVENT_SECTIONS_CREATE_NEW_TREE) {
+                    // Events are released once logged, so their params are copied.
+                    final Map<String, Object> params = new HashMap<>();
+                    for (int i = 0; i < event.getParamCount(); i++) {
+                      params.put(event.getParamKeyAt(i), event.getParamValueAt(i));
+                    }
+                    createTreeEvents.add(params);
+                  }
+                }
+
+                @Override
+                public void onEvent(LogEvent event) {}
+
+                @Override
+                public boolean isTracing(LogEvent logEvent) {
+                  return true;
+                }
+              });
+      final AtomicInteger unchangedNodeChildren = new AtomicInteger();
+      final AtomicInteger updatedNodeChildren = new AtomicInteger();
+      final SectionTree tree = setCountingRoot(context, unchangedNodeChildren, updatedNodeChildren);
+
+      final StateUpdate stateUpdate = new StateUpdate();
+      tree.updateState("rootnode2leaf2", stateUpdate);
+
+      assertThat(stateUpdate.mUpdateStateCalled).isTrue();
+      assertThat(unchangedNodeChildren.get()).isEqualTo(1);
+      assertThat(updatedNodeChildren.get()).isEqualTo(2);
+      assertThat(createTreeEvents).hasSize(2);
+      // The unchanged node and its leaf are carried over, the root and the updated path are not.
+      assertThat(createTreeEvents.get(1).get(PARAM_SECTIONS_REUSED_COUNT)).isEqualTo(2);
+      assertThat(createTreeEvents.get(1).get(PARAM_SECTIONS_REBUILT_COUNT)).isEqualTo(3);
+    } finally {
+      SectionsConfiguration.reuseUnchangedSections = false;
+    }
+  }
+
+  @Test
+  public void testStateUpdateRecreatesAllSectionsByDefault() {
+    final AtomicInteger unchangedNodeChildren = new AtomicInteger();
+    final AtomicInteger updatedNodeChildren = new AtomicInteger();
+    final SectionTree tree =
+        setCountingRoot(mSectionContext, unchangedNodeChildren, updatedNodeChildren);
+
+    tree.updateState("rootnode2leaf2", new StateUpdate());
+
+    assertThat(unchangedNodeChildren.get()).isEqualTo(2);
+    assertThat(updatedNodeChildren.get()).isEqualTo(2);
+  }
+
   @Test(expected = RuntimeException.class)
   public void testCannotForceBothSyncAndAsyncStateUpdates() {
     SectionTree.create(mSectionContext, new TestTarget())
@@ -715,6 +831,42 @@ public class SectionTreeTest {
         .build();
   }
 
+  /** Sets a root with two nodes of one leaf each, that count their onCreateChildren calls. */
+  private static SectionTree setCountingRoot(
+      SectionContext context, AtomicInteger node1Children, AtomicInteger node2Children) {
+    final Section leaf1 =
+        TestSectionCreator.createChangeSetComponent("leaf1", Change.insert(0, makeComponentInfo()));
+    final Section leaf2 =
+        TestSectionCreator.createChangeSetComponent("leaf2", Change.insert(0, makeComponentInfo()));
+    final Section root =
+        TestSectionCreator.createSectionComponent(
+            "root",
+            new CountingGroupSection("node1", node1Children, leaf1),
+            new CountingGroupSection("node2", node2Children, leaf2));
+
+    final SectionTree tree = SectionTree.create(context, new TestTarget()).build();
+    tree.setRoot(root);
+    return tree;
+  }
+
+  private static class CountingGroupSection extends TestSection {
+
+    private final AtomicInteger mCreateChildrenCount;
+    private final Section mChild;
+
+    CountingGroupSection(String key, AtomicInteger createChildrenCount, Section child) {
+      super(0, key, false);
+      mCreateChildrenCount = createChildrenCount;
+      mChild = child;
+    }
+
+    @Override
+    protected Children createChildren(SectionContext c) {
+      mCreateChildrenCount.incrementAndGet();
+      return Children.create().child(mChild).build();
+    }
+  }
+
   private static class StateUpdate implements SectionLifecycle.StateUpdate {
 
     private boolean mUpdateStateCalled;
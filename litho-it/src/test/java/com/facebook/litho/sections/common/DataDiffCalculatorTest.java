@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.sections.common;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Tests {@link DataDiffCalculator} */
+@RunWith(ComponentsTestRunner.class)
+public class DataDiffCalculatorTest {
+
+  @Test
+  public void testAppendIsNotDiffed() {
+    final List<Item> previous = createItems(0, 1000);
+    final List<Item> next = createItems(0, 2000);
+    final RecordingListUpdateCallback updates = new RecordingListUpdateCallback(previous);
+
+    final int diffedCount =
+        DataDiffCalculator.calculateDiff(new ItemCallback(previous, next), true, updates);
+
+    assertThat(diffedCount).isEqualTo(0);
+    assertThat(updates.mOperations).containsExactly("insert 1000 1000");
+    updates.assertTurnedInto(next);
+  }
+
+  @Test
+  public void testPrependWithUpdatesIsNotDiffed() {
+    final List<Item> previous = createItems(0, 100);
+    final List<Item> next = createItems(-10, 100);
+    next.set(50, new Item(next.get(50).mId, 1));
+    next.set(51, new Item(next.get(51).mId, 1));
+    next.set(109, new Item(next.get(109).mId, 1));
+    final RecordingListUpdateCallback updates = new RecordingListUpdateCallback(previous);
+
+    final int diffedCount =
+        DataDiffCalculator.calculateDiff(new ItemCallback(previous, next), true, updates);
+
+    assertThat(diffedCount).isEqualTo(0);
+    assertThat(updates.mOperations)
+        .containsExactly("change 99 1", "change 40 2", "insert 0 10");
+    updates.assertTurnedInto(next);
+  }
+
+  @Test
+  public void testOnlyDiffsItemsBetweenUnchangedHeadAndTail() {
+    final List<Item> previous = createItems(0, 100);
+    final List<Item> next = createItems(0, 100);
+    Collections.swap(next, 40, 60);
+    next.remove(50);
+    final RecordingListUpdateCallback updates = new RecordingListUpdateCallback(previous);
+
+    final int diffedCount =
+        DataDiffCalculator.calculateDiff(new ItemCallback(previous, next), true, updates);
+
+    assertThat(diffedCount).isEqualTo(21 + 20);
+    updates.assertTurnedInto(next);
+  }
+
+  @Test
+  public void testUpdatesTurnPreviousIntoNextData() {
+    final Random random = new Random(42);
+    for (int run = 0; run < 200; run++) {
+      final List<Item> previous = createRandomItems(random);
+      final List<Item> next = createRandomItems(random);
+      final RecordingListUpdateCallback updates = new RecordingListUpdateCallback(previous);
+
+      DataDiffCalculator.calculateDiff(
+          new ItemCallback(previous, next), random.nextBoolean(), updates);
+
+      updates.assertTurnedInto(next);
+    }
+  }
+
+  private static List<Item> createItems(int fromId, int toId) {
+    final List<Item> items = new ArrayList<>();
+    for (int id = fromId; id < toId; id++) {
+      items.add(new Item(id, 0));
+    }
+    return items;
+  }
+
+  /** A random subset of 20 items, in a random order, with random contents. */
+  private static List<Item> createRandomItems(Random random) {
+    final List<Item> items = new ArrayList<>();
+    for (int id = 0; id < 20; id++) {
+      if (random.nextInt(4) != 0) {
+        items.add(new Item(id, random.nextInt(2)));
+      }
+    }
+    if (items.size() > 1 && random.nextBoolean()) {
+      Collections.swap(items, random.nextInt(items.size()), random.nextInt(items.size()));
+    }
+    return items;
+  }
+
+  private static class Item {
+    private final int mId;
+    private final int mContent;
+
+    Item(int id, int content) {
+      mId = id;
+      mContent = content;
+    }
+  }
+
+  private static class ItemCallback extends DiffUtil.Callback {
+    private final List<Item> mPrevious;
+    private final List<Item> mNext;
+
+    ItemCallback(List<Item> previous, List<Item> next) {
+      mPrevious = previous;
+      mNext = next;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return mPrevious.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+      return mNext.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      return mPrevious.get(oldItemPosition).mId == mNext.get(newItemPosition).mId;
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      return mPrevious.get(oldItemPosition).mContent == mNext.get(newItemPosition).mContent;
+    }
+  }
+
+  /** Applies the updates it receives to a copy of the previous data. */
+  private static class RecordingListUpdateCallback implements ListUpdateCallback {
+    private final List<String> mOperations = new ArrayList<>();
+    private final List<Item> mItems;
+    private final List<Boolean> mChanged = new ArrayList<>();
+
+    RecordingListUpdateCallback(List<Item> previous) {
+      mItems = new ArrayList<>(previous);
+      for (int i = 0; i < previous.size(); i++) {
+        mChanged.add(false);
+      }
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+      mOperations.add("insert " + position + " " + count);
+      for (int i = 0; i < count; i++) {
+        mItems.add(position, null);
+        mChanged.add(position, true);
+      }
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+      mOperations.add("remove " + position + " " + count);
+      for (int i = 0; i < count; i++) {
+        mItems.remove(position);
+        mChanged.remove(position);
+      }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+      mOperations.add("move " + fromPosition + " " + toPosition);
+      mItems.add(toPosition, mItems.remove(fromPosition));
+      mChanged.add(toPosition, mChanged.remove(fromPosition));
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+      mOperations.add("change " + position + " " + count);
+      for (int i = 0; i < count; i++) {
+        mChanged.set(position + i, true);
+      }
+    }
+
+    /**
+     * Checks that every item left from the previous data is the same item as the one at its
+     * position in the next data, and that it was updated if its content changed.
+     */
+    void assertTurnedInto(List<Item> next) {
+      assertThat(mItems).hasSize(next.size());
+      for (int i = 0; i < next.size(); i++) {
+        final Item item = mItems.get(i);
+        if (item == null) {
+          continue;
+        }
+
+        assertThat(item.mId).isEqualTo(next.get(i).mId);
+        if (item.mContent != next.get(i).mContent) {
+          assertThat(mChanged.get(i)).isTrue();
+        }
+      }
+    }
+  }
+}
@@ -9,14 +9,26 @@
 
 package com.facebook.litho.sections.common;
 
+import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_DATA_DIFF_CALCULATE_DIFF;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_DIFFED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_INSERTED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_LOG_TAG;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_MOVED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_REMOVED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_UPDATED_COUNT;
 import static com.facebook.litho.testing.sections.TestTarget.DELETE;
 import static com.facebook.litho.testing.sections.TestTarget.INSERT;
 import static com.facebook.litho.testing.sections.TestTarget.MOVE;
 import static junit.framework.Assert.assertEquals;
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
+import android.support.v7.util.ListUpdateCallback;
+import com.facebook.litho.BaseComponentsLogger;
 import com.facebook.litho.EventHandler;
 import com.facebook.litho.HasEventDispatcher;
+import com.facebook.litho.LogEvent;
 import com.facebook.litho.sections.Section;
 import com.facebook.litho.sections.SectionContext;
 import com.facebook.litho.sections.SectionTree;
@@ -27,7 +39,9 @@ import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -391,17 +405,7 @@ public class DataDiffSectionSpecTest {
 
     mSectionContext = SectionContext.withScope(mSectionContext, builder.build());
 
-    final DataDiffSectionSpec.Callback<String> callback =
-        DataDiffSectionSpec.Callback.acquire(
-            mSectionContext,
-            previousData,
-            nextData,
-            true /*trimHeadAndTail*/,
-            true /*trimSameInstancesOnly*/);
-
-    assertThat(callback.getTrimmedHeadItemsCount()).isEqualTo(10);
-    assertThat(callback.getOldListSize()).isEqualTo(10);
-    assertThat(callback.getNewListSize()).isEqualTo(10);
+    assertNoDiffNorUpdates(previousData, nextData);
   }
 
   @Test
@@ -425,17 +429,7 @@ public class DataDiffSectionSpecTest {
 
     mSectionContext = SectionContext.withScope(mSectionContext, builder.build());
 
-    final DataDiffSectionSpec.Callback<String> callback =
-        DataDiffSectionSpec.Callback.acquire(
-            mSectionContext,
-            previousData,
-            nextData,
-            true /*trimHeadAndTail*/,
-            true /*trimSameInstancesOnly*/);
-
-    assertThat(callback.getTrimmedHeadItemsCount()).isEqualTo(0);
-    assertThat(callback.getOldListSize()).isEqualTo(10);
-    assertThat(callback.getNewListSize()).isEqualTo(10);
+    assertNoDiffNorUpdates(previousData, nextData);
   }
 
   @Test
@@ -465,17 +459,7 @@ public class DataDiffSectionSpecTest {
 
     mSectionContext = SectionContext.withScope(mSectionContext, builder.build());
 
-    final DataDiffSectionSpec.Callback<String> callback =
-        DataDiffSectionSpec.Callback.acquire(
-            mSectionContext,
-            previousData,
-            nextData,
-            true /*trimHeadAndTail*/,
-            true /*trimSameInstancesOnly*/);
-
-    assertThat(callback.getTrimmedHeadItemsCount()).isEqualTo(10);
-    assertThat(callback.getOldListSize()).isEqualTo(10);
-    assertThat(callback.getNewListSize()).isEqualTo(10);
+    assertNoDiffNorUpdates(previousData, nextData);
   }
 
   @Test
@@ -528,16 +512,15 @@ public class DataDiffSectionSpecTest {
     builder.setScopedContext(mSectionContext);
 
     final DataDiffSectionSpec.Callback<String> callback =
-        DataDiffSectionSpec.Callback.acquire(
-            mSectionContext,
-            previousData,
-            nextData,
-            true /*trimHeadAndTail*/,
-            false /*trimSameInstancesOnly*/);
-
-    assertThat(callback.getTrimmedHeadItemsCount()).isEqualTo(10);
-    assertThat(callback.getOldListSize()).isEqualTo(10);
-    assertThat(callback.getNewListSize()).isEqualTo(10);
+        DataDiffSectionSpec.Callback.acquire(mSectionContext, previousData, nextData);
+    final DataDiffCalculator.CountingListUpdateCallback updates =
+        new DataDiffCalculator.CountingListUpdateCallback(mock(ListUpdateCallback.class));
+
+    // Only the 10 items of the head are the same item, the other ones are diffed.
+    assertThat(DataDiffCalculator.calculateDiff(callback, false, updates)).isEqualTo(20);
+    assertThat(updates.mRemovedCount).isEqualTo(10);
+    assertThat(updates.mInsertedCount).isEqualTo(10);
+    assertThat(updates.mUpdatedCount).isEqualTo(0);
   }
 
   @Test
@@ -572,6 +555,76 @@ public class DataDiffSectionSpecTest {
     assertRangeOperation(executedOperations.get(0), TestTarget.INSERT_RANGE, 100, 100);
   }
 
+  @Test
+  public void testLogsDiffOperationCounts() {
+    final List<Map<String, Object>> diffEvents = new ArrayList<>();
+    final SectionContext context =
+        new SectionContext(
+            RuntimeEnvironment.application,
+            "logTag",
+            new BaseComponentsLogger() {
+              @Override
+              public void onPerformanceEventStarted(LogEvent event) {}
+
+              @Override
+              public void onPerformanceEventEnded(LogEvent event) {
+                if (event.getEventId() == EVENT_SECTIONS_DATA_DIFF_CALCULATE_DIFF) {
+                  // Events are released once logged, so their params are copied.
+                  final Map<String, Object> params = new HashMap<>();
+                  for (int i = 0; i < event.getParamCount(); i++) {
+                    params.put(event.getParamKeyAt(i), event.getParamValueAt(i));
+                  }
+                  diffEvents.add(params);
+                }
+              }
+
+              @Override
+              public void onEvent(LogEvent event) {}
+
+              @Override
+              public boolean isTracing(LogEvent logEvent) {
+                return true;
+              }
+            });
+    final SectionTree sectionTree = SectionTree.create(context, mTestTarget).build();
+
+    ArrayList<String> data = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      data.add("" + i);
+    }
+    sectionTree.setRoot(TestGroupSection.create(context).data(data).build());
+
+    data = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      data.add("" + i);
+    }
+    data.remove(50);
+    sectionTree.setRoot(TestGroupSection.create(context).data(data).build());
+
+    assertThat(diffEvents).hasSize(2);
+    final Map<String, Object> params = diffEvents.get(1);
+    assertThat(params.get(PARAM_LOG_TAG)).isEqualTo("logTag");
+    assertThat(params.get(PARAM_INSERTED_COUNT)).isEqualTo(100);
+    assertThat(params.get(PARAM_REMOVED_COUNT)).isEqualTo(1);
+    assertThat(params.get(PARAM_UPDATED_COUNT)).isEqualTo(0);
+    assertThat(params.get(PARAM_MOVED_COUNT)).isEqualTo(0);
+    // The 50 items of the unchanged head are not diffed.
+    assertThat(params.get(PARAM_DIFFED_COUNT)).isEqualTo(199);
+  }
+
+  /**
+   * Asserts that the head and tail of the data, whether they are the same instances or equal
+   * items, are matched without diffing nor updating any item.
+   */
+  private void assertNoDiffNorUpdates(List<String> previousData, List<String> nextData) {
+    final DataDiffSectionSpec.Callback<String> callback =
+        DataDiffSectionSpec.Callback.acquire(mSectionContext, previousData, nextData);
+    final ListUpdateCallback updates = mock(ListUpdateCallback.class);
+
+    assertThat(DataDiffCalculator.calculateDiff(callback, false, updates)).isEqualTo(0);
+    verifyZeroInteractions(updates);
+  }
+
   private void assertRangeOperation(
       Operation operation,
       int opType,
@@ -204,6 +204,9 @@ public class ComponentBodyGeneratorTest {
                 + "  if (this.getId() == testRef.getId()) {\n"
                 + "    return true;\n"
                 + "  }\n"
+                + "  if (getPropsHashCode() != testRef.getPropsHashCode()) {\n"
+                + "    return false;\n"
+                + "  }\n"
                 + "  if (arg0 != testRef.arg0) {\n"
                 + "    return false;\n"
                 + "  }\n"
@@ -261,6 +264,24 @@ public class ComponentBodyGeneratorTest {
                 + "}\n");
   }
 
+  @Test
+  public void testGenerateComputePropsHashCodeMethod() {
+    TypeSpecDataHolder dataHolder =
+        ComponentBodyGenerator.generateComputePropsHashCodeMethod(mSpecModelDI);
+    assertThat(dataHolder.getMethodSpecs()).hasSize(1);
+    assertThat(dataHolder.getMethodSpecs().get(0).toString())
+        .isEqualTo(
+            "@java.lang.Override\n"
+                + "protected int computePropsHashCode() {\n"
+                + "  int result = 0;\n"
+                + "  result = 31 * result + (arg0 ? 1 : 0);\n"
+                + "  result = 31 * result + (arg4 != null ? arg4.getPropsHashCode() : 0);\n"
+                + "  result = 31 * result + collectionPropsHashCode(arg5);\n"
+                + "  result = 31 * result + (arg6 != null ? arg6.hashCode() : 0);\n"
+                + "  return result;\n"
+                + "}\n");
+  }
+
   @Test
   public void testOnUpdateStateMethods() {
     TypeSpecDataHolder dataHolder =
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.specmodels.processor;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.facebook.litho.specmodels.internal.RunMode;
+import com.facebook.litho.specmodels.model.DependencyInjectionHelper;
+import com.facebook.litho.specmodels.model.SpecModel;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests {@link SpecModelCache} */
+public class SpecModelCacheTest {
+
+  private final Elements mElements = mock(Elements.class);
+  private final TypeElement mTypeElement = mock(TypeElement.class);
+  private final Messager mMessager = mock(Messager.class);
+  private final SpecModelFactory mFactory = mock(SpecModelFactory.class);
+
+  @Before
+  public void setUp() {
+    when(mTypeElement.getQualifiedName()).thenReturn(new MockName("com.facebook.litho.TestSpec"));
+    when(mFactory.create(
+            any(Elements.class),
+            any(TypeElement.class),
+            any(Messager.class),
+            any(RunMode.class),
+            any(DependencyInjectionHelper.class),
+            any(InterStageStore.class)))
+        .thenAnswer(invocation -> mock(SpecModel.class));
+  }
+
+  @Test
+  public void testCreatesModelAgainOnceCleared() {
+    final SpecModelCache cache = new SpecModelCache();
+
+    final SpecModel specModel =
+        cache.getOrCreate(mFactory, mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null);
+    cache.clear();
+
+    assertThat(
+            cache.getOrCreate(
+                mFactory, mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null))
+        .isNotSameAs(specModel);
+    verify(mFactory, times(2))
+        .create(mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null);
+  }
+
+  @Test
+  public void testCreatesModelOnce() {
+    final SpecModelCache cache = new SpecModelCache();
+
+    final SpecModel specModel =
+        cache.getOrCreate(mFactory, mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null);
+
+    assertThat(
+            cache.getOrCreate(
+                mFactory, mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null))
+        .isSameAs(specModel);
+    verify(mFactory, times(1))
+        .create(mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null);
+  }
+
+  @Test
+  public void testCreatesModelForEachWayOfCreatingIt() {
+    final SpecModelCache cache = new SpecModelCache();
+    final DependencyInjectionHelper dependencyInjectionHelper =
+        mock(DependencyInjectionHelper.class);
+
+    final SpecModel specModel =
+        cache.getOrCreate(mFactory, mElements, mTypeElement, mMessager, RunMode.NORMAL, null, null);
+
+    assertThat(
+            cache.getOrCreate(
+                mFactory, mElements, mTypeElement, mMessager, RunMode.ABI, null, null))
+        .isNotSameAs(specModel);
+    assertThat(
+            cache.getOrCreate(
+                mFactory,
+                mElements,
+                mTypeElement,
+                mMessager,
+                RunMode.NORMAL,
+                dependencyInjectionHelper,
+                null))
+        .isNotSameAs(specModel);
+    verify(mFactory, times(1))
+        .create(
+            eq(mElements),
+            eq(mTypeElement),
+            eq(mMessager),
+            eq(RunMode.NORMAL),
+            eq(dependencyInjectionHelper),
+            any(InterStageStore.class));
+  }
+}
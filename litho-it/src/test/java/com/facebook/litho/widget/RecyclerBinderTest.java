@@ -100,6 +100,7 @@ public class RecyclerBinderTest {
   }
 
   private final Map<Component, TestComponentTreeHolder> mHoldersForComponents = new HashMap<>();
+  private ComponentTreeMeasureListenerFactory mMeasureListenerFactory;
   private RecyclerBinder mRecyclerBinder;
   private RecyclerBinder.Builder mRecyclerBinderBuilder;
   private RecyclerBinder mCircularRecyclerBinder;
@@ -123,6 +124,7 @@ public class RecyclerBinderTest {
               boolean canCacheDrawingDisplayLists,
               ComponentTreeMeasureListenerFactory componentTreeMeasureListenerFactory) {
             final TestComponentTreeHolder holder = new TestComponentTreeHolder(renderInfo);
+            mMeasureListenerFactory = componentTreeMeasureListenerFactory;
             if (renderInfo.rendersComponent()) {
               mHoldersForComponents.put(renderInfo.getComponent(), holder);
             }
@@ -789,6 +791,69 @@ public class RecyclerBinderTest {
     }
   }
 
+  @Test
+  public void testLayoutOrderStartsFromVisibleItems() {
+    assertThat(RecyclerBinder.getLayoutOrder(4, 5, 1, 9, false))
+        .containsExactly(4, 5, 6, 3, 7, 2, 8, 1, 9);
+    assertThat(RecyclerBinder.getLayoutOrder(4, 5, 1, 9, true))
+        .containsExactly(4, 5, 3, 6, 2, 7, 1, 8, 9);
+    assertThat(RecyclerBinder.getLayoutOrder(9, 9, 5, 9, false)).containsExactly(9, 8, 7, 6, 5);
+  }
+
+  @Test
+  public void testLayoutOrderSkipsPreviouslyLaidOutItemsButVisibleOnes() {
+    assertThat(RecyclerBinder.getLayoutOrder(4, 5, 1, 9, 3, 7, false))
+        .containsExactly(4, 5, 8, 2, 9, 1);
+    assertThat(RecyclerBinder.getLayoutOrder(4, 5, 1, 9, 0, 6, true))
+        .containsExactly(4, 5, 7, 8, 9);
+    assertThat(RecyclerBinder.getLayoutOrder(4, 5, 1, 9, 1, 9, false)).containsExactly(4, 5);
+  }
+
+  @Test
+  public void testInsertBeforeRangeReleasesShiftedTrees() {
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    final int rangeTotal = (int) (RANGE_SIZE + (RANGE_RATIO * RANGE_SIZE));
+    final int insertedCount = 5;
+
+    final List<ComponentRenderInfo> newComponents = new ArrayList<>();
+    for (int i = 0; i < insertedCount; i++) {
+      newComponents.add(ComponentRenderInfo.create().component(mock(Component.class)).build());
+    }
+    mRecyclerBinder.insertRangeAt(0, (List) newComponents);
+
+    for (int i = 0; i < insertedCount; i++) {
+      assertThat(mHoldersForComponents.get(newComponents.get(i).getComponent()).isTreeValid())
+          .isTrue();
+    }
+
+    TestComponentTreeHolder componentTreeHolder;
+    for (int i = 0; i <= rangeTotal; i++) {
+      componentTreeHolder = mHoldersForComponents.get(components.get(i).getComponent());
+      if (i + insertedCount <= rangeTotal) {
+        assertThat(componentTreeHolder.isTreeValid()).isTrue();
+        assertThat(componentTreeHolder.mDidAcquireStateHandler).isFalse();
+      } else {
+        assertThat(componentTreeHolder.isTreeValid()).isFalse();
+        assertThat(componentTreeHolder.mDidAcquireStateHandler).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void testMoveRangeBackReleasesTreesLeavingRange() {
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    final int rangeTotal = (int) (RANGE_SIZE + (RANGE_RATIO * RANGE_SIZE));
+
+    mRecyclerBinder.onNewVisibleRange(40, 42);
+    mRecyclerBinder.onNewVisibleRange(0, 2);
+
+    TestComponentTreeHolder componentTreeHolder;
+    for (int i = 0; i < components.size(); i++) {
+      componentTreeHolder = mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(componentTreeHolder.isTreeValid()).isEqualTo(i <= rangeTotal);
+    }
+  }
+
   @Test
   public void testMoveItemOutsideFromRange() {
     final List<ComponentRenderInfo> components = prepareLoadedBinder();
@@ -1110,6 +1175,35 @@ public class RecyclerBinderTest {
     }
   }
 
+  @Test
+  public void testUpdateOffScreenItemInRangeLaysItOutAsync() {
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    final int position = RANGE_SIZE + 1;
+
+    final TestComponentTreeHolder holder =
+        mHoldersForComponents.get(components.get(position).getComponent());
+    assertThat(holder.isTreeValid()).isTrue();
+    assertThat(holder.mLayoutAsyncCalled).isTrue();
+
+    // ComponentTreeHolder#setRenderInfo invalidates the tree.
+    holder.invalidateTree();
+    mRecyclerBinder.updateItemAt(
+        position, ComponentRenderInfo.create().component(mock(Component.class)).build());
+
+    assertThat(holder.isTreeValid()).isTrue();
+    assertThat(holder.mLayoutAsyncCalled).isTrue();
+    assertThat(holder.mLayoutSyncCalled).isFalse();
+
+    holder.invalidateTree();
+    final List<RenderInfo> newInfos = new ArrayList<>();
+    newInfos.add(ComponentRenderInfo.create().component(mock(Component.class)).build());
+    mRecyclerBinder.updateRangeAt(position, newInfos);
+
+    assertThat(holder.isTreeValid()).isTrue();
+    assertThat(holder.mLayoutAsyncCalled).isTrue();
+    assertThat(holder.mLayoutSyncCalled).isFalse();
+  }
+
   @Test
   public void testInsertMixedContentWithSingleViewCreator() {
     List<Integer> viewItems = Arrays.asList(3, 6, 7, 11);
@@ -1743,6 +1837,58 @@ public class RecyclerBinderTest {
     }
   }
 
+  @Test
+  public void testRangeFromItemSizes() {
+    final RecyclerBinder recyclerBinder =
+        mRecyclerBinderBuilder.estimateRangeFromItemSizes(true).build(mComponentContext);
+    final List<ComponentRenderInfo> components = prepareLoadedBinder(recyclerBinder, 100);
+
+    // The first item is 100px tall and the range extends 2 viewports of 200px after the viewport.
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(holder.isTreeValid()).isEqualTo(i <= 5);
+    }
+
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      mMeasureListenerFactory.create(holder).onSetRootAndSizeSpec(100, 20);
+    }
+
+    recyclerBinder.onNewVisibleRange(0, 9);
+
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(holder.isTreeValid()).isEqualTo(i <= 29);
+    }
+  }
+
+  @Test
+  public void testRangeFromItemSizesIgnoresRemovedItems() {
+    final RecyclerBinder recyclerBinder =
+        mRecyclerBinderBuilder.estimateRangeFromItemSizes(true).build(mComponentContext);
+    final List<ComponentRenderInfo> components = prepareLoadedBinder(recyclerBinder, 100);
+
+    // Only the first 20 items are laid out, the 10 first ones much bigger than the next ones.
+    for (int i = 0; i < 20; i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      mMeasureListenerFactory.create(holder).onSetRootAndSizeSpec(100, i < 10 ? 1000 : 20);
+    }
+
+    recyclerBinder.removeRangeAt(0, 10);
+    recyclerBinder.onNewVisibleRange(0, 9);
+
+    // The items that weren't laid out are estimated 20px tall, like the remaining laid out items.
+    for (int i = 10; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(holder.isTreeValid()).isEqualTo(i - 10 <= 29);
+    }
+  }
+
   private RecyclerBinder createRecyclerBinderWithMockAdapter(RecyclerView.Adapter adapterMock) {
     return new RecyclerBinder.Builder()
         .rangeRatio(RANGE_RATIO)
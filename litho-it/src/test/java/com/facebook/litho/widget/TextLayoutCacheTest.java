@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.Spannable;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.SizeSpec;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.testing.helper.ComponentTestHelper;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.yoga.YogaDirection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+/** Tests {@link TextLayoutCache} */
+@RunWith(ComponentsTestRunner.class)
+public class TextLayoutCacheTest {
+
+  private ComponentContext mContext;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    ComponentsConfiguration.useTextLayoutCache = true;
+    TextLayoutCache.getInstance().clear();
+  }
+
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.useTextLayoutCache = false;
+    TextLayoutCache.getInstance().clear();
+  }
+
+  @Test
+  public void testKeysOfSameTextAndParamsAreEqual() {
+    assertThat(createKey("Some text", 100)).isEqualTo(createKey("Some text", 100));
+    assertThat(createKey("Some text", 100).hashCode())
+        .isEqualTo(createKey("Some text", 100).hashCode());
+    assertThat(createKey("Some text", 100)).isNotEqualTo(createKey("Other text", 100));
+    assertThat(createKey("Some text", 100)).isNotEqualTo(createKey("Some text", 200));
+  }
+
+  @Test
+  public void testCanCacheImmutableTextWithoutColorStateList() {
+    assertThat(TextLayoutCache.canCache("Some text", Color.RED, null)).isTrue();
+    assertThat(TextLayoutCache.canCache("Some text", 0, TextSpec.textColorStateList)).isTrue();
+    assertThat(
+            TextLayoutCache.canCache(
+                "Some text", 0, new ColorStateList(new int[][] {{0}}, new int[] {Color.RED})))
+        .isFalse();
+    assertThat(
+            TextLayoutCache.canCache(
+                Spannable.Factory.getInstance().newSpannable("Some text"), Color.RED, null))
+        .isFalse();
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedLayoutsWhenFull() {
+    final TextLayoutCache cache = new TextLayoutCache(1000);
+    final TextLayoutCache.Key key1 = createKey("Text 1", 100);
+    final TextLayoutCache.Key key2 = createKey("Text 2", 100);
+    final TextLayoutCache.Key key3 = createKey("Text 3", 100);
+
+    cache.put(key1, createLayout(4));
+    cache.put(key2, createLayout(4));
+    assertThat(cache.get(key1)).isNotNull();
+    cache.put(key3, createLayout(4));
+
+    assertThat(cache.getSizeBytes()).isLessThanOrEqualTo(1000);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.get(key1)).isNotNull();
+    assertThat(cache.get(key2)).isNull();
+    assertThat(cache.get(key3)).isNotNull();
+    assertThat(cache.getHitCount()).isEqualTo(3);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testTextComponentsShareLayouts() {
+    final TextLayoutCache cache = TextLayoutCache.getInstance();
+
+    ComponentTestHelper.mountComponent(mContext, Text.create(mContext).text("Some text").build());
+    final int missCount = cache.getMissCount();
+    final int hitCount = cache.getHitCount();
+
+    ComponentTestHelper.mountComponent(mContext, Text.create(mContext).text("Some text").build());
+
+    assertThat(missCount).isGreaterThan(0);
+    assertThat(cache.getMissCount()).isEqualTo(missCount);
+    assertThat(cache.getHitCount()).isGreaterThan(hitCount);
+  }
+
+  @Test
+  public void testDoesNotCacheWhenDisabled() {
+    ComponentsConfiguration.useTextLayoutCache = false;
+
+    ComponentTestHelper.mountComponent(mContext, Text.create(mContext).text("Some text").build());
+
+    final TextLayoutCache cache = TextLayoutCache.getInstance();
+    assertThat(cache.getSizeBytes()).isEqualTo(0);
+  }
+
+  private static TextLayoutCache.Key createKey(CharSequence text, int width) {
+    return new TextLayoutCache.Key(
+        SizeSpec.makeSizeSpec(width, EXACTLY),
+        null,
+        true,
+        Integer.MAX_VALUE,
+        0,
+        0,
+        0,
+        Color.GRAY,
+        false,
+        text,
+        Color.BLACK,
+        null,
+        0,
+        13,
+        0,
+        1,
+        Typeface.NORMAL,
+        Typeface.DEFAULT,
+        Layout.Alignment.ALIGN_NORMAL,
+        YogaDirection.LTR,
+        -1,
+        -1,
+        0,
+        Integer.MAX_VALUE,
+        1,
+        -1,
+        -1,
+        null);
+  }
+
+  private static Layout createLayout(int lineCount) {
+    final Layout layout = mock(Layout.class);
+    when(layout.getLineCount()).thenReturn(lineCount);
+    return layout;
+  }
+}
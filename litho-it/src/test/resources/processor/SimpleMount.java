@@ -54,6 +54,9 @@ public final class SimpleMount extends Component {
     if (this.getId() == simpleMountRef.getId()) {
       return true;
     }
+    if (getPropsHashCode() != simpleMountRef.getPropsHashCode()) {
+      return false;
+    }
     if (content != null
         ? !content.isEquivalentTo(simpleMountRef.content)
         : simpleMountRef.content != null) {
@@ -65,6 +68,14 @@ public final class SimpleMount extends Component {
     return true;
   }
 
+  @Override
+  protected int computePropsHashCode() {
+    int result = 0;
+    result = 31 * result + (content != null ? content.getPropsHashCode() : 0);
+    result = 31 * result + (int) (Double.doubleToLongBits(ratio) ^ (Double.doubleToLongBits(ratio) >>> 32));
+    return result;
+  }
+
   @Override
   public SimpleMount makeShallowCopy() {
     SimpleMount component = (SimpleMount) super.makeShallowCopy();
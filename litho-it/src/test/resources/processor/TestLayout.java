@@ -130,6 +130,9 @@ public final class TestLayout<S extends View> extends Component {
     if (this.getId() == testLayoutRef.getId()) {
       return true;
     }
+    if (getPropsHashCode() != testLayoutRef.getPropsHashCode()) {
+      return false;
+    }
     if (child != null ? !child.isEquivalentTo(testLayoutRef.child) : testLayoutRef.child != null) {
       return false;
     }
@@ -166,6 +169,19 @@ public final class TestLayout<S extends View> extends Component {
     return true;
   }
 
+  @Override
+  protected int computePropsHashCode() {
+    int result = 0;
+    result = 31 * result + (child != null ? child.getPropsHashCode() : 0);
+    result = 31 * result + prop1;
+    result = 31 * result + (prop2 ? 1 : 0);
+    result = 31 * result + (prop3 != null ? prop3.hashCode() : 0);
+    result = 31 * result + Arrays.hashCode(prop4);
+    result = 31 * result + prop5;
+    result = 31 * result + (int) (prop6 ^ (prop6 >>> 32));
+    return result;
+  }
+
   private UpdateCurrentStateStateUpdate createUpdateCurrentStateStateUpdate(int someParam) {
     return new UpdateCurrentStateStateUpdate(someParam);
   }
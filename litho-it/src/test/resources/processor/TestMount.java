@@ -144,6 +144,9 @@ public final class TestMount<S extends View> extends Component {
     if (this.getId() == testMountRef.getId()) {
       return true;
     }
+    if (getPropsHashCode() != testMountRef.getPropsHashCode()) {
+      return false;
+    }
     if (prop1 != testMountRef.prop1) {
       return false;
     }
@@ -180,6 +183,20 @@ public final class TestMount<S extends View> extends Component {
     return true;
   }
 
+  @Override
+  protected int computePropsHashCode() {
+    int result = 0;
+    result = 31 * result + prop1;
+    result = 31 * result + (prop2 ? 1 : 0);
+    result = 31 * result + (prop3 != null ? prop3.hashCode() : 0);
+    result = 31 * result + Arrays.hashCode(prop4);
+    result = 31 * result + prop5;
+    result = 31 * result + (int) (prop6 ^ (prop6 >>> 32));
+    result = 31 * result + (prop7 != null ? prop7.hashCode() : 0);
+    result = 31 * result + (int) (prop8 ^ (prop8 >>> 32));
+    return result;
+  }
+
   @Override
   protected void copyInterStageImpl(Component component) {
     TestMount testMountRef = (TestMount) component;
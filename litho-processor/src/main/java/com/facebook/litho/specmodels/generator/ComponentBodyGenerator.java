@@ -94,6 +94,7 @@ public class ComponentBodyGenerator {
 
     builder.addMethod(generateGetSimpleName(specModel));
     builder.addMethod(generateIsEquivalentMethod(specModel));
+    builder.addTypeSpecDataHolder(generateComputePropsHashCodeMethod(specModel));
 
     builder.addTypeSpecDataHolder(generateCopyInterStageImpl(specModel));
     builder.addTypeSpecDataHolder(generateOnUpdateStateMethods(specModel));
@@ -359,6 +360,13 @@ public class ComponentBodyGenerator {
           .endControlFlow();
     }
 
+    if (!getHashedProps(specModel).isEmpty()) {
+      isEquivalentBuilder
+          .beginControlFlow("if (getPropsHashCode() != $N.getPropsHashCode())", instanceRefName)
+          .addStatement("return false")
+          .endControlFlow();
+    }
+
     for (PropModel prop : specModel.getProps()) {
       isEquivalentBuilder.addCode(getCompareStatement(specModel, instanceRefName, prop));
     }
@@ -376,6 +384,83 @@ public class ComponentBodyGenerator {
     return isEquivalentBuilder.build();
   }
 
+  /**
+   * Generates the hash of the props that {@link #generateIsEquivalentMethod(SpecModel)} compares,
+   * which lets equivalence checks between components with different props return early. State and
+   * tree props are left out as they are set after the component is built.
+   */
+  static TypeSpecDataHolder generateComputePropsHashCodeMethod(SpecModel specModel) {
+    final TypeSpecDataHolder.Builder typeSpecDataHolder = TypeSpecDataHolder.newBuilder();
+    final List<PropModel> hashedProps = getHashedProps(specModel);
+    if (hashedProps.isEmpty()) {
+      return typeSpecDataHolder.build();
+    }
+
+    final MethodSpec.Builder computePropsHashCodeBuilder =
+        MethodSpec.methodBuilder("computePropsHashCode")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PROTECTED)
+            .returns(TypeName.INT)
+            .addStatement("int result = 0");
+
+    for (PropModel prop : hashedProps) {
+      computePropsHashCodeBuilder.addStatement(
+          "result = 31 * result + $L", getHashCodeExpression(specModel, prop));
+    }
+
+    return typeSpecDataHolder
+        .addMethod(computePropsHashCodeBuilder.addStatement("return result").build())
+        .build();
+  }
+
+  /**
+   * @return the props of a component that are hashed. References are compared with {@link
+   *     com.facebook.litho.reference.Reference#shouldUpdate}, which has no matching hash, so they
+   *     are left out along with the props of other kinds of specs.
+   */
+  private static List<PropModel> getHashedProps(SpecModel specModel) {
+    final List<PropModel> hashedProps = new ArrayList<>();
+    if (!COMPONENT.equals(specModel.getComponentClass())) {
+      return hashedProps;
+    }
+
+    for (PropModel prop : specModel.getProps()) {
+      if (!prop.getTypeName().equals(ClassNames.REFERENCE)
+          && SpecModelUtils.getStateValueWithName(specModel, prop.getName()) == null) {
+        hashedProps.add(prop);
+      }
+    }
+
+    return hashedProps;
+  }
+
+  private static CodeBlock getHashCodeExpression(SpecModel specModel, PropModel prop) {
+    final String name = prop.getName();
+    final TypeName typeName = prop.getTypeName();
+
+    if (typeName.equals(TypeName.FLOAT)) {
+      return CodeBlock.of("Float.floatToIntBits($L)", name);
+    } else if (typeName.equals(TypeName.DOUBLE)) {
+      return CodeBlock.of(
+          "(int) (Double.doubleToLongBits($L) ^ (Double.doubleToLongBits($L) >>> 32))", name, name);
+    } else if (typeName.equals(TypeName.LONG)) {
+      return CodeBlock.of("(int) ($L ^ ($L >>> 32))", name, name);
+    } else if (typeName.equals(TypeName.BOOLEAN)) {
+      return CodeBlock.of("($L ? 1 : 0)", name);
+    } else if (typeName.isPrimitive()) {
+      return CodeBlock.of("$L", name);
+    } else if (typeName instanceof ArrayTypeName) {
+      return CodeBlock.of("$T.hashCode($L)", Arrays.class, name);
+    } else if (prop.getTypeSpec().isSubInterface(ClassNames.COLLECTION)
+        && calculateLevelOfComponentInCollections((DeclaredTypeSpec) prop.getTypeSpec()) > 0) {
+      return CodeBlock.of("collectionPropsHashCode($L)", name);
+    } else if (shouldUseIsEquivalentTo(specModel, prop)) {
+      return CodeBlock.of("($L != null ? $L.getPropsHashCode() : 0)", name, name);
+    }
+
+    return CodeBlock.of("($L != null ? $L.hashCode() : 0)", name, name);
+  }
+
   static TypeSpecDataHolder generateCopyInterStageImpl(SpecModel specModel) {
     final TypeSpecDataHolder.Builder typeSpecDataHolder = TypeSpecDataHolder.newBuilder();
     final ImmutableList<InterStageInputParamModel> interStageInputs =
@@ -17,6 +17,7 @@ import com.facebook.litho.specmodels.model.DependencyInjectionHelperFactory;
 import com.facebook.litho.specmodels.model.SpecModel;
 import com.squareup.javapoet.JavaFile;
 import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,10 +34,23 @@ import javax.tools.Diagnostic;
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public abstract class AbstractComponentsProcessor extends AbstractProcessor {
 
+  /**
+   * If true, the processor tells Gradle that it is an isolating annotation processor, so that only
+   * the specs whose sources changed are processed again. Every generated file then only depends on
+   * the spec it was generated for, which is why the prop names of specs from other modules that
+   * TestSpecs rely on are neither stored in nor loaded from the resources.
+   */
+  public static final String INCREMENTAL_OPTION = "com.facebook.litho.incremental";
+
+  private static final String GRADLE_ISOLATING_OPTION =
+      "org.gradle.annotation.processing.isolating";
+
   @Nullable private final DependencyInjectionHelperFactory mDependencyInjectionHelperFactory;
   private final List<SpecModelFactory> mSpecModelFactories;
   private PropNameInterStageStore mPropNameInterStageStore;
   private RunMode mRunMode;
+  private boolean mIsIncremental;
+  private final SpecModelCache mSpecModelCache;
 
   private final InterStageStore mInterStageStore =
       new InterStageStore() {
@@ -49,8 +63,20 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
   protected AbstractComponentsProcessor(
       List<SpecModelFactory> specModelFactories,
       DependencyInjectionHelperFactory dependencyInjectionHelperFactory) {
+    this(specModelFactories, dependencyInjectionHelperFactory, new SpecModelCache());
+  }
+
+  /**
+   * @param specModelCache the cache of the models this processor creates, which its factories may
+   *     share to look up the models of the specs they depend on.
+   */
+  protected AbstractComponentsProcessor(
+      List<SpecModelFactory> specModelFactories,
+      DependencyInjectionHelperFactory dependencyInjectionHelperFactory,
+      SpecModelCache specModelCache) {
     mSpecModelFactories = specModelFactories;
     mDependencyInjectionHelperFactory = dependencyInjectionHelperFactory;
+    mSpecModelCache = specModelCache;
   }
 
   @Override
@@ -61,6 +87,17 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
     boolean isGeneratingAbi =
         Boolean.valueOf(options.getOrDefault("com.facebook.buck.java.generating_abi", "false"));
     mRunMode = isGeneratingAbi ? RunMode.ABI : RunMode.NORMAL;
+    mIsIncremental = Boolean.valueOf(options.getOrDefault(INCREMENTAL_OPTION, "false"));
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    final Set<String> supportedOptions = new LinkedHashSet<>(super.getSupportedOptions());
+    supportedOptions.add(INCREMENTAL_OPTION);
+    if (mIsIncremental) {
+      supportedOptions.add(GRADLE_ISOLATING_OPTION);
+    }
+    return supportedOptions;
   }
 
   @Override
@@ -70,6 +107,8 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
     }
     // processingEnv is not available at construction time. :(
     mPropNameInterStageStore = new PropNameInterStageStore(processingEnv.getFiler());
+    // The models of the previous round hold on to elements of that round.
+    mSpecModelCache.clear();
 
     for (SpecModelFactory specModelFactory : mSpecModelFactories) {
       final Set<Element> elements = specModelFactory.extract(roundEnv);
@@ -77,7 +116,8 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
       for (Element element : elements) {
         try {
           final SpecModel specModel =
-              specModelFactory.create(
+              mSpecModelCache.getOrCreate(
+                  specModelFactory,
                   processingEnv.getElementUtils(),
                   (TypeElement) element,
                   processingEnv.getMessager(),
@@ -85,11 +125,13 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
                   mDependencyInjectionHelperFactory == null
                       ? null
                       : mDependencyInjectionHelperFactory.create((TypeElement) element, mRunMode),
-                  mInterStageStore);
+                  mIsIncremental ? null : mInterStageStore);
 
           validate(specModel, mRunMode);
-          generate(specModel);
-          afterGenerate(specModel);
+          generate(specModel, element);
+          if (!mIsIncremental) {
+            afterGenerate(specModel);
+          }
         } catch (PrintableException e) {
           e.print(processingEnv.getMessager());
         } catch (Exception e) {
@@ -111,8 +153,18 @@ public abstract class AbstractComponentsProcessor extends AbstractProcessor {
   }
 
   protected void generate(SpecModel specModel) throws IOException {
+    generate(specModel, (Element) specModel.getRepresentedObject());
+  }
+
+  /**
+   * Writes the component generated for the given spec model. The spec it was generated from is its
+   * originating element, which incremental builds rely on to know what to generate again.
+   */
+  protected void generate(SpecModel specModel, Element originatingElement) throws IOException {
     final String packageName = getPackageName(specModel.getComponentTypeName());
-    JavaFile.builder(packageName, specModel.generate())
+    JavaFile.builder(
+            packageName,
+            specModel.generate().toBuilder().addOriginatingElement(originatingElement).build())
         .skipJavaLangImports(true)
         .build()
         .writeTo(processingEnv.getFiler());
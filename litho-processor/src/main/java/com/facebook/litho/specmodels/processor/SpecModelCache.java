@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.specmodels.processor;
+
+import com.facebook.litho.specmodels.internal.RunMode;
+import com.facebook.litho.specmodels.model.DependencyInjectionHelper;
+import com.facebook.litho.specmodels.model.SpecModel;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * Caches the {@link SpecModel}s a processor creates during a round of processing, so that a spec
+ * that is processed more than once, like a spec referenced by several {@link
+ * com.facebook.litho.annotations.TestSpec}s, is only parsed once.
+ *
+ * <p>A SpecModel holds on to the elements of the round it was created in, so the cache must be
+ * cleared at the start of every round. Within a round, models are keyed by the qualified name of
+ * their spec and by how they were created.
+ */
+public class SpecModelCache {
+
+  private final Map<String, SpecModel> mSpecModels = new HashMap<>();
+
+  /**
+   * @return the model that the given factory created for the given spec, creating it if it wasn't
+   *     created yet with the same run mode and kind of {@link DependencyInjectionHelper}.
+   */
+  public SpecModel getOrCreate(
+      SpecModelFactory<?> factory,
+      Elements elements,
+      TypeElement element,
+      Messager messager,
+      RunMode runMode,
+      @Nullable DependencyInjectionHelper dependencyInjectionHelper,
+      @Nullable InterStageStore interStageStore) {
+    final String key =
+        factory.getClass().getName()
+            + '|'
+            + runMode
+            + '|'
+            + (dependencyInjectionHelper == null
+                ? ""
+                : dependencyInjectionHelper.getClass().getName())
+            + '|'
+            + (interStageStore != null)
+            + '|'
+            + element.getQualifiedName();
+
+    SpecModel specModel = mSpecModels.get(key);
+    if (specModel == null) {
+      specModel =
+          factory.create(
+              elements, element, messager, runMode, dependencyInjectionHelper, interStageStore);
+      mSpecModels.put(key, specModel);
+    }
+
+    return specModel;
+  }
+
+  /** Removes all the models, which must be done before every round of processing. */
+  public void clear() {
+    mSpecModels.clear();
+  }
+}
@@ -12,6 +12,8 @@ package com.facebook.litho.specmodels.processor.testing;
 import com.facebook.litho.specmodels.internal.ImmutableList;
 import com.facebook.litho.specmodels.model.ClassNames;
 import com.facebook.litho.specmodels.processor.AbstractComponentsProcessor;
+import com.facebook.litho.specmodels.processor.SpecModelCache;
+import com.facebook.litho.specmodels.processor.SpecModelFactory;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -22,7 +24,14 @@ import javax.lang.model.SourceVersion;
 public class ComponentsTestingProcessor extends AbstractComponentsProcessor {
 
   public ComponentsTestingProcessor() {
-    super(ImmutableList.of(new TestSpecModelFactory()), null);
+    this(new SpecModelCache());
+  }
+
+  private ComponentsTestingProcessor(SpecModelCache specModelCache) {
+    super(
+        ImmutableList.<SpecModelFactory>of(new TestSpecModelFactory(specModelCache)),
+        null,
+        specModelCache);
   }
 
   @Override
@@ -22,6 +22,7 @@ import com.facebook.litho.specmodels.processor.InterStageStore;
 import com.facebook.litho.specmodels.processor.JavadocExtractor;
 import com.facebook.litho.specmodels.processor.LayoutSpecModelFactory;
 import com.facebook.litho.specmodels.processor.MountSpecModelFactory;
+import com.facebook.litho.specmodels.processor.SpecModelCache;
 import com.facebook.litho.specmodels.processor.SpecModelFactory;
 import com.facebook.litho.specmodels.processor.TestTargetExtractor;
 import java.util.List;
@@ -39,13 +40,28 @@ import javax.lang.model.util.Elements;
 public class TestSpecModelFactory implements SpecModelFactory<TestSpecModel> {
 
   private final TestSpecGenerator mTestSpecGenerator;
+  private final SpecModelCache mSpecModelCache;
 
   public TestSpecModelFactory() {
     this(new DefaultTestSpecGenerator());
   }
 
   public TestSpecModelFactory(TestSpecGenerator testSpecGenerator) {
+    this(testSpecGenerator, new SpecModelCache());
+  }
+
+  /**
+   * @param specModelCache the cache of the processor, through which the models of the specs that
+   *     several TestSpecs reference are only created once per round.
+   */
+  public TestSpecModelFactory(SpecModelCache specModelCache) {
+    this(new DefaultTestSpecGenerator(), specModelCache);
+  }
+
+  private TestSpecModelFactory(
+      TestSpecGenerator testSpecGenerator, SpecModelCache specModelCache) {
     mTestSpecGenerator = testSpecGenerator;
+    mSpecModelCache = specModelCache;
   }
 
   /**
@@ -152,7 +168,7 @@ public class TestSpecModelFactory implements SpecModelFactory<TestSpecModel> {
 
   /** @return List of props for the original, annotated Spec. */
   @Nullable
-  private static SpecModel getEnclosedSpecModel(
+  private SpecModel getEnclosedSpecModel(
       Elements elements,
       TypeElement element,
       Messager messager,
@@ -174,8 +190,14 @@ public class TestSpecModelFactory implements SpecModelFactory<TestSpecModel> {
       }
 
       if (factory != null) {
-        return factory.create(
-            elements, element, messager, runMode, dependencyInjectionHelper, interStageStore);
+        return mSpecModelCache.getOrCreate(
+            factory,
+            elements,
+            element,
+            messager,
+            runMode,
+            dependencyInjectionHelper,
+            interStageStore);
       }
     }
     return null;
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.sections;
+
+import android.support.annotation.Nullable;
+import com.facebook.litho.widget.RenderInfo;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges a sequence of {@link ChangeSet}s into a single one that turns the items of a {@link
+ * SectionTree.Target} into the same final items with as few changes as possible.
+ *
+ * <p>The changes are replayed on a model of the items, in which every item is either one of the
+ * items the Target had before the first change or an inserted one. An item that is inserted and
+ * then removed is dropped, updates to an inserted item are folded into its insertion and repeated
+ * updates to an item only keep the last one. The model is then turned back into removals, in
+ * ranges, followed by insertions and updates, in ranges, at their final positions.
+ *
+ * <p>Items of the Target past the last position that the changes touch are never modeled, so the
+ * Target's item count doesn't need to be known.
+ */
+final class ChangeSetCompactor {
+
+  private ChangeSetCompactor() {}
+
+  /**
+   * @return a ChangeSet equivalent to applying the given ChangeSets in order, or null if they move
+   *     items of the Target into a different order, which can't be expressed without moves.
+   */
+  @Nullable
+  static ChangeSet compact(List<ChangeSet> changeSets) {
+    final ItemsModel items = new ItemsModel();
+    for (int i = 0, size = changeSets.size(); i < size; i++) {
+      final ChangeSet changeSet = changeSets.get(i);
+      for (int j = 0, changeCount = changeSet.getChangeCount(); j < changeCount; j++) {
+        items.apply(changeSet.getChangeAt(j));
+      }
+    }
+
+    return items.toChangeSet();
+  }
+
+  private static class Item {
+
+    /** The position of the item in the Target before the first change, or -1 if inserted. */
+    private final int mOriginalIndex;
+    /** The RenderInfo the item was inserted or last updated with, or null if unchanged. */
+    @Nullable private RenderInfo mRenderInfo;
+
+    Item(int originalIndex, @Nullable RenderInfo renderInfo) {
+      mOriginalIndex = originalIndex;
+      mRenderInfo = renderInfo;
+    }
+
+    boolean isInserted() {
+      return mOriginalIndex < 0;
+    }
+  }
+
+  private static class ItemsModel {
+
+    /** The items up to the last position touched by a change, in their current order. */
+    private final List<Item> mItems = new ArrayList<>();
+    /** How many of the Target's original items have been added to mItems. */
+    private int mOriginalCount;
+
+    void apply(Change change) {
+      final int index = change.getIndex();
+      switch (change.getType()) {
+        case Change.INSERT:
+          ensureItems(index);
+          mItems.add(index, new Item(-1, change.getRenderInfo()));
+          break;
+        case Change.INSERT_RANGE:
+          ensureItems(index);
+          final List<Item> inserted = new ArrayList<>(change.getCount());
+          for (int i = 0; i < change.getCount(); i++) {
+            inserted.add(new Item(-1, change.getRenderInfos().get(i)));
+          }
+          mItems.addAll(index, inserted);
+          break;
+        case Change.UPDATE:
+          ensureItems(index + 1);
+          mItems.get(index).mRenderInfo = change.getRenderInfo();
+          break;
+        case Change.UPDATE_RANGE:
+          ensureItems(index + change.getCount());
+          for (int i = 0; i < change.getCount(); i++) {
+            mItems.get(index + i).mRenderInfo = change.getRenderInfos().get(i);
+          }
+          break;
+        case Change.DELETE:
+          ensureItems(index + 1);
+          mItems.remove(index);
+          break;
+        case Change.DELETE_RANGE:
+          ensureItems(index + change.getCount());
+          mItems.subList(index, index + change.getCount()).clear();
+          break;
+        case Change.MOVE:
+          ensureItems(Math.max(index, change.getToIndex()) + 1);
+          mItems.add(change.getToIndex(), mItems.remove(index));
+          break;
+        default:
+          throw new IllegalStateException("Unknown change type: " + change.getType());
+      }
+    }
+
+    /** Adds the next original items of the Target until there are at least count items. */
+    private void ensureItems(int count) {
+      while (mItems.size() < count) {
+        mItems.add(new Item(mOriginalCount++, null));
+      }
+    }
+
+    @Nullable
+    ChangeSet toChangeSet() {
+      final boolean[] isKept = new boolean[mOriginalCount];
+      int lastOriginalIndex = -1;
+      for (int i = 0, size = mItems.size(); i < size; i++) {
+        final Item item = mItems.get(i);
+        if (item.isInserted()) {
+          continue;
+        }
+
+        if (item.mOriginalIndex < lastOriginalIndex) {
+          return null;
+        }
+
+        lastOriginalIndex = item.mOriginalIndex;
+        isKept[item.mOriginalIndex] = true;
+      }
+
+      final ChangeSet changeSet = ChangeSet.acquireChangeSet(null);
+
+      // Removing from the end keeps the original positions of the items before valid.
+      int runEnd = -1;
+      for (int i = mOriginalCount - 1; i >= -1; i--) {
+        final boolean isRemoved = i >= 0 && !isKept[i];
+        if (isRemoved && runEnd < 0) {
+          runEnd = i;
+        } else if (!isRemoved && runEnd >= 0) {
+          addRemoval(changeSet, i + 1, runEnd - i);
+          runEnd = -1;
+        }
+      }
+
+      // Only kept items are left, in their final order, so they already are at the positions the
+      // inserted items don't take.
+      addRuns(changeSet, true);
+      addRuns(changeSet, false);
+
+      return changeSet;
+    }
+
+    /**
+     * Adds an insertion, or an update, for every run of consecutive items that were inserted, or
+     * kept and updated, at their final positions.
+     */
+    private void addRuns(ChangeSet changeSet, boolean insertions) {
+      int runStart = -1;
+      for (int i = 0, size = mItems.size(); i <= size; i++) {
+        final boolean isInRun;
+        if (i == size) {
+          isInRun = false;
+        } else {
+          final Item item = mItems.get(i);
+          isInRun = insertions ? item.isInserted() : !item.isInserted() && item.mRenderInfo != null;
+        }
+
+        if (isInRun && runStart < 0) {
+          runStart = i;
+        } else if (!isInRun && runStart >= 0) {
+          if (insertions) {
+            addInsertion(changeSet, runStart, i - runStart);
+          } else {
+            addUpdate(changeSet, runStart, i - runStart);
+          }
+          runStart = -1;
+        }
+      }
+    }
+
+    private static void addRemoval(ChangeSet changeSet, int index, int count) {
+      if (count == 1) {
+        changeSet.addChange(Change.remove(index));
+      } else {
+        changeSet.addChange(Change.removeRange(index, count));
+      }
+    }
+
+    private void addInsertion(ChangeSet changeSet, int index, int count) {
+      if (count == 1) {
+        changeSet.addChange(Change.insert(index, mItems.get(index).mRenderInfo));
+      } else {
+        changeSet.addChange(Change.insertRange(index, count, collectRenderInfos(index, count)));
+      }
+    }
+
+    private void addUpdate(ChangeSet changeSet, int index, int count) {
+      if (count == 1) {
+        changeSet.addChange(Change.update(index, mItems.get(index).mRenderInfo));
+      } else {
+        changeSet.addChange(Change.updateRange(index, count, collectRenderInfos(index, count)));
+      }
+    }
+
+    private List<RenderInfo> collectRenderInfos(int index, int count) {
+      final List<RenderInfo> renderInfos = new ArrayList<>(count);
+      for (int i = index; i < index + count; i++) {
+        renderInfos.add(mItems.get(i).mRenderInfo);
+      }
+      return renderInfos;
+    }
+  }
+}
@@ -131,6 +131,10 @@ public abstract class Section extends SectionLifecycle
   private List<Section> mChildren;
   private String mGlobalKey;
   private String mKey;
+  // The offsets of the children in the items of this subtree, followed by its total count.
+  @Nullable private int[] mChildrenOffsets;
+  // Whether the SectionTree already dispatched a viewport change to all the children.
+  private boolean mIsViewportDispatchedToAllChildren;
 
   protected Section() {
     mKey = getLogTag();
@@ -237,6 +241,8 @@ public abstract class Section extends SectionLifecycle
   public Section makeShallowCopy(boolean deepCopy) {
     try {
       final Section clone = (Section) super.clone();
+      clone.mChildrenOffsets = null;
+      clone.mIsViewportDispatchedToAllChildren = false;
 
       if (!deepCopy) {
         if (clone.mChildren != null) {
@@ -273,6 +279,39 @@ public abstract class Section extends SectionLifecycle
   @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
   public void setChildren(Children children) {
     mChildren = children == null ? new ArrayList<Section>() : children.getChildren();
+    mChildrenOffsets = null;
+  }
+
+  /** Sets children that were copied from the equivalent section of a previous tree. */
+  void setCopiedChildren(List<Section> children) {
+    mChildren = children;
+    mChildrenOffsets = null;
+  }
+
+  /**
+   * @return the index of the first item of each child among the items of this {@link Section},
+   *     followed by the total count of its children. This is computed the first time it's needed,
+   *     once the children and their counts don't change anymore.
+   */
+  int[] getChildrenOffsets() {
+    if (mChildrenOffsets == null) {
+      final int size = mChildren.size();
+      final int[] childrenOffsets = new int[size + 1];
+      for (int i = 0; i < size; i++) {
+        childrenOffsets[i + 1] = childrenOffsets[i] + mChildren.get(i).getCount();
+      }
+      mChildrenOffsets = childrenOffsets;
+    }
+
+    return mChildrenOffsets;
+  }
+
+  boolean isViewportDispatchedToAllChildren() {
+    return mIsViewportDispatchedToAllChildren;
+  }
+
+  void setViewportDispatchedToAllChildren(boolean isViewportDispatchedToAllChildren) {
+    mIsViewportDispatchedToAllChildren = isViewportDispatchedToAllChildren;
   }
 
   /**
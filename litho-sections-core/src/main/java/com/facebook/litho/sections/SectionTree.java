@@ -12,6 +12,8 @@ package com.facebook.litho.sections;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_CREATE_NEW_TREE;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_ON_CREATE_CHILDREN;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_SET_ROOT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_SECTIONS_REBUILT_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_SECTIONS_REUSED_COUNT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_SECTION_SET_ROOT_SOURCE;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_SET_ROOT_ON_BG_THREAD;
 import static com.facebook.litho.ThreadUtils.assertMainThread;
@@ -502,8 +504,9 @@ public class SectionTree {
       @ViewportInfo.State int state) {
     Range currentRange = mLastRanges.get(section.getGlobalKey());
     final int totalItemsCount = section.getCount();
+    final boolean isNewRange = currentRange == null;
 
-    if (currentRange == null) {
+    if (isNewRange) {
       currentRange = acquireRange();
       mLastRanges.put(section.getGlobalKey(), currentRange);
     } else if (currentRange.firstVisibleIndex == firstVisibleIndex &&
@@ -517,6 +520,11 @@ public class SectionTree {
       }
     }
 
+    final int previousFirstVisibleIndex = currentRange.firstVisibleIndex;
+    final int previousLastVisibleIndex = currentRange.lastVisibleIndex;
+    final int previousFirstFullyVisibleIndex = currentRange.firstFullyVisibleIndex;
+    final int previousLastFullyVisibleIndex = currentRange.lastFullyVisibleIndex;
+
     currentRange.lastVisibleIndex = lastVisibleIndex;
     currentRange.firstVisibleIndex = firstVisibleIndex;
     currentRange.firstFullyVisibleIndex = firstFullyVisibleIndex;
@@ -535,10 +543,107 @@ public class SectionTree {
       return;
     }
 
-    int offset = 0;
+    final int childrenCount = section.getChildren().size();
+    if (isNewRange
+        || state == ViewportInfo.State.DATA_CHANGES
+        || !section.isViewportDispatchedToAllChildren()) {
+      viewPortChangedForChildren(
+          section,
+          0,
+          childrenCount - 1,
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+      section.setViewportDispatchedToAllChildren(true);
+      return;
+    }
+
+    // The children of this section and their counts didn't change since the viewport was last
+    // dispatched to all of them, so only the children that intersect the previous or the new
+    // range of this section can have a different range now.
+    final int[] childrenOffsets = section.getChildrenOffsets();
+    final int[] previousBounds = {childrenCount, -1};
+    includeChildrenInRange(
+        childrenOffsets, previousFirstVisibleIndex, previousLastVisibleIndex, previousBounds);
+    includeChildrenInRange(
+        childrenOffsets,
+        previousFirstFullyVisibleIndex,
+        previousLastFullyVisibleIndex,
+        previousBounds);
+
+    final int[] bounds = {childrenCount, -1};
+    includeChildrenInRange(childrenOffsets, firstVisibleIndex, lastVisibleIndex, bounds);
+    includeChildrenInRange(
+        childrenOffsets, firstFullyVisibleIndex, lastFullyVisibleIndex, bounds);
+
+    // Dispatch to the children in order, as if all of them were visited.
+    if (previousBounds[1] + 1 < bounds[0]) {
+      viewPortChangedForChildren(
+          section,
+          previousBounds[0],
+          previousBounds[1],
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+      viewPortChangedForChildren(
+          section,
+          bounds[0],
+          bounds[1],
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+    } else if (bounds[1] + 1 < previousBounds[0]) {
+      viewPortChangedForChildren(
+          section,
+          bounds[0],
+          bounds[1],
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+      viewPortChangedForChildren(
+          section,
+          previousBounds[0],
+          previousBounds[1],
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+    } else {
+      viewPortChangedForChildren(
+          section,
+          Math.min(previousBounds[0], bounds[0]),
+          Math.max(previousBounds[1], bounds[1]),
+          firstVisibleIndex,
+          lastVisibleIndex,
+          firstFullyVisibleIndex,
+          lastFullyVisibleIndex,
+          state);
+    }
+  }
+
+  private void viewPortChangedForChildren(
+      Section section,
+      int firstChildIndex,
+      int lastChildIndex,
+      int firstVisibleIndex,
+      int lastVisibleIndex,
+      int firstFullyVisibleIndex,
+      int lastFullyVisibleIndex,
+      @ViewportInfo.State int state) {
     final List<Section> children = section.getChildren();
-    for (int i = 0, size = children.size(); i < size; i++) {
+    final int[] childrenOffsets = section.getChildrenOffsets();
+    for (int i = firstChildIndex; i <= lastChildIndex; i++) {
       final Section child = children.get(i);
+      final int offset = childrenOffsets[i];
 
       int childFirstVisibleIndex = firstVisibleIndex - offset;
       int childLastVisibleIndex = lastVisibleIndex - offset;
@@ -562,7 +667,6 @@ public class SectionTree {
         childFullyLastVisibleIndex = Math.min(childFullyLastVisibleIndex, child.getCount() - 1);
       }
 
-      offset += child.getCount();
       viewPortChangedRecursive(
           child,
           childFirstVisibleIndex,
@@ -573,6 +677,46 @@ public class SectionTree {
     }
   }
 
+  /**
+   * Extends the bounds to include the children whose range isn't empty for the given range of
+   * their parent, i.e. the children that start at or before lastIndex and end after firstIndex.
+   */
+  private static void includeChildrenInRange(
+      int[] childrenOffsets, int firstIndex, int lastIndex, int[] bounds) {
+    final int childrenCount = childrenOffsets.length - 1;
+
+    // Binary search the first child ending after firstIndex.
+    int low = 0;
+    int high = childrenCount;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (childrenOffsets[mid + 1] > firstIndex) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    final int firstChildIndex = low;
+
+    // Binary search the first child starting after lastIndex.
+    low = 0;
+    high = childrenCount;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (childrenOffsets[mid] > lastIndex) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    final int lastChildIndex = low - 1;
+
+    if (firstChildIndex <= lastChildIndex) {
+      bounds[0] = Math.min(bounds[0], firstChildIndex);
+      bounds[1] = Math.max(bounds[1], lastChildIndex);
+    }
+  }
+
   public void requestFocusOnRoot(int index) {
     final String sectionKey;
     synchronized (this) {
@@ -856,7 +1000,7 @@ public class SectionTree {
           mCurrentSection = newRoot;
           mNextSection = null;
           removeCompletedStateUpdatesFromInstance(pendingStateUpdates);
-          mPendingChangeSets.add(changeSetState.getChangeSet());
+          addPendingChangeSet(changeSetState.getChangeSet());
 
           if (oldRoot != null) {
             unbindOldComponent(oldRoot);
@@ -898,6 +1042,26 @@ public class SectionTree {
     }
   }
 
+  /**
+   * Queues a ChangeSet to be applied to the Target. If other ChangeSets are still waiting for the
+   * main thread, they can be merged with it here, so that the main thread only has to apply the
+   * changes that are still needed.
+   */
+  @GuardedBy("this")
+  private void addPendingChangeSet(ChangeSet changeSet) {
+    mPendingChangeSets.add(changeSet);
+
+    if (!SectionsConfiguration.compactPendingChangeSets || mPendingChangeSets.size() < 2) {
+      return;
+    }
+
+    final ChangeSet compactedChangeSet = ChangeSetCompactor.compact(mPendingChangeSets);
+    if (compactedChangeSet != null) {
+      mPendingChangeSets.clear();
+      mPendingChangeSets.add(compactedChangeSet);
+    }
+  }
+
   @GuardedBy("this")
   private Map<String, List<StateUpdate>> copyPendingStateUpdatesAndResetNonLazyFlag() {
     mHasNonLazyUpdate = false;
@@ -1120,10 +1284,19 @@ public class SectionTree {
               logger, context.getLogTag(), EVENT_SECTIONS_CREATE_NEW_TREE, currentRoot, nextRoot);
     }
 
+    final NewTreeStats newTreeStats = new NewTreeStats();
     createNewTreeAndApplyStateUpdates(
-        context, currentRoot, nextRoot, pendingStateUpdates, sectionsDebugLogger, sectionTreeTag);
+        context,
+        currentRoot,
+        nextRoot,
+        pendingStateUpdates,
+        newTreeStats,
+        sectionsDebugLogger,
+        sectionTreeTag);
 
     if (logger != null) {
+      logEvent.addParam(PARAM_SECTIONS_REUSED_COUNT, newTreeStats.mReusedCount);
+      logEvent.addParam(PARAM_SECTIONS_REBUILT_COUNT, newTreeStats.mRebuiltCount);
       logger.log(logEvent);
     }
 
@@ -1140,6 +1313,7 @@ public class SectionTree {
       Section currentRoot,
       Section nextRoot,
       Map<String, List<StateUpdate>> pendingStateUpdates,
+      NewTreeStats newTreeStats,
       SectionsDebugLogger sectionsDebugLogger,
       String sectionTreeTag) {
     if (nextRoot == null) {
@@ -1176,7 +1350,19 @@ public class SectionTree {
       }
     }
 
-    if (!nextRoot.isDiffSectionSpec()) {
+    if (nextRoot.isDiffSectionSpec()) {
+      newTreeStats.mRebuiltCount++;
+    } else if (canReuseChildren(currentRoot, nextRoot, pendingStateUpdates)) {
+      final TreeProps parentTreeProps = context.getTreeProps();
+      nextRoot.populateTreeProps(parentTreeProps);
+      context.setTreeProps(nextRoot.getTreePropsForChildren(context, parentTreeProps));
+
+      newTreeStats.mReusedCount += 1 + copyChildren(context, currentRoot, nextRoot);
+
+      restoreTreeProps(context, parentTreeProps);
+    } else {
+      newTreeStats.mRebuiltCount++;
+
       final Map<String, Pair<Section, Integer>> currentComponentChildren = currentRoot == null ?
           null :
           Section.acquireChildrenMap(currentRoot);
@@ -1225,16 +1411,91 @@ public class SectionTree {
         final Section currentChild = valueAndIndex != null ? valueAndIndex.first : null;
 
         createNewTreeAndApplyStateUpdates(
-            context, currentChild, child, pendingStateUpdates, sectionsDebugLogger, sectionTreeTag);
+            context,
+            currentChild,
+            child,
+            pendingStateUpdates,
+            newTreeStats,
+            sectionsDebugLogger,
+            sectionTreeTag);
       }
 
-      final TreeProps contextTreeProps = context.getTreeProps();
-      if (contextTreeProps != parentTreeProps) {
-        if (contextTreeProps != null) {
-          ComponentsPools.release(contextTreeProps);
-        }
-        context.setTreeProps(parentTreeProps);
+      restoreTreeProps(context, parentTreeProps);
+    }
+  }
+
+  /**
+   * Whether the children of the given section of the current tree can be carried over to the
+   * equivalent section of the new tree instead of being created again, which is the case if its
+   * props and state are unchanged and no state update is pending for any section of its subtree.
+   */
+  private static boolean canReuseChildren(
+      @Nullable Section currentRoot,
+      Section nextRoot,
+      Map<String, List<StateUpdate>> pendingStateUpdates) {
+    if (!SectionsConfiguration.reuseUnchangedSections
+        || currentRoot == null
+        || currentRoot.getChildren() == null
+        || !currentRoot.getClass().equals(nextRoot.getClass())
+        || nextRoot.shouldComponentUpdate(currentRoot, nextRoot)) {
+      return false;
+    }
+
+    // The global keys of the sections of a subtree all start with the global key of its root.
+    final String globalKey = nextRoot.getGlobalKey();
+    for (String key : pendingStateUpdates.keySet()) {
+      if (key.startsWith(globalKey)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Sets copies of the children of a section of the current tree, and of their own children, as
+   * the children of the equivalent section of the new tree. The sections of the current tree are
+   * not changed, as the new tree may still be discarded.
+   *
+   * @return the number of sections that were copied.
+   */
+  private static int copyChildren(
+      SectionContext context, Section currentSection, Section nextSection) {
+    final List<Section> currentChildren = currentSection.getChildren();
+    final List<Section> nextChildren = new ArrayList<>(currentChildren.size());
+    int copiedCount = 0;
+
+    for (int i = 0, size = currentChildren.size(); i < size; i++) {
+      final Section currentChild = currentChildren.get(i);
+      final Section child = currentChild.makeShallowCopy(true);
+      child.setInvalidated(false);
+      child.setParent(nextSection);
+      child.setScopedContext(SectionContext.withScope(context, child));
+      nextChildren.add(child);
+      copiedCount++;
+
+      if (!child.isDiffSectionSpec()) {
+        final TreeProps parentTreeProps = context.getTreeProps();
+        context.setTreeProps(child.getTreePropsForChildren(context, parentTreeProps));
+
+        copiedCount += copyChildren(context, currentChild, child);
+
+        restoreTreeProps(context, parentTreeProps);
+      }
+    }
+
+    nextSection.setCopiedChildren(nextChildren);
+
+    return copiedCount;
+  }
+
+  private static void restoreTreeProps(SectionContext context, TreeProps parentTreeProps) {
+    final TreeProps contextTreeProps = context.getTreeProps();
+    if (contextTreeProps != parentTreeProps) {
+      if (contextTreeProps != null) {
+        ComponentsPools.release(contextTreeProps);
       }
+      context.setTreeProps(parentTreeProps);
     }
   }
 
@@ -1258,6 +1519,12 @@ public class SectionTree {
     //TODO use pools t11953296
   }
 
+  /** Counts the sections of a new tree that were carried over from the current tree or not. */
+  private static class NewTreeStats {
+    private int mReusedCount;
+    private int mRebuiltCount;
+  }
+
   private static class SectionsMainThreadHandler extends Handler {
 
     private SectionsMainThreadHandler() {
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.sections.common;
+
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+
+/**
+ * Calculates the updates that turn the previous data of a {@link DataDiffSectionSpec} into its
+ * next data.
+ *
+ * <p>{@link DiffUtil} is O(N + D^2), where D is the number of inserted and removed items, so
+ * appending a page of a thousand items to a list costs about a million item comparisons. Most
+ * updates to long lists only append, prepend, remove or update items though, so the items at the
+ * start and at the end of the two lists that are the same item are matched first, in linear time,
+ * and only the window of items in between is handed to {@link DiffUtil}. If one side of that window
+ * is empty, it is a single insertion or removal and no diff is needed at all.
+ */
+final class DataDiffCalculator {
+
+  private DataDiffCalculator() {}
+
+  /**
+   * Dispatches the updates between the old and the new list of the given callback to the given
+   * {@link ListUpdateCallback}, from the end of the list to its start like {@link
+   * DiffUtil.DiffResult#dispatchUpdatesTo(ListUpdateCallback)} does.
+   *
+   * @return the number of items that had to be diffed with {@link DiffUtil}.
+   */
+  static int calculateDiff(
+      DiffUtil.Callback callback, boolean detectMoves, ListUpdateCallback updateCallback) {
+    final int oldSize = callback.getOldListSize();
+    final int newSize = callback.getNewListSize();
+    final int minSize = Math.min(oldSize, newSize);
+
+    int headCount = 0;
+    while (headCount < minSize && callback.areItemsTheSame(headCount, headCount)) {
+      headCount++;
+    }
+
+    int tailCount = 0;
+    while (tailCount < minSize - headCount
+        && callback.areItemsTheSame(oldSize - 1 - tailCount, newSize - 1 - tailCount)) {
+      tailCount++;
+    }
+
+    final int oldWindowSize = oldSize - headCount - tailCount;
+    final int newWindowSize = newSize - headCount - tailCount;
+
+    // Nothing before the tail has changed yet, so its positions are the ones of the old list.
+    dispatchChanges(
+        callback, oldSize - tailCount, newSize - tailCount, tailCount, updateCallback);
+
+    int diffedCount = 0;
+    if (oldWindowSize == 0 && newWindowSize > 0) {
+      updateCallback.onInserted(headCount, newWindowSize);
+    } else if (newWindowSize == 0 && oldWindowSize > 0) {
+      updateCallback.onRemoved(headCount, oldWindowSize);
+    } else if (oldWindowSize > 0) {
+      DiffUtil.calculateDiff(
+              new WindowCallback(callback, headCount, oldWindowSize, newWindowSize), detectMoves)
+          .dispatchUpdatesTo(new OffsetListUpdateCallback(updateCallback, headCount));
+      diffedCount = oldWindowSize + newWindowSize;
+    }
+
+    dispatchChanges(callback, 0, 0, headCount, updateCallback);
+
+    return diffedCount;
+  }
+
+  /**
+   * Dispatches an update for every run of items, among count items matched to each other, whose
+   * content has changed, last run first.
+   */
+  private static void dispatchChanges(
+      DiffUtil.Callback callback,
+      int oldStart,
+      int newStart,
+      int count,
+      ListUpdateCallback updateCallback) {
+    int runEnd = -1;
+    for (int i = count - 1; i >= 0; i--) {
+      final boolean changed = !callback.areContentsTheSame(oldStart + i, newStart + i);
+      if (changed && runEnd < 0) {
+        runEnd = i;
+      } else if (!changed && runEnd >= 0) {
+        updateCallback.onChanged(oldStart + i + 1, runEnd - i, null);
+        runEnd = -1;
+      }
+    }
+
+    if (runEnd >= 0) {
+      updateCallback.onChanged(oldStart, runEnd + 1, null);
+    }
+  }
+
+  /** Exposes the items of a callback between its matched head and tail. */
+  private static class WindowCallback extends DiffUtil.Callback {
+
+    private final DiffUtil.Callback mCallback;
+    private final int mOffset;
+    private final int mOldSize;
+    private final int mNewSize;
+
+    WindowCallback(DiffUtil.Callback callback, int offset, int oldSize, int newSize) {
+      mCallback = callback;
+      mOffset = offset;
+      mOldSize = oldSize;
+      mNewSize = newSize;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return mOldSize;
+    }
+
+    @Override
+    public int getNewListSize() {
+      return mNewSize;
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      return mCallback.areItemsTheSame(oldItemPosition + mOffset, newItemPosition + mOffset);
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      return mCallback.areContentsTheSame(oldItemPosition + mOffset, newItemPosition + mOffset);
+    }
+  }
+
+  /** Shifts the updates of a {@link WindowCallback} diff back to positions in the whole list. */
+  private static class OffsetListUpdateCallback implements ListUpdateCallback {
+
+    private final ListUpdateCallback mUpdateCallback;
+    private final int mOffset;
+
+    OffsetListUpdateCallback(ListUpdateCallback updateCallback, int offset) {
+      mUpdateCallback = updateCallback;
+      mOffset = offset;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+      mUpdateCallback.onInserted(position + mOffset, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+      mUpdateCallback.onRemoved(position + mOffset, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+      mUpdateCallback.onMoved(fromPosition + mOffset, toPosition + mOffset);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+      mUpdateCallback.onChanged(position + mOffset, count, payload);
+    }
+  }
+
+  /** Counts the updates it forwards, so that they can be logged. */
+  static class CountingListUpdateCallback implements ListUpdateCallback {
+
+    private final ListUpdateCallback mUpdateCallback;
+    int mInsertedCount;
+    int mRemovedCount;
+    int mMovedCount;
+    int mUpdatedCount;
+
+    CountingListUpdateCallback(ListUpdateCallback updateCallback) {
+      mUpdateCallback = updateCallback;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+      mInsertedCount += count;
+      mUpdateCallback.onInserted(position, count);
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+      mRemovedCount += count;
+      mUpdateCallback.onRemoved(position, count);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+      mMovedCount++;
+      mUpdateCallback.onMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+      mUpdatedCount += count;
+      mUpdateCallback.onChanged(position, count, payload);
+    }
+  }
+}
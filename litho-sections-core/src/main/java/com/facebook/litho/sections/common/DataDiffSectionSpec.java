@@ -10,7 +10,12 @@
 package com.facebook.litho.sections.common;
 
 import static com.facebook.litho.FrameworkLogEvents.EVENT_SECTIONS_DATA_DIFF_CALCULATE_DIFF;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_DIFFED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_INSERTED_COUNT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_LOG_TAG;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_MOVED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_REMOVED_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_UPDATED_COUNT;
 import static com.facebook.litho.widget.RecyclerBinderUpdateCallback.acquire;
 import static com.facebook.litho.widget.RecyclerBinderUpdateCallback.release;
 
@@ -21,19 +26,18 @@ import android.support.v4.util.Pools.SynchronizedPool;
 import android.support.v7.util.DiffUtil;
 import com.facebook.litho.Component;
 import com.facebook.litho.ComponentsLogger;
-import com.facebook.litho.ComponentsPools;
 import com.facebook.litho.Diff;
 import com.facebook.litho.EventHandler;
 import com.facebook.litho.LogEvent;
 import com.facebook.litho.annotations.OnEvent;
 import com.facebook.litho.annotations.Prop;
 import com.facebook.litho.annotations.PropDefault;
+import com.facebook.litho.sections.common.DataDiffCalculator.CountingListUpdateCallback;
 import com.facebook.litho.sections.ChangeSet;
 import com.facebook.litho.sections.Section;
 import com.facebook.litho.sections.SectionContext;
 import com.facebook.litho.sections.annotations.DiffSectionSpec;
 import com.facebook.litho.sections.annotations.OnDiff;
-import com.facebook.litho.sections.config.SectionsConfiguration;
 import com.facebook.litho.widget.RecyclerBinderUpdateCallback;
 import com.facebook.litho.widget.RecyclerBinderUpdateCallback.ComponentContainer;
 import com.facebook.litho.widget.RecyclerBinderUpdateCallback.Operation;
@@ -94,6 +98,8 @@ import java.util.List;
     RenderEvent.class})
 public class DataDiffSectionSpec<T> {
 
+  // Deprecated and ignored: the head and tail of the data are always matched before diffing (see
+  // DataDiffCalculator), comparing the instances first.
   @PropDefault public static Boolean trimHeadAndTail = false;
   @PropDefault public static Boolean trimSameInstancesOnly = false;
 
@@ -106,43 +112,39 @@ public class DataDiffSectionSpec<T> {
       @Prop(optional = true) Diff<Boolean> trimHeadAndTail,
       @Prop(optional = true) Diff<Boolean> trimSameInstancesOnly) {
 
-    final boolean shouldTrim =
-        trimHeadAndTail == null || trimHeadAndTail.getNext() == null
-            ? SectionsConfiguration.trimDataDiffSectionHeadAndTail
-            : trimHeadAndTail.getNext().booleanValue();
+    final Callback<T> callback = Callback.acquire(c, data.getPrevious(), data.getNext());
 
-    final boolean shouldTrimSameInstanceOnly =
-        trimSameInstancesOnly == null || trimSameInstancesOnly.getNext() == null
-            ? SectionsConfiguration.trimSameInstancesOnly
-            : trimSameInstancesOnly.getNext().booleanValue();
-
-    final Callback<T> callback =
-        Callback.acquire(
-            c, data.getPrevious(), data.getNext(), shouldTrim, shouldTrimSameInstanceOnly);
+    final RecyclerBinderUpdateCallback<T> updatesCallback =
+        acquire(
+            data.getPrevious() != null ? data.getPrevious().size() : 0,
+            data.getNext(),
+            new ComponentRenderer(DataDiffSection.getRenderEventHandler(c)),
+            new DiffSectionOperationExecutor(changeSet),
+            0 /* headOffset */);
 
     final ComponentsLogger logger = c.getLogger();
-    LogEvent logEvent = null;
     if (logger != null) {
-      logEvent = c.getLogger().newPerformanceEvent(EVENT_SECTIONS_DATA_DIFF_CALCULATE_DIFF);
+      final LogEvent logEvent =
+          logger.newPerformanceEvent(EVENT_SECTIONS_DATA_DIFF_CALCULATE_DIFF);
       logEvent.addParam(PARAM_LOG_TAG, c.getLogTag());
-    }
-
-    DiffUtil.DiffResult result =
-        DiffUtil.calculateDiff(callback, isDetectMovesEnabled(detectMoves));
 
-    if (logger != null) {
+      final CountingListUpdateCallback countingCallback =
+          new CountingListUpdateCallback(updatesCallback);
+      final int diffedCount =
+          DataDiffCalculator.calculateDiff(
+              callback, isDetectMovesEnabled(detectMoves), countingCallback);
+
+      logEvent.addParam(PARAM_INSERTED_COUNT, countingCallback.mInsertedCount);
+      logEvent.addParam(PARAM_REMOVED_COUNT, countingCallback.mRemovedCount);
+      logEvent.addParam(PARAM_MOVED_COUNT, countingCallback.mMovedCount);
+      logEvent.addParam(PARAM_UPDATED_COUNT, countingCallback.mUpdatedCount);
+      logEvent.addParam(PARAM_DIFFED_COUNT, diffedCount);
       logger.log(logEvent);
+    } else {
+      DataDiffCalculator.calculateDiff(
+          callback, isDetectMovesEnabled(detectMoves), updatesCallback);
     }
 
-    final RecyclerBinderUpdateCallback<T> updatesCallback =
-        acquire(
-            data.getPrevious() != null ? data.getPrevious().size() : 0,
-            data.getNext(),
-            new ComponentRenderer(DataDiffSection.getRenderEventHandler(c)),
-            new DiffSectionOperationExecutor(changeSet),
-            callback.getTrimmedHeadItemsCount());
-
-    result.dispatchUpdatesTo(updatesCallback);
     updatesCallback.applyChangeset();
 
     Callback.release(callback);
@@ -243,29 +245,15 @@ public class DataDiffSectionSpec<T> {
     private SectionContext mSectionContext;
     private EventHandler<OnCheckIsSameItemEvent> mIsSameItemEventHandler;
     private EventHandler<OnCheckIsSameContentEvent> mIsSameContentEventHandler;
-    private int mTrimmedHeadItemsCount;
-
-    void init(
-        SectionContext sectionContext,
-        List<T> previousData,
-        List<T> nextData,
-        boolean trimHeadAndTail,
-        boolean trimSameInstancesOnly) {
+
+    void init(SectionContext sectionContext, List<T> previousData, List<T> nextData) {
       mSectionContext = sectionContext;
       mIsSameItemEventHandler =
           DataDiffSection.getOnCheckIsSameItemEventHandler(mSectionContext);
       mIsSameContentEventHandler =
           DataDiffSection.getOnCheckIsSameContentEventHandler(mSectionContext);
-
-      if (trimHeadAndTail && previousData != null) {
-        Diff<List<T>> trimmedData =
-            trimHeadAndTail(previousData, nextData, trimSameInstancesOnly, this);
-        mPreviousData = trimmedData.getPrevious();
-        mNextData = trimmedData.getNext();
-      } else {
-        mPreviousData = previousData;
-        mNextData = nextData;
-      }
+      mPreviousData = previousData;
+      mNextData = nextData;
     }
 
     @Override
@@ -326,16 +314,12 @@ public class DataDiffSectionSpec<T> {
 
     @VisibleForTesting
     static <T> Callback<T> acquire(
-        SectionContext sectionContext,
-        List<T> previousData,
-        List<T> nextData,
-        boolean trimHeadAndTail,
-        boolean trimSameInstancesOnly) {
+        SectionContext sectionContext, List<T> previousData, List<T> nextData) {
       Callback callback = sCallbackPool.acquire();
       if (callback == null) {
         callback = new Callback();
       }
-      callback.init(sectionContext, previousData, nextData, trimHeadAndTail, trimSameInstancesOnly);
+      callback.init(sectionContext, previousData, nextData);
 
       return callback;
     }
@@ -346,76 +330,7 @@ public class DataDiffSectionSpec<T> {
       callback.mSectionContext = null;
       callback.mIsSameItemEventHandler = null;
       callback.mIsSameContentEventHandler = null;
-      callback.mTrimmedHeadItemsCount = 0;
       sCallbackPool.release(callback);
     }
-
-    @VisibleForTesting
-    int getTrimmedHeadItemsCount() {
-      return mTrimmedHeadItemsCount;
-    }
-
-    static <T> Diff<List<T>> trimHeadAndTail(
-        List<T> previousData,
-        List<T> nextData,
-        boolean trimSameInstancesOnly,
-        Callback<T> callback) {
-      int headTrimmedCount = 0;
-      int tailTrimmedCount = 0;
-      final int previousDataSize = previousData.size();
-      final int nextDataSize = nextData.size();
-      int tailRunnerPrevious = previousDataSize - 1;
-      int tailRunnerNext = nextDataSize - 1;
-
-      while (headTrimmedCount < previousDataSize && headTrimmedCount < nextDataSize) {
-        if (shouldTrim(
-            previousData.get(headTrimmedCount),
-            nextData.get(headTrimmedCount),
-            trimSameInstancesOnly,
-            callback)) {
-          headTrimmedCount++;
-        } else {
-          break;
-        }
-      }
-
-      while (tailRunnerPrevious > headTrimmedCount && tailRunnerNext > headTrimmedCount) {
-        if (shouldTrim(
-            previousData.get(tailRunnerPrevious),
-            nextData.get(tailRunnerNext),
-            trimSameInstancesOnly,
-            callback)) {
-          tailRunnerPrevious--;
-          tailRunnerNext--;
-          tailTrimmedCount++;
-        } else {
-          break;
-        }
-      }
-
-      callback.mTrimmedHeadItemsCount = headTrimmedCount;
-
-      if (headTrimmedCount > 0 || tailTrimmedCount > 0) {
-        return ComponentsPools.acquireDiff(
-            previousData.subList(headTrimmedCount, previousDataSize - tailTrimmedCount),
-            nextData.subList(headTrimmedCount, nextDataSize - tailTrimmedCount));
-      }
-
-      return ComponentsPools.acquireDiff(previousData, nextData);
-    }
-
-    private static <T> boolean shouldTrim(
-        T previousItem, T nextItem, boolean trimSameInstancesOnly, Callback callback) {
-      if (previousItem == nextItem) {
-        return true;
-      }
-
-      if (trimSameInstancesOnly) {
-        return false;
-      }
-
-      return callback.areItemsTheSame(previousItem, nextItem)
-          && callback.areContentsTheSame(previousItem, nextItem);
-    }
   }
 }
@@ -27,15 +27,32 @@ public class SectionsConfiguration {
   /**
    * If true, this will trim the items that pass the comparison check in the head and tail of the
    * DataDiffSection data before diffing.
+   *
+   * @deprecated DataDiffSection always matches the head and tail of its data before diffing.
    */
-  public static boolean trimDataDiffSectionHeadAndTail = false;
+  @Deprecated public static boolean trimDataDiffSectionHeadAndTail = false;
 
   /**
    * If true, this will trim only the items that are the same instance in the head and tail of the
    * DataDiffSection data before diffing.
+   *
+   * @deprecated DataDiffSection always matches the head and tail of its data before diffing.
    */
-  public static boolean trimSameInstancesOnly = false;
+  @Deprecated public static boolean trimSameInstancesOnly = false;
 
   /** Whether inserts/updates/removes should be async. */
   public static boolean asyncMutations = false;
+
+  /**
+   * If true, a new tree carries over the subtrees of the current tree whose root has unchanged
+   * props and state and that have no pending state updates, instead of calling onCreateChildren on
+   * each of their group sections again.
+   */
+  public static boolean reuseUnchangedSections = false;
+
+  /**
+   * If true, the ChangeSets waiting to be applied to the Target are merged into a single ChangeSet
+   * with as few changes as possible before they are posted to the main thread.
+   */
+  public static boolean compactPendingChangeSets = false;
 }
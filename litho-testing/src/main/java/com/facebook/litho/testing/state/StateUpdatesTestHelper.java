@@ -147,7 +147,10 @@ public final class StateUpdatesTestHelper {
     final LithoView lithoView = new LithoView(context);
     ComponentTestHelper.mountComponent(lithoView, componentTree);
 
-    Whitebox.setInternalState(component, "mGlobalKey", "bogusKeyForTest");
+    final Object globalKey =
+        Whitebox.invokeMethod(
+            Class.forName("com.facebook.litho.GlobalKey"), "create", "bogusKeyForTest");
+    Whitebox.setInternalState(component, "mGlobalKey", globalKey);
     Whitebox.setInternalState(component, "mId", 457282882);
 
     Whitebox.setInternalState(context, "mComponentScope", component);
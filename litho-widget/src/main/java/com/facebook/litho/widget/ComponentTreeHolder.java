@@ -9,12 +9,19 @@
 
 package com.facebook.litho.widget;
 
+import static com.facebook.litho.PriorityThreadPoolLayoutHandler.PRIORITY_NEAR_RANGE;
+
 import android.support.v4.util.Pools;
 import com.facebook.litho.Component;
 import com.facebook.litho.ComponentContext;
 import com.facebook.litho.ComponentTree;
 import com.facebook.litho.ComponentTree.MeasureListener;
+import com.facebook.litho.GlyphWarmer;
+import com.facebook.litho.LayoutCache;
 import com.facebook.litho.LayoutHandler;
+import com.facebook.litho.PriorityThreadPoolLayoutHandler;
+import com.facebook.litho.PriorityThreadPoolLayoutHandler.LayoutPriority;
+import com.facebook.litho.PriorityThreadPoolLayoutHandler.PrioritizedLayoutHandler;
 import com.facebook.litho.Size;
 import com.facebook.litho.StateHandler;
 import javax.annotation.Nullable;
@@ -37,6 +44,10 @@ public class ComponentTreeHolder {
   @GuardedBy("this")
   private int mLastMeasuredHeight;
 
+  // The size of the last layout of this item along the scrolling direction of its list, if its
+  // RecyclerBinder keeps track of it.
+  private volatile int mLastLayoutSize = UNINITIALIZED;
+
   @GuardedBy("this")
   private @Nullable ComponentTree mComponentTree;
 
@@ -62,6 +73,7 @@ public class ComponentTreeHolder {
   private LayoutHandler mPreallocateMountContentHandler;
   private boolean mCanPreallocateOnDefaultHandler;
   private boolean mShouldPreallocatePerMountSpec;
+  private @Nullable LayoutCache mLayoutCache;
 
   interface ComponentTreeMeasureListenerFactory {
     MeasureListener create(ComponentTreeHolder holder);
@@ -136,7 +148,12 @@ public class ComponentTreeHolder {
       componentTreeHolder = new ComponentTreeHolder();
     }
     componentTreeHolder.mRenderInfo = renderInfo;
-    componentTreeHolder.mLayoutHandler = layoutHandler;
+    // Give each item its own priority on a shared priority handler, see updateLayoutPriority.
+    componentTreeHolder.mLayoutHandler =
+        layoutHandler instanceof PriorityThreadPoolLayoutHandler
+            ? ((PriorityThreadPoolLayoutHandler) layoutHandler)
+                .createPrioritizedHandler(PRIORITY_NEAR_RANGE, null /* token */)
+            : layoutHandler;
     componentTreeHolder.mCanPrefetchDisplayLists = canPrefetchDisplayLists;
     componentTreeHolder.mCanCacheDrawingDisplayLists = canCacheDrawingDisplayLists;
     componentTreeHolder.mPreallocateMountContentHandler = preallocateMountContentHandler;
@@ -248,6 +265,14 @@ public class ComponentTreeHolder {
     mRenderInfo = renderInfo;
   }
 
+  /**
+   * Sets the {@link LayoutCache} used by the {@link ComponentTree} of this holder. Only applies to
+   * trees that are created after this call.
+   */
+  synchronized void setLayoutCache(@Nullable LayoutCache layoutCache) {
+    mLayoutCache = layoutCache;
+  }
+
   synchronized int getMeasuredHeight() {
     return mLastMeasuredHeight;
   }
@@ -256,6 +281,49 @@ public class ComponentTreeHolder {
     mLastMeasuredHeight = height;
   }
 
+  /**
+   * @return the size of the last layout of this item along the scrolling direction, or -1 if it
+   *     was not recorded yet.
+   */
+  int getLastLayoutSize() {
+    return mLastLayoutSize;
+  }
+
+  void setLastLayoutSize(int size) {
+    mLastLayoutSize = size;
+  }
+
+  /**
+   * Updates the priority of the layouts computed for this item, if it was given a {@link
+   * PrioritizedLayoutHandler}. Layouts that were already posted and have not started yet are
+   * reordered.
+   */
+  void updateLayoutPriority(@LayoutPriority int priority) {
+    final LayoutHandler layoutHandler;
+    synchronized (this) {
+      layoutHandler = mLayoutHandler;
+    }
+
+    if (layoutHandler instanceof PrioritizedLayoutHandler) {
+      ((PrioritizedLayoutHandler) layoutHandler).setPriority(priority);
+    }
+  }
+
+  /**
+   * Records how far from the viewport the item is, so that the text of the items closest to the
+   * viewport is warmed first (see {@link GlyphWarmer}).
+   */
+  void updateViewportDistance(int viewportDistance) {
+    final ComponentTree componentTree;
+    synchronized (this) {
+      componentTree = mComponentTree;
+    }
+
+    if (componentTree != null) {
+      GlyphWarmer.setViewportDistance(componentTree, viewportDistance);
+    }
+  }
+
   public synchronized boolean hasCompletedLatestLayout() {
     return mRenderInfo.rendersView()
         || (mComponentTree != null
@@ -273,10 +341,12 @@ public class ComponentTreeHolder {
     mPreallocateMountContentHandler = null;
     mShouldPreallocatePerMountSpec = false;
     mCanPreallocateOnDefaultHandler = false;
+    mLayoutCache = null;
     sComponentTreeHoldersPool.release(this);
     mPendingNewLayoutListener = null;
     mLastRequestedWidthSpec = UNINITIALIZED;
     mLastRequestedHeightSpec = UNINITIALIZED;
+    mLastLayoutSize = UNINITIALIZED;
   }
 
   @GuardedBy("this")
@@ -294,6 +364,7 @@ public class ComponentTreeHolder {
               .preAllocateMountContentHandler(mPreallocateMountContentHandler)
               .preallocateOnDefaultHandler(mCanPreallocateOnDefaultHandler)
               .shouldPreallocateMountContentPerMountSpec(mShouldPreallocatePerMountSpec)
+              .layoutCache(mLayoutCache)
               .measureListener(
                   mComponentTreeMeasureListenerFactory == null
                       ? null
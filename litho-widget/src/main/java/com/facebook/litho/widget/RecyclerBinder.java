@@ -34,9 +34,12 @@ import com.facebook.litho.ComponentContext;
 import com.facebook.litho.ComponentTree;
 import com.facebook.litho.ComponentTree.MeasureListener;
 import com.facebook.litho.EventHandler;
+import com.facebook.litho.LayoutCache;
 import com.facebook.litho.LayoutHandler;
 import com.facebook.litho.LithoView;
 import com.facebook.litho.MeasureComparisonUtils;
+import com.facebook.litho.PriorityThreadPoolLayoutHandler;
+import com.facebook.litho.PriorityThreadPoolLayoutHandler.LayoutPriority;
 import com.facebook.litho.Size;
 import com.facebook.litho.SizeSpec;
 import com.facebook.litho.ThreadUtils;
@@ -61,6 +64,8 @@ public class RecyclerBinder
     implements Binder<RecyclerView>, LayoutInfo.RenderInfoCollection, HasStickyHeader {
 
   private static final int UNINITIALIZED = -1;
+  // How many frames ahead of the viewport the range extends at the current scroll speed.
+  private static final int VELOCITY_LOOKAHEAD_FRAMES = 30;
   private static final Size sDummySize = new Size();
   private static final String TAG = RecyclerBinder.class.getSimpleName();
 
@@ -110,7 +115,11 @@ public class RecyclerBinder
     return new MeasureListener() {
       @Override
       public void onSetRootAndSizeSpec(int width, int height) {
-        if (holder.getMeasuredHeight() == height) {
+        if (mEstimateRangeFromItemSizes) {
+          recordItemSize(holder, width, height);
+        }
+
+        if (!mHasDynamicItemHeight || holder.getMeasuredHeight() == height) {
           return;
         }
 
@@ -134,6 +143,11 @@ public class RecyclerBinder
 
   private final boolean mIsCircular;
   private final boolean mHasDynamicItemHeight;
+  private final boolean mEstimateRangeFromItemSizes;
+  private final ItemSizeEstimate mItemSizeEstimate = new ItemSizeEstimate();
+  // The distance scrolled in the last frame along the scrolling direction, 0 when idle.
+  private volatile int mLastScrollDelta;
+  private final @Nullable LayoutCache mLayoutCache;
   private int mLastWidthSpec = UNINITIALIZED;
   private int mLastHeightSpec = UNINITIALIZED;
   private Size mMeasuredSize;
@@ -142,6 +156,34 @@ public class RecyclerBinder
   private int mCurrentLastVisiblePosition = RecyclerView.NO_POSITION;
   private int mCurrentOffset;
   private @Nullable RangeCalculationResult mRange;
+
+  // Positions of the holders that may have a valid tree which needs to be released once they fall
+  // out of the range. Only holders within this window or entering the range are visited when the
+  // range moves.
+  @GuardedBy("this")
+  private int mLayoutWindowStart = 0;
+
+  @GuardedBy("this")
+  private int mLayoutWindowEnd = -1;
+
+  // Positions laid out by the last range computation. As long as positions don't shift, only the
+  // visible holders and the ones entering the range need to be laid out by the next one.
+  @GuardedBy("this")
+  private int mLastLayoutStart = 0;
+
+  @GuardedBy("this")
+  private int mLastLayoutEnd = -1;
+
+  @GuardedBy("this")
+  private int mLastRangeFirstVisible = RecyclerView.NO_POSITION;
+
+  // Incremented on every change that shifts positions or invalidates the trees. The next range
+  // computation then needs to visit all holders instead of only the ones entering or leaving it.
+  private volatile int mHoldersMutationCount;
+
+  @GuardedBy("this")
+  private int mRangeMutationCount = -1;
+
   private StickyHeaderController mStickyHeaderController;
   private final boolean mCanPrefetchDisplayLists;
   private final boolean mCanCacheDrawingDisplayLists;
@@ -216,9 +258,11 @@ public class RecyclerBinder
     private LithoViewFactory lithoViewFactory;
     private boolean isCircular;
     private boolean hasDynamicItemHeight;
+    private boolean estimateRangeFromItemSizes;
     private boolean customViewTypeEnabled;
     private int componentViewType;
     private @Nullable RecyclerView.Adapter overrideInternalAdapter;
+    private @Nullable LayoutCache layoutCache;
 
     /**
      * @param rangeRatio specifies how big a range this binder should try to compute. The range is
@@ -305,6 +349,29 @@ public class RecyclerBinder
       return this;
     }
 
+    /**
+     * Whether the range is computed from the sizes of the items rather than from their count. The
+     * range then covers {@link #rangeRatio(float)} times the size of the viewport before and after
+     * it, using the sizes of the items that were laid out and their average size for the others,
+     * so that lists mixing small and tall items lay out neither too many nor too few of them. The
+     * faster the list scrolls, the further the range extends in the direction of the scroll.
+     * Defaults to false.
+     */
+    public Builder estimateRangeFromItemSizes(boolean estimateRangeFromItemSizes) {
+      this.estimateRangeFromItemSizes = estimateRangeFromItemSizes;
+      return this;
+    }
+
+    /**
+     * @param layoutCache a {@link LayoutCache} shared by the ComponentTrees of the items, so that
+     *     an item that is equivalent to one that was already laid out (e.g. after a data refresh
+     *     that created new but equal items) reuses its measurements. Not set by default.
+     */
+    public Builder layoutCache(@Nullable LayoutCache layoutCache) {
+      this.layoutCache = layoutCache;
+      return this;
+    }
+
     /**
      * Enable setting custom viewTypes on {@link ViewRenderInfo}s.
      *
@@ -359,6 +426,7 @@ public class RecyclerBinder
     mLithoViewFactory = builder.lithoViewFactory;
     mCanPrefetchDisplayLists = builder.canPrefetchDisplayLists;
     mCanCacheDrawingDisplayLists = builder.canCacheDrawingDisplayLists;
+    mLayoutCache = builder.layoutCache;
     mRenderInfoViewCreatorController =
         new RenderInfoViewCreatorController(
             builder.customViewTypeEnabled,
@@ -369,6 +437,7 @@ public class RecyclerBinder
     mIsCircular = builder.isCircular;
     mHasDynamicItemHeight =
         mLayoutInfo.getScrollDirection() == HORIZONTAL ? builder.hasDynamicItemHeight : false;
+    mEstimateRangeFromItemSizes = builder.estimateRangeFromItemSizes;
 
     mViewportManager =
         new ViewportManager(
@@ -507,6 +576,7 @@ public class RecyclerBinder
     final ComponentTreeHolder holder = createComponentTreeHolder(renderInfo);
     synchronized (this) {
       mComponentTreeHolders.add(position, holder);
+      mHoldersMutationCount++;
       mRenderInfoViewCreatorController.maybeTrackViewCreator(renderInfo);
       maybeInitRangeOrRemeasureForMutation(position, holder);
     }
@@ -576,6 +646,7 @@ public class RecyclerBinder
         final ComponentTreeHolder holder = createComponentTreeHolder(renderInfo);
 
         mComponentTreeHolders.add(position + i, holder);
+        mHoldersMutationCount++;
         mRenderInfoViewCreatorController.maybeTrackViewCreator(renderInfo);
         maybeInitRangeOrRemeasureForMutation(position + i, holder);
       }
@@ -615,6 +686,7 @@ public class RecyclerBinder
 
       mRenderInfoViewCreatorController.maybeTrackViewCreator(renderInfo);
       holder.setRenderInfo(renderInfo);
+      mHoldersMutationCount++;
 
       // Range might not have been initialized if all previous items were views and we update
       // one of them to be a component.
@@ -654,6 +726,7 @@ public class RecyclerBinder
 
         mRenderInfoViewCreatorController.maybeTrackViewCreator(newRenderInfo);
         holder.setRenderInfo(newRenderInfo);
+        mHoldersMutationCount++;
         maybeInitRangeOrRemeasureForMutation(position + i, holder);
       }
     }
@@ -678,6 +751,7 @@ public class RecyclerBinder
     synchronized (this) {
       holder = mComponentTreeHolders.remove(fromPosition);
       mComponentTreeHolders.add(toPosition, holder);
+      mHoldersMutationCount++;
 
       isNewPositionInRange = mRangeSize > 0 &&
           toPosition >= mCurrentFirstVisiblePosition - (mRangeSize * mRangeRatio) &&
@@ -708,9 +782,11 @@ public class RecyclerBinder
     final ComponentTreeHolder holder;
     synchronized (this) {
       holder = mComponentTreeHolders.remove(position);
+      mHoldersMutationCount++;
     }
     mInternalAdapter.notifyItemRemoved(position);
 
+    mItemSizeEstimate.remove(holder);
     holder.release();
 
     maybePostComputeRange();
@@ -730,8 +806,10 @@ public class RecyclerBinder
     synchronized (this) {
       for (int i = 0; i < count; i++) {
         final ComponentTreeHolder holder = mComponentTreeHolders.remove(position);
+        mItemSizeEstimate.remove(holder);
         holder.release();
       }
+      mHoldersMutationCount++;
     }
     mInternalAdapter.notifyItemRangeRemoved(position, count);
 
@@ -972,6 +1050,7 @@ public class RecyclerBinder
   @GuardedBy("this")
   private void invalidateLayoutData() {
     mRange = null;
+    mHoldersMutationCount++;
     for (int i = 0, size = mComponentTreeHolders.size(); i < size; i++) {
       mComponentTreeHolders.get(i).invalidateTree();
     }
@@ -1001,6 +1080,10 @@ public class RecyclerBinder
     final Size size = new Size();
     final ComponentTreeHolder holder = mComponentTreeHolders.get(positionToComputeLayout);
     holder.computeLayoutSync(mComponentContext, childrenWidthSpec, childrenHeightSpec, size);
+    extendLayoutWindow(positionToComputeLayout);
+    if (mEstimateRangeFromItemSizes) {
+      recordItemSize(holder, size.width, size.height);
+    }
 
     final int rangeSize = Math.max(
         mLayoutInfo.approximateRangeSize(
@@ -1295,10 +1378,15 @@ public class RecyclerBinder
   }
 
   private void computeRange(int firstVisible, int lastVisible) {
-    final int rangeSize;
     final int rangeStart;
     final int rangeEnd;
-    final int treeHoldersSize;
+    final int mutationCount;
+    final boolean ignoreRange = mIsCircular;
+    final List<ComponentTreeHolder> holdersToLayout;
+    final int[] positionsToLayout;
+    final int[] widthSpecs;
+    final int[] heightSpecs;
+    final List<ComponentTreeHolder> holdersToRelease;
 
     synchronized (this) {
       if (!mIsMeasured.get() || mRange == null) {
@@ -1308,53 +1396,334 @@ public class RecyclerBinder
       if (firstVisible == RecyclerView.NO_POSITION || lastVisible == RecyclerView.NO_POSITION) {
         firstVisible = lastVisible = 0;
       }
-      rangeSize = Math.max(mRange.estimatedViewportCount, lastVisible - firstVisible);
-      rangeStart = firstVisible - (int) (rangeSize * mRangeRatio);
-      rangeEnd = firstVisible + rangeSize + (int) (rangeSize * mRangeRatio);
-      treeHoldersSize = mComponentTreeHolders.size();
-    }
+      final int estimatedItemSize = mItemSizeEstimate.get();
+      if (mEstimateRangeFromItemSizes && !ignoreRange && estimatedItemSize > 0) {
+        final int viewportSize =
+            mLayoutInfo.getScrollDirection() == HORIZONTAL
+                ? mMeasuredSize.width
+                : mMeasuredSize.height;
+        final int rangeExtent = (int) (viewportSize * mRangeRatio);
+        final int lastScrollDelta = mLastScrollDelta;
+        final int velocityExtent =
+            Math.min(rangeExtent, Math.abs(lastScrollDelta) * VELOCITY_LOOKAHEAD_FRAMES);
+        final int extentBefore =
+            lastScrollDelta < 0 ? rangeExtent + velocityExtent : rangeExtent - velocityExtent / 2;
+        final int extentAfter =
+            lastScrollDelta > 0 ? rangeExtent + velocityExtent : rangeExtent - velocityExtent / 2;
+
+        rangeStart = getSizeBasedRangeStart(firstVisible, extentBefore, estimatedItemSize);
+        rangeEnd =
+            getSizeBasedRangeEnd(
+                firstVisible, lastVisible, viewportSize + extentAfter, estimatedItemSize);
+      } else {
+        final int rangeSize = Math.max(mRange.estimatedViewportCount, lastVisible - firstVisible);
+        rangeStart = firstVisible - (int) (rangeSize * mRangeRatio);
+        rangeEnd = firstVisible + rangeSize + (int) (rangeSize * mRangeRatio);
+      }
+
+      final int treeHoldersSize = mComponentTreeHolders.size();
+      mutationCount = mHoldersMutationCount;
+      final boolean visitAllHolders = ignoreRange || mutationCount != mRangeMutationCount;
+
+      final int layoutStart = ignoreRange ? 0 : Math.max(0, rangeStart);
+      final int layoutEnd =
+          ignoreRange ? treeHoldersSize - 1 : Math.min(treeHoldersSize - 1, rangeEnd);
+      final int layoutCount = Math.max(0, layoutEnd - layoutStart + 1);
+
+      int[] layoutOrder = new int[0];
+      if (layoutCount > 0) {
+        final int anchor =
+            ignoreRange
+                ? firstVisible % treeHoldersSize
+                : Math.min(Math.max(firstVisible, layoutStart), layoutEnd);
+        final int lastAnchor =
+            ignoreRange ? anchor : Math.max(anchor, Math.min(lastVisible, layoutEnd));
+        final boolean isScrollingBackward =
+            mLastRangeFirstVisible != RecyclerView.NO_POSITION
+                && firstVisible < mLastRangeFirstVisible;
+
+        // The visible holders are always visited, so that their pending layouts come first.
+        layoutOrder =
+            getLayoutOrder(
+                anchor,
+                lastAnchor,
+                layoutStart,
+                layoutEnd,
+                visitAllHolders ? 0 : mLastLayoutStart,
+                visitAllHolders ? -1 : mLastLayoutEnd,
+                isScrollingBackward);
+      }
+
+      holdersToLayout = new ArrayList<>(layoutOrder.length);
+      positionsToLayout = new int[layoutOrder.length];
+      widthSpecs = new int[layoutOrder.length];
+      heightSpecs = new int[layoutOrder.length];
+      for (int position : layoutOrder) {
+        final ComponentTreeHolder holder = mComponentTreeHolders.get(position);
+        if (holder.getRenderInfo().rendersView()) {
+          continue;
+        }
+
+        final int index = holdersToLayout.size();
+        holdersToLayout.add(holder);
+        positionsToLayout[index] = position;
+        widthSpecs[index] = getActualChildrenWidthSpec(holder);
+        heightSpecs[index] = getActualChildrenHeightSpec(holder);
+      }
+
+      holdersToRelease = new ArrayList<>();
+      if (!ignoreRange) {
+        // Only the holders that were laid out by a previous computation can have a valid tree,
+        // unless positions shifted since then.
+        final int releaseStart = visitAllHolders ? 0 : Math.max(0, mLayoutWindowStart);
+        final int releaseEnd =
+            visitAllHolders
+                ? treeHoldersSize - 1
+                : Math.min(treeHoldersSize - 1, mLayoutWindowEnd);
+        collectHoldersToRelease(
+            releaseStart, Math.min(releaseEnd, rangeStart - 1), holdersToRelease);
+        collectHoldersToRelease(
+            Math.max(releaseStart, rangeEnd + 1), releaseEnd, holdersToRelease);
+      }
 
-    computeRangeLayout(treeHoldersSize, rangeStart, rangeEnd, mIsCircular);
+      mLayoutWindowStart = layoutStart;
+      mLayoutWindowEnd = layoutEnd;
+      mLastLayoutStart = layoutStart;
+      mLastLayoutEnd = layoutEnd;
+      mLastRangeFirstVisible = firstVisible;
+      mRangeMutationCount = mutationCount;
+    }
+
+    computeRangeLayout(
+        mutationCount,
+        holdersToLayout,
+        positionsToLayout,
+        widthSpecs,
+        heightSpecs,
+        holdersToRelease,
+        firstVisible,
+        lastVisible,
+        ignoreRange);
+  }
+
+  @GuardedBy("this")
+  private void collectHoldersToRelease(
+      int start, int end, List<ComponentTreeHolder> holdersToRelease) {
+    for (int i = start; i <= end; i++) {
+      final ComponentTreeHolder holder = mComponentTreeHolders.get(i);
+      if (!holder.getRenderInfo().rendersView()) {
+        holdersToRelease.add(holder);
+      }
+    }
   }
 
+  /**
+   * Dispatches the layouts of the holders entering the range in the given order, then releases the
+   * trees of the holders that left it. Bails as soon as the holders are modified since another
+   * range, visiting all holders, will be computed.
+   */
   private void computeRangeLayout(
-      int treeHoldersSize, int rangeStart, int rangeEnd, boolean ignoreRange) {
-    // TODO 16212153 optimize computeRange loop.
-    for (int i = 0; i < treeHoldersSize; i++) {
-      final ComponentTreeHolder holder;
-      final int childrenWidthSpec, childrenHeightSpec;
+      int mutationCount,
+      List<ComponentTreeHolder> holdersToLayout,
+      int[] positionsToLayout,
+      int[] widthSpecs,
+      int[] heightSpecs,
+      List<ComponentTreeHolder> holdersToRelease,
+      int firstVisible,
+      int lastVisible,
+      boolean ignoreRange) {
+    final int nearRangeSize = Math.max(1, lastVisible - firstVisible + 1);
+
+    for (int i = 0, size = holdersToLayout.size(); i < size; i++) {
+      if (mutationCount != mHoldersMutationCount) {
+        return;
+      }
 
-      synchronized (this) {
-        // Someone modified the ComponentsTreeHolders while we were computing this range. We
-        // can just bail as another range will be computed.
-        if (treeHoldersSize != mComponentTreeHolders.size()) {
-          return;
-        }
+      final ComponentTreeHolder holder = holdersToLayout.get(i);
+      final int viewportDistance =
+          ignoreRange ? 0 : getViewportDistance(positionsToLayout[i], firstVisible, lastVisible);
+      if (!ignoreRange) {
+        holder.updateLayoutPriority(getLayoutPriority(viewportDistance, nearRangeSize));
+      }
 
-        holder = mComponentTreeHolders.get(i);
+      if (!holder.isTreeValid()) {
+        holder.computeLayoutAsync(mComponentContext, widthSpecs[i], heightSpecs[i]);
+      }
 
-        if (holder.getRenderInfo().rendersView()) {
-          continue;
-        }
+      if (!ignoreRange) {
+        holder.updateViewportDistance(viewportDistance);
+      }
+    }
 
-        childrenWidthSpec = getActualChildrenWidthSpec(holder);
-        childrenHeightSpec = getActualChildrenHeightSpec(holder);
+    for (int i = 0, size = holdersToRelease.size(); i < size; i++) {
+      if (mutationCount != mHoldersMutationCount) {
+        return;
       }
 
-      if (ignoreRange) {
-        if (!holder.isTreeValid()) {
-          holder.computeLayoutAsync(mComponentContext, childrenWidthSpec, childrenHeightSpec);
+      final ComponentTreeHolder holder = holdersToRelease.get(i);
+      if (holder.isTreeValid() && !holder.getRenderInfo().isSticky()) {
+        holder.acquireStateHandlerAndReleaseTree();
+      }
+    }
+  }
+
+  /**
+   * @return the positions in [start, end], starting with the visible ones in [anchor, lastAnchor]
+   *     and then alternating between the positions after and before them, so that the items
+   *     closest to the viewport come first. Ties go to the scrolling direction.
+   */
+  @VisibleForTesting
+  static int[] getLayoutOrder(
+      int anchor, int lastAnchor, int start, int end, boolean isScrollingBackward) {
+    return getLayoutOrder(anchor, lastAnchor, start, end, 0, -1, isScrollingBackward);
+  }
+
+  /**
+   * Same as {@link #getLayoutOrder(int, int, int, int, boolean)}, without the positions in
+   * [skipStart, skipEnd] that aren't visible, which are never visited.
+   */
+  @VisibleForTesting
+  static int[] getLayoutOrder(
+      int anchor,
+      int lastAnchor,
+      int start,
+      int end,
+      int skipStart,
+      int skipEnd,
+      boolean isScrollingBackward) {
+    int size = end - start + 1;
+    final int skippedStart = Math.max(start, skipStart);
+    final int skippedEnd = Math.min(end, skipEnd);
+    if (skippedStart <= skippedEnd) {
+      final int skippedVisibleCount =
+          Math.min(skippedEnd, lastAnchor) - Math.max(skippedStart, anchor) + 1;
+      size -= skippedEnd - skippedStart + 1 - Math.max(0, skippedVisibleCount);
+    }
+
+    final int[] order = new int[size];
+    int count = 0;
+    for (int i = anchor; i <= lastAnchor; i++) {
+      order[count++] = i;
+    }
+
+    int before = skipDown(anchor - 1, skipStart, skipEnd);
+    int after = skipUp(lastAnchor + 1, skipStart, skipEnd);
+    while (count < size) {
+      if (isScrollingBackward) {
+        if (before >= start) {
+          order[count++] = before;
+          before = skipDown(before - 1, skipStart, skipEnd);
+        }
+        if (after <= end) {
+          order[count++] = after;
+          after = skipUp(after + 1, skipStart, skipEnd);
         }
       } else {
-        if (i >= rangeStart && i <= rangeEnd) {
-          if (!holder.isTreeValid()) {
-            holder.computeLayoutAsync(mComponentContext, childrenWidthSpec, childrenHeightSpec);
-          }
-        } else if (holder.isTreeValid() && !holder.getRenderInfo().isSticky()) {
-          holder.acquireStateHandlerAndReleaseTree();
+        if (after <= end) {
+          order[count++] = after;
+          after = skipUp(after + 1, skipStart, skipEnd);
+        }
+        if (before >= start) {
+          order[count++] = before;
+          before = skipDown(before - 1, skipStart, skipEnd);
         }
       }
     }
+
+    return order;
+  }
+
+  private static int skipDown(int position, int skipStart, int skipEnd) {
+    return position >= skipStart && position <= skipEnd ? skipStart - 1 : position;
+  }
+
+  private static int skipUp(int position, int skipStart, int skipEnd) {
+    return position >= skipStart && position <= skipEnd ? skipEnd + 1 : position;
+  }
+
+  /**
+   * @return the first position of a range extending the given size, in pixels, before the first
+   *     visible item.
+   */
+  @GuardedBy("this")
+  private int getSizeBasedRangeStart(int firstVisible, int extent, int estimatedItemSize) {
+    int position = Math.min(firstVisible, mComponentTreeHolders.size());
+    int remainingSize = extent;
+    while (position > 0 && remainingSize > 0) {
+      position--;
+      remainingSize -= getItemSize(mComponentTreeHolders.get(position), estimatedItemSize);
+    }
+
+    return position;
+  }
+
+  /**
+   * @return the last position of a range covering at least the visible items and extending the
+   *     given size, in pixels, from the first visible item.
+   */
+  @GuardedBy("this")
+  private int getSizeBasedRangeEnd(
+      int firstVisible, int lastVisible, int extent, int estimatedItemSize) {
+    final int holdersCount = mComponentTreeHolders.size();
+    int position = firstVisible - 1;
+    int remainingSize = extent;
+    while (position + 1 < holdersCount && (position < lastVisible || remainingSize > 0)) {
+      position++;
+      remainingSize -= getItemSize(mComponentTreeHolders.get(position), estimatedItemSize);
+    }
+
+    return position;
+  }
+
+  /**
+   * @return the size of the last layout of the item along the scrolling direction, or the
+   *     estimated size of the items if it wasn't laid out yet. Never 0, so that empty items still
+   *     count toward the size of the range.
+   */
+  private static int getItemSize(ComponentTreeHolder holder, int estimatedItemSize) {
+    final int size = holder.getLastLayoutSize();
+    return Math.max(1, size == UNINITIALIZED ? estimatedItemSize : size);
+  }
+
+  /** Records the size of the layout of an item along the scrolling direction. */
+  private void recordItemSize(ComponentTreeHolder holder, int width, int height) {
+    mItemSizeEstimate.update(
+        holder, mLayoutInfo.getScrollDirection() == HORIZONTAL ? width : height);
+  }
+
+  /** Makes sure the next range computation visits the holder at position, which has a tree. */
+  @GuardedBy("this")
+  private void extendLayoutWindow(int position) {
+    if (mLayoutWindowStart > mLayoutWindowEnd) {
+      mLayoutWindowStart = mLayoutWindowEnd = position;
+    } else {
+      mLayoutWindowStart = Math.min(mLayoutWindowStart, position);
+      mLayoutWindowEnd = Math.max(mLayoutWindowEnd, position);
+    }
+  }
+
+  /**
+   * @return how many items away from the visible ones the item at the given position is, or 0 if
+   *     it is visible.
+   */
+  private static int getViewportDistance(int position, int firstVisible, int lastVisible) {
+    return position < firstVisible
+        ? firstVisible - position
+        : position > lastVisible ? position - lastVisible : 0;
+  }
+
+  /**
+   * @return the priority of the layout of an item at the given distance from the viewport: visible
+   *     items first, then the items less than a viewport away from the visible ones.
+   */
+  private static @LayoutPriority int getLayoutPriority(int distance, int nearRangeSize) {
+    if (distance == 0) {
+      return PriorityThreadPoolLayoutHandler.PRIORITY_VISIBLE;
+    }
+
+    return distance <= nearRangeSize
+        ? PriorityThreadPoolLayoutHandler.PRIORITY_NEAR_RANGE
+        : PriorityThreadPoolLayoutHandler.PRIORITY_FAR_RANGE;
   }
 
   @VisibleForTesting
@@ -1389,10 +1758,63 @@ public class RecyclerBinder
     return mLayoutInfo.getChildHeightSpec(mLastHeightSpec, treeHolder.getRenderInfo());
   }
 
+  /**
+   * The average size of the items of the list that were laid out so far along the scrolling
+   * direction, used to estimate the size of the ones that weren't. The size of each item is also
+   * kept on its holder, so that it's counted once and can be subtracted when the item is removed.
+   */
+  @ThreadSafe
+  private static class ItemSizeEstimate {
+
+    @GuardedBy("this")
+    private long mSizesSum;
+
+    @GuardedBy("this")
+    private int mItemsCount;
+
+    synchronized void update(ComponentTreeHolder holder, int size) {
+      final int previousSize = holder.getLastLayoutSize();
+      if (previousSize == UNINITIALIZED) {
+        mItemsCount++;
+      } else {
+        mSizesSum -= previousSize;
+      }
+
+      mSizesSum += size;
+      holder.setLastLayoutSize(size);
+    }
+
+    /** Stops counting the size of an item that is removed, and resets it. */
+    synchronized void remove(ComponentTreeHolder holder) {
+      final int size = holder.getLastLayoutSize();
+      if (size == UNINITIALIZED) {
+        return;
+      }
+
+      mItemsCount--;
+      mSizesSum -= size;
+      holder.setLastLayoutSize(UNINITIALIZED);
+    }
+
+    /** @return the average size of the items, or 0 if none was laid out yet. */
+    synchronized int get() {
+      return mItemsCount == 0 ? 0 : (int) (mSizesSum / mItemsCount);
+    }
+  }
+
   private class RangeScrollListener extends RecyclerView.OnScrollListener {
 
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+      if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+        mLastScrollDelta = 0;
+      }
+    }
+
     @Override
     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+      mLastScrollDelta = mLayoutInfo.getScrollDirection() == HORIZONTAL ? dx : dy;
+
       if (mCanPrefetchDisplayLists) {
         DisplayListUtils.prefetchDisplayLists(recyclerView);
       }
@@ -1453,6 +1875,9 @@ public class RecyclerBinder
         if (!componentTreeHolder.isTreeValid()) {
           componentTreeHolder.computeLayoutSync(
               mComponentContext, childrenWidthSpec, childrenHeightSpec, null);
+          synchronized (RecyclerBinder.this) {
+            extendLayoutWindow(position);
+          }
         }
         final boolean isOrientationVertical =
             mLayoutInfo.getScrollDirection() == OrientationHelper.VERTICAL;
@@ -1576,13 +2001,21 @@ public class RecyclerBinder
   }
 
   private ComponentTreeHolder createComponentTreeHolder(RenderInfo renderInfo) {
-    return mComponentTreeHolderFactory.create(
-        renderInfo,
-        mLayoutHandlerFactory != null
-            ? mLayoutHandlerFactory.createLayoutCalculationHandler(renderInfo)
-            : null,
-        mCanPrefetchDisplayLists,
-        mCanCacheDrawingDisplayLists,
-        mHasDynamicItemHeight ? mComponentTreeMeasureListenerFactory : null);
+    final ComponentTreeHolder holder =
+        mComponentTreeHolderFactory.create(
+            renderInfo,
+            mLayoutHandlerFactory != null
+                ? mLayoutHandlerFactory.createLayoutCalculationHandler(renderInfo)
+                : null,
+            mCanPrefetchDisplayLists,
+            mCanCacheDrawingDisplayLists,
+            mHasDynamicItemHeight || mEstimateRangeFromItemSizes
+                ? mComponentTreeMeasureListenerFactory
+                : null);
+    if (mLayoutCache != null) {
+      holder.setLayoutCache(mLayoutCache);
+    }
+
+    return holder;
   }
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.content.res.ColorStateList;
+import android.graphics.Typeface;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.text.TextDirectionHeuristicCompat;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.Layout.Alignment;
+import android.text.Spannable;
+import android.text.TextUtils.TruncateAt;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.yoga.YogaDirection;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A cache of the text {@link Layout}s created by the Text component, shared by all the Text
+ * components and layout threads of the app (see {@link
+ * ComponentsConfiguration#useTextLayoutCache}). The same text with the same style laid out with the
+ * same width constraint, as it is in the items of a list or when an item is laid out again, is then
+ * only shaped once.
+ *
+ * <p>Layouts are keyed by their text, by all the props that affect them and by the width {@link
+ * com.facebook.litho.SizeSpec} they were created for. The least recently used layouts are evicted
+ * once the estimated memory used by the cached layouts exceeds {@link
+ * ComponentsConfiguration#textLayoutCacheMaxSizeBytes}. Hit, miss and eviction counts are available
+ * to monitor how effective the cache is.
+ */
+@ThreadSafe
+public class TextLayoutCache {
+
+  // Rough estimates of the memory used by a Layout and by each of its lines.
+  private static final int LAYOUT_SIZE_BYTES = 256;
+  private static final int LINE_SIZE_BYTES = 48;
+
+  private static TextLayoutCache sInstance;
+
+  private final LruCache<Key, Layout> mLayouts;
+
+  /** @return the global {@link TextLayoutCache} instance. */
+  public static synchronized TextLayoutCache getInstance() {
+    if (sInstance == null) {
+      sInstance = new TextLayoutCache(ComponentsConfiguration.textLayoutCacheMaxSizeBytes);
+    }
+
+    return sInstance;
+  }
+
+  @VisibleForTesting
+  TextLayoutCache(int maxSizeBytes) {
+    mLayouts =
+        new LruCache<Key, Layout>(maxSizeBytes) {
+          @Override
+          protected int sizeOf(Key key, Layout layout) {
+            return LAYOUT_SIZE_BYTES
+                + layout.getLineCount() * LINE_SIZE_BYTES
+                + key.mText.length() * 2;
+          }
+        };
+  }
+
+  /**
+   * A layout can only be shared if its text can't change and if it isn't drawn with different
+   * colors: the mounted Text sets the color of the paint of its layout from its color state list.
+   *
+   * @return whether a layout of the given text and colors can be cached.
+   */
+  static boolean canCache(
+      CharSequence text, int textColor, @Nullable ColorStateList textColorStateList) {
+    return !(text instanceof Spannable)
+        && (textColor != 0 || textColorStateList == TextSpec.textColorStateList);
+  }
+
+  @Nullable
+  Layout get(Key key) {
+    return mLayouts.get(key);
+  }
+
+  void put(Key key, Layout layout) {
+    mLayouts.put(key, layout);
+  }
+
+  /** Evicts all the cached layouts, e.g. when the app is asked to trim its memory. */
+  public void clear() {
+    mLayouts.evictAll();
+  }
+
+  /** @return the estimated memory used by the cached layouts, in bytes. */
+  public int getSizeBytes() {
+    return mLayouts.size();
+  }
+
+  /** @return how many times a layout was found in the cache. */
+  public int getHitCount() {
+    return mLayouts.hitCount();
+  }
+
+  /** @return how many times a layout was not found in the cache and had to be created. */
+  public int getMissCount() {
+    return mLayouts.missCount();
+  }
+
+  /** @return how many layouts were evicted to keep the cache under its maximum size. */
+  public int getEvictionCount() {
+    return mLayouts.evictionCount();
+  }
+
+  /** The text of a layout and all the parameters it was created with. */
+  static final class Key {
+
+    private final int mWidthSpec;
+    @Nullable private final TruncateAt mEllipsize;
+    private final boolean mShouldIncludeFontPadding;
+    private final int mMaxLines;
+    private final float mShadowRadius;
+    private final float mShadowDx;
+    private final float mShadowDy;
+    private final int mShadowColor;
+    private final boolean mIsSingleLine;
+    private final CharSequence mText;
+    private final int mTextColor;
+    @Nullable private final ColorStateList mTextColorStateList;
+    private final int mLinkColor;
+    private final int mTextSize;
+    private final float mExtraSpacing;
+    private final float mSpacingMultiplier;
+    private final int mTextStyle;
+    @Nullable private final Typeface mTypeface;
+    @Nullable private final Alignment mTextAlignment;
+    @Nullable private final YogaDirection mLayoutDirection;
+    private final int mMinEms;
+    private final int mMaxEms;
+    private final int mMinTextWidth;
+    private final int mMaxTextWidth;
+    private final float mDensity;
+    private final int mBreakStrategy;
+    private final int mHyphenationFrequency;
+    @Nullable private final TextDirectionHeuristicCompat mTextDirection;
+    private final int mHashCode;
+
+    Key(
+        int widthSpec,
+        @Nullable TruncateAt ellipsize,
+        boolean shouldIncludeFontPadding,
+        int maxLines,
+        float shadowRadius,
+        float shadowDx,
+        float shadowDy,
+        int shadowColor,
+        boolean isSingleLine,
+        CharSequence text,
+        int textColor,
+        @Nullable ColorStateList textColorStateList,
+        int linkColor,
+        int textSize,
+        float extraSpacing,
+        float spacingMultiplier,
+        int textStyle,
+        @Nullable Typeface typeface,
+        @Nullable Alignment textAlignment,
+        @Nullable YogaDirection layoutDirection,
+        int minEms,
+        int maxEms,
+        int minTextWidth,
+        int maxTextWidth,
+        float density,
+        int breakStrategy,
+        int hyphenationFrequency,
+        @Nullable TextDirectionHeuristicCompat textDirection) {
+      mWidthSpec = widthSpec;
+      mEllipsize = ellipsize;
+      mShouldIncludeFontPadding = shouldIncludeFontPadding;
+      mMaxLines = maxLines;
+      mShadowRadius = shadowRadius;
+      mShadowDx = shadowDx;
+      mShadowDy = shadowDy;
+      mShadowColor = shadowColor;
+      mIsSingleLine = isSingleLine;
+      mText = text;
+      mTextColor = textColor;
+      mTextColorStateList = textColorStateList;
+      mLinkColor = linkColor;
+      mTextSize = textSize;
+      mExtraSpacing = extraSpacing;
+      mSpacingMultiplier = spacingMultiplier;
+      mTextStyle = textStyle;
+      mTypeface = typeface;
+      mTextAlignment = textAlignment;
+      mLayoutDirection = layoutDirection;
+      mMinEms = minEms;
+      mMaxEms = maxEms;
+      mMinTextWidth = minTextWidth;
+      mMaxTextWidth = maxTextWidth;
+      mDensity = density;
+      mBreakStrategy = breakStrategy;
+      mHyphenationFrequency = hyphenationFrequency;
+      mTextDirection = textDirection;
+      mHashCode = computeHashCode();
+    }
+
+    private int computeHashCode() {
+      int result = mWidthSpec;
+      result = 31 * result + (mEllipsize != null ? mEllipsize.hashCode() : 0);
+      result = 31 * result + (mShouldIncludeFontPadding ? 1 : 0);
+      result = 31 * result + mMaxLines;
+      result = 31 * result + Float.floatToIntBits(mShadowRadius);
+      result = 31 * result + Float.floatToIntBits(mShadowDx);
+      result = 31 * result + Float.floatToIntBits(mShadowDy);
+      result = 31 * result + mShadowColor;
+      result = 31 * result + (mIsSingleLine ? 1 : 0);
+      result = 31 * result + mText.hashCode();
+      result = 31 * result + mTextColor;
+      result = 31 * result + (mTextColorStateList != null ? mTextColorStateList.hashCode() : 0);
+      result = 31 * result + mLinkColor;
+      result = 31 * result + mTextSize;
+      result = 31 * result + Float.floatToIntBits(mExtraSpacing);
+      result = 31 * result + Float.floatToIntBits(mSpacingMultiplier);
+      result = 31 * result + mTextStyle;
+      result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+      result = 31 * result + (mTextAlignment != null ? mTextAlignment.hashCode() : 0);
+      result = 31 * result + (mLayoutDirection != null ? mLayoutDirection.hashCode() : 0);
+      result = 31 * result + mMinEms;
+      result = 31 * result + mMaxEms;
+      result = 31 * result + mMinTextWidth;
+      result = 31 * result + mMaxTextWidth;
+      result = 31 * result + Float.floatToIntBits(mDensity);
+      result = 31 * result + mBreakStrategy;
+      result = 31 * result + mHyphenationFrequency;
+      result = 31 * result + (mTextDirection != null ? mTextDirection.hashCode() : 0);
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      final Key key = (Key) o;
+      return mHashCode == key.mHashCode
+          && mWidthSpec == key.mWidthSpec
+          && mEllipsize == key.mEllipsize
+          && mShouldIncludeFontPadding == key.mShouldIncludeFontPadding
+          && mMaxLines == key.mMaxLines
+          && Float.compare(mShadowRadius, key.mShadowRadius) == 0
+          && Float.compare(mShadowDx, key.mShadowDx) == 0
+          && Float.compare(mShadowDy, key.mShadowDy) == 0
+          && mShadowColor == key.mShadowColor
+          && mIsSingleLine == key.mIsSingleLine
+          && mTextColor == key.mTextColor
+          && mTextColorStateList == key.mTextColorStateList
+          && mLinkColor == key.mLinkColor
+          && mTextSize == key.mTextSize
+          && Float.compare(mExtraSpacing, key.mExtraSpacing) == 0
+          && Float.compare(mSpacingMultiplier, key.mSpacingMultiplier) == 0
+          && mTextStyle == key.mTextStyle
+          && (mTypeface != null ? mTypeface.equals(key.mTypeface) : key.mTypeface == null)
+          && mTextAlignment == key.mTextAlignment
+          && mLayoutDirection == key.mLayoutDirection
+          && mMinEms == key.mMinEms
+          && mMaxEms == key.mMaxEms
+          && mMinTextWidth == key.mMinTextWidth
+          && mMaxTextWidth == key.mMaxTextWidth
+          && Float.compare(mDensity, key.mDensity) == 0
+          && mBreakStrategy == key.mBreakStrategy
+          && mHyphenationFrequency == key.mHyphenationFrequency
+          && mTextDirection == key.mTextDirection
+          && mText.equals(key.mText);
+    }
+
+    @Override
+    public int hashCode() {
+      return mHashCode;
+    }
+  }
+}
@@ -53,6 +53,7 @@ import com.facebook.litho.ComponentContext;
 import com.facebook.litho.ComponentLayout;
 import com.facebook.litho.ComponentsLogger;
 import com.facebook.litho.EventHandler;
+import com.facebook.litho.GlyphWarmer;
 import com.facebook.litho.LogEvent;
 import com.facebook.litho.Output;
 import com.facebook.litho.R;
@@ -74,6 +75,7 @@ import com.facebook.litho.annotations.OnUnmount;
 import com.facebook.litho.annotations.Prop;
 import com.facebook.litho.annotations.PropDefault;
 import com.facebook.litho.annotations.ResType;
+import com.facebook.litho.config.ComponentsConfiguration;
 import com.facebook.litho.utils.DisplayListUtils;
 import com.facebook.widget.accessibility.delegates.AccessibleClickableSpan;
 import com.facebook.yoga.YogaDirection;
@@ -460,7 +462,8 @@ class TextSpec {
             context.getResources().getDisplayMetrics().density,
             breakStrategy,
             hyphenationFrequency,
-            textDirection);
+            textDirection,
+            context);
 
     measureLayout.set(newLayout);
 
@@ -525,9 +528,52 @@ class TextSpec {
       float density,
       int breakStrategy,
       int hyphenationFrequency,
-      TextDirectionHeuristicCompat textDirection) {
+      TextDirectionHeuristicCompat textDirection,
+      ComponentContext c) {
     Layout newLayout;
 
+    TextLayoutCache textLayoutCache = null;
+    TextLayoutCache.Key textLayoutKey = null;
+    if (ComponentsConfiguration.useTextLayoutCache
+        && TextLayoutCache.canCache(text, textColor, textColorStateList)) {
+      textLayoutCache = TextLayoutCache.getInstance();
+      textLayoutKey =
+          new TextLayoutCache.Key(
+              widthSpec,
+              ellipsize,
+              shouldIncludeFontPadding,
+              maxLines,
+              shadowRadius,
+              shadowDx,
+              shadowDy,
+              shadowColor,
+              isSingleLine,
+              text,
+              textColor,
+              textColorStateList,
+              linkColor,
+              textSize,
+              extraSpacing,
+              spacingMultiplier,
+              textStyle,
+              typeface,
+              textAlignment,
+              layoutDirection,
+              minEms,
+              maxEms,
+              minTextWidth,
+              maxTextWidth,
+              density,
+              breakStrategy,
+              hyphenationFrequency,
+              textDirection);
+
+      newLayout = textLayoutCache.get(textLayoutKey);
+      if (newLayout != null) {
+        return newLayout;
+      }
+    }
+
     TextLayoutBuilder layoutBuilder = sTextLayoutBuilderPool.acquire();
     if (layoutBuilder == null) {
       layoutBuilder = new TextLayoutBuilder();
@@ -609,8 +655,12 @@ class TextSpec {
     layoutBuilder.setText(null);
     sTextLayoutBuilderPool.release(layoutBuilder);
 
+    if (textLayoutCache != null) {
+      textLayoutCache.put(textLayoutKey, newLayout);
+    }
+
     if (glyphWarming && !DisplayListUtils.isEligibleForCreatingDisplayLists()) {
-      GlyphWarmer.getInstance().warmLayout(newLayout);
+      GlyphWarmer.getInstance().warmLayout(newLayout, c);
     }
 
     return newLayout;
@@ -781,7 +831,8 @@ class TextSpec {
               c.getResources().getDisplayMetrics().density,
               breakStrategy,
               hyphenationFrequency,
-              textDirection));
+              textDirection,
+              c));
     }
 
     final float textHeight = LayoutMeasureUtil.getHeight(textLayout.get());